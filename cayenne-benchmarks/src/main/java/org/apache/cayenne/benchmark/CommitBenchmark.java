@@ -0,0 +1,101 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.benchmark.db.Artist;
+import org.apache.cayenne.benchmark.db.Painting;
+import org.apache.cayenne.query.SelectQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures commits of insert, update and mixed change sets going through
+ * DataDomainFlushAction and the batch query builders. Each invocation starts
+ * with a fresh ObjectContext.
+ * 
+ * @since 4.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CommitBenchmark {
+
+    static final int BATCH_SIZE = 20;
+
+    @Benchmark
+    public void insert(DatabaseState state) {
+        ObjectContext context = state.newContext();
+
+        Artist artist = context.newObject(Artist.class);
+        artist.setArtistName("inserted");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Painting painting = context.newObject(Painting.class);
+            painting.setPaintingTitle("inserted" + i);
+            painting.setToArtist(artist);
+        }
+
+        context.commitChanges();
+    }
+
+    @Benchmark
+    public void update(DatabaseState state) {
+        ObjectContext context = state.newContext();
+
+        SelectQuery<Painting> query = new SelectQuery<Painting>(Painting.class);
+        query.setFetchLimit(BATCH_SIZE);
+        List<Painting> paintings = context.select(query);
+
+        long now = System.nanoTime();
+        for (Painting painting : paintings) {
+            painting.setEstimatedPrice(BigDecimal.valueOf(now++ % 100000));
+        }
+
+        context.commitChanges();
+    }
+
+    @Benchmark
+    public void insertDelete(DatabaseState state) {
+        ObjectContext context = state.newContext();
+
+        Artist artist = context.newObject(Artist.class);
+        artist.setArtistName("deleted");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Painting painting = context.newObject(Painting.class);
+            painting.setPaintingTitle("deleted" + i);
+            painting.setToArtist(artist);
+        }
+        context.commitChanges();
+
+        context.deleteObjects(artist.getPaintingArray());
+        context.deleteObjects(artist);
+        context.commitChanges();
+    }
+}
@@ -0,0 +1,118 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmark;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.access.DataRowStore;
+import org.apache.cayenne.event.DefaultEventManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the shared snapshot cache under a mixed workload of readers
+ * looking up snapshots and writers posting snapshot changes.
+ * 
+ * @since 4.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Group)
+public class DataRowStoreBenchmark {
+
+    static final int IDS = 10000;
+
+    DefaultEventManager eventManager;
+    DataRowStore store;
+    ObjectId[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        eventManager = new DefaultEventManager(0);
+        store = new DataRowStore("benchmark", Collections.EMPTY_MAP, eventManager);
+
+        ids = new ObjectId[IDS];
+        Map<ObjectId, DataRow> snapshots = new HashMap<ObjectId, DataRow>();
+        for (int i = 0; i < IDS; i++) {
+            ids[i] = new ObjectId("Painting", "PAINTING_ID", i);
+            snapshots.put(ids[i], row(i, 0));
+        }
+
+        store.processSnapshotChanges(this, snapshots, Collections.EMPTY_LIST,
+                Collections.EMPTY_LIST, Collections.EMPTY_LIST);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        eventManager.shutdown();
+    }
+
+    static DataRow row(int id, long version) {
+        DataRow row = new DataRow(4);
+        row.put("PAINTING_ID", id);
+        row.put("PAINTING_TITLE", "painting" + id);
+        row.put("ESTIMATED_PRICE", version);
+        row.setReplacesVersion(version);
+        return row;
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+        long version;
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public DataRow read(Cursor cursor) {
+        return store.getCachedSnapshot(ids[cursor.next++ % IDS]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void write(Cursor cursor) {
+        int i = cursor.next++ % IDS;
+        store.processSnapshotChanges(this,
+                Collections.singletonMap(ids[i], row(i, ++cursor.version)),
+                Collections.EMPTY_LIST, Collections.EMPTY_LIST, Collections.EMPTY_LIST);
+    }
+}
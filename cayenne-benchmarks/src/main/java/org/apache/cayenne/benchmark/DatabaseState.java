@@ -0,0 +1,82 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.benchmark.db.Artist;
+import org.apache.cayenne.benchmark.db.Painting;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.configuration.server.ServerRuntimeBuilder;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Shared benchmark state: a Cayenne stack over an in-memory Derby database,
+ * populated with a fixed data set of artists and their paintings.
+ * 
+ * @since 4.0
+ */
+@State(Scope.Benchmark)
+public class DatabaseState {
+
+    public static final int ARTISTS = 100;
+    public static final int PAINTINGS_PER_ARTIST = 10;
+
+    ServerRuntime runtime;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        runtime = new ServerRuntimeBuilder("cayenne-benchmarks.xml").build();
+
+        ObjectContext context = runtime.newContext();
+        for (int i = 0; i < ARTISTS; i++) {
+            Artist artist = context.newObject(Artist.class);
+            artist.setArtistName("artist" + i);
+            artist.setDateOfBirth(new Date(i * 86400000L));
+
+            for (int j = 0; j < PAINTINGS_PER_ARTIST; j++) {
+                Painting painting = context.newObject(Painting.class);
+                painting.setPaintingTitle("painting" + i + "_" + j);
+                painting.setEstimatedPrice(new BigDecimal(j * 1000));
+                painting.setToArtist(artist);
+            }
+        }
+
+        context.commitChanges();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        runtime.shutdown();
+    }
+
+    public ServerRuntime getRuntime() {
+        return runtime;
+    }
+
+    public ObjectContext newContext() {
+        return runtime.newContext();
+    }
+}
@@ -0,0 +1,75 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.benchmark.db.Artist;
+import org.apache.cayenne.benchmark.db.Painting;
+import org.apache.cayenne.query.SelectQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures object materialization: plain selects resolved by ObjectResolver
+ * and prefetching selects resolved by HierarchicalObjectResolver. Each
+ * invocation uses a fresh ObjectContext, so that every row is converted to
+ * a new object.
+ * 
+ * @since 4.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ObjectResolverBenchmark {
+
+    @Benchmark
+    public List<Painting> objects(DatabaseState state) {
+        return state.newContext().select(new SelectQuery<Painting>(Painting.class));
+    }
+
+    @Benchmark
+    public List<Artist> jointPrefetch(DatabaseState state) {
+        SelectQuery<Artist> query = new SelectQuery<Artist>(Artist.class);
+        query.addPrefetch(Artist.PAINTING_ARRAY.joint());
+        return state.newContext().select(query);
+    }
+
+    @Benchmark
+    public List<Artist> disjointPrefetch(DatabaseState state) {
+        SelectQuery<Artist> query = new SelectQuery<Artist>(Artist.class);
+        query.addPrefetch(Artist.PAINTING_ARRAY.disjoint());
+        return state.newContext().select(query);
+    }
+
+    @Benchmark
+    public List<Artist> disjointByIdPrefetch(DatabaseState state) {
+        SelectQuery<Artist> query = new SelectQuery<Artist>(Artist.class);
+        query.addPrefetch(Artist.PAINTING_ARRAY.disjointById());
+        return state.newContext().select(query);
+    }
+}
@@ -0,0 +1,74 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmark;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.conn.PoolDataSource;
+import org.apache.cayenne.conn.PoolManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures checkout and return of pooled connections with more threads than
+ * there are connections in the pool.
+ * 
+ * @since 4.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class PoolManagerBenchmark {
+
+    static final String DRIVER = "org.apache.derby.jdbc.EmbeddedDriver";
+    static final String URL = "jdbc:derby:memory:pool;create=true";
+
+    PoolManager pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        pool = new PoolManager(new PoolDataSource(DRIVER, URL), 1, 4, null, null, 20000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void checkoutAndReturn() throws SQLException {
+        pool.getConnection().close();
+    }
+}
@@ -0,0 +1,105 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.benchmark.db.Painting;
+import org.apache.cayenne.cache.MapQueryCache;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryMetadata;
+import org.apache.cayenne.query.SelectQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures contended access to the MapQueryCache. Cache keys are computed
+ * upfront, so that only the cache itself is measured.
+ * 
+ * @since 4.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(4)
+public class QueryCacheBenchmark {
+
+    static final int KEYS = 1000;
+
+    @State(Scope.Benchmark)
+    public static class CacheState {
+
+        MapQueryCache cache;
+        QueryMetadata[] metadata;
+        List<?> result;
+
+        @Setup(Level.Trial)
+        public void setUp(DatabaseState database) {
+            EntityResolver resolver = database.getRuntime().getDataDomain().getEntityResolver();
+
+            cache = new MapQueryCache(KEYS / 2);
+            metadata = new QueryMetadata[KEYS];
+            result = new ArrayList<Object>(Collections.nCopies(10, "x"));
+
+            for (int i = 0; i < KEYS; i++) {
+                SelectQuery<Painting> query = new SelectQuery<Painting>(Painting.class,
+                        ExpressionFactory.matchExp(Painting.PAINTING_TITLE.getName(), "painting" + i));
+                query.setCacheStrategy(QueryCacheStrategy.LOCAL_CACHE);
+                metadata[i] = query.getMetaData(resolver);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+
+        QueryMetadata next(CacheState state) {
+            return state.metadata[next++ % KEYS];
+        }
+    }
+
+    @Benchmark
+    public List<?> get(CacheState state, Cursor cursor) {
+        return state.cache.get(cursor.next(state));
+    }
+
+    @Benchmark
+    public void put(CacheState state, Cursor cursor) {
+        state.cache.put(cursor.next(state), state.result);
+    }
+}
@@ -0,0 +1,48 @@
+package org.apache.cayenne.benchmark.db.auto;
+
+import java.math.BigDecimal;
+
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.benchmark.db.Artist;
+import org.apache.cayenne.exp.Property;
+
+/**
+ * Class _Painting was generated by Cayenne.
+ * It is probably a good idea to avoid changing this class manually,
+ * since it may be overwritten next time code is regenerated.
+ * If you need to make any customizations, please use subclass.
+ */
+public abstract class _Painting extends CayenneDataObject {
+
+    private static final long serialVersionUID = 1L; 
+
+    public static final String PAINTING_ID_PK_COLUMN = "PAINTING_ID";
+
+    public static final Property<BigDecimal> ESTIMATED_PRICE = new Property<BigDecimal>("estimatedPrice");
+    public static final Property<String> PAINTING_TITLE = new Property<String>("paintingTitle");
+    public static final Property<Artist> TO_ARTIST = new Property<Artist>("toArtist");
+
+    public void setEstimatedPrice(BigDecimal estimatedPrice) {
+        writeProperty("estimatedPrice", estimatedPrice);
+    }
+    public BigDecimal getEstimatedPrice() {
+        return (BigDecimal)readProperty("estimatedPrice");
+    }
+
+    public void setPaintingTitle(String paintingTitle) {
+        writeProperty("paintingTitle", paintingTitle);
+    }
+    public String getPaintingTitle() {
+        return (String)readProperty("paintingTitle");
+    }
+
+    public void setToArtist(Artist toArtist) {
+        setToOneTarget("toArtist", toArtist, true);
+    }
+
+    public Artist getToArtist() {
+        return (Artist)readProperty("toArtist");
+    }
+
+
+}
@@ -31,6 +31,8 @@ import org.apache.cayenne.di.Binder;
 import org.apache.cayenne.di.Module;
 import org.apache.cayenne.event.DefaultEventManager;
 import org.apache.cayenne.event.EventManager;
+import org.apache.cayenne.metrics.MetricsRecorder;
+import org.apache.cayenne.metrics.NoopMetricsRecorder;
 import org.apache.cayenne.remote.ClientConnection;
 
 /**
@@ -61,6 +63,7 @@ public class ClientModule implements Module {
         binder.bind(RuntimeProperties.class).to(DefaultRuntimeProperties.class);
         binder.bind(DataChannel.class).toProvider(ClientChannelProvider.class);
         binder.bind(QueryCache.class).toProvider(MapQueryCacheProvider.class);
+        binder.bind(MetricsRecorder.class).toInstance(NoopMetricsRecorder.getInstance());
     }
 
 }
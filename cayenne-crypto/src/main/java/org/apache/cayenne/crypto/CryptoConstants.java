@@ -64,4 +64,11 @@ public interface CryptoConstants {
      */
     public static final String COMPRESSION = "cayenne.crypto.compression";
 
+    /**
+     * A property that defines the number of threads used to decrypt large
+     * result sets in parallel. A value less than or equal to 1 (the default)
+     * disables parallel decryption.
+     */
+    public static final String DECRYPTION_THREADS = "cayenne.crypto.decryption.threads";
+
 }
@@ -78,6 +78,7 @@ public class CryptoModuleBuilder {
     private char[] keyPassword;
 
     private boolean compress;
+    private int decryptionThreads;
 
     public CryptoModuleBuilder() {
 
@@ -235,6 +236,15 @@ public class CryptoModuleBuilder {
         return this;
     }
 
+    /**
+     * Enables parallel decryption of large result sets using a given number
+     * of threads.
+     */
+    public CryptoModuleBuilder parallelDecryption(int threads) {
+        this.decryptionThreads = threads;
+        return this;
+    }
+
     /**
      * Produces a module that can be used to start Cayenne runtime.
      */
@@ -288,6 +298,10 @@ public class CryptoModuleBuilder {
                     props.put(CryptoConstants.COMPRESSION, "true");
                 }
 
+                if (decryptionThreads > 1) {
+                    props.put(CryptoConstants.DECRYPTION_THREADS, String.valueOf(decryptionThreads));
+                }
+
                 // char[] credentials... stored as char[] to potentially allow
                 // wiping them clean in memory...
                 MapBuilder<char[]> creds = binder.<char[]> bindMap(CryptoConstants.CREDENTIALS_MAP);
@@ -19,14 +19,27 @@
 package org.apache.cayenne.crypto.reader;
 
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.cayenne.access.jdbc.ColumnDescriptor;
 import org.apache.cayenne.access.jdbc.RowDescriptor;
+import org.apache.cayenne.access.jdbc.reader.BatchRowReader;
 import org.apache.cayenne.access.jdbc.reader.RowReader;
 import org.apache.cayenne.access.jdbc.reader.RowReaderFactory;
-import org.apache.cayenne.crypto.transformer.TransformerFactory;
+import org.apache.cayenne.crypto.CayenneCryptoException;
+import org.apache.cayenne.crypto.CryptoConstants;
 import org.apache.cayenne.crypto.transformer.MapTransformer;
+import org.apache.cayenne.crypto.transformer.TransformerFactory;
 import org.apache.cayenne.dba.DbAdapter;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.map.ObjAttribute;
@@ -34,13 +47,30 @@ import org.apache.cayenne.query.QueryMetadata;
 
 public class CryptoRowReaderFactoryDecorator implements RowReaderFactory {
 
+    /**
+     * Number of rows read ahead and decrypted together when parallel
+     * decryption is enabled.
+     */
+    static final int BATCH_SIZE = 256;
+
+    /**
+     * Minimal number of rows worth passing to a separate thread.
+     */
+    static final int MIN_ROWS_PER_TASK = 32;
+
     private RowReaderFactory delegate;
     private TransformerFactory transformerFactory;
+    private int decryptionThreads;
+    private volatile ExecutorService executor;
 
     public CryptoRowReaderFactoryDecorator(@Inject RowReaderFactory delegate,
-            @Inject TransformerFactory transformerFactory) {
+            @Inject TransformerFactory transformerFactory,
+            @Inject(CryptoConstants.PROPERTIES_MAP) Map<String, String> properties) {
         this.delegate = delegate;
         this.transformerFactory = transformerFactory;
+
+        String threads = properties.get(CryptoConstants.DECRYPTION_THREADS);
+        this.decryptionThreads = threads != null ? Integer.parseInt(threads) : 0;
     }
 
     @Override
@@ -49,6 +79,10 @@ public class CryptoRowReaderFactoryDecorator implements RowReaderFactory {
 
         final RowReader<?> delegateReader = delegate.rowReader(descriptor, queryMetadata, adapter, attributeOverrides);
 
+        if (decryptionThreads > 1) {
+            return new ParallelDecryptingRowReader(descriptor, delegateReader);
+        }
+
         return new RowReader<Object>() {
 
             private boolean decryptorCompiled;
@@ -79,4 +113,130 @@ public class CryptoRowReaderFactoryDecorator implements RowReaderFactory {
             }
         };
     }
+
+    ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    executor = createExecutor(decryptionThreads);
+                }
+            }
+        }
+
+        return executor;
+    }
+
+    /**
+     * Creates a pool of daemon threads that terminate when idle, so that the
+     * pool does not have to be explicitly shut down.
+     */
+    protected ExecutorService createExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+                    private final AtomicInteger counter = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "cayenne-crypto-decrypt-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * A reader that leaves rows encrypted in {@link #readRow(ResultSet)} and
+     * decrypts them in batches, splitting each batch between the calling
+     * thread and the decryption pool.
+     */
+    class ParallelDecryptingRowReader implements BatchRowReader<Object> {
+
+        private RowDescriptor descriptor;
+        private RowReader<?> delegateReader;
+        private boolean decryptorCompiled;
+        private MapTransformer decryptor;
+
+        ParallelDecryptingRowReader(RowDescriptor descriptor, RowReader<?> delegateReader) {
+            this.descriptor = descriptor;
+            this.delegateReader = delegateReader;
+        }
+
+        @Override
+        public Object readRow(ResultSet resultSet) {
+            Object row = delegateReader.readRow(resultSet);
+
+            if (!decryptorCompiled) {
+                decryptor = transformerFactory.decryptor(descriptor.getColumns(), row);
+                decryptorCompiled = true;
+            }
+
+            return row;
+        }
+
+        @Override
+        public int batchSize() {
+            return BATCH_SIZE;
+        }
+
+        @Override
+        public void processRows(final List<Object> rows) {
+
+            if (decryptor == null) {
+                return;
+            }
+
+            int size = rows.size();
+            int tasks = Math.min(decryptionThreads, size / MIN_ROWS_PER_TASK);
+
+            if (tasks <= 1) {
+                decrypt(rows, 0, size);
+                return;
+            }
+
+            int chunk = (size + tasks - 1) / tasks;
+            List<Future<?>> futures = new ArrayList<Future<?>>(tasks - 1);
+
+            // the first chunk is processed by the calling thread
+            for (int start = chunk; start < size; start += chunk) {
+                final int from = start;
+                final int to = Math.min(start + chunk, size);
+
+                futures.add(getExecutor().submit(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        decrypt(rows, from, to);
+                    }
+                }));
+            }
+
+            decrypt(rows, 0, chunk);
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CayenneCryptoException("Interrupted while decrypting rows", e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+
+                    throw new CayenneCryptoException("Error decrypting rows", cause);
+                }
+            }
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        void decrypt(List<Object> rows, int from, int to) {
+            for (int i = from; i < to; i++) {
+                decryptor.transform((Map) rows.get(i));
+            }
+        }
+    }
 }
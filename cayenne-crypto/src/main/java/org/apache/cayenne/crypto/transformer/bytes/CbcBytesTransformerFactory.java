@@ -23,8 +23,6 @@ import java.security.SecureRandom;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
-import javax.crypto.Cipher;
-
 import org.apache.cayenne.crypto.cipher.CipherFactory;
 import org.apache.cayenne.crypto.key.KeySource;
 
@@ -33,19 +31,19 @@ import org.apache.cayenne.crypto.key.KeySource;
  */
 class CbcBytesTransformerFactory implements BytesTransformerFactory {
 
-    private CipherFactory cipherFactory;
     private Key key;
     private Header encryptionHeader;
     private int blockSize;
     private KeySource keySource;
     private Queue<SecureRandom> randoms;
+    private ThreadLocalCipher cipher;
 
     CbcBytesTransformerFactory(CipherFactory cipherFactory, KeySource keySource, Header encryptionHeader) {
 
         this.randoms = new ConcurrentLinkedQueue<SecureRandom>();
         this.keySource = keySource;
 
-        this.cipherFactory = cipherFactory;
+        this.cipher = new ThreadLocalCipher(cipherFactory);
         this.blockSize = cipherFactory.blockSize();
         this.encryptionHeader = encryptionHeader;
 
@@ -87,8 +85,7 @@ class CbcBytesTransformerFactory implements BytesTransformerFactory {
 
     @Override
     public BytesEncryptor encryptor() {
-        Cipher cipher = cipherFactory.cipher();
-        BytesEncryptor delegate = new CbcEncryptor(cipher, key, generateSeedIv());
+        BytesEncryptor delegate = new CbcEncryptor(cipher, blockSize, key, generateSeedIv());
 
         if (encryptionHeader.isCompressed()) {
             delegate = new GzipEncryptor(delegate);
@@ -99,8 +96,7 @@ class CbcBytesTransformerFactory implements BytesTransformerFactory {
 
     @Override
     public BytesDecryptor decryptor() {
-        Cipher cipher = cipherFactory.cipher();
-        BytesDecryptor cbcDecryptor = new CbcDecryptor(cipher);
+        BytesDecryptor cbcDecryptor = new CbcDecryptor(cipher, blockSize);
         BytesDecryptor gzipDecryptor = new GzipDecryptor(cbcDecryptor);
         return new HeaderDecryptor(cbcDecryptor, gzipDecryptor, keySource);
     }
@@ -32,19 +32,23 @@ import org.apache.cayenne.crypto.CayenneCryptoException;
 
 /**
  * A {@link BytesDecryptor} that decrypts the provided bytes that were encrypted
- * by the complimentary {@link CbcEncryptor}. The object is stateful and is not
- * thread-safe.
+ * by the complimentary {@link CbcEncryptor}. The decryptor is thread-safe if
+ * it is created with a {@link ThreadLocalCipher} backed by a CipherFactory.
  * 
  * @since 4.0
  */
 class CbcDecryptor implements BytesDecryptor {
 
-    private Cipher cipher;
+    private ThreadLocalCipher cipher;
     private int blockSize;
 
     CbcDecryptor(Cipher cipher) {
+        this(new ThreadLocalCipher(cipher), cipher.getBlockSize());
+    }
+
+    CbcDecryptor(ThreadLocalCipher cipher, int blockSize) {
         this.cipher = cipher;
-        this.blockSize = cipher.getBlockSize();
+        this.blockSize = blockSize;
     }
 
     @Override
@@ -61,6 +65,7 @@ class CbcDecryptor implements BytesDecryptor {
 
         IvParameterSpec iv = iv(input, inputOffset);
 
+        Cipher cipher = this.cipher.get();
         cipher.init(Cipher.DECRYPT_MODE, key, iv);
 
         int offset = inputOffset + blockSize;
@@ -41,15 +41,19 @@ import org.apache.cayenne.crypto.CayenneCryptoException;
  */
 class CbcEncryptor implements BytesEncryptor {
 
-    private Cipher cipher;
+    private ThreadLocalCipher cipher;
     private byte[] iv;
     private Key key;
     private int blockSize;
 
     public CbcEncryptor(Cipher cipher, Key key, byte[] seedIv) {
+        this(new ThreadLocalCipher(cipher), cipher.getBlockSize(), key, seedIv);
+    }
+
+    CbcEncryptor(ThreadLocalCipher cipher, int blockSize, Key key, byte[] seedIv) {
         this.key = key;
         this.cipher = cipher;
-        this.blockSize = cipher.getBlockSize();
+        this.blockSize = blockSize;
 
         if (seedIv.length != blockSize) {
 
@@ -77,6 +81,7 @@ class CbcEncryptor implements BytesEncryptor {
     private byte[] doEncrypt(byte[] plain, int outputOffset) throws InvalidKeyException,
             InvalidAlgorithmParameterException, ShortBufferException, IllegalBlockSizeException, BadPaddingException {
 
+        Cipher cipher = this.cipher.get();
         cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
         byte[] encrypted = new byte[outputOffset + blockSize + cipher.getOutputSize(plain.length)];
 
@@ -18,11 +18,13 @@
  ****************************************************************/
 package org.apache.cayenne.crypto.transformer.bytes;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.security.Key;
 import java.util.Arrays;
-import java.util.zip.GZIPInputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.apache.cayenne.crypto.CayenneCryptoException;
 
@@ -31,6 +33,19 @@ import org.apache.cayenne.crypto.CayenneCryptoException;
  */
 class GzipDecryptor implements BytesDecryptor {
 
+    // GZIP header flags
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final ThreadLocal<InflaterState> INFLATERS = new ThreadLocal<InflaterState>() {
+        @Override
+        protected InflaterState initialValue() {
+            return new InflaterState();
+        }
+    };
+
     private BytesDecryptor delegate;
 
     public GzipDecryptor(BytesDecryptor delegate) {
@@ -49,32 +64,123 @@ class GzipDecryptor implements BytesDecryptor {
         }
     }
 
+    /**
+     * Uncompresses GZIP input. Reuses Inflater and buffers within a thread
+     * instead of allocating them for each call.
+     */
     static byte[] gunzip(byte[] input) throws IOException {
 
-        ByteArrayInputStream zipBytes = new ByteArrayInputStream(input);
-        GZIPInputStream in = new GZIPInputStream(zipBytes);
+        int offset = skipHeader(input);
+
+        InflaterState state = INFLATERS.get();
+        Inflater inflater = state.inflater;
+        CRC32 crc = state.crc;
+
+        inflater.reset();
+        inflater.setInput(input, offset, input.length - offset);
+
+        byte[] buffer = state.buffer;
+        if (buffer.length < input.length * 2) {
+            buffer = new byte[input.length * 2];
+        }
+
+        int len = 0;
+        try {
+            while (!inflater.finished()) {
+                if (len == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+
+                int read = inflater.inflate(buffer, len, buffer.length - len);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Unexpected end of GZIP input");
+                }
+
+                len += read;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid GZIP data: " + e.getMessage());
+        }
+
+        // verify trailer
+        int trailer = input.length - inflater.getRemaining();
+        if (trailer + 8 > input.length) {
+            throw new IOException("Missing GZIP trailer");
+        }
+
+        crc.reset();
+        crc.update(buffer, 0, len);
+        if (readInt(input, trailer) != (int) crc.getValue() || readInt(input, trailer + 4) != len) {
+            throw new IOException("Corrupt GZIP trailer");
+        }
+
+        if (buffer != state.buffer && buffer.length <= GzipEncryptor.MAX_POOLED_BUFFER) {
+            state.buffer = buffer;
+        }
+
+        return Arrays.copyOf(buffer, len);
+    }
 
-        // duplicating ByteArrayOutputStream logic here... too much overhead and
-        // inefficiency using ByteArrayOutputStream directly
+    private static int skipHeader(byte[] input) throws IOException {
 
-        byte[] out = new byte[input.length * 2];
+        if (input.length < 10 || (input[0] & 0xff) != 0x1f || (input[1] & 0xff) != 0x8b) {
+            throw new IOException("Not in GZIP format");
+        }
 
-        int totalRead = 0;
-        int read;
-        int resizeBy = input.length;
+        if (input[2] != Deflater.DEFLATED) {
+            throw new IOException("Unsupported compression method");
+        }
 
-        while ((read = in.read(out, totalRead, out.length - totalRead - 1)) > 0) {
+        int flags = input[3] & 0xff;
+        int offset = 10;
 
-            totalRead += read;
-            if (totalRead + 1 == out.length) {
-                out = Arrays.copyOf(out, out.length + resizeBy);
+        if ((flags & FEXTRA) != 0) {
+            if (offset + 2 > input.length) {
+                throw new IOException("Invalid GZIP header");
             }
+
+            offset += 2 + ((input[offset] & 0xff) | ((input[offset + 1] & 0xff) << 8));
+        }
+
+        if ((flags & FNAME) != 0) {
+            offset = skipZeroTerminated(input, offset);
+        }
+
+        if ((flags & FCOMMENT) != 0) {
+            offset = skipZeroTerminated(input, offset);
+        }
+
+        if ((flags & FHCRC) != 0) {
+            offset += 2;
         }
 
-        if (totalRead < out.length) {
-            out = Arrays.copyOf(out, totalRead);
+        if (offset > input.length) {
+            throw new IOException("Invalid GZIP header");
         }
 
-        return out;
+        return offset;
+    }
+
+    private static int skipZeroTerminated(byte[] input, int offset) throws IOException {
+        while (offset < input.length) {
+            if (input[offset++] == 0) {
+                return offset;
+            }
+        }
+
+        throw new IOException("Invalid GZIP header");
+    }
+
+    // reads int in little-endian order, as used by GZIP trailer
+    private static int readInt(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xff) | ((buffer[offset + 1] & 0xff) << 8) | ((buffer[offset + 2] & 0xff) << 16)
+                | ((buffer[offset + 3] & 0xff) << 24);
+    }
+
+    static final class InflaterState {
+
+        final Inflater inflater = new Inflater(true);
+        final CRC32 crc = new CRC32();
+        byte[] buffer = new byte[1024];
     }
 }
@@ -18,9 +18,10 @@
  ****************************************************************/
 package org.apache.cayenne.crypto.transformer.bytes;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.zip.GZIPOutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
 import org.apache.cayenne.crypto.CayenneCryptoException;
 
@@ -31,6 +32,22 @@ class GzipEncryptor implements BytesEncryptor {
 
     static final int GZIP_THRESHOLD = 150;
 
+    /**
+     * Max size of a per-thread compression buffer that is kept for reuse.
+     * Larger buffers are discarded after use.
+     */
+    static final int MAX_POOLED_BUFFER = 64 * 1024;
+
+    // same header as written by java.util.zip.GZIPOutputStream
+    static final byte[] GZIP_HEADER = new byte[] { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    private static final ThreadLocal<DeflaterState> DEFLATERS = new ThreadLocal<DeflaterState>() {
+        @Override
+        protected DeflaterState initialValue() {
+            return new DeflaterState();
+        }
+    };
+
     private BytesEncryptor delegate;
 
     public GzipEncryptor(BytesEncryptor delegate) {
@@ -55,14 +72,67 @@ class GzipEncryptor implements BytesEncryptor {
         return delegate.encrypt(input, outputOffset, flags);
     }
 
+    /**
+     * Compresses input in GZIP format. Produces the same output as
+     * GZIPOutputStream, but reuses Deflater and buffers within a thread
+     * instead of allocating them for each call.
+     */
     static byte[] gzip(byte[] input) throws IOException {
-        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream(input.length);
-        GZIPOutputStream out = new GZIPOutputStream(zipBytes);
 
-        out.write(input, 0, input.length);
-        out.close();
+        DeflaterState state = DEFLATERS.get();
+        Deflater deflater = state.deflater;
+        CRC32 crc = state.crc;
+
+        deflater.reset();
+        deflater.setInput(input, 0, input.length);
+        deflater.finish();
+
+        crc.reset();
+        crc.update(input, 0, input.length);
+
+        byte[] buffer = state.buffer;
+        if (buffer.length < GZIP_HEADER.length + 8 + input.length / 2) {
+            buffer = new byte[GZIP_HEADER.length + 8 + input.length / 2];
+        }
+
+        System.arraycopy(GZIP_HEADER, 0, buffer, 0, GZIP_HEADER.length);
+        int len = GZIP_HEADER.length;
+
+        while (!deflater.finished()) {
+            if (len == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+
+            len += deflater.deflate(buffer, len, buffer.length - len);
+        }
+
+        if (len + 8 > buffer.length) {
+            buffer = Arrays.copyOf(buffer, len + 8);
+        }
+
+        writeInt(buffer, len, (int) crc.getValue());
+        writeInt(buffer, len + 4, input.length);
+        len += 8;
 
-        return zipBytes.toByteArray();
+        if (buffer != state.buffer && buffer.length <= MAX_POOLED_BUFFER) {
+            state.buffer = buffer;
+        }
+
+        return Arrays.copyOf(buffer, len);
+    }
+
+    // writes int in little-endian order, as required by GZIP trailer
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+        buffer[offset + 2] = (byte) (value >> 16);
+        buffer[offset + 3] = (byte) (value >> 24);
     }
 
+    static final class DeflaterState {
+
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        final CRC32 crc = new CRC32();
+        byte[] buffer = new byte[512];
+    }
 }
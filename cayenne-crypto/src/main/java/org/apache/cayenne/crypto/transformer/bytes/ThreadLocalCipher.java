@@ -0,0 +1,54 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.crypto.transformer.bytes;
+
+import javax.crypto.Cipher;
+
+import org.apache.cayenne.crypto.cipher.CipherFactory;
+
+/**
+ * Provides a {@link Cipher} per thread, so that encryptors and decryptors can
+ * reuse ciphers instead of creating a new one for each instance. This is safe
+ * as long as each cipher operation (init + doFinal) is completed within a
+ * single method call.
+ * 
+ * @since 4.0
+ */
+class ThreadLocalCipher extends ThreadLocal<Cipher> {
+
+    private CipherFactory cipherFactory;
+    private Cipher cipher;
+
+    ThreadLocalCipher(CipherFactory cipherFactory) {
+        this.cipherFactory = cipherFactory;
+    }
+
+    /**
+     * Creates a ThreadLocalCipher that returns the same cipher to all threads.
+     * Useful for single-threaded callers that provide their own cipher.
+     */
+    ThreadLocalCipher(Cipher cipher) {
+        this.cipher = cipher;
+    }
+
+    @Override
+    protected Cipher initialValue() {
+        return cipher != null ? cipher : cipherFactory.cipher();
+    }
+}
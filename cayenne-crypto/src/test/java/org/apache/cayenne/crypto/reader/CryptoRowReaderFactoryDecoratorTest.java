@@ -0,0 +1,189 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.crypto.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.cayenne.access.jdbc.ColumnDescriptor;
+import org.apache.cayenne.access.jdbc.RowDescriptor;
+import org.apache.cayenne.access.jdbc.reader.BatchRowReader;
+import org.apache.cayenne.access.jdbc.reader.RowReader;
+import org.apache.cayenne.access.jdbc.reader.RowReaderFactory;
+import org.apache.cayenne.access.types.ExtendedType;
+import org.apache.cayenne.crypto.CayenneCryptoException;
+import org.apache.cayenne.crypto.CryptoConstants;
+import org.apache.cayenne.crypto.transformer.MapTransformer;
+import org.apache.cayenne.crypto.transformer.TransformerFactory;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.query.QueryMetadata;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CryptoRowReaderFactoryDecoratorTest {
+
+    private RowDescriptor descriptor;
+    private RowReaderFactory delegate;
+    private TransformerFactory transformerFactory;
+    private CayenneCryptoException failure;
+
+    // names of the threads that decrypted the rows
+    private Set<String> threads;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Before
+    public void before() {
+        this.descriptor = new RowDescriptor(new ColumnDescriptor[0], new ExtendedType[0]);
+        this.threads = Collections.synchronizedSet(new HashSet<String>());
+        this.failure = new CayenneCryptoException("Failed to decrypt");
+
+        RowReader delegateReader = new RowReader<Object>() {
+
+            @Override
+            public Object readRow(ResultSet resultSet) {
+                return new HashMap<String, Object>();
+            }
+        };
+
+        this.delegate = mock(RowReaderFactory.class);
+        when(delegate.rowReader(any(RowDescriptor.class), any(QueryMetadata.class), any(DbAdapter.class),
+                any(Map.class))).thenReturn(delegateReader);
+
+        MapTransformer decryptor = new MapTransformer() {
+
+            @Override
+            public void transform(Map<String, Object> map) {
+                if (map.containsKey("fail")) {
+                    throw failure;
+                }
+
+                threads.add(Thread.currentThread().getName());
+                map.put("decrypted", Boolean.TRUE);
+            }
+        };
+
+        this.transformerFactory = mock(TransformerFactory.class);
+        when(transformerFactory.decryptor(any(ColumnDescriptor[].class), any())).thenReturn(decryptor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private BatchRowReader<Object> createReader(int threads) {
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put(CryptoConstants.DECRYPTION_THREADS, String.valueOf(threads));
+
+        CryptoRowReaderFactoryDecorator factory = new CryptoRowReaderFactoryDecorator(delegate, transformerFactory,
+                properties);
+        RowReader<?> reader = factory.rowReader(descriptor, mock(QueryMetadata.class), mock(DbAdapter.class),
+                Collections.<ObjAttribute, ColumnDescriptor> emptyMap());
+
+        assertTrue(reader instanceof BatchRowReader);
+        return (BatchRowReader<Object>) reader;
+    }
+
+    private static List<Object> readRows(BatchRowReader<Object> reader, int size) {
+        List<Object> rows = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(reader.readRow(null));
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertDecrypted(List<Object> rows) {
+        for (Object row : rows) {
+            assertEquals(Boolean.TRUE, ((Map<String, Object>) row).get("decrypted"));
+        }
+    }
+
+    @Test
+    public void testProcessRows_SeveralThreads() {
+        BatchRowReader<Object> reader = createReader(4);
+
+        List<Object> rows = readRows(reader, CryptoRowReaderFactoryDecorator.BATCH_SIZE);
+        reader.processRows(rows);
+
+        assertDecrypted(rows);
+
+        // the calling thread decrypts the first chunk, the pool does the rest
+        assertTrue(threads.contains(Thread.currentThread().getName()));
+        assertTrue(threads.size() > 1);
+    }
+
+    @Test
+    public void testProcessRows_SmallBatchInCallingThread() {
+        BatchRowReader<Object> reader = createReader(4);
+
+        List<Object> rows = readRows(reader, CryptoRowReaderFactoryDecorator.MIN_ROWS_PER_TASK);
+        reader.processRows(rows);
+
+        assertDecrypted(rows);
+        assertEquals(Collections.singleton(Thread.currentThread().getName()), threads);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testProcessRows_WorkerError() {
+        BatchRowReader<Object> reader = createReader(4);
+
+        List<Object> rows = readRows(reader, CryptoRowReaderFactoryDecorator.BATCH_SIZE);
+
+        // the last row is in a chunk decrypted by the pool
+        ((Map<String, Object>) rows.get(rows.size() - 1)).put("fail", Boolean.TRUE);
+
+        try {
+            reader.processRows(rows);
+            fail("An error in a decryption thread must be rethrown");
+        } catch (CayenneCryptoException e) {
+            assertSame(failure, e);
+        }
+
+        // the reader is still usable after an error
+        List<Object> nextRows = readRows(reader, CryptoRowReaderFactoryDecorator.BATCH_SIZE);
+        reader.processRows(nextRows);
+        assertDecrypted(nextRows);
+    }
+
+    @Test
+    public void testProcessRows_NoEncryptedColumns() {
+        when(transformerFactory.decryptor(any(ColumnDescriptor[].class), any())).thenReturn(null);
+
+        BatchRowReader<Object> reader = createReader(4);
+
+        List<Object> rows = readRows(reader, CryptoRowReaderFactoryDecorator.BATCH_SIZE);
+        reader.processRows(rows);
+
+        assertTrue(threads.isEmpty());
+        assertTrue(((Map<?, ?>) rows.get(0)).isEmpty());
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.cayenne.crypto.transformer.bytes;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -50,6 +51,29 @@ public class GzipDecryptorTest {
         assertArrayEquals(expectedOutput1, output1);
     }
 
+    @Test
+    public void testGunzip_RoundTrip() throws IOException {
+
+        byte[] expectedOutput1 = readResource("plain.txt");
+        byte[] output1 = GzipDecryptor.gunzip(GzipEncryptor.gzip(expectedOutput1));
+
+        assertArrayEquals(expectedOutput1, output1);
+    }
+
+    @Test
+    public void testGunzip_CorruptTrailer() throws IOException {
+
+        byte[] input1 = CryptoUnitUtils.hexToBytes("1f8b0800000000000000f348cdc9c957f0409000a91a078c11000000");
+        input1[input1.length - 5] ^= 1;
+
+        try {
+            GzipDecryptor.gunzip(input1);
+            fail("Corrupt CRC must have been detected");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
     private byte[] readResource(String name) throws IOException {
 
         ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -59,8 +59,8 @@ class ConstructorInjectingProvider<T> implements Provider<T> {
         Constructor<?> lastMatch = null;
         int lastSize = -1;
 
-        // pick the first constructor with all injection-annotated parameters,
-        // or the
+        // pick the first constructor annotated with javax.inject.Inject or
+        // with all injection-annotated parameters, or the
         // default constructor; constructor with the longest parameter list is
         // preferred
         // if multiple matches are found
@@ -77,21 +77,26 @@ class ConstructorInjectingProvider<T> implements Provider<T> {
                 continue;
             }
 
-            boolean injectable = true;
-            for (Annotation[] annotations : constructor.getParameterAnnotations()) {
+            // a constructor annotated with javax.inject.Inject is injectable as
+            // a whole, its parameters may only be qualified with @Named
+            boolean injectable = constructor.isAnnotationPresent(javax.inject.Inject.class);
+            if (!injectable) {
+                injectable = true;
+                for (Annotation[] annotations : constructor.getParameterAnnotations()) {
+
+                    boolean parameterInjectable = false;
+                    for (Annotation annotation : annotations) {
+                        if (DIUtil.isInjectedAnnotation(annotation)) {
+                            parameterInjectable = true;
+                            break;
+                        }
+                    }
 
-                boolean parameterInjectable = false;
-                for (Annotation annotation : annotations) {
-                    if (DIUtil.isInjectedAnnotation(annotation)) {
-                        parameterInjectable = true;
+                    if (!parameterInjectable) {
+                        injectable = false;
                         break;
                     }
                 }
-
-                if (!parameterInjectable) {
-                    injectable = false;
-                    break;
-                }
             }
 
             if (injectable) {
@@ -0,0 +1,39 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.di.mock;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+public class MockImplementation4_Javax implements MockInterface4 {
+
+    private MockInterface1 service1;
+    private MockInterface3 service3;
+
+    @Inject
+    public MockImplementation4_Javax(@Named("two") MockInterface1 service1, MockInterface3 service3) {
+        this.service1 = service1;
+        this.service3 = service3;
+    }
+
+    public String getName() {
+        return "javax_" + service1.getName() + "_" + service3.getName();
+    }
+
+}
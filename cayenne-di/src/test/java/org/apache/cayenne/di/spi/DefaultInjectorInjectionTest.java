@@ -35,6 +35,7 @@ import org.apache.cayenne.di.mock.MockImplementation3;
 import org.apache.cayenne.di.mock.MockImplementation4;
 import org.apache.cayenne.di.mock.MockImplementation4Alt;
 import org.apache.cayenne.di.mock.MockImplementation4Alt2;
+import org.apache.cayenne.di.mock.MockImplementation4_Javax;
 import org.apache.cayenne.di.mock.MockImplementation5;
 import org.apache.cayenne.di.mock.MockInterface1;
 import org.apache.cayenne.di.mock.MockInterface2;
@@ -168,6 +169,27 @@ public class DefaultInjectorInjectionTest extends TestCase {
         assertEquals("constructor_alt2_XName", service.getName());
     }
 
+    @Test
+    public void testConstructorInjection_Javax() {
+
+        Module module = new Module() {
+
+            public void configure(Binder binder) {
+                binder.bind(MockInterface1.class).to(MockImplementation1.class);
+                binder.bind(Key.get(MockInterface1.class, "two")).to(
+                        MockImplementation1Alt2.class);
+                binder.bind(MockInterface3.class).to(MockImplementation3.class);
+                binder.bind(MockInterface4.class).to(MockImplementation4_Javax.class);
+            }
+        };
+
+        DefaultInjector injector = new DefaultInjector(module);
+
+        MockInterface4 service = injector.getInstance(MockInterface4.class);
+        assertNotNull(service);
+        assertEquals("javax_alt2_XName", service.getName());
+    }
+
     @Test
     public void testProviderInjection_Constructor() {
 
@@ -38,6 +38,7 @@ import org.apache.cayenne.map.Procedure;
 import org.apache.cayenne.query.PrefetchTreeNode;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryCancelHandle;
 import org.apache.cayenne.query.QueryChain;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.query.QueryRouter;
@@ -226,6 +227,14 @@ public class StringIdQuery implements Query {
             public int getStatementFetchSize() {
                 return QueryMetadata.STATEMENT_FETCH_SIZE_DEFAULT;
             }
+
+            public int getQueryTimeout() {
+                return QueryMetadata.QUERY_TIMEOUT_DEFAULT;
+            }
+
+            public QueryCancelHandle getCancelHandle() {
+                return null;
+            }
         };
     }
 
@@ -23,7 +23,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
 import org.apache.cayenne.cache.NestedQueryCache;
 import org.apache.cayenne.cache.QueryCache;
@@ -100,6 +102,11 @@ public abstract class BaseContext implements ObjectContext {
     protected transient QueryCache queryCache;
     protected transient EntityResolver entityResolver;
 
+    /**
+     * @since 4.0
+     */
+    protected transient ObjectContextExecutor asyncExecutor;
+
     protected boolean validatingObjectsOnCommit = true;
 
     /**
@@ -341,6 +348,125 @@ public abstract class BaseContext implements ObjectContext {
     @Override
     public abstract <T> ResultIterator<T> iterator(Select<T> query);
 
+    /**
+     * @since 4.0
+     */
+    @Override
+    public <T> Future<List<T>> selectAsync(final Select<T> query) {
+        return submitAsync(new Callable<List<T>>() {
+
+            @Override
+            public List<T> call() throws Exception {
+                return select(query);
+            }
+        });
+    }
+
+    /**
+     * @since 4.0
+     */
+    @Override
+    public <T> Future<T> selectOneAsync(final Select<T> query) {
+        return submitAsync(new Callable<T>() {
+
+            @Override
+            public T call() throws Exception {
+                return selectOne(query);
+            }
+        });
+    }
+
+    /**
+     * @since 4.0
+     */
+    @Override
+    public <T> Future<Void> iterateAsync(final Select<T> query, final ResultIteratorCallback<T> callback) {
+        return submitAsync(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                iterate(query, callback);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @since 4.0
+     */
+    @Override
+    public Future<Void> commitChangesAsync() {
+        return submitAsync(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                commitChanges();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @since 4.0
+     */
+    @Override
+    public List<List<?>> selectConcurrently(Select<?>... queries) {
+
+        List<Future<? extends List<?>>> futures = new ArrayList<Future<? extends List<?>>>(queries.length);
+        for (Select<?> query : queries) {
+            futures.add(selectAsync(query));
+        }
+
+        List<List<?>> results = new ArrayList<List<?>>(queries.length);
+        RuntimeException firstFailure = null;
+
+        for (Future<? extends List<?>> future : futures) {
+            try {
+                results.add(ObjectContextExecutor.join(future));
+            } catch (RuntimeException e) {
+                if (firstFailure == null) {
+                    firstFailure = e;
+                }
+                results.add(null);
+            }
+        }
+
+        if (firstFailure != null) {
+            throw firstFailure;
+        }
+
+        return results;
+    }
+
+    /**
+     * Submits a task to the {@link ObjectContextExecutor} of this context,
+     * running it synchronously if the context has no executor.
+     * 
+     * @since 4.0
+     */
+    protected <V> Future<V> submitAsync(Callable<V> task) {
+        ObjectContextExecutor executor = getAsyncExecutor();
+        return (executor != null ? executor : ObjectContextExecutor.SYNCHRONOUS).submit(task);
+    }
+
+    /**
+     * Returns an executor used to run asynchronous operations of this
+     * context. May be null, in which case such operations are executed on the
+     * calling thread.
+     * 
+     * @since 4.0
+     */
+    public ObjectContextExecutor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public void setAsyncExecutor(ObjectContextExecutor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
     @Override
     public void prepareForAccess(Persistent object, String property, boolean lazyFaulting) {
         if (object.getPersistenceState() == PersistenceState.HOLLOW) {
@@ -304,12 +304,30 @@ public class CayenneDataObject extends PersistentObject implements DataObject, V
             object.getObjectContext().registerNewObject(this);
         } else if (this.getObjectContext() != null && object.getObjectContext() == null) {
             this.getObjectContext().registerNewObject(object);
+        } else if (isSharedReadOnly(object)) {
+            // shared objects can be referenced from any context
+            return;
         } else {
             throw new CayenneRuntimeException("Cannot set object as destination of relationship " + relationshipName
                     + " because it is in a different ObjectContext");
         }
     }
 
+    /**
+     * Returns true if the object is a read-only object shared by all contexts.
+     * 
+     * @since 4.0
+     */
+    protected boolean isSharedReadOnly(Persistent object) {
+        if (object.getObjectContext() == null || object.getObjectId() == null) {
+            return false;
+        }
+
+        ObjEntity entity = object.getObjectContext().getEntityResolver()
+                .getObjEntity(object.getObjectId().getEntityName());
+        return entity != null && entity.isSharedReadOnly();
+    }
+
     /**
      * Initializes reverse relationship from object <code>val</code> to this
      * object.
@@ -318,6 +336,12 @@ public class CayenneDataObject extends PersistentObject implements DataObject, V
      *            name of relationship from this object to <code>val</code>.
      */
     protected void setReverseRelationship(String relName, DataObject val) {
+        // shared read-only objects do not track relationships to the objects
+        // of individual contexts
+        if (val.getObjectContext() != objectContext && isSharedReadOnly(val)) {
+            return;
+        }
+
         ObjRelationship rel = objectContext.getEntityResolver().getObjEntity(objectId.getEntityName())
                 .getRelationship(relName);
         ObjRelationship revRel = rel.getReverseRelationship();
@@ -334,6 +358,10 @@ public class CayenneDataObject extends PersistentObject implements DataObject, V
      * <code>val</code> to this object.
      */
     protected void unsetReverseRelationship(String relName, DataObject val) {
+        if (val.getObjectContext() != objectContext && isSharedReadOnly(val)) {
+            return;
+        }
+
 
         EntityResolver resolver = objectContext.getEntityResolver();
         ObjEntity entity = resolver.getObjEntity(objectId.getEntityName());
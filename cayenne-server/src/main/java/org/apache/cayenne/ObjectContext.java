@@ -22,6 +22,7 @@ package org.apache.cayenne;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import org.apache.cayenne.graph.GraphManager;
 import org.apache.cayenne.map.EntityResolver;
@@ -213,6 +214,57 @@ public interface ObjectContext extends DataChannel, Serializable {
      */
     <T> ResultIterator<T> iterator(Select<T> query);
 
+    /**
+     * Starts {@link #select(Select)} on a background thread, returning a
+     * Future for the query result. The thread-bound ObjectContext of the
+     * calling thread is visible to the query. If the calling thread is in a
+     * Transaction, the query runs synchronously on the calling thread within
+     * that Transaction. Several selects may run concurrently in the same
+     * context, but they must not overlap with object modifications or
+     * commits.
+     * 
+     * @since 4.0
+     */
+    <T> Future<List<T>> selectAsync(Select<T> query);
+
+    /**
+     * Starts {@link #selectOne(Select)} on a background thread, returning a
+     * Future for the query result.
+     * 
+     * @since 4.0
+     */
+    <T> Future<T> selectOneAsync(Select<T> query);
+
+    /**
+     * Starts {@link #iterate(Select, ResultIteratorCallback)} on a background
+     * thread. The callback is invoked on that thread. The returned Future
+     * completes when iteration is over.
+     * 
+     * @since 4.0
+     */
+    <T> Future<Void> iterateAsync(Select<T> query, ResultIteratorCallback<T> callback);
+
+    /**
+     * Starts {@link #commitChanges()} on a background thread. The context must
+     * not be modified until the returned Future completes.
+     * 
+     * @since 4.0
+     */
+    Future<Void> commitChangesAsync();
+
+    /**
+     * Runs a number of independent selects concurrently and waits for all of
+     * them to finish. If the calling thread is in a Transaction, the selects
+     * run one after another on the calling thread instead, as a Transaction
+     * can't be shared between threads. Results are returned in the order of
+     * queries. If any of
+     * the queries fails, its exception is rethrown after all queries are
+     * finished.
+     * 
+     * @since 4.0
+     */
+    List<List<?>> selectConcurrently(Select<?>... queries);
+
     /**
      * Executes any kind of query providing the result in a form of
      * QueryResponse.
@@ -0,0 +1,194 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.apache.cayenne.configuration.CayenneRuntime;
+import org.apache.cayenne.configuration.Constants;
+import org.apache.cayenne.configuration.RuntimeProperties;
+import org.apache.cayenne.di.Injector;
+import org.apache.cayenne.tx.BaseTransaction;
+import org.apache.cayenne.tx.Transaction;
+
+/**
+ * Runs asynchronous {@link ObjectContext} operations on a bounded thread
+ * pool. The thread-bound ObjectContext and Injector of the submitting thread
+ * are bound to the worker thread for the duration of the task. A Transaction
+ * is never shared between threads, as its connections are not thread-safe, so
+ * tasks submitted by a thread that has a Transaction bound are executed
+ * synchronously on that thread within the Transaction. Tasks running on the
+ * pool threads run without a Transaction, each query opening its own. When
+ * the pool and its queue are saturated, tasks are executed on the submitting
+ * thread, so a burst of requests slows callers down instead of failing them.
+ * 
+ * @since 4.0
+ */
+public class ObjectContextExecutor {
+
+    static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    /**
+     * An executor that runs all tasks on the calling thread.
+     */
+    static final ObjectContextExecutor SYNCHRONOUS = new ObjectContextExecutor((ExecutorService) null);
+
+    protected ExecutorService executor;
+
+    @Inject
+    public ObjectContextExecutor(RuntimeProperties runtimeProperties) {
+        this(createExecutor(runtimeProperties.getInt(Constants.SERVER_ASYNC_THREADS_PROPERTY, Runtime.getRuntime()
+                .availableProcessors()), runtimeProperties.getInt(Constants.SERVER_ASYNC_QUEUE_SIZE_PROPERTY,
+                DEFAULT_QUEUE_SIZE)));
+    }
+
+    /**
+     * Creates an executor delegating to the provided ExecutorService. A null
+     * ExecutorService results in all tasks being executed synchronously on
+     * the calling thread.
+     */
+    public ObjectContextExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    static ExecutorService createExecutor(int threads, int queueSize) {
+
+        if (threads <= 0) {
+            return null;
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize > 0 ? queueSize : DEFAULT_QUEUE_SIZE), new ThreadFactory() {
+
+                    private final AtomicInteger counter = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "cayenne-async-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Submits a task for execution, propagating thread-bound Cayenne state of
+     * the calling thread to the thread that runs the task. If the calling
+     * thread is in a Transaction, the task is executed right away on the
+     * calling thread.
+     */
+    public <V> Future<V> submit(Callable<V> task) {
+
+        Callable<V> boundTask = new ThreadBoundCallable<V>(task);
+
+        ExecutorService executor = this.executor;
+        if (executor == null || executor.isShutdown() || BaseTransaction.getThreadTransaction() != null) {
+            FutureTask<V> future = new FutureTask<V>(boundTask);
+            future.run();
+            return future;
+        }
+
+        return executor.submit(boundTask);
+    }
+
+    /**
+     * Waits for the future to complete and returns its result, rethrowing
+     * runtime exceptions thrown by the task as is.
+     */
+    public static <V> V join(Future<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CayenneRuntimeException("Interrupted while waiting for an asynchronous operation", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new CayenneRuntimeException("Asynchronous operation failed", cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    static class ThreadBoundCallable<V> implements Callable<V> {
+
+        private Callable<V> task;
+        private Thread submittingThread;
+        private ObjectContext context;
+        private Injector injector;
+
+        ThreadBoundCallable(Callable<V> task) {
+            this.task = task;
+            this.submittingThread = Thread.currentThread();
+            this.context = BaseContext.threadObjectContext.get();
+            this.injector = CayenneRuntime.getThreadInjector();
+        }
+
+        @Override
+        public V call() throws Exception {
+
+            // the state is already in place
+            if (Thread.currentThread() == submittingThread) {
+                return task.call();
+            }
+
+            Transaction oldTransaction = BaseTransaction.getThreadTransaction();
+            ObjectContext oldContext = BaseContext.threadObjectContext.get();
+            Injector oldInjector = CayenneRuntime.getThreadInjector();
+
+            BaseTransaction.bindThreadTransaction(null);
+            BaseContext.bindThreadObjectContext(context);
+            CayenneRuntime.bindThreadInjector(injector);
+
+            try {
+                return task.call();
+            } finally {
+                BaseTransaction.bindThreadTransaction(oldTransaction);
+                BaseContext.bindThreadObjectContext(oldContext);
+                CayenneRuntime.bindThreadInjector(oldInjector);
+            }
+        }
+    }
+}
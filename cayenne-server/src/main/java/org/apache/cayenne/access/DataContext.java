@@ -36,6 +36,7 @@ import org.apache.cayenne.DataObject;
 import org.apache.cayenne.DataRow;
 import org.apache.cayenne.Fault;
 import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectContextExecutor;
 import org.apache.cayenne.ObjectId;
 import org.apache.cayenne.PersistenceState;
 import org.apache.cayenne.Persistent;
@@ -91,6 +92,12 @@ public class DataContext extends BaseContext {
 
     protected transient DataContextMergeHandler mergeHandler;
 
+    /**
+     * Time of the last flush of this context to the database. Used to route
+     * reads to the primary DataNode for a while after a commit.
+     */
+    transient long lastFlushTime;
+
     /**
      * Creates a new DataContext that is not attached to the Cayenne stack.
      */
@@ -126,6 +133,7 @@ public class DataContext extends BaseContext {
     protected void attachToRuntime(Injector injector) {
         super.attachToRuntime(injector);
         this.transactionFactory = injector.getInstance(TransactionFactory.class);
+        this.asyncExecutor = injector.getInstance(ObjectContextExecutor.class);
     }
 
     /**
@@ -320,9 +328,16 @@ public class DataContext extends BaseContext {
 
             public boolean visitAttribute(AttributeProperty property) {
                 ObjAttribute objAttr = property.getAttribute();
+                Object value = property.readPropertyDirectly(object);
+
+                // unresolved lazy attributes are left out, same as in the
+                // snapshots of the fetched objects
+                if (value instanceof Fault) {
+                    return true;
+                }
 
                 // processing compound attributes correctly
-                snapshot.put(objAttr.getDbAttributePath(), property.readPropertyDirectly(object));
+                snapshot.put(objAttr.getDbAttributePath(), value);
                 return true;
             }
 
@@ -1137,6 +1152,15 @@ public class DataContext extends BaseContext {
         return objectStore;
     }
 
+    /**
+     * Returns an object shared by all contexts of the parent DataDomain if the
+     * id belongs to a shared read-only entity, or null otherwise.
+     */
+    Persistent sharedObject(ObjectId id) {
+        // nested contexts work with their own copies of the shared objects
+        return channel instanceof DataDomain ? ((DataDomain) channel).getSharedObjectCache().getObject(id) : null;
+    }
+
     /**
      * An internal version of {@link #localObject(Object)} that operates on
      * ObjectId instead of Persistent, and wouldn't attempt to look up an object
@@ -1150,6 +1174,11 @@ public class DataContext extends BaseContext {
             throw new IllegalArgumentException("Null ObjectId");
         }
 
+        Persistent sharedObject = sharedObject(id);
+        if (sharedObject != null) {
+            return sharedObject;
+        }
+
         // have to synchronize almost the entire method to prevent multiple
         // threads from
         // messing up dataobjects per CAY-845. Originally only parts of "else"
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.DataChannel;
@@ -46,6 +47,8 @@ import org.apache.cayenne.log.JdbcEventLogger;
 import org.apache.cayenne.map.DataMap;
 import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.map.EntitySorter;
+import org.apache.cayenne.metrics.MetricsRecorder;
+import org.apache.cayenne.metrics.NoopMetricsRecorder;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryChain;
 import org.apache.cayenne.tx.BaseTransaction;
@@ -108,7 +111,12 @@ public class DataDomain implements QueryEngine, DataChannel {
     protected Map<String, String> properties;
 
     protected EntityResolver entityResolver;
-    protected DataRowStore sharedSnapshotCache;
+    protected volatile DataRowStore sharedSnapshotCache;
+
+    /**
+     * @since 4.0
+     */
+    protected volatile SharedObjectCache sharedObjectCache;
     protected String name;
     protected QueryCache queryCache;
 
@@ -128,6 +136,21 @@ public class DataDomain implements QueryEngine, DataChannel {
 
     protected boolean stopped;
 
+    /**
+     * @since 4.0
+     */
+    protected ExecutorService flushExecutor;
+
+    /**
+     * @since 4.0
+     */
+    protected long replicaStickiness;
+
+    /**
+     * @since 4.0
+     */
+    protected MetricsRecorder metricsRecorder;
+
     /**
      * Creates a DataDomain and assigns it a name.
      */
@@ -162,6 +185,7 @@ public class DataDomain implements QueryEngine, DataChannel {
         // specific map
         // for that matter
         this.properties = Collections.EMPTY_MAP;
+        this.metricsRecorder = NoopMetricsRecorder.getInstance();
 
         setName(name);
     }
@@ -327,11 +351,30 @@ public class DataDomain implements QueryEngine, DataChannel {
     synchronized DataRowStore nonNullSharedSnapshotCache() {
         if (sharedSnapshotCache == null) {
             this.sharedSnapshotCache = new DataRowStore(name, properties, eventManager);
+            this.sharedSnapshotCache.setMetricsRecorder(metricsRecorder);
         }
 
         return sharedSnapshotCache;
     }
 
+    /**
+     * Returns a cache of objects of the entities mapped as shared read-only,
+     * lazily creating it on the first call.
+     * 
+     * @since 4.0
+     */
+    public SharedObjectCache getSharedObjectCache() {
+        if (sharedObjectCache == null) {
+            synchronized (this) {
+                if (sharedObjectCache == null) {
+                    sharedObjectCache = new SharedObjectCache(this);
+                }
+            }
+        }
+
+        return sharedObjectCache;
+    }
+
     /**
      * Shuts down the previous cache instance, sets cache to the new
      * DataSowStore instance and updates two properties of the new DataSowStore:
@@ -347,6 +390,7 @@ public class DataDomain implements QueryEngine, DataChannel {
             if (snapshotCache != null) {
                 snapshotCache.setEventManager(getEventManager());
                 snapshotCache.setName(getName());
+                snapshotCache.setMetricsRecorder(metricsRecorder);
             }
         }
     }
@@ -521,6 +565,10 @@ public class DataDomain implements QueryEngine, DataChannel {
             if (sharedSnapshotCache != null) {
                 sharedSnapshotCache.shutdown();
             }
+
+            if (flushExecutor != null) {
+                flushExecutor.shutdown();
+            }
         }
     }
 
@@ -640,7 +688,22 @@ public class DataDomain implements QueryEngine, DataChannel {
         DataDomainFlushAction action = new DataDomainFlushAction(this);
         action.setJdbcEventLogger(jdbcEventLogger);
 
-        return action.flush((DataContext) originatingContext, childChanges);
+        GraphDiff result = action.flush((DataContext) originatingContext, childChanges);
+
+        if (replicaStickiness > 0) {
+            ((DataContext) originatingContext).lastFlushTime = System.currentTimeMillis();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns true if reads of a given context should go to the primary
+     * DataNodes, because the context has recently committed its changes.
+     */
+    boolean isStickyToPrimary(DataContext context) {
+        return replicaStickiness > 0 && context != null
+                && System.currentTimeMillis() - context.lastFlushTime < replicaStickiness;
     }
 
     @Override
@@ -808,6 +871,73 @@ public class DataDomain implements QueryEngine, DataChannel {
         this.maxIdQualifierSize = maxIdQualifierSize;
     }
 
+    /**
+     * Returns an executor used to flush changes to multiple DataNodes in
+     * parallel, or null if commits touching several nodes are executed
+     * sequentially on the committing thread (the default).
+     * 
+     * @since 4.0
+     */
+    public ExecutorService getFlushExecutor() {
+        return flushExecutor;
+    }
+
+    /**
+     * Sets an executor used to flush changes to multiple DataNodes in parallel.
+     * Batches sent to a single node are still executed in order. Node ranges
+     * are only run concurrently if they do not depend on each other, i.e. if
+     * none of the flushed entities have relationships to entities in another
+     * node. The executor is shut down together with the DataDomain.
+     * 
+     * @since 4.0
+     */
+    public void setFlushExecutor(ExecutorService flushExecutor) {
+        this.flushExecutor = flushExecutor;
+    }
+
+    /**
+     * Returns a time in milliseconds after a commit during which selects of the
+     * committing context are sent to the primary DataNodes instead of read
+     * replicas, so that the context sees its own changes regardless of the
+     * replication lag. Zero (the default) disables this behavior.
+     * 
+     * @since 4.0
+     */
+    public long getReplicaStickiness() {
+        return replicaStickiness;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public void setReplicaStickiness(long replicaStickiness) {
+        this.replicaStickiness = replicaStickiness;
+    }
+
+    /**
+     * Returns a recorder of commit times, relationship faults and other
+     * metrics collected at the DataDomain level.
+     * 
+     * @since 4.0
+     */
+    public MetricsRecorder getMetricsRecorder() {
+        return metricsRecorder;
+    }
+
+    /**
+     * Sets a recorder of metrics collected at the DataDomain level, also
+     * passing it to the shared snapshot cache.
+     * 
+     * @since 4.0
+     */
+    public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+        this.metricsRecorder = metricsRecorder != null ? metricsRecorder : NoopMetricsRecorder.getInstance();
+
+        if (sharedSnapshotCache != null) {
+            sharedSnapshotCache.setMetricsRecorder(this.metricsRecorder);
+        }
+    }
+
     TransactionManager getTransactionManager() {
         return transactionManager;
     }
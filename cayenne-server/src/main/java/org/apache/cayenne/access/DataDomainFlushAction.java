@@ -25,8 +25,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.DataRow;
@@ -37,10 +43,14 @@ import org.apache.cayenne.graph.CompoundDiff;
 import org.apache.cayenne.graph.GraphDiff;
 import org.apache.cayenne.log.JdbcEventLogger;
 import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.map.DbRelationship;
+import org.apache.cayenne.metrics.MetricsRecorder;
 import org.apache.cayenne.query.BatchQuery;
+import org.apache.cayenne.query.BatchQueryRow;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.reflect.ClassDescriptor;
 import org.apache.cayenne.tx.BaseTransaction;
+import org.apache.cayenne.tx.Transaction;
 
 /**
  * A stateful commit handler used by DataContext to perform commit operation.
@@ -67,6 +77,7 @@ class DataDomainFlushAction {
     private DataDomainFlattenedBucket flattenedBucket;
 
     private List<Query> queries;
+    private Map<DataNode, DataNode> shardOwners;
 
     private JdbcEventLogger logger;
 
@@ -130,6 +141,7 @@ class DataDomainFlushAction {
                     + changes.getClass().getName());
         }
 
+        long t0 = System.nanoTime();
         this.context = context;
 
         // ObjectStoreGraphDiff contains changes already categorized by objectId...
@@ -155,6 +167,12 @@ class DataDomainFlushAction {
         runQueries();
 
         postprocess(context);
+
+        MetricsRecorder recorder = domain.getMetricsRecorder();
+        if (recorder.isEnabled()) {
+            recorder.recordTime(MetricsRecorder.COMMIT_TIME, null, null, System.nanoTime() - t0);
+        }
+
         return resultDiff;
     }
 
@@ -204,38 +222,268 @@ class DataDomainFlushAction {
 
         try {
 
-            DataNode lastNode = null;
-            DbEntity lastEntity = null;
-            int rangeStart = 0;
-            int len = queries.size();
+            List<NodeRange> ranges = splitByNode();
+            ExecutorService executor = domain.getFlushExecutor();
+
+            if (executor != null && ranges.size() > 1 && isIndependent(ranges)) {
+                runConcurrently(ranges, observer, executor);
+            }
+            else {
+                for (NodeRange range : ranges) {
+                    range.node.performQueries(range.queries, observer);
+                }
+            }
+        }
+        catch (Throwable th) {
+            BaseTransaction.getThreadTransaction().setRollbackOnly();
+            throw new CayenneRuntimeException("Transaction was rolledback.", th);
+        }
+    }
+
+    private List<NodeRange> splitByNode() {
+
+        List<NodeRange> ranges = new ArrayList<NodeRange>();
+
+        DataNode lastNode = null;
+        DbEntity lastEntity = null;
+
+        for (Query query : queries) {
+
+            BatchQuery batch = (BatchQuery) query;
+            if (batch.getDbEntity() != lastEntity) {
+                lastEntity = batch.getDbEntity();
+                lastNode = domain.lookupDataNode(lastEntity.getDataMap());
+            }
+
+            if (lastNode.getShards().isEmpty()) {
+                appendToRange(ranges, lastNode, batch);
+            }
+            else {
+                for (Map.Entry<DataNode, BatchQuery> entry : splitByShard(lastNode, batch)
+                        .entrySet()) {
+                    appendToRange(ranges, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        return shardOwners != null ? groupByShard(ranges) : ranges;
+    }
+
+    private void appendToRange(List<NodeRange> ranges, DataNode node, Query query) {
+        NodeRange last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+
+        if (last != null && last.node == node) {
+            last.queries.add(query);
+        }
+        else {
+            List<Query> rangeQueries = new ArrayList<Query>();
+            rangeQueries.add(query);
+            ranges.add(new NodeRange(node, rangeQueries));
+        }
+    }
+
+    /**
+     * Splits rows of a batch between the shards of a node, preserving the order
+     * of rows within each shard.
+     */
+    private Map<DataNode, BatchQuery> splitByShard(DataNode node, BatchQuery batch) {
+
+        Map<DataNode, List<BatchQueryRow>> rowsByShard = new LinkedHashMap<DataNode, List<BatchQueryRow>>();
+
+        for (BatchQueryRow row : batch.getRows()) {
+            DataNode shard = node.selectShard(batch, row, context);
+
+            List<BatchQueryRow> rows = rowsByShard.get(shard);
+            if (rows == null) {
+                rows = new ArrayList<BatchQueryRow>();
+                rowsByShard.put(shard, rows);
+            }
+
+            rows.add(row);
+        }
+
+        if (shardOwners == null) {
+            shardOwners = new HashMap<DataNode, DataNode>();
+        }
+
+        Map<DataNode, BatchQuery> batches = new LinkedHashMap<DataNode, BatchQuery>();
+        for (Map.Entry<DataNode, List<BatchQueryRow>> entry : rowsByShard.entrySet()) {
+            shardOwners.put(entry.getKey(), node);
+            batches.put(entry.getKey(), rowsByShard.size() > 1 ? batch.createSubBatch(entry
+                    .getValue()) : batch);
+        }
+
+        return batches;
+    }
+
+    /**
+     * If all changes go to the shards of a single node, merges the ranges of
+     * each shard into one, as rows stored in different shards can't depend on
+     * each other. This allows the shards to be flushed in parallel.
+     */
+    private List<NodeRange> groupByShard(List<NodeRange> ranges) {
+
+        DataNode owner = null;
+        for (NodeRange range : ranges) {
+            DataNode rangeOwner = shardOwners.get(range.node);
+            if (rangeOwner == null || (owner != null && owner != rangeOwner)) {
+                return ranges;
+            }
+
+            owner = rangeOwner;
+        }
 
-            for (int i = 0; i < len; i++) {
+        Map<DataNode, NodeRange> rangesByShard = new LinkedHashMap<DataNode, NodeRange>();
+        for (NodeRange range : ranges) {
+            NodeRange shardRange = rangesByShard.get(range.node);
+            if (shardRange == null) {
+                rangesByShard.put(range.node, range);
+            }
+            else {
+                shardRange.queries.addAll(range.queries);
+            }
+        }
 
-                BatchQuery query = (BatchQuery) queries.get(i);
-                if (query.getDbEntity() != lastEntity) {
-                    lastEntity = query.getDbEntity();
+        return new ArrayList<NodeRange>(rangesByShard.values());
+    }
 
-                    DataNode node = domain.lookupDataNode(lastEntity.getDataMap());
-                    if (node != lastNode) {
+    /**
+     * Returns true if node ranges can be executed in any order. This is the case when
+     * each node is accessed only once, and none of the flushed entities have
+     * relationships to entities stored in another node, so there are no PK or FK
+     * dependencies between the ranges.
+     */
+    private boolean isIndependent(List<NodeRange> ranges) {
 
-                        if (i - rangeStart > 0) {
-                            lastNode.performQueries(
-                                    queries.subList(rangeStart, i),
-                                    observer);
-                        }
+        Set<DataNode> nodes = new HashSet<DataNode>();
+        for (NodeRange range : ranges) {
+            if (!nodes.add(range.node)) {
+                return false;
+            }
+
+            Set<DbEntity> seen = new HashSet<DbEntity>();
+            for (Query query : range.queries) {
+                DbEntity entity = ((BatchQuery) query).getDbEntity();
+                if (!seen.add(entity)) {
+                    continue;
+                }
 
-                        rangeStart = i;
-                        lastNode = node;
+                for (DbRelationship relationship : entity.getRelationships()) {
+                    DbEntity target = relationship.getTargetEntity();
+                    if (target != null
+                            && domain.lookupDataNode(target.getDataMap()) != owner(range.node)) {
+                        return false;
                     }
                 }
             }
+        }
+
+        return true;
+    }
 
-            // process last segment of the query list...
-            lastNode.performQueries(queries.subList(rangeStart, len), observer);
+    private DataNode owner(DataNode node) {
+        DataNode owner = shardOwners != null ? shardOwners.get(node) : null;
+        return owner != null ? owner : node;
+    }
+
+    /**
+     * Executes node ranges in parallel, the first range running on the calling thread.
+     * All ranges are allowed to finish before an exception is rethrown, so that the
+     * transaction is not rolled back while its connections are still in use.
+     */
+    private void runConcurrently(
+            List<NodeRange> ranges,
+            final OperationObserver observer,
+            ExecutorService executor) throws Exception {
+
+        final Transaction transaction = BaseTransaction.getThreadTransaction();
+
+        // open transaction connections upfront on the calling thread, so that worker
+        // threads only read the transaction connection map
+        if (transaction != null) {
+            for (NodeRange range : ranges) {
+                range.node.getDataSource().getConnection().close();
+            }
+        }
+
+        List<Future<?>> futures = new ArrayList<Future<?>>(ranges.size() - 1);
+        for (int i = 1; i < ranges.size(); i++) {
+            final NodeRange range = ranges.get(i);
+            futures.add(executor.submit(new Callable<Object>() {
+
+                public Object call() throws Exception {
+                    BaseTransaction.bindThreadTransaction(transaction);
+                    try {
+                        runTimed(range, observer);
+                    }
+                    finally {
+                        BaseTransaction.bindThreadTransaction(null);
+                    }
+
+                    return null;
+                }
+            }));
+        }
+
+        Throwable failure = null;
+
+        try {
+            runTimed(ranges.get(0), observer);
         }
         catch (Throwable th) {
-            BaseTransaction.getThreadTransaction().setRollbackOnly();
-            throw new CayenneRuntimeException("Transaction was rolledback.", th);
+            failure = th;
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            }
+            catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+            catch (InterruptedException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        if (failure instanceof Exception) {
+            throw (Exception) failure;
+        }
+        else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    private void runTimed(NodeRange range, OperationObserver observer) {
+        long t0 = System.currentTimeMillis();
+        range.node.performQueries(range.queries, observer);
+
+        if (logger != null) {
+            logger.log("--- flushed "
+                    + range.queries.size()
+                    + " batch(es) to node '"
+                    + range.node.getName()
+                    + "' in "
+                    + (System.currentTimeMillis() - t0)
+                    + " ms.");
+        }
+    }
+
+    /**
+     * A contiguous subset of the sorted batch list that is sent to a single DataNode.
+     */
+    static final class NodeRange {
+
+        final DataNode node;
+        final List<Query> queries;
+
+        NodeRange(DataNode node, List<Query> queries) {
+            this.node = node;
+            this.queries = queries;
         }
     }
 
@@ -32,6 +32,7 @@ import org.apache.cayenne.map.DataMap;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.query.QueryRouter;
+import org.apache.cayenne.query.SelectQuery;
 
 /**
  * DataDomain query action that relies on externally provided OperationObserver to process
@@ -84,6 +85,45 @@ class DataDomainLegacyQueryAction implements QueryRouter, OperationObserver {
     @Override
     public void route(QueryEngine engine, Query query, Query substitutedQuery) {
 
+        if (engine instanceof DataNode && !((DataNode) engine).getShards().isEmpty()) {
+            List<DataNode> shards = ((DataNode) engine).selectShards(query, null);
+
+            if (shards.size() > 1) {
+                QueryMetadata metadata = query.getMetaData(domain.getEntityResolver());
+
+                // paginated lists read the ids with an iterated query, so the
+                // check must come first to explain the failure
+                if (metadata.getPageSize() > 0) {
+                    throw new CayenneRuntimeException("Can't paginate results of %d shards, "
+                            + "query must match a single shard", shards.size());
+                }
+
+                if (callback.isIteratedResult()) {
+                    throw new CayenneRuntimeException("Can't iterate over results of %d shards, "
+                            + "query must match a single shard", shards.size());
+                }
+
+                // results of each shard are passed to the callback as is, so
+                // there's no way to order or limit them as a whole
+                if (metadata.getFetchOffset() > 0 || metadata.getFetchLimit() > 0
+                        || (query instanceof SelectQuery && !((SelectQuery<?>) query).getOrderings().isEmpty())) {
+                    throw new CayenneRuntimeException("Can't order or limit results of %d shards without "
+                            + "merging them, use ObjectContext.select(..) instead", shards.size());
+                }
+            }
+
+            for (DataNode shard : shards) {
+                routeToEngine(shard, query, substitutedQuery);
+            }
+
+            return;
+        }
+
+        routeToEngine(engine, query, substitutedQuery);
+    }
+
+    private void routeToEngine(QueryEngine engine, Query query, Query substitutedQuery) {
+
         List<Query> queries = null;
         if (queriesByNode == null) {
             queriesByNode = new HashMap<QueryEngine, List<Query>>();
@@ -30,6 +30,7 @@ import org.apache.cayenne.map.Procedure;
 import org.apache.cayenne.query.PrefetchTreeNode;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryCancelHandle;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.query.QueryRouter;
 import org.apache.cayenne.query.SQLAction;
@@ -142,4 +143,12 @@ class DataDomainQuery implements Query, QueryMetadata {
     public int getStatementFetchSize() {
         return 0;
     }
+
+    public int getQueryTimeout() {
+        return 0;
+    }
+
+    public QueryCancelHandle getCancelHandle() {
+        return null;
+    }
 }
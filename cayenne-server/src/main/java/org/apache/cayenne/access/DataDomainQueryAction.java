@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,25 +38,39 @@ import org.apache.cayenne.ObjectId;
 import org.apache.cayenne.Persistent;
 import org.apache.cayenne.QueryResponse;
 import org.apache.cayenne.ResultIterator;
+import org.apache.cayenne.access.event.SnapshotEvent;
 import org.apache.cayenne.cache.QueryCache;
 import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.Property;
+import org.apache.cayenne.exp.parser.ASTDbPath;
 import org.apache.cayenne.map.DataMap;
+import org.apache.cayenne.map.DbAttribute;
 import org.apache.cayenne.map.DbEntity;
 import org.apache.cayenne.map.DbRelationship;
 import org.apache.cayenne.map.LifecycleEvent;
+import org.apache.cayenne.map.ObjEntity;
 import org.apache.cayenne.map.ObjRelationship;
+import org.apache.cayenne.metrics.MetricsRecorder;
+import org.apache.cayenne.query.BulkDeleteQuery;
+import org.apache.cayenne.query.BulkQuery;
 import org.apache.cayenne.query.EntityResultSegment;
 import org.apache.cayenne.query.ObjectIdQuery;
+import org.apache.cayenne.query.Ordering;
 import org.apache.cayenne.query.PrefetchSelectQuery;
 import org.apache.cayenne.query.PrefetchTreeNode;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryCacheStrategy;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.query.QueryRouter;
+import org.apache.cayenne.query.ReadRoutingQuery;
 import org.apache.cayenne.query.RefreshQuery;
 import org.apache.cayenne.query.RelationshipQuery;
+import org.apache.cayenne.query.Select;
+import org.apache.cayenne.query.SelectQuery;
 import org.apache.cayenne.reflect.ClassDescriptor;
 import org.apache.cayenne.reflect.LifecycleCallbackRegistry;
+import org.apache.cayenne.tx.BaseTransaction;
 import org.apache.cayenne.tx.TransactionalOperation;
 import org.apache.cayenne.util.GenericResponse;
 import org.apache.cayenne.util.ListResponse;
@@ -84,6 +99,10 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
     Map<QueryEngine, Collection<Query>> queriesByNode;
     Map<Query, Query> queriesByExecutedQueries;
     boolean noObjectConversion;
+    boolean replicaRouting;
+    Map<DataNode, DataNode> replicasByNode;
+    Map<Query, Query> scatteredQueries;
+    Map<Query, List> scatteredResults;
 
     /*
      * A constructor for the "new" way of performing a query via 'execute' with
@@ -112,13 +131,17 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
 
     QueryResponse execute() {
 
+        long t0 = System.nanoTime();
+
         // run chain...
         if (interceptOIDQuery() != DONE) {
             if (interceptRelationshipQuery() != DONE) {
                 if (interceptRefreshQuery() != DONE) {
-                    if (interceptSharedCache() != DONE) {
-                        if (interceptDataDomainQuery() != DONE) {
-                            runQueryInTransaction();
+                    if (interceptBulkQuery() != DONE) {
+                        if (interceptSharedCache() != DONE) {
+                            if (interceptDataDomainQuery() != DONE) {
+                                runQueryInTransaction();
+                            }
                         }
                     }
                 }
@@ -129,6 +152,16 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
             interceptObjectConversion();
         }
 
+        // relationship queries are run by the to-one and to-many faults
+        if (query instanceof RelationshipQuery) {
+            MetricsRecorder recorder = domain.getMetricsRecorder();
+            if (recorder.isEnabled()) {
+                RelationshipQuery relationshipQuery = (RelationshipQuery) query;
+                recorder.recordTime(MetricsRecorder.RELATIONSHIP_FAULT_TIME, relationshipQuery.getObjectId()
+                        .getEntityName(), relationshipQuery.getRelationshipName(), System.nanoTime() - t0);
+            }
+        }
+
         return response;
     }
 
@@ -335,6 +368,135 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
         return !DONE;
     }
 
+    /**
+     * Runs a bulk UPDATE or DELETE, and then invalidates the snapshots and the
+     * query cache groups affected by it.
+     * 
+     * @since 4.0
+     */
+    private boolean interceptBulkQuery() {
+
+        if (query instanceof BulkQuery) {
+            final BulkQuery bulkQuery = (BulkQuery) query;
+
+            // with inheritance a row may be cached under any of the entities
+            // mapped to the table
+            final Collection<String> entityNames = new HashSet<String>();
+            for (ObjEntity entity : domain.getEntityResolver().getObjEntities()) {
+                if (entity.getDbEntity() == metadata.getDbEntity()) {
+                    entityNames.add(entity.getName());
+                }
+            }
+
+            final Collection<ObjectId> ids = new ArrayList<ObjectId>();
+
+            domain.getTransactionManager().performInTransaction(new TransactionalOperation<Object>() {
+                @Override
+                public Object perform() {
+
+                    // ids must be read before the rows are changed
+                    if (bulkQuery.isPreselectingIds()) {
+                        ids.addAll(selectIds(bulkQuery, entityNames));
+                    }
+
+                    runQuery();
+                    return null;
+                }
+            });
+
+            if (cache != null) {
+
+                // without preselected ids we can't tell which of the objects
+                // were deleted, so invalidate them all, and let the faults
+                // find out
+                if (!bulkQuery.isPreselectingIds()) {
+                    Set<ObjectId> entityIds = new HashSet<ObjectId>(cache.idsForEntities(entityNames));
+
+                    // the store is not indexed by the cache if it doesn't
+                    // receive events
+                    if (context != null) {
+                        synchronized (context.getObjectStore()) {
+                            Iterator<?> it = context.getObjectStore().getObjectIterator();
+                            while (it.hasNext()) {
+                                ObjectId id = ((Persistent) it.next()).getObjectId();
+                                if (entityNames.contains(id.getEntityName())) {
+                                    entityIds.add(id);
+                                }
+                            }
+                        }
+                    }
+
+                    ids.addAll(entityIds);
+                }
+
+                if (!ids.isEmpty()) {
+                    boolean deleted = bulkQuery.isPreselectingIds() && bulkQuery instanceof BulkDeleteQuery;
+                    Collection<ObjectId> deletedIds = deleted ? ids : Collections.<ObjectId> emptyList();
+                    Collection<ObjectId> invalidatedIds = deleted ? Collections.<ObjectId> emptyList() : ids;
+
+                    // other ObjectStores receive the event asynchronously,
+                    // while the objects of the calling context must be
+                    // refreshed by the time the query returns
+                    Object postedBy = context != null ? context.getObjectStore() : domain;
+                    cache.processSnapshotChanges(postedBy, Collections.EMPTY_MAP, deletedIds, invalidatedIds,
+                            Collections.EMPTY_LIST);
+
+                    if (context != null) {
+                        context.getObjectStore().processSnapshotEvent(
+                                new SnapshotEvent(cache, context, Collections.EMPTY_MAP, deletedIds, invalidatedIds,
+                                        Collections.EMPTY_LIST));
+                    }
+                }
+            }
+
+            for (String group : bulkQuery.getCacheGroups()) {
+                domain.getQueryCache().removeGroup(group);
+                if (context != null) {
+                    context.getQueryCache().removeGroup(group);
+                }
+            }
+
+            return DONE;
+        }
+
+        return !DONE;
+    }
+
+    /**
+     * Fetches ids of the rows matching the qualifier of a bulk query, creating
+     * an id for each of the named entities.
+     */
+    private Collection<ObjectId> selectIds(BulkQuery bulkQuery, Collection<String> entityNames) {
+
+        List<DbAttribute> pks = new ArrayList<DbAttribute>(metadata.getDbEntity().getPrimaryKeys());
+
+        Property<?>[] columns = new Property<?>[pks.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new Property<Object>(ASTDbPath.DB_PREFIX + pks.get(i).getName());
+        }
+
+        SelectQuery<Object> select = new SelectQuery<Object>(metadata.getObjEntity(), bulkQuery.getQualifier());
+        select.setColumns(columns);
+
+        List<?> rows = new DataDomainQueryAction(null, domain, select).execute().firstList();
+
+        Collection<ObjectId> ids = new ArrayList<ObjectId>(rows.size() * entityNames.size());
+        for (Object row : rows) {
+            Object[] values = (row instanceof Object[]) ? (Object[]) row : new Object[] { row };
+
+            Map<String, Object> idSnapshot = new HashMap<String, Object>();
+            for (int i = 0; i < values.length; i++) {
+                idSnapshot.put(pks.get(i).getName(), values[i]);
+            }
+
+            for (String entityName : entityNames) {
+                ids.add(new ObjectId(entityName, idSnapshot));
+            }
+        }
+
+        return ids;
+    }
+
     /*
      * Wraps execution in shared cache checks
      */
@@ -406,6 +568,10 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
      */
     void runQueryInTransaction() {
 
+        // reads can go to replicas only if we are not within a transaction
+        // started by the caller
+        this.replicaRouting = BaseTransaction.getThreadTransaction() == null;
+
         domain.getTransactionManager().performInTransaction(new TransactionalOperation<Object>() {
             @Override
             public Object perform() {
@@ -421,6 +587,9 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
         this.response = this.fullResponse;
         this.queriesByNode = null;
         this.queriesByExecutedQueries = null;
+        this.replicasByNode = null;
+        this.scatteredQueries = null;
+        this.scatteredResults = null;
 
         // whether this is null or not will driver further decisions on how to
         // process
@@ -439,6 +608,10 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
                 nextNode.performQueries(nodeQueries, this);
             }
         }
+
+        if (scatteredResults != null) {
+            gatherShardResults();
+        }
     }
 
     private void interceptObjectConversion() {
@@ -474,6 +647,59 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
     @Override
     public void route(QueryEngine engine, Query query, Query substitutedQuery) {
 
+        if (engine instanceof DataNode && !((DataNode) engine).getShards().isEmpty()) {
+            List<DataNode> shards = ((DataNode) engine).selectShards(query, context);
+
+            if (shards.size() > 1) {
+                scatter(shards, query, substitutedQuery);
+                return;
+            }
+
+            engine = shards.get(0);
+        }
+
+        routeToEngine(engine, query, substitutedQuery);
+    }
+
+    /**
+     * Routes a query to each one of the shards, so that the results can be
+     * merged once all shards are done. If the query has a fetch offset, each
+     * shard runs a copy of the query that fetches all rows up to the end of
+     * the requested range. Queries whose orderings can't be restored on the
+     * merged rows are rejected.
+     */
+    private void scatter(List<DataNode> shards, Query query, Query substitutedQuery) {
+
+        Query shardQuery = query;
+
+        if (query instanceof SelectQuery && !(query instanceof PrefetchSelectQuery)) {
+            SelectQuery<?> select = (SelectQuery<?>) query;
+            checkMergedOrderings(select, shards.size());
+
+            if (select.getFetchOffset() > 0) {
+                SelectQuery<?> copy = select.queryWithParameters(Collections.<String, Object> emptyMap());
+                copy.setFetchOffset(0);
+                copy.setFetchLimit(select.getFetchLimit() > 0 ? select.getFetchOffset() + select.getFetchLimit() : 0);
+                shardQuery = copy;
+            }
+        }
+
+        if (scatteredQueries == null) {
+            scatteredQueries = new HashMap<Query, Query>();
+            scatteredResults = new LinkedHashMap<Query, List>();
+        }
+
+        scatteredQueries.put(shardQuery, query);
+
+        for (DataNode shard : shards) {
+            routeToEngine(shard, shardQuery, substitutedQuery);
+        }
+    }
+
+    private void routeToEngine(QueryEngine engine, Query query, Query substitutedQuery) {
+
+        engine = routeToReplica(engine, query);
+
         Collection<Query> queries = null;
         if (queriesByNode == null) {
             queriesByNode = new HashMap<QueryEngine, Collection<Query>>();
@@ -501,6 +727,45 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
         }
     }
 
+    /**
+     * Substitutes a DataNode with one of its read replicas if the query is a
+     * read-only query run outside of a transaction. All queries of this action
+     * are sent to the same replica.
+     */
+    private QueryEngine routeToReplica(QueryEngine engine, Query query) {
+
+        if (!replicaRouting || !(engine instanceof DataNode)) {
+            return engine;
+        }
+
+        DataNode node = (DataNode) engine;
+        if (node.getReplicas().isEmpty()) {
+            return engine;
+        }
+
+        if (this.query instanceof ReadRoutingQuery) {
+            if (!((ReadRoutingQuery) this.query).isReplica()) {
+                return engine;
+            }
+        } else if (!(this.query instanceof Select || query instanceof SelectQuery)) {
+            return engine;
+        } else if (domain.isStickyToPrimary(context)) {
+            return engine;
+        }
+
+        if (replicasByNode == null) {
+            replicasByNode = new HashMap<DataNode, DataNode>();
+        }
+
+        DataNode replica = replicasByNode.get(node);
+        if (replica == null) {
+            replica = node.selectReplica();
+            replicasByNode.put(node, replica);
+        }
+
+        return replica;
+    }
+
     @Override
     public QueryEngine engineForDataMap(DataMap map) {
         if (map == null) {
@@ -552,6 +817,23 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
     @Override
     public void nextRows(Query query, List<?> dataRows) {
 
+        Query scattered = scatteredQueries != null ? scatteredQueries.get(query) : null;
+        if (scattered != null) {
+            List merged = scatteredResults.get(scattered);
+
+            if (merged != null) {
+                merged.addAll(dataRows);
+                return;
+            }
+
+            // the first shard to respond defines the position of the merged
+            // list in the response
+            merged = new ArrayList(dataRows);
+            scatteredResults.put(scattered, merged);
+            query = scattered;
+            dataRows = merged;
+        }
+
         // exclude prefetched rows in the main result
         if (prefetchResultsByPath != null && query instanceof PrefetchSelectQuery) {
             PrefetchSelectQuery prefetchQuery = (PrefetchSelectQuery) query;
@@ -592,6 +874,81 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
         return false;
     }
 
+    /**
+     * Restores the ordering of the rows merged from several shards and applies
+     * fetch offset and limit. Orderings are only applied to the columns of the
+     * root table, as the merged rows contain no other values.
+     */
+    private void gatherShardResults() {
+        for (Map.Entry<Query, List> entry : scatteredResults.entrySet()) {
+
+            if (!(entry.getKey() instanceof SelectQuery) || entry.getKey() instanceof PrefetchSelectQuery) {
+                continue;
+            }
+
+            SelectQuery<?> select = (SelectQuery<?>) entry.getKey();
+            List rows = entry.getValue();
+
+            if (!select.getOrderings().isEmpty()) {
+                Ordering.orderList(rows, toDbOrderings(select));
+            }
+
+            int offset = select.getFetchOffset();
+            int limit = select.getFetchLimit();
+            int end = limit > 0 ? Math.min(rows.size(), offset + limit) : rows.size();
+
+            if (offset > 0 || end < rows.size()) {
+                List range = offset < end ? new ArrayList(rows.subList(offset, end)) : new ArrayList();
+                rows.clear();
+                rows.addAll(range);
+            }
+        }
+    }
+
+    /**
+     * Throws if the orderings of a query can't be applied to the rows merged
+     * from several shards. Merged rows only contain the columns of the root
+     * table, so orderings on related tables are rejected, as well as orderings
+     * of column queries, whose rows are not DataRows.
+     */
+    private void checkMergedOrderings(SelectQuery<?> select, int shardCount) {
+
+        if (select.getOrderings().isEmpty()) {
+            return;
+        }
+
+        if (select.getColumns() != null && !select.getColumns().isEmpty()) {
+            throw new CayenneRuntimeException("Can't order column query results of %d shards, "
+                    + "query must match a single shard", shardCount);
+        }
+
+        for (Ordering ordering : toDbOrderings(select)) {
+            Expression path = ordering.getSortSpec();
+            if (path.getType() != Expression.DB_PATH || path.getOperand(0).toString().indexOf('.') >= 0) {
+                throw new CayenneRuntimeException("Can't order results of %d shards by '%s', "
+                        + "only the columns of the root table are supported", shardCount,
+                        ordering.getSortSpecString());
+            }
+        }
+    }
+
+    private List<Ordering> toDbOrderings(SelectQuery<?> select) {
+        ObjEntity entity = select.getMetaData(domain.getEntityResolver()).getObjEntity();
+
+        List<Ordering> orderings = new ArrayList<Ordering>(select.getOrderings().size());
+        for (Ordering ordering : select.getOrderings()) {
+            Ordering dbOrdering = new Ordering();
+            dbOrdering.setSortSpec(entity != null ? entity.translateToDbPath(ordering.getSortSpec()) : ordering
+                    .getSortSpec());
+            dbOrdering.setSortOrder(ordering.getSortOrder());
+            dbOrdering.setNullSortedFirst(ordering.isNullSortedFirst());
+            dbOrdering.setPathExceptionSupressed(true);
+            orderings.add(dbOrdering);
+        }
+
+        return orderings;
+    }
+
     abstract class ObjectConversionStrategy<T> {
 
         abstract void convert(List<T> mainRows);
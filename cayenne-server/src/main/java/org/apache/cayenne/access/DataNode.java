@@ -26,12 +26,15 @@ import java.sql.SQLFeatureNotSupportedException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
 
 import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
 import org.apache.cayenne.access.dbsync.SchemaUpdateStrategy;
 import org.apache.cayenne.access.dbsync.SkipSchemaUpdateStrategy;
 import org.apache.cayenne.access.jdbc.ColumnDescriptor;
@@ -45,10 +48,14 @@ import org.apache.cayenne.dba.DbAdapter;
 import org.apache.cayenne.dba.JdbcAdapter;
 import org.apache.cayenne.log.JdbcEventLogger;
 import org.apache.cayenne.log.NoopJdbcEventLogger;
+import org.apache.cayenne.log.SlowQueryDetector;
 import org.apache.cayenne.map.DataMap;
 import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.metrics.MetricsRecorder;
+import org.apache.cayenne.metrics.NoopMetricsRecorder;
 import org.apache.cayenne.query.BatchQuery;
+import org.apache.cayenne.query.BatchQueryRow;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.tx.BaseTransaction;
@@ -73,10 +80,19 @@ public class DataNode implements QueryEngine {
     protected Map<String, DataMap> dataMaps;
 
     private JdbcEventLogger jdbcEventLogger;
+    private MetricsRecorder metricsRecorder;
+    private SlowQueryDetector slowQueryDetector;
+    private int queryTimeout;
     private RowReaderFactory rowReaderFactory;
     private BatchTranslatorFactory batchTranslatorFactory;
     private SQLTemplateProcessor sqlTemplateProcessor;
 
+    private List<DataNode> replicas;
+    private ReplicaSelectionStrategy replicaSelectionStrategy;
+    private List<DataNode> shards;
+    private ShardingStrategy shardingStrategy;
+    private volatile long averageQueryTime;
+
     TransactionDataSource readThroughDataSource;
 
     /**
@@ -94,9 +110,13 @@ public class DataNode implements QueryEngine {
         this.name = name;
         this.dataMaps = new HashMap<String, DataMap>();
         this.readThroughDataSource = new TransactionDataSource();
+        this.replicas = new CopyOnWriteArrayList<DataNode>();
+        this.replicaSelectionStrategy = new RoundRobinReplicaSelectionStrategy();
+        this.shards = new CopyOnWriteArrayList<DataNode>();
 
         // make sure logger is not null
         this.jdbcEventLogger = NoopJdbcEventLogger.getInstance();
+        this.metricsRecorder = NoopMetricsRecorder.getInstance();
     }
 
     /**
@@ -148,6 +168,55 @@ public class DataNode implements QueryEngine {
         this.jdbcEventLogger = logger;
     }
 
+    /**
+     * @since 4.0
+     */
+    public MetricsRecorder getMetricsRecorder() {
+        return metricsRecorder;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+        this.metricsRecorder = metricsRecorder;
+    }
+
+    /**
+     * Returns a detector that records slow statements executed by this node,
+     * or null if slow queries are not tracked.
+     * 
+     * @since 4.0
+     */
+    public SlowQueryDetector getSlowQueryDetector() {
+        return slowQueryDetector;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public void setSlowQueryDetector(SlowQueryDetector slowQueryDetector) {
+        this.slowQueryDetector = slowQueryDetector;
+    }
+
+    /**
+     * Returns the number of seconds a statement executed by this node is
+     * allowed to run, unless its query defines its own timeout. Zero means no
+     * timeout.
+     * 
+     * @since 4.0
+     */
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public void setQueryTimeout(int queryTimeout) {
+        this.queryTimeout = queryTimeout;
+    }
+
     /**
      * Returns node name. Name is used to uniquely identify DataNode within a
      * DataDomain.
@@ -292,6 +361,8 @@ public class DataNode implements QueryEngine {
             return;
         }
 
+        long t0 = System.nanoTime();
+
         try {
             DataNodeQueryAction queryRunner = new DataNodeQueryAction(this, callback);
 
@@ -320,9 +391,32 @@ public class DataNode implements QueryEngine {
             } catch (SQLException e) {
                 // ignore closing exceptions...
             }
+
+            recordQueryTime(System.nanoTime() - t0);
         }
     }
 
+    /**
+     * Updates a moving average of query execution time.
+     */
+    void recordQueryTime(long time) {
+        long average = averageQueryTime;
+
+        // exponentially weighted, giving 1/8 of the weight to the latest sample
+        averageQueryTime = average > 0 ? average + (time - average) / 8 : time;
+    }
+
+    /**
+     * Returns a moving average of the time in nanoseconds it takes this node
+     * to run a batch of queries. Returns zero if the node has not run any
+     * queries yet.
+     * 
+     * @since 4.0
+     */
+    public long getAverageQueryTime() {
+        return averageQueryTime;
+    }
+
     /**
      * Returns EntityResolver that handles DataMaps of this node.
      */
@@ -340,6 +434,213 @@ public class DataNode implements QueryEngine {
      */
     public void setEntityResolver(EntityResolver entityResolver) {
         this.entityResolver = entityResolver;
+
+        for (DataNode replica : replicas) {
+            replica.setEntityResolver(entityResolver);
+        }
+
+        for (DataNode shard : shards) {
+            shard.setEntityResolver(entityResolver);
+        }
+    }
+
+    /**
+     * Returns an unmodifiable list of read replicas of this node.
+     * 
+     * @since 4.0
+     */
+    public List<DataNode> getReplicas() {
+        return Collections.unmodifiableList(replicas);
+    }
+
+    /**
+     * Adds a read replica node. Selects that are run outside of a transaction
+     * are routed to one of the replicas, while all changes and queries within
+     * a transaction are still sent to this node.
+     * 
+     * @since 4.0
+     */
+    public void addReplica(DataNode replica) {
+        if (replica.getEntityResolver() == null) {
+            replica.setEntityResolver(entityResolver);
+        }
+
+        replicas.add(replica);
+    }
+
+    /**
+     * Creates a read replica node for a given DataSource, copying adapter and
+     * other settings from this node, and adds it to the list of replicas.
+     * Note that DataMaps added to this node afterwards are not propagated to
+     * the replica.
+     * 
+     * @since 4.0
+     */
+    public DataNode addReplica(String name, DataSource dataSource) {
+        DataNode replica = copyForDataSource(name, dataSource);
+        addReplica(replica);
+        return replica;
+    }
+
+    private DataNode copyForDataSource(String name, DataSource dataSource) {
+        DataNode copy = new DataNode(name);
+
+        copy.setJdbcEventLogger(jdbcEventLogger);
+        copy.setMetricsRecorder(metricsRecorder);
+        copy.setSlowQueryDetector(slowQueryDetector);
+        copy.setQueryTimeout(queryTimeout);
+        copy.setRowReaderFactory(rowReaderFactory);
+        copy.setBatchTranslatorFactory(batchTranslatorFactory);
+        copy.setSqlTemplateProcessor(sqlTemplateProcessor);
+        copy.setDataSource(dataSource);
+        copy.setAdapter(adapter);
+        copy.setDataMaps(dataMaps.values());
+
+        return copy;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public boolean removeReplica(DataNode replica) {
+        return replicas.remove(replica);
+    }
+
+    /**
+     * Returns one of the read replicas as determined by the
+     * {@link ReplicaSelectionStrategy}, or this node if there are no replicas.
+     * 
+     * @since 4.0
+     */
+    public DataNode selectReplica() {
+        DataNode replica = null;
+
+        if (!replicas.isEmpty()) {
+            replica = replicaSelectionStrategy.select(this, replicas);
+        }
+
+        return replica != null ? replica : this;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public ReplicaSelectionStrategy getReplicaSelectionStrategy() {
+        return replicaSelectionStrategy;
+    }
+
+    /**
+     * Sets a strategy used to pick a read replica for a query. Default is
+     * {@link RoundRobinReplicaSelectionStrategy}.
+     * 
+     * @since 4.0
+     */
+    public void setReplicaSelectionStrategy(ReplicaSelectionStrategy replicaSelectionStrategy) {
+        this.replicaSelectionStrategy = replicaSelectionStrategy;
+    }
+
+    /**
+     * Returns an unmodifiable list of shards of this node.
+     * 
+     * @since 4.0
+     */
+    public List<DataNode> getShards() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    /**
+     * Adds a shard node. Once a node has shards, its queries and commits are
+     * routed to the shards as determined by the {@link ShardingStrategy},
+     * while this node only provides the mapping and generates primary keys
+     * that are not generated by the database. Shards must have distinct names.
+     * 
+     * @since 4.0
+     */
+    public void addShard(DataNode shard) {
+        if (shard.getEntityResolver() == null) {
+            shard.setEntityResolver(entityResolver);
+        }
+
+        shards.add(shard);
+    }
+
+    /**
+     * Creates a shard node for a given DataSource, copying adapter and other
+     * settings from this node, and adds it to the list of shards. Note that
+     * DataMaps added to this node afterwards are not propagated to the shard.
+     * 
+     * @since 4.0
+     */
+    public DataNode addShard(String name, DataSource dataSource) {
+        DataNode shard = copyForDataSource(name, dataSource);
+        addShard(shard);
+        return shard;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public boolean removeShard(DataNode shard) {
+        return shards.remove(shard);
+    }
+
+    /**
+     * Returns the shards that a given query should run on. Returns a list
+     * with this node only if the node has no shards.
+     * 
+     * @since 4.0
+     */
+    public List<DataNode> selectShards(Query query, ObjectContext context) {
+        if (shards.isEmpty()) {
+            return Collections.singletonList(this);
+        }
+
+        List<DataNode> selected = shardingStrategy().selectShards(this, shards, query, context);
+        return selected != null && !selected.isEmpty() ? selected : getShards();
+    }
+
+    /**
+     * Returns a shard that a given row of a batch query should be sent to.
+     * Returns this node if the node has no shards.
+     * 
+     * @since 4.0
+     */
+    public DataNode selectShard(BatchQuery query, BatchQueryRow row, ObjectContext context) {
+        if (shards.isEmpty()) {
+            return this;
+        }
+
+        DataNode shard = shardingStrategy().selectShard(this, shards, query, row, context);
+        if (shard == null) {
+            throw new CayenneRuntimeException("No shard selected for a row of '%s'", query.getDbEntity().getName());
+        }
+
+        return shard;
+    }
+
+    private ShardingStrategy shardingStrategy() {
+        if (shardingStrategy == null) {
+            throw new CayenneRuntimeException("DataNode '%s' has shards, but no ShardingStrategy", name);
+        }
+
+        return shardingStrategy;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public ShardingStrategy getShardingStrategy() {
+        return shardingStrategy;
+    }
+
+    /**
+     * Sets a strategy used to distribute queries and commits between the
+     * shards of this node.
+     * 
+     * @since 4.0
+     */
+    public void setShardingStrategy(ShardingStrategy shardingStrategy) {
+        this.shardingStrategy = shardingStrategy;
     }
 
     @Override
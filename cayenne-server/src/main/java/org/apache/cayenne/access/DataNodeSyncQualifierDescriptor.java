@@ -121,7 +121,8 @@ class DataNodeSyncQualifierDescriptor {
 
             for (final ObjAttribute attribute : descriptor.getEntity().getAttributes()) {
 
-                if (attribute.isUsedForLocking()) {
+                // lazy attributes may have no snapshot to compare with
+                if (attribute.isUsedForLocking() && !attribute.isLazy()) {
                     // only care about first step in a flattened attribute
                     DbAttribute dbAttribute = (DbAttribute) attribute
                             .getDbPathIterator()
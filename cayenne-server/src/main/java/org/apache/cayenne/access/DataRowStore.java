@@ -22,13 +22,22 @@ package org.apache.cayenne.access;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.DataObject;
@@ -37,11 +46,15 @@ import org.apache.cayenne.ObjectId;
 import org.apache.cayenne.PersistenceState;
 import org.apache.cayenne.Persistent;
 import org.apache.cayenne.access.event.SnapshotEvent;
+import org.apache.cayenne.access.event.SnapshotEventCodec;
 import org.apache.cayenne.event.EventBridge;
 import org.apache.cayenne.event.EventBridgeFactory;
 import org.apache.cayenne.event.EventManager;
 import org.apache.cayenne.event.EventSubject;
+import org.apache.cayenne.metrics.MetricsRecorder;
+import org.apache.cayenne.metrics.NoopMetricsRecorder;
 import org.apache.cayenne.util.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import org.apache.cayenne.util.concurrentlinkedhashmap.EvictionListener;
 import org.apache.commons.collections.ExtendedProperties;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -61,12 +74,42 @@ public class DataRowStore implements Serializable {
     public static final String REMOTE_NOTIFICATION_PROPERTY = "cayenne.DataRowStore.remote.notify";
     public static final String EVENT_BRIDGE_FACTORY_PROPERTY = "cayenne.DataRowStore.EventBridge.factory";
 
+    /**
+     * A boolean property that enables compact binary encoding of snapshot events sent to
+     * remote listeners. All DataRowStores connected to the same EventBridge must use the
+     * same encoding.
+     * 
+     * @since 4.0
+     */
+    public static final String EVENT_BRIDGE_BINARY_ENCODING_PROPERTY = "cayenne.DataRowStore.EventBridge.binary";
+
+    /**
+     * A boolean property that, when binary encoding is enabled, sends only ids of
+     * modified objects to remote listeners, invalidating their snapshots instead of
+     * sending snapshot diffs.
+     * 
+     * @since 4.0
+     */
+    public static final String EVENT_BRIDGE_IDS_ONLY_PROPERTY = "cayenne.DataRowStore.EventBridge.binary.idsOnly";
+
+    /**
+     * An integer property defining a time in milliseconds during which snapshot events
+     * are accumulated and then sent to remote listeners as a single message. Zero (the
+     * default) sends each event immediately.
+     * 
+     * @since 4.0
+     */
+    public static final String EVENT_BRIDGE_COALESCING_WINDOW_PROPERTY = "cayenne.DataRowStore.EventBridge.coalescing.window";
+
     // default property values
 
     // default expiration time is 2 hours
     public static final long SNAPSHOT_EXPIRATION_DEFAULT = 2 * 60 * 60;
     public static final int SNAPSHOT_CACHE_SIZE_DEFAULT = 10000;
     public static final boolean REMOTE_NOTIFICATION_DEFAULT = false;
+    public static final boolean EVENT_BRIDGE_BINARY_ENCODING_DEFAULT = false;
+    public static final boolean EVENT_BRIDGE_IDS_ONLY_DEFAULT = false;
+    public static final long EVENT_BRIDGE_COALESCING_WINDOW_DEFAULT = 0;
 
     // use String for class name, since JavaGroups may not be around,
     // causing CNF exceptions
@@ -80,10 +123,33 @@ public class DataRowStore implements Serializable {
     protected transient EventManager eventManager;
     protected transient EventBridge remoteNotificationsHandler;
 
+    /**
+     * @since 4.0
+     */
+    protected transient MetricsRecorder metricsRecorder;
+
     // IMPORTANT: EventSubject must be an ivar to avoid its deallocation
     // too early, and thus disabling events.
     protected transient EventSubject eventSubject;
 
+    /**
+     * A subject of SnapshotEvents addressed to individual ObjectStores. Each event sent
+     * under this subject has an ObjectStore as its source and only contains changes of
+     * the objects registered in that store.
+     * 
+     * @since 4.0
+     */
+    protected transient EventSubject objectStoreEventSubject;
+
+    // ObjectStores receiving events under 'objectStoreEventSubject', indexed by the ids
+    // of objects they hold. Stores are weakly referenced, so that a store that was never
+    // cleaned up does not leak. Registered objects are weakly referenced too, and the
+    // references are enqueued in 'collectedObjects' when the objects are garbage
+    // collected, i.e. when they are silently evicted from a weak or soft ObjectStore map.
+    private transient ConcurrentMap<ObjectId, Map<ObjectStore, ObjectStoreEntry>> objectStoresById;
+    private transient ReferenceQueue<Persistent> collectedObjects;
+    private transient AtomicInteger registrationsSinceSweep;
+
     /**
      * Creates new DataRowStore with a specified name and a set of properties. If no
      * properties are defined, default values are used.
@@ -104,6 +170,8 @@ public class DataRowStore implements Serializable {
         this.name = name;
         this.eventSubject = createSubject();
         this.eventManager = eventManager;
+        this.metricsRecorder = NoopMetricsRecorder.getInstance();
+        initObjectStoreIndex();
         initWithProperties(properties);
     }
 
@@ -111,6 +179,13 @@ public class DataRowStore implements Serializable {
         return EventSubject.getSubject(this.getClass(), name);
     }
 
+    private void initObjectStoreIndex() {
+        this.objectStoreEventSubject = EventSubject.getSubject(this.getClass(), name + "/objectStores");
+        this.objectStoresById = new ConcurrentHashMap<ObjectId, Map<ObjectStore, ObjectStoreEntry>>();
+        this.collectedObjects = new ReferenceQueue<Persistent>();
+        this.registrationsSinceSweep = new AtomicInteger();
+    }
+
     protected void initWithProperties(Map properties) {
         ExtendedProperties propertiesWrapper = new ExtendedProperties();
 
@@ -134,6 +209,18 @@ public class DataRowStore implements Serializable {
                 EVENT_BRIDGE_FACTORY_PROPERTY,
                 EVENT_BRIDGE_FACTORY_DEFAULT);
 
+        boolean binaryEncoding = propertiesWrapper.getBoolean(
+                EVENT_BRIDGE_BINARY_ENCODING_PROPERTY,
+                EVENT_BRIDGE_BINARY_ENCODING_DEFAULT);
+
+        boolean idsOnly = propertiesWrapper.getBoolean(
+                EVENT_BRIDGE_IDS_ONLY_PROPERTY,
+                EVENT_BRIDGE_IDS_ONLY_DEFAULT);
+
+        long coalescingWindow = propertiesWrapper.getLong(
+                EVENT_BRIDGE_COALESCING_WINDOW_PROPERTY,
+                EVENT_BRIDGE_COALESCING_WINDOW_DEFAULT);
+
         if (logger.isDebugEnabled()) {
             logger.debug("DataRowStore property "
                     + SNAPSHOT_EXPIRATION_PROPERTY
@@ -151,6 +238,14 @@ public class DataRowStore implements Serializable {
                     + EVENT_BRIDGE_FACTORY_PROPERTY
                     + " = "
                     + eventBridgeFactory);
+            logger.debug("DataRowStore property "
+                    + EVENT_BRIDGE_BINARY_ENCODING_PROPERTY
+                    + " = "
+                    + binaryEncoding);
+            logger.debug("DataRowStore property "
+                    + EVENT_BRIDGE_COALESCING_WINDOW_PROPERTY
+                    + " = "
+                    + coalescingWindow);
         }
 
         // init ivars from properties
@@ -158,6 +253,7 @@ public class DataRowStore implements Serializable {
 
         this.snapshots = new ConcurrentLinkedHashMap.Builder<ObjectId, DataRow>()
                 .maximumWeightedCapacity(maxSize)
+                .listener(new SnapshotEvictionListener())
                 .build();
 
         // init event bridge only if we are notifying remote listeners
@@ -174,6 +270,13 @@ public class DataRowStore implements Serializable {
                         subjects,
                         externalSubject,
                         properties);
+
+                if (binaryEncoding) {
+                    remoteNotificationsHandler.setEventCodec(new SnapshotEventCodec(
+                            idsOnly));
+                }
+
+                remoteNotificationsHandler.setCoalescingWindow(coalescingWindow);
             }
             catch (Exception ex) {
                 throw new CayenneRuntimeException("Error initializing DataRowStore.", ex);
@@ -325,7 +428,33 @@ public class DataRowStore implements Serializable {
      * ObjectId.
      */
     public DataRow getCachedSnapshot(ObjectId oid) {
-        return snapshots.get(oid);
+        DataRow snapshot = snapshots.get(oid);
+
+        if (metricsRecorder.isEnabled()) {
+            metricsRecorder.incrementCounter(snapshot != null
+                    ? MetricsRecorder.SNAPSHOT_CACHE_HIT
+                    : MetricsRecorder.SNAPSHOT_CACHE_MISS, oid.getEntityName(), null);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Returns a recorder of cache hits, misses and evictions.
+     * 
+     * @since 4.0
+     */
+    public MetricsRecorder getMetricsRecorder() {
+        return metricsRecorder;
+    }
+
+    /**
+     * Sets a recorder of cache hits, misses and evictions.
+     * 
+     * @since 4.0
+     */
+    public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+        this.metricsRecorder = metricsRecorder != null ? metricsRecorder : NoopMetricsRecorder.getInstance();
     }
 
     /**
@@ -335,6 +464,169 @@ public class DataRowStore implements Serializable {
         return eventSubject;
     }
 
+    /**
+     * Returns EventSubject used by this DataRowStore to notify ObjectStores of snapshot
+     * changes. Unlike events sent under {@link #getSnapshotEventSubject()}, which contain
+     * all changes, an event under this subject is sent to a single ObjectStore (that is
+     * its source), contains only the changes of objects registered in that store and is
+     * not sent at all to the stores that hold none of the changed objects.
+     * 
+     * @since 4.0
+     */
+    public EventSubject getObjectStoreEventSubject() {
+        return objectStoreEventSubject;
+    }
+
+    /**
+     * Records that an object with a given id is registered in the ObjectStore, so that
+     * the store would receive changes of the object snapshot. The record is removed when
+     * the object is unregistered or garbage collected.
+     * 
+     * @since 4.0
+     */
+    void objectStoreRegistered(ObjectStore store, ObjectId id, Persistent object) {
+        purgeCollectedObjects();
+
+        ObjectStoreEntry entry = new ObjectStoreEntry(store, id, object, collectedObjects);
+
+        while (true) {
+            Map<ObjectStore, ObjectStoreEntry> stores = objectStoresById.get(id);
+            if (stores == null) {
+                stores = new WeakHashMap<ObjectStore, ObjectStoreEntry>(2);
+                Map<ObjectStore, ObjectStoreEntry> existing = objectStoresById.putIfAbsent(id, stores);
+                if (existing != null) {
+                    stores = existing;
+                }
+            }
+
+            synchronized (stores) {
+                // the entry may have been dropped by a concurrent unregister... retry
+                if (objectStoresById.get(id) == stores) {
+                    stores.put(store, entry);
+                    break;
+                }
+            }
+        }
+
+        // stores that are garbage collected while their objects are still referenced
+        // elsewhere leave empty entries behind, so periodically sweep the index. Sweeping
+        // after the number of registrations reaches the index size keeps the cost
+        // amortized
+        if (registrationsSinceSweep.incrementAndGet() > Math.max(objectStoresById.size(), 1000)) {
+            registrationsSinceSweep.set(0);
+            sweepObjectStores();
+        }
+    }
+
+    /**
+     * Records that an object with a given id is no longer registered in the
+     * ObjectStore.
+     * 
+     * @since 4.0
+     */
+    void objectStoreUnregistered(ObjectStore store, ObjectId id) {
+        removeObjectStoreEntry(store, id, null);
+    }
+
+    // removes a store from the index of the id; if 'expected' is not null, only removes
+    // the store if it is still indexed with this entry, and not with the one created
+    // when the same id was registered again
+    private void removeObjectStoreEntry(ObjectStore store, ObjectId id, ObjectStoreEntry expected) {
+        Map<ObjectStore, ObjectStoreEntry> stores = objectStoresById.get(id);
+        if (stores != null) {
+            synchronized (stores) {
+                if (expected == null || stores.get(store) == expected) {
+                    stores.remove(store);
+                }
+
+                if (stores.isEmpty()) {
+                    objectStoresById.remove(id, stores);
+                }
+            }
+        }
+    }
+
+    // removes index entries of the objects that were garbage collected
+    private void purgeCollectedObjects() {
+        Reference<? extends Persistent> reference;
+        while ((reference = collectedObjects.poll()) != null) {
+            ObjectStoreEntry entry = (ObjectStoreEntry) reference;
+
+            // if the store is gone as well, it is already dropped from the weak map, and
+            // only an empty id entry may need to be removed
+            removeObjectStoreEntry(entry.store.get(), entry.id, entry);
+        }
+    }
+
+    private void sweepObjectStores() {
+        for (Map.Entry<ObjectId, Map<ObjectStore, ObjectStoreEntry>> entry : objectStoresById.entrySet()) {
+            Map<ObjectStore, ObjectStoreEntry> stores = entry.getValue();
+            synchronized (stores) {
+                if (stores.isEmpty()) {
+                    objectStoresById.remove(entry.getKey(), stores);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of object ids in the index of ObjectStores receiving snapshot
+     * events, after removing the ids of garbage collected objects.
+     */
+    int objectStoreIndexSize() {
+        purgeCollectedObjects();
+        return objectStoresById.size();
+    }
+
+    // returns stores, other than the one that posted the changes, that hold an object
+    // with a given id
+    private Collection<ObjectStore> objectStoresFor(Object id, Object postedBy) {
+        Map<ObjectStore, ObjectStoreEntry> stores = objectStoresById.get(id);
+        if (stores == null) {
+            return Collections.emptyList();
+        }
+
+        synchronized (stores) {
+            if (stores.isEmpty()) {
+                objectStoresById.remove(id, stores);
+                return Collections.emptyList();
+            }
+
+            Collection<ObjectStore> interested = new ArrayList<ObjectStore>(stores.size());
+            for (ObjectStore store : stores.keySet()) {
+                if (store != null && store != postedBy) {
+                    interested.add(store);
+                }
+            }
+
+            return interested;
+        }
+    }
+
+    /**
+     * Returns ids of the cached snapshots and of the objects registered in the
+     * ObjectStores that belong to one of the named entities.
+     *
+     * @since 4.0
+     */
+    Collection<ObjectId> idsForEntities(Collection<String> entityNames) {
+        Set<ObjectId> ids = new HashSet<ObjectId>();
+
+        for (ObjectId id : snapshots.keySet()) {
+            if (entityNames.contains(id.getEntityName())) {
+                ids.add(id);
+            }
+        }
+
+        for (ObjectId id : objectStoresById.keySet()) {
+            if (entityNames.contains(id.getEntityName())) {
+                ids.add(id);
+            }
+        }
+
+        return ids;
+    }
+
     /**
      * Expires and removes all stored snapshots without sending any notification events.
      */
@@ -548,12 +840,78 @@ public class DataRowStore implements Serializable {
                 logger.debug("postSnapshotsChangeEvent: " + event);
             }
 
-            // synchronously notify listeners; leaving it up to the listeners to
-            // register as "non-blocking" if needed.
-            eventManager.postEvent(event, getSnapshotEventSubject());
+            if (eventManager != null) {
+                // synchronously notify listeners; leaving it up to the listeners to
+                // register as "non-blocking" if needed.
+                eventManager.postEvent(event, getSnapshotEventSubject());
+                sendObjectStoreNotifications(event);
+            }
         }
     }
 
+    /**
+     * Splits the event by the ObjectStores holding the changed objects and sends each
+     * store its part of the event, skipping the stores that are not affected.
+     */
+    private void sendObjectStoreNotifications(SnapshotEvent event) {
+        purgeCollectedObjects();
+
+        if (objectStoresById.isEmpty()) {
+            return;
+        }
+
+        Object postedBy = event.getPostedBy();
+        Map<ObjectStore, ObjectStoreChanges> changesByStore = new HashMap<ObjectStore, ObjectStoreChanges>();
+
+        for (Object e : event.getModifiedDiffs().entrySet()) {
+            Map.Entry entry = (Map.Entry) e;
+            for (ObjectStore store : objectStoresFor(entry.getKey(), postedBy)) {
+                changesFor(changesByStore, store).modifiedDiffs.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (Object id : event.getDeletedIds()) {
+            for (ObjectStore store : objectStoresFor(id, postedBy)) {
+                changesFor(changesByStore, store).deletedIds.add(id);
+            }
+        }
+
+        for (Object id : event.getInvalidatedIds()) {
+            for (ObjectStore store : objectStoresFor(id, postedBy)) {
+                changesFor(changesByStore, store).invalidatedIds.add(id);
+            }
+        }
+
+        for (Object id : event.getIndirectlyModifiedIds()) {
+            for (ObjectStore store : objectStoresFor(id, postedBy)) {
+                changesFor(changesByStore, store).indirectlyModifiedIds.add(id);
+            }
+        }
+
+        for (Map.Entry<ObjectStore, ObjectStoreChanges> entry : changesByStore.entrySet()) {
+            ObjectStoreChanges changes = entry.getValue();
+            SnapshotEvent storeEvent = new SnapshotEvent(
+                    entry.getKey(),
+                    postedBy,
+                    changes.modifiedDiffs,
+                    changes.deletedIds,
+                    changes.invalidatedIds,
+                    changes.indirectlyModifiedIds);
+            eventManager.postEvent(storeEvent, objectStoreEventSubject);
+        }
+    }
+
+    private static ObjectStoreChanges changesFor(
+            Map<ObjectStore, ObjectStoreChanges> changesByStore,
+            ObjectStore store) {
+        ObjectStoreChanges changes = changesByStore.get(store);
+        if (changes == null) {
+            changes = new ObjectStoreChanges();
+            changesByStore.put(store, changes);
+        }
+        return changes;
+    }
+
     public boolean isNotifyingRemoteListeners() {
         return notifyingRemoteListeners;
     }
@@ -570,6 +928,8 @@ public class DataRowStore implements Serializable {
 
         // restore subjects
         this.eventSubject = createSubject();
+        this.metricsRecorder = NoopMetricsRecorder.getInstance();
+        initObjectStoreIndex();
     }
 
     void stopListeners() {
@@ -622,4 +982,41 @@ public class DataRowStore implements Serializable {
             }
         }
     }
+
+    // a serializable inner class, as the listener is serialized together with
+    // the snapshot map
+    final class SnapshotEvictionListener implements EvictionListener<ObjectId, DataRow>, Serializable {
+
+        public void onEviction(ObjectId key, DataRow value) {
+
+            // recorder may not be restored yet during deserialization
+            MetricsRecorder recorder = metricsRecorder;
+            if (recorder != null && recorder.isEnabled()) {
+                recorder.incrementCounter(MetricsRecorder.SNAPSHOT_CACHE_EVICTION, key.getEntityName(), null);
+            }
+        }
+    }
+
+    // a weak reference to an object registered in the ObjectStore, enqueued when the
+    // object is garbage collected
+    private static class ObjectStoreEntry extends WeakReference<Persistent> {
+
+        final WeakReference<ObjectStore> store;
+        final ObjectId id;
+
+        ObjectStoreEntry(ObjectStore store, ObjectId id, Persistent object, ReferenceQueue<Persistent> queue) {
+            super(object, queue);
+            this.store = new WeakReference<ObjectStore>(store);
+            this.id = id;
+        }
+    }
+
+    // a part of a snapshot change addressed to a single ObjectStore
+    private static class ObjectStoreChanges {
+
+        final Map<Object, Object> modifiedDiffs = new HashMap<Object, Object>();
+        final Collection<Object> deletedIds = new ArrayList<Object>();
+        final Collection<Object> invalidatedIds = new ArrayList<Object>();
+        final Collection<Object> indirectlyModifiedIds = new ArrayList<Object>();
+    }
 }
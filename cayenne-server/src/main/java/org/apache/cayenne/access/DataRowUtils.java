@@ -90,14 +90,23 @@ class DataRowUtils {
                 String dbAttrPath = attr.getDbAttributePath();
 
                 Object value = snapshot.get(dbAttrPath);
-                property.writePropertyDirectly(object, null, value);
 
                 // note that a check "snaphsot.get(..) == null" would be incorrect in this
                 // case, as NULL value is entirely valid; still save a map lookup by
                 // checking for the null value first
                 if (value == null && !snapshot.containsKey(dbAttrPath)) {
+
+                    // lazy attributes are not fetched with the object and are
+                    // resolved on access
+                    if (attr.isLazy()) {
+                        property.writePropertyDirectly(object, null, LazyAttributeFault.FAULT);
+                        return true;
+                    }
+
                     isPartialSnapshot[0] = true;
                 }
+
+                property.writePropertyDirectly(object, null, value);
                 return true;
             }
 
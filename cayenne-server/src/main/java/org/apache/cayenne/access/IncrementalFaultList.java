@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.Persistent;
@@ -35,6 +36,7 @@ import org.apache.cayenne.ResultIterator;
 import org.apache.cayenne.exp.Expression;
 import org.apache.cayenne.exp.ExpressionFactory;
 import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.metrics.MetricsRecorder;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.query.SelectQuery;
@@ -73,6 +75,13 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
 
     private IncrementalListHelper helper;
 
+    /**
+     * Serializes resolution of pages.
+     * 
+     * @since 4.0
+     */
+    private final ReentrantLock resolveLock = new ReentrantLock();
+
     /**
      * Defines the upper limit on the size of fetches. This is needed to avoid
      * where clause size limitations.
@@ -209,27 +218,33 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
             return;
         }
 
-        synchronized (elements) {
-            if (elements.size() == 0) {
-                return;
-            }
+        // page queries are serialized with a lock rather than the 'elements'
+        // monitor, so that the monitor is never held during a database call
+        resolveLock.lock();
+        try {
+            List<Expression> quals = new ArrayList<Expression>(pageSize);
+            List<Object> ids = new ArrayList<Object>(pageSize);
 
-            // perform bound checking
-            if (fromIndex < 0) {
-                fromIndex = 0;
-            }
+            synchronized (elements) {
+                if (elements.size() == 0) {
+                    return;
+                }
 
-            if (toIndex > elements.size()) {
-                toIndex = elements.size();
-            }
+                // perform bound checking
+                if (fromIndex < 0) {
+                    fromIndex = 0;
+                }
 
-            List<Expression> quals = new ArrayList<Expression>(pageSize);
-            List<Object> ids = new ArrayList<Object>(pageSize);
-            for (int i = fromIndex; i < toIndex; i++) {
-                Object object = elements.get(i);
-                if (helper.unresolvedSuspect(object)) {
-                    quals.add(buildIdQualifier(object));
-                    ids.add(object);
+                if (toIndex > elements.size()) {
+                    toIndex = elements.size();
+                }
+
+                for (int i = fromIndex; i < toIndex; i++) {
+                    Object object = elements.get(i);
+                    if (helper.unresolvedSuspect(object)) {
+                        quals.add(buildIdQualifier(object));
+                        ids.add(object);
+                    }
                 }
             }
 
@@ -238,6 +253,8 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
                 return;
             }
 
+            long t0 = System.nanoTime();
+
             // fetch the range of objects in fetchSize chunks
             boolean fetchesDataRows = internalQuery.isFetchingDataRows();
             List<Object> objects = new ArrayList<Object>(qualsSize);
@@ -264,13 +281,25 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
             // sanity check - database data may have changed
             checkPageResultConsistency(objects, ids);
 
-            // replace ids in the list with objects
-            Iterator it = objects.iterator();
-            while (it.hasNext()) {
-                helper.updateWithResolvedObjectInRange(it.next(), fromIndex, toIndex);
+            // replace ids in the list with objects; the list may have been
+            // modified while the page was fetched, so the elements are looked
+            // up again
+            synchronized (elements) {
+                Iterator it = objects.iterator();
+                while (it.hasNext()) {
+                    if (helper.updateWithResolvedObjectInRange(it.next(), fromIndex, toIndex)) {
+                        unfetchedObjects--;
+                    }
+                }
             }
 
-            unfetchedObjects -= objects.size();
+            DataDomain domain = dataContext.getParentDataDomain();
+            if (domain != null && domain.getMetricsRecorder().isEnabled()) {
+                domain.getMetricsRecorder().recordTime(MetricsRecorder.PAGE_FAULT_TIME, rootEntity.getName(), null,
+                        System.nanoTime() - t0);
+            }
+        } finally {
+            resolveLock.unlock();
         }
     }
 
@@ -501,18 +530,22 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
     }
 
     public E get(int index) {
+        Object o;
         synchronized (elements) {
-            Object o = elements.get(index);
+            o = elements.get(index);
+        }
 
-            if (helper.unresolvedSuspect(o)) {
-                // read this page
-                int pageStart = pageIndex(index) * pageSize;
-                resolveInterval(pageStart, pageStart + pageSize);
+        if (helper.unresolvedSuspect(o)) {
+            // read this page; this is done without holding the 'elements'
+            // monitor, as resolveInterval() acquires it after its own lock
+            int pageStart = pageIndex(index) * pageSize;
+            resolveInterval(pageStart, pageStart + pageSize);
 
+            synchronized (elements) {
                 return (E) elements.get(index);
-            } else {
-                return (E) o;
             }
+        } else {
+            return (E) o;
         }
     }
 
@@ -584,8 +617,9 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
     }
 
     public List<E> subList(int fromIndex, int toIndex) {
+        resolveInterval(fromIndex, toIndex);
+
         synchronized (elements) {
-            resolveInterval(fromIndex, toIndex);
             return elements.subList(fromIndex, toIndex);
         }
     }
@@ -642,23 +676,31 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
             return -1;
         }
 
-        void updateWithResolvedObjectInRange(Object object, int from, int to) {
-            boolean found = false;
-
-            synchronized (elements) {
+        /**
+         * Replaces an unresolved id with the resolved object, looking for it in
+         * the specified range first and then in the whole list, as elements
+         * may have been added or removed since the range was calculated.
+         * Returns false if the id is no longer in the list. Must be called
+         * while holding the 'elements' monitor.
+         */
+        boolean updateWithResolvedObjectInRange(Object object, int from, int to) {
 
-                for (int i = from; i < to; i++) {
-                    if (replacesObject(object, elements.get(i))) {
-                        elements.set(i, object);
-                        found = true;
-                        break;
-                    }
+            int size = elements.size();
+            for (int i = from; i < to && i < size; i++) {
+                if (replacesObject(object, elements.get(i))) {
+                    elements.set(i, object);
+                    return true;
                 }
             }
 
-            if (!found) {
-                throw new CayenneRuntimeException("Can't find id for " + object);
+            for (int i = 0; i < size; i++) {
+                if (replacesObject(object, elements.get(i))) {
+                    elements.set(i, object);
+                    return true;
+                }
             }
+
+            return false;
         }
 
         /**
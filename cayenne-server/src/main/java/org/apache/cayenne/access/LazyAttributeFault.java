@@ -0,0 +1,208 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cayenne.Fault;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.PersistenceState;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.exp.Property;
+import org.apache.cayenne.exp.parser.ASTDbPath;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.reflect.ClassDescriptor;
+import org.apache.cayenne.reflect.PropertyDescriptor;
+
+/**
+ * A fault of a lazy attribute, i.e. an attribute that is not fetched together
+ * with the object. Resolving the fault fetches the attribute in a single query
+ * for the source object and all other objects of the same entity registered in
+ * the ObjectContext that have the same attribute unresolved, up to
+ * {@link #MAX_BATCH_SIZE} objects.
+ *
+ * @since 4.0
+ * @see ObjAttribute#isLazy()
+ */
+public class LazyAttributeFault extends Fault {
+
+    /**
+     * A maximum number of objects whose attribute is fetched by a single query.
+     */
+    public static final int MAX_BATCH_SIZE = 500;
+
+    static final LazyAttributeFault FAULT = new LazyAttributeFault();
+
+    @Override
+    public Object resolveFault(Persistent sourceObject, String attributeName) {
+
+        if (sourceObject.getObjectContext() == null) {
+            throw new IllegalStateException("Null ObjectContext. Can't read a lazy attribute '" + attributeName
+                    + "' for an object with ID: " + sourceObject.getObjectId());
+        }
+
+        if (sourceObject.getPersistenceState() == PersistenceState.NEW) {
+            return null;
+        }
+
+        ObjectContext context = sourceObject.getObjectContext();
+        ObjectId sourceId = sourceObject.getObjectId();
+
+        ClassDescriptor descriptor = context.getEntityResolver().getClassDescriptor(sourceId.getEntityName());
+        PropertyDescriptor property = descriptor.getProperty(attributeName);
+
+        Map<Map<String, Object>, Persistent> objects = new HashMap<Map<String, Object>, Persistent>();
+        objects.put(sourceId.getIdSnapshot(), sourceObject);
+        collectSiblings(context, sourceObject, property, objects);
+
+        ObjEntity entity = descriptor.getEntity();
+        List<DbAttribute> pks = new ArrayList<DbAttribute>(entity.getDbEntity().getPrimaryKeys());
+
+        List<Object[]> rows = context.select(createQuery(entity, pks, attributeName, objects.keySet()));
+
+        Object sourceValue = null;
+        for (Object[] row : rows) {
+
+            Map<String, Object> id = new HashMap<String, Object>();
+            for (int i = 0; i < pks.size(); i++) {
+                id.put(pks.get(i).getName(), row[i]);
+            }
+
+            Persistent object = objects.remove(id);
+            if (object == null) {
+                continue;
+            }
+
+            Object value = row[pks.size()];
+            resolved(context, object, property, value);
+
+            if (object == sourceObject) {
+                sourceValue = value;
+            }
+        }
+
+        // the rows that are not found must have been deleted externally
+        for (Persistent object : objects.values()) {
+            resolved(context, object, property, null);
+        }
+
+        return sourceValue;
+    }
+
+    private void collectSiblings(ObjectContext context, Persistent sourceObject, PropertyDescriptor property,
+            Map<Map<String, Object>, Persistent> objects) {
+
+        String entityName = sourceObject.getObjectId().getEntityName();
+
+        for (Object node : context.getGraphManager().registeredNodes()) {
+
+            if (objects.size() >= MAX_BATCH_SIZE) {
+                break;
+            }
+
+            if (node == sourceObject || !(node instanceof Persistent)) {
+                continue;
+            }
+
+            Persistent object = (Persistent) node;
+            ObjectId id = object.getObjectId();
+            if (id.isTemporary() || !entityName.equals(id.getEntityName())) {
+                continue;
+            }
+
+            int state = object.getPersistenceState();
+            if (state == PersistenceState.HOLLOW || state == PersistenceState.NEW
+                    || state == PersistenceState.TRANSIENT) {
+                continue;
+            }
+
+            if (property.readPropertyDirectly(object) instanceof LazyAttributeFault) {
+                objects.put(id.getIdSnapshot(), object);
+            }
+        }
+    }
+
+    /**
+     * Creates a column query that fetches the PK columns followed by the lazy
+     * attribute for the specified object ids.
+     */
+    private SelectQuery<Object[]> createQuery(ObjEntity entity, List<DbAttribute> pks, String attributeName,
+            Collection<Map<String, Object>> ids) {
+
+        List<Property<?>> columns = new ArrayList<Property<?>>(pks.size() + 1);
+        for (DbAttribute pk : pks) {
+
+            // fetch meaningful PKs via their ObjAttributes, so that the value
+            // types match those in the ObjectIds
+            ObjAttribute attribute = entity.getAttributeForDbAttribute(pk);
+            columns.add(new Property<Object>(attribute != null ? attribute.getName() : ASTDbPath.DB_PREFIX
+                    + pk.getName()));
+        }
+        columns.add(new Property<Object>(attributeName));
+
+        Expression qualifier;
+        if (pks.size() == 1) {
+            String pkName = pks.get(0).getName();
+            List<Object> values = new ArrayList<Object>(ids.size());
+            for (Map<String, Object> id : ids) {
+                values.add(id.get(pkName));
+            }
+
+            qualifier = ExpressionFactory.inDbExp(pkName, values);
+        } else {
+            List<Expression> matches = new ArrayList<Expression>(ids.size());
+            for (Map<String, Object> id : ids) {
+                matches.add(ExpressionFactory.matchAllDbExp(id, Expression.EQUAL_TO));
+            }
+
+            qualifier = ExpressionFactory.joinExp(Expression.OR, matches);
+        }
+
+        SelectQuery<Object[]> query = new SelectQuery<Object[]>(entity, qualifier);
+        query.setColumns(columns);
+        return query;
+    }
+
+    private void resolved(ObjectContext context, Persistent object, PropertyDescriptor property, Object value) {
+        property.writePropertyDirectly(object, LazyAttributeFault.FAULT, value);
+
+        // the value must not be mistaken for a modification of the object
+        int state = object.getPersistenceState();
+        if ((state == PersistenceState.MODIFIED || state == PersistenceState.DELETED)
+                && context instanceof DataContext) {
+
+            ObjectDiff diff = ((DataContext) context).getObjectStore().getChangesByObjectId()
+                    .get(object.getObjectId());
+
+            if (diff != null) {
+                diff.updateSnapshot(property.getName(), value);
+            }
+        }
+    }
+}
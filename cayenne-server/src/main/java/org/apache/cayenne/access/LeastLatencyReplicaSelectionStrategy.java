@@ -0,0 +1,71 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ReplicaSelectionStrategy} that picks a replica with the lowest
+ * average query time. Every few queries a replica is picked in a round-robin
+ * fashion instead, so that the timing of the replicas that are not currently
+ * preferred stays up to date.
+ * 
+ * @since 4.0
+ */
+public class LeastLatencyReplicaSelectionStrategy implements ReplicaSelectionStrategy {
+
+    static final int DEFAULT_PROBE_INTERVAL = 16;
+
+    private final AtomicInteger counter = new AtomicInteger();
+    private int probeInterval;
+
+    public LeastLatencyReplicaSelectionStrategy() {
+        this(DEFAULT_PROBE_INTERVAL);
+    }
+
+    /**
+     * Creates a strategy that probes replicas in a round-robin fashion once in
+     * "probeInterval" queries. Zero or negative interval disables probing.
+     */
+    public LeastLatencyReplicaSelectionStrategy(int probeInterval) {
+        this.probeInterval = probeInterval;
+    }
+
+    public DataNode select(DataNode primary, List<DataNode> replicas) {
+
+        int i = counter.getAndIncrement() & Integer.MAX_VALUE;
+        if (probeInterval > 0 && i % probeInterval == 0) {
+            return replicas.get((i / probeInterval) % replicas.size());
+        }
+
+        DataNode fastest = null;
+        long fastestTime = Long.MAX_VALUE;
+
+        for (DataNode replica : replicas) {
+            long time = replica.getAverageQueryTime();
+            if (time < fastestTime) {
+                fastest = replica;
+                fastestTime = time;
+            }
+        }
+
+        return fastest;
+    }
+}
@@ -98,7 +98,7 @@ class ObjectDiff extends NodeDiff {
 
                 @Override
                 public boolean visitAttribute(AttributeProperty property) {
-                    snapshot.put(property.getName(), property.readProperty(object));
+                    snapshot.put(property.getName(), readAttribute(property, object));
                     return true;
                 }
 
@@ -325,9 +325,10 @@ class ObjectDiff extends NodeDiff {
             public boolean visitAttribute(AttributeProperty property) {
 
                 Object oldValue = snapshot.get(property.getName());
-                Object newValue = property.readProperty(object);
+                Object newValue = readAttribute(property, object);
 
-                if (!Util.nullSafeEquals(oldValue, newValue)) {
+                // an unresolved lazy attribute can't be modified
+                if (!(newValue instanceof Fault) && !Util.nullSafeEquals(oldValue, newValue)) {
                     modFound[0] = true;
                 }
 
@@ -394,7 +395,12 @@ class ObjectDiff extends NodeDiff {
             @Override
             public boolean visitAttribute(AttributeProperty property) {
 
-                Object newValue = property.readProperty(object);
+                Object newValue = readAttribute(property, object);
+
+                // an unresolved lazy attribute can't be modified
+                if (newValue instanceof Fault) {
+                    return true;
+                }
 
                 // no baseline to compare
                 if (snapshot == null) {
@@ -427,6 +433,23 @@ class ObjectDiff extends NodeDiff {
         });
     }
 
+    /**
+     * Reads an attribute value, leaving a lazy attribute fault unresolved.
+     */
+    private static Object readAttribute(AttributeProperty property, Object object) {
+        Object value = property.readPropertyDirectly(object);
+        return value instanceof Fault ? value : property.readProperty(object);
+    }
+
+    /**
+     * This is used to update resolved lazy attribute faults.
+     */
+    void updateSnapshot(String propertyName, Object value) {
+        if (snapshot != null && snapshot.get(propertyName) instanceof Fault) {
+            snapshot.put(propertyName, value);
+        }
+    }
+
     /**
      * This is used to update faults.
      */
@@ -150,6 +150,12 @@ class ObjectResolver {
         // this will create a HOLLOW object if it is not registered yet
         Persistent object = context.findOrCreateObject(anId);
 
+        // shared read-only objects are owned by another context and are never
+        // refreshed from a row fetched by this context
+        if (object.getObjectContext() != context) {
+            return object;
+        }
+
         // deal with object state
         int state = object.getPersistenceState();
         switch (state) {
@@ -83,6 +83,10 @@ public class ObjectStore implements Serializable, SnapshotEventListener, GraphMa
     // used to avoid incorrect on-demand DataRowStore initialization after deserialization
     protected boolean dataRowCacheSet;
 
+    // true if this store receives snapshot events from the DataRowStore, and hence must
+    // keep it informed of the ids of registered objects
+    private transient boolean receivingSnapshotEvents;
+
     private Collection<GraphDiff> lifecycleEventInducedChanges;
 
     /**
@@ -253,26 +257,68 @@ public class ObjectStore implements Serializable, SnapshotEventListener, GraphMa
         if (this.dataRowCache != null && this.dataRowCache.getEventManager() != null) {
             this.dataRowCache.getEventManager().removeListener(
                     this,
-                    this.dataRowCache.getSnapshotEventSubject());
+                    this.dataRowCache.getObjectStoreEventSubject());
+
+            if (receivingSnapshotEvents) {
+                indexRegisteredObjects(false);
+            }
         }
 
         this.dataRowCache = dataRowCache;
+        this.receivingSnapshotEvents = false;
 
         if (dataRowCache != null && dataRowCache.getEventManager() != null) {
             // setting itself as non-blocking listener,
             // since event sending thread will likely be locking sender's
-            // ObjectStore and snapshot cache itself.
+            // ObjectStore and snapshot cache itself. DataRowStore only sends this store
+            // events about the objects registered here, using the store as event
+            // source.
             dataRowCache.getEventManager().addNonBlockingListener(
                     this,
                     "snapshotsChanged",
                     SnapshotEvent.class,
-                    dataRowCache.getSnapshotEventSubject(),
-                    dataRowCache);
+                    dataRowCache.getObjectStoreEventSubject(),
+                    this);
+
+            this.receivingSnapshotEvents = true;
+            indexRegisteredObjects(true);
         }
 
         dataRowCacheSet = dataRowCache != null;
     }
 
+    // registers or unregisters ids of all objects in this store with the DataRowStore
+    private void indexRegisteredObjects(boolean register) {
+
+        // objectMap is not yet initialized when called from constructor
+        if (objectMap != null) {
+            synchronized (this) {
+                for (Map.Entry<Object, Persistent> entry : objectMap.entrySet()) {
+                    if (register) {
+                        objectRegisteredWithCache(entry.getKey(), entry.getValue());
+                    } else {
+                        objectUnregisteredWithCache(entry.getKey());
+                    }
+                }
+            }
+        }
+    }
+
+    private void objectRegisteredWithCache(Object id, Persistent object) {
+        // temporary ids never appear in snapshot events. DataRowStore references the
+        // object weakly and drops it from the index once it is garbage collected, i.e.
+        // evicted from the objectMap
+        if (receivingSnapshotEvents && id instanceof ObjectId && !((ObjectId) id).isTemporary()) {
+            dataRowCache.objectStoreRegistered(this, (ObjectId) id, object);
+        }
+    }
+
+    private void objectUnregisteredWithCache(Object id) {
+        if (receivingSnapshotEvents && id instanceof ObjectId && !((ObjectId) id).isTemporary()) {
+            dataRowCache.objectStoreUnregistered(this, (ObjectId) id);
+        }
+    }
+
     /**
      * Evicts a collection of DataObjects from the ObjectStore, invalidates the underlying
      * cache snapshots. Changes objects state to TRANSIENT. This method can be used for
@@ -297,6 +343,7 @@ public class ObjectStore implements Serializable, SnapshotEventListener, GraphMa
             objectMap.remove(id);
             changes.remove(id);
             ids.add(id);
+            objectUnregisteredWithCache(id);
 
             object.setObjectContext(null);
             object.setObjectId(null);
@@ -407,6 +454,7 @@ public class ObjectStore implements Serializable, SnapshotEventListener, GraphMa
             switch (object.getPersistenceState()) {
                 case PersistenceState.DELETED:
                     objectMap.remove(id);
+                    objectUnregisteredWithCache(id);
                     object.setObjectContext(null);
                     object.setPersistenceState(PersistenceState.TRANSIENT);
                     break;
@@ -543,7 +591,7 @@ public class ObjectStore implements Serializable, SnapshotEventListener, GraphMa
     @Override
     public void snapshotsChanged(SnapshotEvent event) {
         // filter events that we should not process
-        if (event.getPostedBy() != this && event.getSource() == this.getDataRowCache()) {
+        if (event.getPostedBy() != this && event.getSource() == this) {
             processSnapshotEvent(event);
         }
     }
@@ -591,6 +639,8 @@ public class ObjectStore implements Serializable, SnapshotEventListener, GraphMa
         if (object != null) {
             object.setObjectId((ObjectId) newId);
             objectMap.put(newId, object);
+            objectUnregisteredWithCache(nodeId);
+            objectRegisteredWithCache(newId, object);
 
             ObjectDiff change = changes.remove(nodeId);
             if (change != null) {
@@ -629,6 +679,7 @@ public class ObjectStore implements Serializable, SnapshotEventListener, GraphMa
                     if (dataObject == null || delegate.shouldProcessDelete(dataObject)) {
                         objectMap.remove(nodeId);
                         changes.remove(nodeId);
+                        objectUnregisteredWithCache(nodeId);
 
                         // setting DataContext to null will also set
                         // state to transient
@@ -883,6 +934,7 @@ public class ObjectStore implements Serializable, SnapshotEventListener, GraphMa
     @Override
     public synchronized void registerNode(Object nodeId, Object nodeObject) {
         objectMap.put(nodeId, (Persistent) nodeObject);
+        objectRegisteredWithCache(nodeId, (Persistent) nodeObject);
     }
 
     /**
@@ -75,7 +75,7 @@ class PrefetchProcessorNode extends PrefetchTreeNode {
      * 'connectToParents'.
      */
     void linkToParent(Persistent object, Persistent parent) {
-        if (parent != null && parent.getPersistenceState() != PersistenceState.HOLLOW) {
+        if (parent != null && parent.getPersistenceState() != PersistenceState.HOLLOW && !isShared(parent)) {
 
             // if a relationship is to-one (i.e. flattened to-one), can connect right
             // away.... write directly to prevent changing persistence state.
@@ -137,7 +137,7 @@ class PrefetchProcessorNode extends PrefetchTreeNode {
         Iterator it = parentObjects.iterator();
         while (it.hasNext()) {
             Object object = it.next();
-            if (incoming.readPropertyDirectly(object) instanceof Fault) {
+            if (!isShared(object) && incoming.readPropertyDirectly(object) instanceof Fault) {
                 incoming.writePropertyDirectly(object, null, null);
             }
         }
@@ -165,6 +165,10 @@ class PrefetchProcessorNode extends PrefetchTreeNode {
     }
 
     private final void connect(Persistent object, List related) {
+        if (isShared(object)) {
+            return;
+        }
+
         if (incoming.getRelationship().isToMany()) {
             ValueHolder toManyList = (ValueHolder) incoming.readProperty(object);
 
@@ -179,6 +183,14 @@ class PrefetchProcessorNode extends PrefetchTreeNode {
         }
     }
 
+    /**
+     * Returns true if the object is shared between contexts, so its
+     * relationships can't be set by the prefetch of a single context.
+     */
+    private boolean isShared(Object object) {
+        return ((Persistent) object).getObjectContext() instanceof SharedObjectContext;
+    }
+
     List getDataRows() {
         return dataRows;
     }
@@ -0,0 +1,37 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.List;
+
+/**
+ * A strategy for picking one of the read replicas of a {@link DataNode} to run
+ * a select query.
+ * 
+ * @since 4.0
+ */
+public interface ReplicaSelectionStrategy {
+
+    /**
+     * Returns one of the replicas of the primary node. A non-empty list of
+     * replicas is passed to the method. Returning null routes the query to the
+     * primary node.
+     */
+    DataNode select(DataNode primary, List<DataNode> replicas);
+}
@@ -0,0 +1,266 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.parser.ASTDbPath;
+import org.apache.cayenne.exp.parser.ASTObjPath;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.BatchQuery;
+import org.apache.cayenne.query.BatchQueryRow;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryMetadata;
+import org.apache.cayenne.query.SelectQuery;
+
+/**
+ * A {@link ShardingStrategy} that picks a shard based on the value of a shard
+ * key column, such as a tenant id. The key of a select query is taken from the
+ * query qualifier, if it matches the key column with "equals" or "in" at the
+ * top level of the qualifier, including the qualifiers built for ObjectId
+ * lookups. The key of a committed row is taken from its ObjectId, its values,
+ * or the last known snapshot of the object. If there's no key, the value of the
+ * {@link #SHARD_KEY_PROPERTY} user property of the ObjectContext is used. A
+ * select with no key at all runs on all shards.
+ * <p>
+ * Keys are mapped to shards via {@link #shardForKey(Object, List)}, which uses
+ * the key modulo the number of shards for numbers, and a hash code for other
+ * values. Subclasses may override it to implement a different mapping.
+ * 
+ * @since 4.0
+ */
+public class ShardKeyShardingStrategy implements ShardingStrategy {
+
+    /**
+     * The name of an ObjectContext user property holding a shard key value
+     * applied to queries and commits of the context that do not define one.
+     */
+    public static final String SHARD_KEY_PROPERTY = "cayenne.shard_key";
+
+    protected String shardKeyColumn;
+
+    /**
+     * Creates a strategy that uses a given DB column as the shard key.
+     */
+    public ShardKeyShardingStrategy(String shardKeyColumn) {
+        if (shardKeyColumn == null) {
+            throw new NullPointerException("Null shardKeyColumn");
+        }
+
+        this.shardKeyColumn = shardKeyColumn;
+    }
+
+    public String getShardKeyColumn() {
+        return shardKeyColumn;
+    }
+
+    @Override
+    public List<DataNode> selectShards(DataNode node, List<DataNode> shards, Query query, ObjectContext context) {
+
+        Collection<?> keys = keysFromQuery(node, query);
+
+        if (keys == null) {
+            Object key = keyFromContext(context);
+            if (key == null) {
+                return null;
+            }
+
+            keys = Collections.singleton(key);
+        }
+
+        Set<DataNode> selected = new LinkedHashSet<DataNode>();
+        for (Object key : keys) {
+            selected.add(shardForKey(key, shards));
+        }
+
+        return new ArrayList<DataNode>(selected);
+    }
+
+    @Override
+    public DataNode selectShard(DataNode node, List<DataNode> shards, BatchQuery query, BatchQueryRow row,
+            ObjectContext context) {
+
+        Object key = keyFromRow(query, row, context);
+
+        if (key == null) {
+            key = keyFromContext(context);
+        }
+
+        if (key == null) {
+            throw new CayenneRuntimeException("No value for shard key '%s' in a row of '%s', and no '%s' in context",
+                    shardKeyColumn, query.getDbEntity().getName(), SHARD_KEY_PROPERTY);
+        }
+
+        return shardForKey(key, shards);
+    }
+
+    /**
+     * Maps a shard key to one of the shards.
+     */
+    protected DataNode shardForKey(Object key, List<DataNode> shards) {
+        long hash = key instanceof Number ? ((Number) key).longValue() : key.hashCode();
+        int size = shards.size();
+        return shards.get((int) (((hash % size) + size) % size));
+    }
+
+    /**
+     * Returns a shard key bound to the context, or null if there's none.
+     */
+    protected Object keyFromContext(ObjectContext context) {
+        return context != null ? context.getUserProperty(SHARD_KEY_PROPERTY) : null;
+    }
+
+    /**
+     * Returns shard keys matched by the query qualifier, or null if the
+     * qualifier does not restrict the shard key.
+     */
+    protected Collection<?> keysFromQuery(DataNode node, Query query) {
+        if (!(query instanceof SelectQuery)) {
+            return null;
+        }
+
+        Expression qualifier = ((SelectQuery<?>) query).getQualifier();
+        if (qualifier == null) {
+            return null;
+        }
+
+        QueryMetadata md = query.getMetaData(node.getEntityResolver());
+        DbEntity dbEntity = md.getDbEntity();
+        if (dbEntity == null || dbEntity.getAttribute(shardKeyColumn) == null) {
+            return null;
+        }
+
+        if (qualifier.getType() == Expression.AND) {
+            for (int i = 0; i < qualifier.getOperandCount(); i++) {
+                Object operand = qualifier.getOperand(i);
+                if (operand instanceof Expression) {
+                    Collection<?> keys = keysFromCondition(md.getObjEntity(), (Expression) operand);
+                    if (keys != null) {
+                        return keys;
+                    }
+                }
+            }
+
+            return null;
+        }
+
+        return keysFromCondition(md.getObjEntity(), qualifier);
+    }
+
+    private Collection<?> keysFromCondition(ObjEntity entity, Expression condition) {
+
+        if (condition.getOperandCount() != 2 || !isShardKeyPath(entity, condition.getOperand(0))) {
+            return null;
+        }
+
+        Object value = condition.getOperand(1);
+
+        switch (condition.getType()) {
+        case Expression.EQUAL_TO:
+            return value != null && !(value instanceof Expression) ? Collections.singleton(value) : null;
+        case Expression.IN:
+            if (value instanceof Expression) {
+                Object values = ((Expression) value).getOperand(0);
+                if (values instanceof Object[]) {
+                    List<Object> keys = new ArrayList<Object>();
+                    for (Object key : (Object[]) values) {
+                        if (key == null || key instanceof Expression) {
+                            return null;
+                        }
+
+                        keys.add(key);
+                    }
+
+                    return keys.isEmpty() ? null : keys;
+                }
+            }
+
+            return null;
+        default:
+            return null;
+        }
+    }
+
+    private boolean isShardKeyPath(ObjEntity entity, Object path) {
+        if (path instanceof ASTDbPath) {
+            return shardKeyColumn.equals(((ASTDbPath) path).getPath());
+        }
+
+        if (path instanceof ASTObjPath && entity != null) {
+            ObjAttribute attribute = entity.getAttribute(((ASTObjPath) path).getPath());
+            return attribute != null && shardKeyColumn.equals(attribute.getDbAttributePath());
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns a shard key of a committed row, or null if it can't be
+     * determined.
+     */
+    protected Object keyFromRow(BatchQuery query, BatchQueryRow row, ObjectContext context) {
+
+        ObjectId id = row.getObjectId();
+        if (id != null) {
+            Object key = id.getIdSnapshot().get(shardKeyColumn);
+            if (key != null) {
+                return key;
+            }
+        }
+
+        List<DbAttribute> attributes = query.getDbAttributes();
+        for (int i = 0; i < attributes.size(); i++) {
+            if (shardKeyColumn.equals(attributes.get(i).getName())) {
+                Object key = row.getValue(i);
+                if (key != null) {
+                    return key;
+                }
+            }
+        }
+
+        if (row.getQualifier() != null) {
+            Object key = row.getQualifier().get(shardKeyColumn);
+            if (key != null) {
+                return key;
+            }
+        }
+
+        if (id != null && context instanceof DataContext) {
+            DataRow snapshot = ((DataContext) context).getObjectStore().getCachedSnapshot(id);
+            if (snapshot != null) {
+                return snapshot.get(shardKeyColumn);
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.List;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.query.BatchQuery;
+import org.apache.cayenne.query.BatchQueryRow;
+import org.apache.cayenne.query.Query;
+
+/**
+ * A strategy for distributing queries and committed rows between the shards
+ * of a {@link DataNode}. A sharded node serves as a template holding the
+ * mapping and the adapter, while the data is stored in the shard nodes, each
+ * containing the same schema.
+ * 
+ * @since 4.0
+ */
+public interface ShardingStrategy {
+
+    /**
+     * Returns the shards that a query routed to a sharded node should run on.
+     * A non-empty list of shards is passed to the method. If more than one
+     * shard is returned, the query runs on each one of them and the results
+     * are merged. Returning null or an empty list sends the query to all
+     * shards.
+     * 
+     * @param context
+     *            a context that runs the query. May be null.
+     */
+    List<DataNode> selectShards(DataNode node, List<DataNode> shards, Query query, ObjectContext context);
+
+    /**
+     * Returns a shard that a given row of a batch query should be sent to. A
+     * non-empty list of shards is passed to the method.
+     * 
+     * @param context
+     *            a context that commits the changes.
+     */
+    DataNode selectShard(DataNode node, List<DataNode> shards, BatchQuery query, BatchQueryRow row,
+            ObjectContext context);
+}
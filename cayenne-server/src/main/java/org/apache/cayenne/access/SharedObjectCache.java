@@ -0,0 +1,184 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.access.event.SnapshotEvent;
+import org.apache.cayenne.event.EventManager;
+import org.apache.cayenne.event.EventSubject;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.SelectQuery;
+
+/**
+ * Holds objects of the entities mapped as "shared read-only" (see
+ * {@link ObjEntity#isSharedReadOnly()}). All objects of such an entity are
+ * fetched once on first access and are then returned to every DataContext of
+ * the DataDomain, instead of creating a copy in each context. Shared objects
+ * are not registered in the ObjectStore of the contexts using them and can't
+ * be modified. The cache is cleared whenever a snapshot event reports a change
+ * to a shared entity, and objects are fetched again on next access.
+ * 
+ * @since 4.0
+ */
+public class SharedObjectCache {
+
+    private final DataDomain domain;
+    private final Map<String, Map<ObjectId, Persistent>> objectsByEntity;
+    private final AtomicLong version;
+
+    SharedObjectCache(DataDomain domain) {
+        this.domain = domain;
+        this.objectsByEntity = new ConcurrentHashMap<String, Map<ObjectId, Persistent>>();
+        this.version = new AtomicLong();
+
+        EventManager eventManager = domain.getEventManager();
+        if (eventManager != null) {
+            // shared and per-context snapshot caches of the domain all post
+            // events to the same subject
+            eventManager.addNonBlockingListener(this, "snapshotsChanged", SnapshotEvent.class,
+                    EventSubject.getSubject(DataRowStore.class, domain.getName()));
+        }
+    }
+
+    /**
+     * Returns true if objects of a given entity are shared between contexts.
+     */
+    public boolean isShared(String entityName) {
+        ObjEntity entity = domain.getEntityResolver().getObjEntity(entityName);
+        return entity != null && entity.isSharedReadOnly();
+    }
+
+    /**
+     * Returns a shared object for a given id, fetching all objects of its
+     * entity if they are not cached yet. Returns null if the entity is not
+     * shared or there's no such object.
+     */
+    public Persistent getObject(ObjectId id) {
+        if (id.isTemporary() || !isShared(id.getEntityName())) {
+            return null;
+        }
+
+        Map<ObjectId, Persistent> objects = objectsByEntity.get(id.getEntityName());
+        if (objects == null) {
+            objects = loadObjects(id.getEntityName());
+        }
+
+        return objects.get(id);
+    }
+
+    private synchronized Map<ObjectId, Persistent> loadObjects(String entityName) {
+
+        Map<ObjectId, Persistent> objects = objectsByEntity.get(entityName);
+        if (objects != null) {
+            return objects;
+        }
+
+        long loadVersion = version.get();
+
+        // each load uses its own context, so that the objects already handed
+        // out stay unchanged
+        SharedObjectContext context = new SharedObjectContext(domain);
+        List<?> fetched = context.performQuery(new SelectQuery<Object>(entityName));
+
+        objects = new HashMap<ObjectId, Persistent>((int) (fetched.size() / 0.75) + 1);
+        for (Object object : fetched) {
+            Persistent persistent = (Persistent) object;
+            objects.put(persistent.getObjectId(), persistent);
+        }
+
+        // do not cache the result if it may have been loaded before a change
+        // to the entity was reported
+        if (loadVersion == version.get()) {
+            objectsByEntity.put(entityName, objects);
+        }
+
+        return objects;
+    }
+
+    /**
+     * Removes all shared objects from the cache.
+     */
+    public void clear() {
+        version.incrementAndGet();
+        objectsByEntity.clear();
+    }
+
+    /**
+     * A listener method that clears the cache when any shared object is
+     * changed, deleted or invalidated. Snapshot diffs that do not change the
+     * shared objects are ignored, e.g. when the shared objects were loaded after
+     * the change was made.
+     */
+    public void snapshotsChanged(SnapshotEvent event) {
+        if (containsChangedSnapshots(event.getModifiedDiffs()) || containsSharedIds(event.getDeletedIds())
+                || containsSharedIds(event.getInvalidatedIds())
+                || containsSharedIds(event.getIndirectlyModifiedIds())) {
+            clear();
+        }
+    }
+
+    private boolean containsChangedSnapshots(Map<?, ?> diffs) {
+        for (Map.Entry<?, ?> entry : diffs.entrySet()) {
+            if (!(entry.getKey() instanceof ObjectId)) {
+                continue;
+            }
+
+            ObjectId id = (ObjectId) entry.getKey();
+            Map<ObjectId, Persistent> objects = objectsByEntity.get(id.getEntityName());
+            if (objects == null || !isShared(id.getEntityName())) {
+                continue;
+            }
+
+            Persistent object = objects.get(id);
+            if (object == null) {
+                return true;
+            }
+
+            DataRow snapshot = ((DataContext) object.getObjectContext()).getObjectStore().getDataRowCache()
+                    .getCachedSnapshot(id);
+            if (snapshot == null || !(entry.getValue() instanceof DataRow)
+                    || !snapshot.applyDiff((DataRow) entry.getValue()).equals(snapshot)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean containsSharedIds(Collection<?> ids) {
+        if (ids != null) {
+            for (Object id : ids) {
+                if (id instanceof ObjectId && isShared(((ObjectId) id).getEntityName())) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,71 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.DeleteDenyException;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.Persistent;
+
+/**
+ * A DataContext that owns objects of the "shared read-only" entities. The
+ * objects are shared between all contexts of a DataDomain, so any attempt to
+ * modify them is rejected.
+ * 
+ * @since 4.0
+ */
+class SharedObjectContext extends DataContext {
+
+    SharedObjectContext(DataDomain domain) {
+        // using a private snapshot cache not connected to the EventManager, so
+        // that shared objects are never refreshed in place
+        super(domain, new ObjectStore(new DataRowStore(domain.getName(), domain.getProperties(), null),
+                new ConcurrentHashMap<Object, Persistent>()));
+    }
+
+    @Override
+    Persistent sharedObject(ObjectId id) {
+        // this context owns the shared objects
+        return null;
+    }
+
+    @Override
+    public void propertyChanged(Persistent object, String property, Object oldValue, Object newValue) {
+        throw new CayenneRuntimeException("Can't modify property '%s' of %s, the object is shared and read-only",
+                property, object.getObjectId());
+    }
+
+    @Override
+    public void deleteObjects(Collection<?> objects) throws DeleteDenyException {
+        throw new CayenneRuntimeException("Can't delete shared read-only objects");
+    }
+
+    @Override
+    public <T> void deleteObjects(T... objects) throws DeleteDenyException {
+        throw new CayenneRuntimeException("Can't delete shared read-only objects");
+    }
+
+    @Override
+    public void registerNewObject(Object object) {
+        throw new CayenneRuntimeException("Can't register new objects in a shared read-only context");
+    }
+}
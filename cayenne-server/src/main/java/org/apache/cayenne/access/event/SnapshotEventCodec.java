@@ -0,0 +1,651 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.event;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.event.CayenneEvent;
+import org.apache.cayenne.event.EventCodec;
+import org.apache.cayenne.event.EventSubject;
+
+/**
+ * An {@link EventCodec} that writes {@link SnapshotEvent SnapshotEvents} in a compact
+ * binary form. Entity and attribute names are written once per message and referenced
+ * by index afterwards, ids and snapshot values of common types are written as
+ * primitives. Snapshot events of the same subject within a single batch are merged into
+ * one event. Events of other types are written using Java serialization.
+ * <p>
+ * When configured as "ids only", modified snapshot diffs are not sent; instead the
+ * modified ids are sent as invalidated ids, and the receiving side refetches the rows
+ * on demand.
+ * </p>
+ * 
+ * @since 4.0
+ */
+public class SnapshotEventCodec implements EventCodec {
+
+    static final byte FORMAT_VERSION = 2;
+
+    static final String UTF8 = "UTF-8";
+
+    static final byte SNAPSHOT_EVENT = 1;
+    static final byte SERIALIZED_EVENT = 2;
+
+    static final byte PERMANENT_ID = 1;
+    static final byte TEMPORARY_ID = 2;
+
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte INTEGER = 2;
+    static final byte LONG = 3;
+    static final byte SHORT = 4;
+    static final byte BYTE = 5;
+    static final byte BOOLEAN = 6;
+    static final byte DOUBLE = 7;
+    static final byte FLOAT = 8;
+    static final byte BIG_DECIMAL = 9;
+    static final byte BIG_INTEGER = 10;
+    static final byte UTIL_DATE = 11;
+    static final byte SQL_DATE = 12;
+    static final byte SQL_TIME = 13;
+    static final byte SQL_TIMESTAMP = 14;
+    static final byte BYTES = 15;
+    static final byte SERIALIZED = 16;
+
+    protected boolean idsOnly;
+
+    public SnapshotEventCodec() {
+        this(false);
+    }
+
+    /**
+     * Creates a codec, optionally sending modified ids as invalidated instead of sending
+     * snapshot diffs.
+     */
+    public SnapshotEventCodec(boolean idsOnly) {
+        this.idsOnly = idsOnly;
+    }
+
+    public boolean isIdsOnly() {
+        return idsOnly;
+    }
+
+    public byte[] encode(List<CayenneEvent> events) throws Exception {
+
+        List<CayenneEvent> merged = merge(events);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        Encoder out = new Encoder(new DataOutputStream(bytes));
+
+        out.out.writeByte(FORMAT_VERSION);
+        out.writeInt(merged.size());
+
+        for (CayenneEvent event : merged) {
+
+            if (event instanceof SnapshotEvent) {
+                out.out.writeByte(SNAPSHOT_EVENT);
+                out.writeString(event.getSubject().getSubjectName());
+                encodeEvent(out, (SnapshotEvent) event);
+            }
+            else {
+                out.out.writeByte(SERIALIZED_EVENT);
+                out.writeSerialized(event);
+            }
+        }
+
+        out.out.flush();
+        return bytes.toByteArray();
+    }
+
+    public List<CayenneEvent> decode(byte[] data, Collection<EventSubject> subjects)
+            throws Exception {
+
+        Decoder in = new Decoder(new DataInputStream(new ByteArrayInputStream(data)));
+
+        byte version = in.in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot event format version: "
+                    + version);
+        }
+
+        int size = in.readInt();
+        List<CayenneEvent> events = new ArrayList<CayenneEvent>(size);
+
+        for (int i = 0; i < size; i++) {
+            byte type = in.in.readByte();
+
+            if (type == SNAPSHOT_EVENT) {
+                EventSubject subject = subjectForName(subjects, in.readString());
+                SnapshotEvent event = decodeEvent(in);
+
+                if (subject != null) {
+                    event.setSubject(subject);
+                    events.add(event);
+                }
+            }
+            else if (type == SERIALIZED_EVENT) {
+                events.add((CayenneEvent) in.readSerialized());
+            }
+            else {
+                throw new IOException("Unsupported event type: " + type);
+            }
+        }
+
+        return events;
+    }
+
+    /**
+     * Merges snapshot events with the same subject into a single event, preserving the
+     * order of other events.
+     */
+    protected List<CayenneEvent> merge(List<CayenneEvent> events) {
+
+        if (events.size() < 2) {
+            return events;
+        }
+
+        List<CayenneEvent> merged = new ArrayList<CayenneEvent>(events.size());
+        Map<EventSubject, SnapshotEventMerger> mergers = new HashMap<EventSubject, SnapshotEventMerger>();
+
+        for (CayenneEvent event : events) {
+            if (event instanceof SnapshotEvent) {
+                SnapshotEventMerger merger = mergers.get(event.getSubject());
+                if (merger == null) {
+                    merger = new SnapshotEventMerger(event.getSubject());
+                    mergers.put(event.getSubject(), merger);
+
+                    // the merger takes the position of the first event of its subject
+                    merged.add(merger.event);
+                }
+
+                merger.merge((SnapshotEvent) event);
+            }
+            else {
+                merged.add(event);
+            }
+        }
+
+        return merged;
+    }
+
+    void encodeEvent(Encoder out, SnapshotEvent event) throws IOException {
+        out.out.writeLong(event.getTimestamp());
+
+        Map<?, ?> diffs = event.getModifiedDiffs();
+        Collection<?> invalidated = event.getInvalidatedIds();
+
+        if (idsOnly && !diffs.isEmpty()) {
+            Collection<Object> ids = new ArrayList<Object>(invalidated.size()
+                    + diffs.size());
+            ids.addAll(invalidated);
+            ids.addAll(diffs.keySet());
+
+            invalidated = ids;
+            diffs = java.util.Collections.EMPTY_MAP;
+        }
+
+        out.writeInt(diffs.size());
+        for (Map.Entry<?, ?> entry : diffs.entrySet()) {
+            out.writeId((ObjectId) entry.getKey());
+            out.writeRow((DataRow) entry.getValue());
+        }
+
+        out.writeIds(event.getDeletedIds());
+        out.writeIds(invalidated);
+        out.writeIds(event.getIndirectlyModifiedIds());
+    }
+
+    SnapshotEvent decodeEvent(Decoder in) throws IOException, ClassNotFoundException {
+        long timestamp = in.in.readLong();
+
+        int diffsSize = in.readInt();
+        Map<ObjectId, DataRow> diffs = new HashMap<ObjectId, DataRow>(
+                (int) (diffsSize / 0.75) + 1);
+        for (int i = 0; i < diffsSize; i++) {
+            ObjectId id = in.readId();
+            diffs.put(id, in.readRow());
+        }
+
+        Collection<ObjectId> deleted = in.readIds();
+        Collection<ObjectId> invalidated = in.readIds();
+        Collection<ObjectId> indirectlyModified = in.readIds();
+
+        // source is reset by the receiving EventBridge
+        SnapshotEvent event = new SnapshotEvent(
+                this,
+                null,
+                diffs,
+                deleted,
+                invalidated,
+                indirectlyModified);
+        event.timestamp = timestamp;
+        return event;
+    }
+
+    private EventSubject subjectForName(Collection<EventSubject> subjects, String name) {
+        for (EventSubject subject : subjects) {
+            if (name.equals(subject.getSubjectName())) {
+                return subject;
+            }
+        }
+
+        return null;
+    }
+
+    final class SnapshotEventMerger {
+
+        final SnapshotEvent event;
+
+        SnapshotEventMerger(EventSubject subject) {
+            this.event = new SnapshotEvent(
+                    SnapshotEventCodec.this,
+                    null,
+                    new LinkedHashMap<Object, Object>(),
+                    new LinkedHashSet<Object>(),
+                    new LinkedHashSet<Object>(),
+                    new LinkedHashSet<Object>());
+            event.setSubject(subject);
+        }
+
+        @SuppressWarnings("unchecked")
+        void merge(SnapshotEvent next) {
+
+            Map<Object, Object> diffs = event.getModifiedDiffs();
+            Set<Object> deleted = (Set<Object>) event.getDeletedIds();
+            Set<Object> invalidated = (Set<Object>) event.getInvalidatedIds();
+            Set<Object> indirectlyModified = (Set<Object>) event
+                    .getIndirectlyModifiedIds();
+
+            for (Object id : next.getDeletedIds()) {
+                diffs.remove(id);
+                invalidated.remove(id);
+                indirectlyModified.remove(id);
+                deleted.add(id);
+            }
+
+            // invalidation removes the snapshot on the receiving side, making any diff
+            // irrelevant
+            for (Object id : next.getInvalidatedIds()) {
+                if (!deleted.contains(id)) {
+                    diffs.remove(id);
+                    invalidated.add(id);
+                }
+            }
+
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) next.getModifiedDiffs())
+                    .entrySet()) {
+
+                Object id = entry.getKey();
+                if (deleted.contains(id) || invalidated.contains(id)) {
+                    continue;
+                }
+
+                DataRow diff = (DataRow) entry.getValue();
+                DataRow previous = (DataRow) diffs.get(id);
+                diffs.put(id, previous != null ? previous.applyDiff(diff) : diff);
+            }
+
+            for (Object id : next.getIndirectlyModifiedIds()) {
+                if (!deleted.contains(id)) {
+                    indirectlyModified.add(id);
+                }
+            }
+
+            event.timestamp = next.getTimestamp();
+        }
+    }
+
+    static final class Encoder {
+
+        final DataOutputStream out;
+        final Map<String, Integer> dictionary;
+
+        Encoder(DataOutputStream out) {
+            this.out = out;
+            this.dictionary = new HashMap<String, Integer>();
+        }
+
+        void writeInt(int value) throws IOException {
+            // unsigned variable-length int
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+
+            out.writeByte(value);
+        }
+
+        // dictionary-compressed string: zero followed by the string for the first
+        // occurrence, index + 1 afterwards
+        void writeString(String string) throws IOException {
+            Integer index = dictionary.get(string);
+            if (index != null) {
+                writeInt(index + 1);
+            }
+            else {
+                dictionary.put(string, dictionary.size());
+                writeInt(0);
+                writeUTF8(string);
+            }
+        }
+
+        // length followed by UTF-8 bytes. Unlike DataOutput.writeUTF() it is not limited
+        // to 64K, so long text values can be sent
+        void writeUTF8(String string) throws IOException {
+            byte[] bytes = string.getBytes(UTF8);
+            writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        void writeIds(Collection<?> ids) throws IOException {
+            writeInt(ids.size());
+            for (Object id : ids) {
+                writeId((ObjectId) id);
+            }
+        }
+
+        void writeId(ObjectId id) throws IOException {
+            if (id.isTemporary()) {
+                out.writeByte(TEMPORARY_ID);
+                writeString(id.getEntityName());
+
+                byte[] key = id.getKey();
+                writeInt(key.length);
+                out.write(key);
+                return;
+            }
+
+            out.writeByte(PERMANENT_ID);
+            writeString(id.getEntityName());
+
+            Map<String, Object> snapshot = id.getIdSnapshot();
+            writeInt(snapshot.size());
+            for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+                writeString(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        // diff versions are not used by the receiving DataRowStore, so only the values
+        // are written
+        void writeRow(DataRow row) throws IOException {
+            writeInt(row.size());
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                writeString(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            }
+            else if (value instanceof String) {
+                out.writeByte(STRING);
+                writeUTF8((String) value);
+            }
+            else if (value instanceof Integer) {
+                out.writeByte(INTEGER);
+                out.writeInt((Integer) value);
+            }
+            else if (value instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) value);
+            }
+            else if (value instanceof Short) {
+                out.writeByte(SHORT);
+                out.writeShort((Short) value);
+            }
+            else if (value instanceof Byte) {
+                out.writeByte(BYTE);
+                out.writeByte((Byte) value);
+            }
+            else if (value instanceof Boolean) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            }
+            else if (value instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            }
+            else if (value instanceof Float) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) value);
+            }
+            else if (value instanceof BigDecimal) {
+                out.writeByte(BIG_DECIMAL);
+                BigDecimal decimal = (BigDecimal) value;
+                writeInt(decimal.scale());
+                writeBytes(decimal.unscaledValue().toByteArray());
+            }
+            else if (value instanceof BigInteger) {
+                out.writeByte(BIG_INTEGER);
+                writeBytes(((BigInteger) value).toByteArray());
+            }
+            else if (value instanceof byte[]) {
+                out.writeByte(BYTES);
+                writeBytes((byte[]) value);
+            }
+            else if (value.getClass() == java.sql.Timestamp.class) {
+                java.sql.Timestamp timestamp = (java.sql.Timestamp) value;
+                out.writeByte(SQL_TIMESTAMP);
+                out.writeLong(timestamp.getTime());
+                out.writeInt(timestamp.getNanos());
+            }
+            else if (value.getClass() == java.sql.Date.class) {
+                out.writeByte(SQL_DATE);
+                out.writeLong(((java.util.Date) value).getTime());
+            }
+            else if (value.getClass() == java.sql.Time.class) {
+                out.writeByte(SQL_TIME);
+                out.writeLong(((java.util.Date) value).getTime());
+            }
+            else if (value.getClass() == java.util.Date.class) {
+                out.writeByte(UTIL_DATE);
+                out.writeLong(((java.util.Date) value).getTime());
+            }
+            else {
+                out.writeByte(SERIALIZED);
+                writeSerialized(value);
+            }
+        }
+
+        void writeBytes(byte[] bytes) throws IOException {
+            writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        void writeSerialized(Object object) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream objectOut = new ObjectOutputStream(bytes);
+            objectOut.writeObject(object);
+            objectOut.close();
+
+            writeBytes(bytes.toByteArray());
+        }
+    }
+
+    static final class Decoder {
+
+        final DataInputStream in;
+        final List<String> dictionary;
+
+        Decoder(DataInputStream in) {
+            this.in = in;
+            this.dictionary = new ArrayList<String>();
+        }
+
+        int readInt() throws IOException {
+            int value = 0;
+            int shift = 0;
+            int b;
+
+            do {
+                b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            return value;
+        }
+
+        String readString() throws IOException {
+            int index = readInt();
+            if (index > 0) {
+                return dictionary.get(index - 1);
+            }
+
+            String string = readUTF8();
+            dictionary.add(string);
+            return string;
+        }
+
+        String readUTF8() throws IOException {
+            byte[] bytes = new byte[readInt()];
+            in.readFully(bytes);
+            return new String(bytes, UTF8);
+        }
+
+        Collection<ObjectId> readIds() throws IOException, ClassNotFoundException {
+            int size = readInt();
+            Collection<ObjectId> ids = new ArrayList<ObjectId>(size);
+            for (int i = 0; i < size; i++) {
+                ids.add(readId());
+            }
+
+            return ids;
+        }
+
+        ObjectId readId() throws IOException, ClassNotFoundException {
+            byte type = in.readByte();
+            String entityName = readString();
+
+            if (type == TEMPORARY_ID) {
+                return new ObjectId(entityName, readBytes());
+            }
+
+            int size = readInt();
+            if (size == 1) {
+                String key = readString();
+                return new ObjectId(entityName, key, readValue());
+            }
+
+            Map<String, Object> snapshot = new HashMap<String, Object>(
+                    (int) (size / 0.75) + 1);
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                snapshot.put(key, readValue());
+            }
+
+            return new ObjectId(entityName, snapshot);
+        }
+
+        DataRow readRow() throws IOException, ClassNotFoundException {
+            int size = readInt();
+            DataRow row = new DataRow((int) (size / 0.75) + 1);
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                row.put(key, readValue());
+            }
+
+            return row;
+        }
+
+        Object readValue() throws IOException, ClassNotFoundException {
+            byte type = in.readByte();
+
+            switch (type) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return readUTF8();
+                case INTEGER:
+                    return in.readInt();
+                case LONG:
+                    return in.readLong();
+                case SHORT:
+                    return in.readShort();
+                case BYTE:
+                    return in.readByte();
+                case BOOLEAN:
+                    return in.readBoolean();
+                case DOUBLE:
+                    return in.readDouble();
+                case FLOAT:
+                    return in.readFloat();
+                case BIG_DECIMAL:
+                    int scale = readInt();
+                    return new BigDecimal(new BigInteger(readBytes()), scale);
+                case BIG_INTEGER:
+                    return new BigInteger(readBytes());
+                case BYTES:
+                    return readBytes();
+                case SQL_TIMESTAMP:
+                    java.sql.Timestamp timestamp = new java.sql.Timestamp(in.readLong());
+                    timestamp.setNanos(in.readInt());
+                    return timestamp;
+                case SQL_DATE:
+                    return new java.sql.Date(in.readLong());
+                case SQL_TIME:
+                    return new java.sql.Time(in.readLong());
+                case UTIL_DATE:
+                    return new java.util.Date(in.readLong());
+                case SERIALIZED:
+                    return readSerialized();
+                default:
+                    throw new IOException("Unsupported value type: " + type);
+            }
+        }
+
+        byte[] readBytes() throws IOException {
+            byte[] bytes = new byte[readInt()];
+            in.readFully(bytes);
+            return bytes;
+        }
+
+        Object readSerialized() throws IOException, ClassNotFoundException {
+            ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(
+                    readBytes()));
+            try {
+                return objectIn.readObject();
+            }
+            finally {
+                objectIn.close();
+            }
+        }
+    }
+}
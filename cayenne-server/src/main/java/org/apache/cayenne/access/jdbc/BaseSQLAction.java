@@ -21,12 +21,15 @@ package org.apache.cayenne.access.jdbc;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.OperationObserver;
 import org.apache.cayenne.access.jdbc.reader.RowReader;
+import org.apache.cayenne.log.SlowQueryDetector;
 import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryCancelHandle;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.query.SQLAction;
 
@@ -91,4 +94,63 @@ public abstract class BaseSQLAction implements SQLAction {
     protected int getInMemoryOffset(int queryOffset) {
         return queryOffset;
     }
+
+    /**
+     * Prepares a statement for execution, applying the query timeout (or the
+     * DataNode default if the query has none) and registering the statement
+     * with the query {@link QueryCancelHandle}, if any. Must be followed by
+     * {@link #afterExecute(Statement, QueryMetadata)} once the statement is
+     * done executing.
+     * 
+     * @since 4.0
+     */
+    protected void beforeExecute(Statement statement, QueryMetadata metadata) throws SQLException {
+        int timeout = metadata.getQueryTimeout() > 0 ? metadata.getQueryTimeout() : dataNode.getQueryTimeout();
+        if (timeout > 0) {
+            statement.setQueryTimeout(timeout);
+        }
+
+        QueryCancelHandle cancelHandle = metadata.getCancelHandle();
+        if (cancelHandle != null) {
+            cancelHandle.register(statement);
+        }
+    }
+
+    /**
+     * Unregisters a statement from the query {@link QueryCancelHandle}.
+     * 
+     * @since 4.0
+     */
+    protected void afterExecute(Statement statement, QueryMetadata metadata) {
+        QueryCancelHandle cancelHandle = metadata.getCancelHandle();
+        if (cancelHandle != null) {
+            cancelHandle.unregister(statement);
+        }
+    }
+
+    /**
+     * Returns true if a statement that took a given number of milliseconds
+     * should be reported to the DataNode {@link SlowQueryDetector}.
+     * 
+     * @since 4.0
+     */
+    protected boolean isSlowQuery(long elapsedMillis) {
+        SlowQueryDetector detector = dataNode.getSlowQueryDetector();
+        return detector != null && detector.isSlow(elapsedMillis);
+    }
+
+    /**
+     * Reports a statement to the DataNode {@link SlowQueryDetector}. Callers
+     * should check {@link #isSlowQuery(long)} first to avoid collecting
+     * parameters for fast statements.
+     * 
+     * @since 4.0
+     */
+    protected void reportSlowQuery(Query query, String sql, ParameterBinding[] bindings, int rowCount,
+            long elapsedMillis, boolean select) {
+        SlowQueryDetector detector = dataNode.getSlowQueryDetector();
+        if (detector != null) {
+            detector.report(dataNode, query, sql, bindings, rowCount, elapsedMillis, select);
+        }
+    }
 }
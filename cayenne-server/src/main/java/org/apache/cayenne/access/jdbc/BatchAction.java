@@ -40,9 +40,11 @@ import org.apache.cayenne.dba.TypesMapping;
 import org.apache.cayenne.log.JdbcEventLogger;
 import org.apache.cayenne.map.DbAttribute;
 import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.metrics.MetricsRecorder;
 import org.apache.cayenne.query.BatchQuery;
 import org.apache.cayenne.query.BatchQueryRow;
 import org.apache.cayenne.query.InsertBatchQuery;
+import org.apache.cayenne.query.QueryMetadata;
 
 /**
  * @since 1.2
@@ -83,6 +85,8 @@ public class BatchAction extends BaseSQLAction {
     @Override
     public void performAction(Connection connection, OperationObserver observer) throws SQLException, Exception {
 
+        long t0 = System.nanoTime();
+        long t1 = System.currentTimeMillis();
         BatchTranslator translator = createTranslator();
         boolean generatesKeys = hasGeneratedKeys();
 
@@ -91,6 +95,37 @@ public class BatchAction extends BaseSQLAction {
         } else {
             runAsIndividualQueries(connection, translator, observer, generatesKeys);
         }
+
+        MetricsRecorder recorder = dataNode.getMetricsRecorder();
+        if (recorder.isEnabled()) {
+            recorder.recordTime(MetricsRecorder.BATCH_TIME, query.getDbEntity().getName(), query.getClass()
+                    .getSimpleName(), System.nanoTime() - t0);
+        }
+
+        long time = System.currentTimeMillis() - t1;
+        if (isSlowQuery(time)) {
+            reportSlowQuery(query, translator.getSql(), toParameterBindings(translator.getBindings()), query.getRows()
+                    .size(), time, false);
+        }
+    }
+
+    /**
+     * Converts bindings of the last processed batch row to a form accepted by
+     * the slow query detector, skipping excluded bindings.
+     */
+    private ParameterBinding[] toParameterBindings(BatchParameterBinding[] bindings) {
+        ParameterBinding[] result = new ParameterBinding[bindings.length];
+        int len = 0;
+        for (BatchParameterBinding binding : bindings) {
+            if (!binding.isExcluded()) {
+                DbAttribute attribute = binding.getAttribute();
+                result[len++] = new ParameterBinding(binding.getValue(), attribute.getType(), attribute.getScale());
+            }
+        }
+
+        ParameterBinding[] trimmed = new ParameterBinding[len];
+        System.arraycopy(result, 0, trimmed, 0, len);
+        return trimmed;
     }
 
     protected BatchTranslator createTranslator() throws CayenneException {
@@ -105,17 +140,24 @@ public class BatchAction extends BaseSQLAction {
         boolean isLoggable = logger.isLoggable();
 
         // log batch SQL execution
-        logger.logQuery(sql, Collections.EMPTY_LIST);
+        if (isLoggable) {
+            logger.logQuery(sql, Collections.EMPTY_LIST);
+        }
 
         // run batch
 
         DbAdapter adapter = dataNode.getAdapter();
         PreparedStatement statement = con.prepareStatement(sql);
+        QueryMetadata metadata = query.getMetaData(dataNode.getEntityResolver());
         try {
+            beforeExecute(statement, metadata);
+
             for (BatchQueryRow row : query.getRows()) {
 
                 BatchParameterBinding[] bindings = translator.updateBindings(row);
-                logger.logQueryParameters("batch bind", bindings);
+                if (isLoggable) {
+                    logger.logQueryParameters("batch bind", bindings);
+                }
                 bind(adapter, statement, bindings);
 
                 statement.addBatch();
@@ -142,6 +184,7 @@ public class BatchAction extends BaseSQLAction {
                 logger.logUpdateCount(totalUpdateCount);
             }
         } finally {
+            afterExecute(statement, metadata);
             try {
                 statement.close();
             } catch (Exception e) {
@@ -156,23 +199,31 @@ public class BatchAction extends BaseSQLAction {
             OperationObserver delegate, boolean generatesKeys) throws SQLException, Exception {
 
         JdbcEventLogger logger = dataNode.getJdbcEventLogger();
+        boolean isLoggable = logger.isLoggable();
         boolean useOptimisticLock = query.isUsingOptimisticLocking();
 
         String queryStr = translator.getSql();
 
         // log batch SQL execution
-        logger.logQuery(queryStr, Collections.EMPTY_LIST);
+        if (isLoggable) {
+            logger.logQuery(queryStr, Collections.EMPTY_LIST);
+        }
 
         // run batch queries one by one
 
         DbAdapter adapter = dataNode.getAdapter();
         PreparedStatement statement = (generatesKeys) ? connection.prepareStatement(queryStr,
                 Statement.RETURN_GENERATED_KEYS) : connection.prepareStatement(queryStr);
+        QueryMetadata metadata = query.getMetaData(dataNode.getEntityResolver());
         try {
+            beforeExecute(statement, metadata);
+
             for (BatchQueryRow row : query.getRows()) {
 
                 BatchParameterBinding[] bindings = translator.updateBindings(row);
-                logger.logQueryParameters("bind", bindings);
+                if (isLoggable) {
+                    logger.logQueryParameters("bind", bindings);
+                }
 
                 bind(adapter, statement, bindings);
 
@@ -188,9 +239,12 @@ public class BatchAction extends BaseSQLAction {
                     processGeneratedKeys(statement, delegate, row);
                 }
 
-                logger.logUpdateCount(updated);
+                if (isLoggable) {
+                    logger.logUpdateCount(updated);
+                }
             }
         } finally {
+            afterExecute(statement, metadata);
             try {
                 statement.close();
             } catch (Exception e) {
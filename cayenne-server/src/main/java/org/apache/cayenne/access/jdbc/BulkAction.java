@@ -0,0 +1,96 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.OperationObserver;
+import org.apache.cayenne.access.translator.select.BulkTranslator;
+import org.apache.cayenne.log.JdbcEventLogger;
+import org.apache.cayenne.metrics.MetricsRecorder;
+import org.apache.cayenne.query.BulkQuery;
+import org.apache.cayenne.query.QueryMetadata;
+
+/**
+ * A SQLAction that runs a {@link BulkQuery} as a single UPDATE or DELETE
+ * statement.
+ *
+ * @since 4.0
+ */
+public class BulkAction extends BaseSQLAction {
+
+    protected BulkQuery query;
+
+    public BulkAction(BulkQuery query, DataNode dataNode) {
+        super(dataNode);
+        this.query = query;
+    }
+
+    public BulkQuery getQuery() {
+        return query;
+    }
+
+    protected BulkTranslator createTranslator(Connection connection) {
+        return new BulkTranslator(query, dataNode, connection);
+    }
+
+    @Override
+    public void performAction(Connection connection, OperationObserver observer) throws SQLException, Exception {
+
+        long t0 = System.nanoTime();
+        long t1 = System.currentTimeMillis();
+
+        BulkTranslator translator = createTranslator(connection);
+        PreparedStatement statement = translator.createStatement();
+        QueryMetadata metadata = query.getMetaData(dataNode.getEntityResolver());
+
+        int updated;
+        try {
+            beforeExecute(statement, metadata);
+            updated = statement.executeUpdate();
+        } finally {
+            afterExecute(statement, metadata);
+            try {
+                statement.close();
+            } catch (Exception e) {
+            }
+        }
+
+        JdbcEventLogger logger = dataNode.getJdbcEventLogger();
+        if (logger.isLoggable()) {
+            logger.logUpdateCount(updated);
+        }
+
+        observer.nextCount(query, updated);
+
+        MetricsRecorder recorder = dataNode.getMetricsRecorder();
+        if (recorder.isEnabled()) {
+            recorder.recordTime(MetricsRecorder.BATCH_TIME, translator.getRootDbEntity().getName(), query.getClass()
+                    .getSimpleName(), System.nanoTime() - t0);
+        }
+
+        long time = System.currentTimeMillis() - t1;
+        if (isSlowQuery(time)) {
+            reportSlowQuery(query, translator.createSqlString(), translator.getBindings(), updated, time, false);
+        }
+    }
+}
@@ -30,7 +30,8 @@ import org.apache.cayenne.ResultIterator;
  * A {@link ResultIterator} wrapper that handles closing a connection. Also
  * internally counts processed rows, mostly for the benefit of subclasses.
  * Subclasses are used in iterators that are returned to the end users and are
- * not implicitly managed by Cayenne.
+ * not implicitly managed by Cayenne. The iterator may be closed from a thread
+ * other than the one reading it, e.g. when the query is cancelled.
  * 
  * @since 4.0
  */
@@ -47,7 +48,7 @@ public class ConnectionAwareResultIterator<T> implements ResultIterator<T> {
     }
 
     @Override
-    public void close() {
+    public synchronized void close() {
 
         if (!closed) {
             doClose();
@@ -18,8 +18,14 @@
  ****************************************************************/
 package org.apache.cayenne.access.jdbc;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -38,17 +44,34 @@ import org.apache.cayenne.util.ResultIteratorIterator;
  * distinct rows. Distinct comparison is done by comparing ObjectIds created
  * from each row. Internally DistinctResultIterator wraps another ResultIterator
  * that provides the actual rows.
+ * <p>
+ * As the iterator may be used to stream large results, it only remembers
+ * compact keys of the rows it returned when comparing ObjectIds: a primitive
+ * long for a single integral PK and the PK value(s) for other PKs. For the full
+ * row comparison only a 128-bit hash of the contents of each row is remembered.
+ * A distinct row is dropped if its hash collides with the hash of a returned
+ * row, but with well mixed 128-bit hashes the probability of that is about
+ * n^2/2^129 for n rows, i.e. negligible for any realistic result size. Values
+ * of types not produced by JDBC are hashed with their hashCode(), so rows
+ * differing only in such values are as likely to collide as their hashCodes.
  * 
  * @since 3.0
  */
 public class DistinctResultIterator<T> implements ResultIterator<T> {
 
     protected ResultIterator<T> delegate;
-    protected Set<Map<String, Object>> fetchedIds;
+    private static final long SEED1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED2 = 0xC2B2AE3D27D4EB4FL;
+
     protected DataRow nextDataRow;
     protected DbEntity defaultEntity;
     protected boolean compareFullRows;
 
+    private String[] pkNames;
+    private LongHashSet fetchedLongIds;
+    private Set<Object> fetchedIds;
+    private RowHashSet fetchedRowHashes;
+
     /**
      * Creates new DistinctResultIterator wrapping another ResultIterator.
      * 
@@ -67,12 +90,33 @@ public class DistinctResultIterator<T> implements ResultIterator<T> {
 
         this.delegate = delegate;
         this.defaultEntity = defaultEntity;
-        this.fetchedIds = new HashSet<Map<String, Object>>();
         this.compareFullRows = compareFullRows;
 
+        if (compareFullRows) {
+            this.fetchedRowHashes = new RowHashSet();
+        } else {
+            Collection<DbAttribute> pks = defaultEntity.getPrimaryKeys();
+            this.pkNames = new String[pks.size()];
+
+            int i = 0;
+            for (DbAttribute pk : pks) {
+                pkNames[i++] = pk.getName();
+            }
+
+            if (pks.size() == 1 && isIntegral(pks.iterator().next().getType())) {
+                this.fetchedLongIds = new LongHashSet();
+            }
+
+            this.fetchedIds = new HashSet<Object>();
+        }
+
         checkNextRow();
     }
 
+    private static boolean isIntegral(int type) {
+        return type == Types.BIGINT || type == Types.INTEGER || type == Types.SMALLINT || type == Types.TINYINT;
+    }
+
     /**
      * @since 4.0
      */
@@ -147,7 +191,7 @@ public class DistinctResultIterator<T> implements ResultIterator<T> {
         while (delegate.hasNextRow()) {
             DataRow next = (DataRow) delegate.nextRow();
 
-            if (fetchedIds.add(next)) {
+            if (fetchedRowHashes.add(rowHash(next, SEED1), rowHash(next, SEED2))) {
                 this.nextDataRow = next;
                 break;
             }
@@ -160,20 +204,235 @@ public class DistinctResultIterator<T> implements ResultIterator<T> {
         while (delegate.hasNextRow()) {
             DataRow next = (DataRow) delegate.nextRow();
 
-            // create id map...
-            // TODO: this can be optimized by creating an array with id keys
-            // to avoid iterating over default entity attributes...
+            if (addId(next)) {
+                this.nextDataRow = next;
+                break;
+            }
+        }
+    }
+
+    private boolean addId(DataRow row) {
 
-            Map<String, Object> id = new HashMap<String, Object>();
-            for (final DbAttribute pk : defaultEntity.getPrimaryKeys()) {
-                id.put(pk.getName(), next.get(pk.getName()));
+        if (pkNames.length == 1) {
+            Object id = row.get(pkNames[0]);
+
+            if (fetchedLongIds != null
+                    && (id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte)) {
+                return fetchedLongIds.add(((Number) id).longValue());
             }
 
-            if (fetchedIds.add(id)) {
-                this.nextDataRow = next;
-                break;
+            return fetchedIds.add(id);
+        }
+
+        Object[] id = new Object[pkNames.length];
+        for (int i = 0; i < pkNames.length; i++) {
+            id[i] = row.get(pkNames[i]);
+        }
+
+        return fetchedIds.add(Arrays.asList(id));
+    }
+
+    /**
+     * An open addressing hash set of primitive longs.
+     */
+    static final class LongHashSet {
+
+        private long[] keys;
+        private boolean containsZero;
+        private int size;
+
+        LongHashSet() {
+            this.keys = new long[64];
+        }
+
+        boolean add(long key) {
+
+            // zero marks an empty slot, so it is tracked separately
+            if (key == 0) {
+                if (containsZero) {
+                    return false;
+                }
+
+                containsZero = true;
+                return true;
+            }
+
+            int mask = keys.length - 1;
+            int i = (int) mix(key) & mask;
+            while (keys[i] != 0) {
+                if (keys[i] == key) {
+                    return false;
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            keys[i] = key;
+
+            // keep the load factor under 1/2
+            if (++size * 2 > keys.length) {
+                rehash();
+            }
+
+            return true;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            keys = new long[oldKeys.length * 2];
+
+            int mask = keys.length - 1;
+            for (long key : oldKeys) {
+                if (key != 0) {
+                    int i = (int) mix(key) & mask;
+                    while (keys[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+
+                    keys[i] = key;
+                }
             }
         }
     }
 
+    /**
+     * Returns a 64-bit hash of the contents of a DataRow, that is independent
+     * of the order of the row entries. Two hashes calculated with different
+     * seeds make a 128-bit row hash.
+     */
+    static long rowHash(DataRow row, long seed) {
+        long h = row.size();
+
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            h += mix(hash(entry.getKey(), seed) * 31 + hash(entry.getValue(), seed));
+        }
+
+        return h;
+    }
+
+    private static long hash(Object value, long seed) {
+
+        if (value == null) {
+            return seed;
+        }
+
+        // values of different types are never equal
+        long h = seed ^ value.getClass().getName().hashCode();
+
+        if (value instanceof String) {
+            String string = (String) value;
+            for (int i = 0; i < string.length(); i++) {
+                h = (h ^ string.charAt(i)) * 0x100000001B3L;
+            }
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            h ^= ((Number) value).longValue();
+        } else if (value instanceof Double || value instanceof Float) {
+            h ^= Double.doubleToLongBits(((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            // BigDecimal string preserves the scale, that is a part of
+            // BigDecimal equality
+            return hash(value.toString(), h);
+        } else if (value instanceof Date) {
+            h ^= ((Date) value).getTime();
+            if (value instanceof Timestamp) {
+                h = mix(h) ^ ((Timestamp) value).getNanos();
+            }
+        } else if (value instanceof Boolean) {
+            h ^= ((Boolean) value) ? 1 : 2;
+        } else if (value instanceof byte[]) {
+            for (byte b : (byte[]) value) {
+                h = (h ^ b) * 0x100000001B3L;
+            }
+        } else if (value instanceof char[]) {
+            for (char c : (char[]) value) {
+                h = (h ^ c) * 0x100000001B3L;
+            }
+        } else {
+            h ^= value.hashCode();
+        }
+
+        return mix(h);
+    }
+
+    /**
+     * An open addressing hash set of 128-bit row hashes, each stored as a pair
+     * of primitive longs.
+     */
+    static final class RowHashSet {
+
+        private long[] keys;
+        private boolean containsZero;
+        private int size;
+
+        RowHashSet() {
+            this.keys = new long[128];
+        }
+
+        boolean add(long h1, long h2) {
+
+            // zero pair marks an empty slot, so it is tracked separately
+            if (h1 == 0 && h2 == 0) {
+                if (containsZero) {
+                    return false;
+                }
+
+                containsZero = true;
+                return true;
+            }
+
+            int mask = keys.length / 2 - 1;
+            int i = (int) h1 & mask;
+            while (keys[i * 2] != 0 || keys[i * 2 + 1] != 0) {
+                if (keys[i * 2] == h1 && keys[i * 2 + 1] == h2) {
+                    return false;
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            keys[i * 2] = h1;
+            keys[i * 2 + 1] = h2;
+
+            // keep the load factor under 1/2
+            if (++size * 4 > keys.length) {
+                rehash();
+            }
+
+            return true;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            keys = new long[oldKeys.length * 2];
+
+            int mask = keys.length / 2 - 1;
+            for (int j = 0; j < oldKeys.length; j += 2) {
+                long h1 = oldKeys[j];
+                long h2 = oldKeys[j + 1];
+
+                if (h1 != 0 || h2 != 0) {
+                    int i = (int) h1 & mask;
+                    while (keys[i * 2] != 0 || keys[i * 2 + 1] != 0) {
+                        i = (i + 1) & mask;
+                    }
+
+                    keys[i * 2] = h1;
+                    keys[i * 2 + 1] = h2;
+                }
+            }
+        }
+    }
+
+    /**
+     * A finalizer of MurmurHash3, that spreads the bits of the key.
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB93FE1A85EC9L;
+        key ^= key >>> 33;
+        return key;
+    }
 }
@@ -95,6 +95,9 @@ public class EJBQLAction extends BaseSQLAction {
             sqlQuery.setStatementFetchSize(md.getStatementFetchSize());
         }
 
+        sqlQuery.setQueryTimeout(md.getQueryTimeout());
+        sqlQuery.setCancelHandle(md.getCancelHandle());
+
         actionFactory.sqlAction(sqlQuery).performAction(connection, observer);
     }
 }
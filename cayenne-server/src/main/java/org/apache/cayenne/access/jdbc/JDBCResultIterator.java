@@ -29,6 +29,7 @@ import java.util.NoSuchElementException;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.ResultIterator;
+import org.apache.cayenne.access.jdbc.reader.BatchRowReader;
 import org.apache.cayenne.access.jdbc.reader.RowReader;
 import org.apache.cayenne.util.ResultIteratorIterator;
 
@@ -47,6 +48,10 @@ public class JDBCResultIterator<T> implements ResultIterator<T> {
 
     private RowReader<T> rowReader;
 
+    // read-ahead buffer used with BatchRowReader
+    private List<T> batch;
+    private int batchPosition;
+
     /**
      * Creates new JDBCResultIterator that reads from provided ResultSet.
      * 
@@ -58,6 +63,10 @@ public class JDBCResultIterator<T> implements ResultIterator<T> {
         this.resultSet = resultSet;
         this.rowReader = rowReader;
 
+        if (rowReader instanceof BatchRowReader) {
+            this.batch = new ArrayList<T>();
+        }
+
         checkNextRow();
     }
 
@@ -89,7 +98,7 @@ public class JDBCResultIterator<T> implements ResultIterator<T> {
      */
     @Override
     public boolean hasNextRow() {
-        return nextRow;
+        return nextRow || (batch != null && batchPosition < batch.size());
     }
 
     /**
@@ -101,11 +110,44 @@ public class JDBCResultIterator<T> implements ResultIterator<T> {
             throw new NoSuchElementException("An attempt to read uninitialized row or past the end of the iterator.");
         }
 
+        if (batch != null) {
+            return nextBatchRow();
+        }
+
         T row = rowReader.readRow(resultSet);
         checkNextRow();
         return row;
     }
 
+    private T nextBatchRow() {
+        if (batchPosition == batch.size()) {
+            readBatch();
+        }
+
+        // release the reference, the buffer is reused for the next batch
+        return batch.set(batchPosition++, null);
+    }
+
+    private void readBatch() {
+        batch.clear();
+        batchPosition = 0;
+
+        BatchRowReader<T> batchReader = (BatchRowReader<T>) rowReader;
+        int size = batchReader.batchSize();
+        while (nextRow && batch.size() < size) {
+            batch.add(rowReader.readRow(resultSet));
+            checkNextRow();
+        }
+
+        try {
+            batchReader.processRows(batch);
+        } catch (RuntimeException e) {
+            // never return the rows that were not processed
+            batch.clear();
+            throw e;
+        }
+    }
+
     /**
      * @since 3.0
      */
@@ -114,6 +156,12 @@ public class JDBCResultIterator<T> implements ResultIterator<T> {
         if (!hasNextRow()) {
             throw new NoSuchElementException("An attempt to read uninitialized row or past the end of the iterator.");
         }
+
+        if (batch != null && batchPosition < batch.size()) {
+            batch.set(batchPosition++, null);
+            return;
+        }
+
         checkNextRow();
     }
 
@@ -127,6 +175,11 @@ public class JDBCResultIterator<T> implements ResultIterator<T> {
         if (!closed) {
             nextRow = false;
 
+            if (batch != null) {
+                batch.clear();
+                batchPosition = 0;
+            }
+
             StringBuilder errors = new StringBuilder();
 
             try {
@@ -35,6 +35,7 @@ import org.apache.cayenne.access.types.ExtendedType;
 import org.apache.cayenne.map.Procedure;
 import org.apache.cayenne.map.ProcedureParameter;
 import org.apache.cayenne.query.ProcedureQuery;
+import org.apache.cayenne.query.QueryMetadata;
 
 /**
  * A SQLAction that runs a stored procedure. Note that ProcedureAction has internal state
@@ -69,9 +70,11 @@ public class ProcedureAction extends BaseSQLAction {
         ProcedureTranslator transl = createTranslator(connection);
 
         CallableStatement statement = (CallableStatement) transl.createStatement();
+        QueryMetadata metadata = query.getMetaData(dataNode.getEntityResolver());
 
         try {
             initStatement(statement);
+            beforeExecute(statement, metadata);
 
             // stored procedure may contain a mixture of update counts and result sets,
             // and out parameters. Read out parameters first, then
@@ -122,6 +125,7 @@ public class ProcedureAction extends BaseSQLAction {
             }
         }
         finally {
+            afterExecute(statement, metadata);
             try {
                 statement.close();
             }
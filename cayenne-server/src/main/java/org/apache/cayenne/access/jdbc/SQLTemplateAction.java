@@ -41,10 +41,12 @@ import org.apache.cayenne.access.jdbc.reader.RowReader;
 import org.apache.cayenne.access.types.ExtendedTypeMap;
 import org.apache.cayenne.dba.DbAdapter;
 import org.apache.cayenne.dba.TypesMapping;
+import org.apache.cayenne.log.SlowQueryDetector;
 import org.apache.cayenne.map.DbAttribute;
 import org.apache.cayenne.map.DbEntity;
 import org.apache.cayenne.map.ObjAttribute;
 import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.QueryCancelHandle;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.query.SQLAction;
 import org.apache.cayenne.query.SQLTemplate;
@@ -173,6 +175,7 @@ public class SQLTemplateAction implements SQLAction {
 		PreparedStatement statement = connection.prepareStatement(compiled.getSql());
 		try {
 			bind(statement, compiled.getBindings());
+			beforeExecute(statement);
 
 			// process a mix of results
 			boolean isResultSet = statement.execute();
@@ -214,17 +217,51 @@ public class SQLTemplateAction implements SQLAction {
 
 					updateCounts.add(Integer.valueOf(updateCount));
 					dataNode.getJdbcEventLogger().logUpdateCount(updateCount);
+					detectSlowQuery(compiled, updateCount, System.currentTimeMillis() - t1, false);
 				}
 			}
 		} finally {
 			if (!iteratedResult) {
+				afterExecute(statement);
 				statement.close();
 			}
 		}
 	}
 
+	/**
+	 * Applies the query timeout (or the DataNode default if the query has
+	 * none) to a statement and registers it with the query
+	 * {@link QueryCancelHandle}, if any.
+	 * 
+	 * @since 4.0
+	 */
+	protected void beforeExecute(Statement statement) throws SQLException {
+		int timeout = queryMetadata.getQueryTimeout() > 0 ? queryMetadata.getQueryTimeout() : dataNode
+				.getQueryTimeout();
+		if (timeout > 0) {
+			statement.setQueryTimeout(timeout);
+		}
+
+		QueryCancelHandle cancelHandle = queryMetadata.getCancelHandle();
+		if (cancelHandle != null) {
+			cancelHandle.register(statement);
+		}
+	}
+
+	/**
+	 * Unregisters a statement from the query {@link QueryCancelHandle}.
+	 * 
+	 * @since 4.0
+	 */
+	protected void afterExecute(Statement statement) {
+		QueryCancelHandle cancelHandle = queryMetadata.getCancelHandle();
+		if (cancelHandle != null) {
+			cancelHandle.unregister(statement);
+		}
+	}
+
 	@SuppressWarnings({ "unchecked", "rawtypes" })
-	protected void processSelectResult(SQLStatement compiled, Connection connection, Statement statement,
+	protected void processSelectResult(final SQLStatement compiled, Connection connection, final Statement statement,
 			ResultSet resultSet, OperationObserver callback, final long startTime) throws Exception {
 
 		boolean iteratedResult = callback.isIteratedResult();
@@ -242,10 +279,27 @@ public class SQLTemplateAction implements SQLAction {
 			it = new ConnectionAwareResultIterator(it, connection) {
 				@Override
 				protected void doClose() {
-					dataNode.getJdbcEventLogger().logSelectCount(rowCounter, System.currentTimeMillis() - startTime);
+					long time = System.currentTimeMillis() - startTime;
+					dataNode.getJdbcEventLogger().logSelectCount(rowCounter, time);
+					detectSlowQuery(compiled, rowCounter, time, true);
+
+					afterExecute(statement);
+					if (queryMetadata.getCancelHandle() != null) {
+						queryMetadata.getCancelHandle().unregister(this);
+					}
+
 					super.doClose();
 				}
 			};
+
+			if (queryMetadata.getCancelHandle() != null) {
+				try {
+					queryMetadata.getCancelHandle().register(it);
+				} catch (RuntimeException ex) {
+					it.close();
+					throw ex;
+				}
+			}
 		}
 
 		it = new LimitResultIterator(it, getFetchOffset(), query.getFetchLimit());
@@ -263,12 +317,27 @@ public class SQLTemplateAction implements SQLAction {
 			// maybe a cleaner flow is due here.
 			List<DataRow> resultRows = (List<DataRow>) it.allRows();
 
-			dataNode.getJdbcEventLogger().logSelectCount(resultRows.size(), System.currentTimeMillis() - startTime);
+			long time = System.currentTimeMillis() - startTime;
+			dataNode.getJdbcEventLogger().logSelectCount(resultRows.size(), time);
+			detectSlowQuery(compiled, resultRows.size(), time, true);
 
 			callback.nextRows(query, resultRows);
 		}
 	}
 
+	/**
+	 * Reports a statement to the DataNode {@link SlowQueryDetector} if it took
+	 * longer than the detector threshold.
+	 * 
+	 * @since 4.0
+	 */
+	protected void detectSlowQuery(SQLStatement compiled, int rowCount, long elapsedMillis, boolean select) {
+		SlowQueryDetector detector = dataNode.getSlowQueryDetector();
+		if (detector != null && detector.isSlow(elapsedMillis)) {
+			detector.report(dataNode, query, compiled.getSql(), compiled.getBindings(), rowCount, elapsedMillis, select);
+		}
+	}
+
 	/**
 	 * @since 3.0
 	 */
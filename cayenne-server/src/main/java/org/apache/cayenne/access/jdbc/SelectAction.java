@@ -31,6 +31,7 @@ import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.OperationObserver;
 import org.apache.cayenne.access.jdbc.reader.RowReader;
 import org.apache.cayenne.access.translator.select.SelectTranslator;
+import org.apache.cayenne.metrics.MetricsRecorder;
 import org.apache.cayenne.query.PrefetchProcessor;
 import org.apache.cayenne.query.PrefetchTreeNode;
 import org.apache.cayenne.query.QueryMetadata;
@@ -62,26 +63,30 @@ public class SelectAction extends BaseSQLAction {
     public void performAction(Connection connection, OperationObserver observer) throws SQLException, Exception {
 
         final long t1 = System.currentTimeMillis();
+        final long t0 = System.nanoTime();
 
         final SelectTranslator translator = createTranslator(connection);
-        PreparedStatement prepStmt = translator.createStatement();
+        final PreparedStatement prepStmt = translator.createStatement();
 
         // TODO: ugly... 'createSqlString' is already called inside
         // 'createStatement', but calling it here again to store for logging
         // purposes
         final String sqlString = translator.createSqlString();
 
+        final QueryMetadata md = query.getMetaData(dataNode.getEntityResolver());
+
         ResultSet rs;
 
         // need to run in try-catch block to close statement properly if
         // exception happens
         try {
+            beforeExecute(prepStmt, md);
             rs = prepStmt.executeQuery();
         } catch (Exception ex) {
+            afterExecute(prepStmt, md);
             prepStmt.close();
             throw ex;
         }
-        QueryMetadata md = query.getMetaData(dataNode.getEntityResolver());
         RowDescriptor descriptor = new RowDescriptorBuilder().setColumns(translator.getResultColumns()).getDescriptor(
                 dataNode.getAdapter().getExtendedTypes());
         
@@ -95,10 +100,30 @@ public class SelectAction extends BaseSQLAction {
             it = new ConnectionAwareResultIterator(it, connection) {
                 @Override
                 protected void doClose() {
-                    dataNode.getJdbcEventLogger().logSelectCount(rowCounter, System.currentTimeMillis() - t1, sqlString);
+                    long time = System.currentTimeMillis() - t1;
+                    dataNode.getJdbcEventLogger().logSelectCount(rowCounter, time, sqlString);
+                    recordQueryTime(translator, t0);
+                    if (isSlowQuery(time)) {
+                        reportSlowQuery(query, sqlString, translator.getBindings(), rowCounter, time, true);
+                    }
+
+                    afterExecute(prepStmt, md);
+                    if (md.getCancelHandle() != null) {
+                        md.getCancelHandle().unregister(this);
+                    }
+
                     super.doClose();
                 }
             };
+
+            if (md.getCancelHandle() != null) {
+                try {
+                    md.getCancelHandle().register(it);
+                } catch (RuntimeException ex) {
+                    it.close();
+                    throw ex;
+                }
+            }
         }
 
         // wrap result iterator if distinct has to be suppressed
@@ -180,12 +205,32 @@ public class SelectAction extends BaseSQLAction {
             try {
                 resultRows = it.allRows();
             } finally {
+                afterExecute(prepStmt, md);
                 it.close();
             }
 
-            dataNode.getJdbcEventLogger().logSelectCount(resultRows.size(), System.currentTimeMillis() - t1, sqlString);
+            long time = System.currentTimeMillis() - t1;
+            dataNode.getJdbcEventLogger().logSelectCount(resultRows.size(), time, sqlString);
+            recordQueryTime(translator, t0);
+            if (isSlowQuery(time)) {
+                reportSlowQuery(query, sqlString, translator.getBindings(), resultRows.size(), time, true);
+            }
 
             observer.nextRows(query, resultRows);
         }
     }
+
+    /**
+     * @since 4.0
+     */
+    protected void recordQueryTime(SelectTranslator translator, long startNanos) {
+        MetricsRecorder recorder = dataNode.getMetricsRecorder();
+        if (recorder.isEnabled()) {
+            QueryMetadata md = query.getMetaData(dataNode.getEntityResolver());
+            String entity = md.getObjEntity() != null ? md.getObjEntity().getName() : translator.getRootDbEntity()
+                    .getName();
+            recorder.recordTime(MetricsRecorder.QUERY_TIME, entity, query.getClass().getSimpleName(), System.nanoTime()
+                    - startNanos);
+        }
+    }
 }
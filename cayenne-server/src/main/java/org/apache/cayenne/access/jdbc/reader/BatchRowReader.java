@@ -0,0 +1,46 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.jdbc.reader;
+
+import java.util.List;
+
+/**
+ * An optional extension of {@link RowReader} for readers that can finish row
+ * processing more efficiently for several rows at once, e.g. by spreading the
+ * work across multiple threads. {@link org.apache.cayenne.access.jdbc.JDBCResultIterator}
+ * reads up to {@link #batchSize()} rows ahead and passes them to
+ * {@link #processRows(List)} before returning any of them to the caller.
+ * 
+ * @since 4.0
+ */
+public interface BatchRowReader<T> extends RowReader<T> {
+
+    /**
+     * Returns the maximum number of rows that should be read ahead and
+     * processed together.
+     */
+    int batchSize();
+
+    /**
+     * Completes processing of rows previously returned from
+     * {@link #readRow(java.sql.ResultSet)}. Implementations may modify the
+     * rows in place or replace the list elements.
+     */
+    void processRows(List<T> rows);
+}
@@ -24,6 +24,7 @@ import org.apache.cayenne.query.BatchQuery;
 import org.apache.cayenne.query.DeleteBatchQuery;
 import org.apache.cayenne.query.InsertBatchQuery;
 import org.apache.cayenne.query.UpdateBatchQuery;
+import org.apache.cayenne.query.UpsertBatchQuery;
 
 /**
  * Default implementation of {@link BatchTranslatorFactory}.
@@ -34,7 +35,9 @@ public class DefaultBatchTranslatorFactory implements BatchTranslatorFactory {
 
     @Override
     public BatchTranslator translator(BatchQuery query, DbAdapter adapter, String trimFunction) {
-        if (query instanceof InsertBatchQuery) {
+        if (query instanceof UpsertBatchQuery) {
+            return upsertTranslator((UpsertBatchQuery) query, adapter);
+        } else if (query instanceof InsertBatchQuery) {
             return insertTranslator((InsertBatchQuery) query, adapter);
         } else if (query instanceof UpdateBatchQuery) {
             return updateTranslator((UpdateBatchQuery) query, adapter, trimFunction);
@@ -57,4 +60,17 @@ public class DefaultBatchTranslatorFactory implements BatchTranslatorFactory {
         return new UpdateBatchTranslator(query, adapter, trimFunction);
     }
 
+    /**
+     * @since 4.0
+     */
+    protected BatchTranslator upsertTranslator(UpsertBatchQuery query, DbAdapter adapter) {
+        BatchTranslator translator = adapter.createUpsertTranslator(query);
+        if (translator == null) {
+            throw new CayenneRuntimeException("Adapter '%s' doesn't support upsert batches", adapter.unwrap()
+                    .getClass().getName());
+        }
+
+        return translator;
+    }
+
 }
@@ -0,0 +1,111 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.translator.batch;
+
+import java.util.List;
+
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.dba.QuotingStrategy;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.query.UpsertBatchQuery;
+
+/**
+ * Translates UpsertBatchQuery to a standard SQL MERGE statement:
+ * 
+ * <pre>
+ * MERGE INTO ARTIST T USING SYSIBM.SYSDUMMY1 ON (T.ARTIST_NAME = ?)
+ * WHEN MATCHED THEN UPDATE SET DATE_OF_BIRTH = ?
+ * WHEN NOT MATCHED THEN INSERT (ARTIST_ID, ARTIST_NAME, DATE_OF_BIRTH) VALUES (?, ?, ?)
+ * </pre>
+ * 
+ * The row values are bound directly in the ON, UPDATE and INSERT clauses, so
+ * that their types are inferred from the columns, while the source is a
+ * single row table specific to the database, such as "DUAL" on Oracle.
+ * 
+ * @since 4.0
+ */
+public class MergeBatchTranslator extends UpsertBatchTranslator {
+
+    protected static final String TARGET_ALIAS = "T";
+
+    protected String source;
+
+    public MergeBatchTranslator(UpsertBatchQuery query, DbAdapter adapter, String source) {
+        super(query, adapter);
+        this.source = source;
+    }
+
+    @Override
+    protected String createSql() {
+
+        DbEntity table = query.getDbEntity();
+        QuotingStrategy strategy = adapter.getQuotingStrategy();
+
+        StringBuilder buffer = new StringBuilder("MERGE INTO ");
+        appendTarget(buffer, table, strategy);
+        buffer.append(" USING ").append(source).append(" ON (");
+
+        List<DbAttribute> keys = getUpsertQuery().getKeyAttributes();
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) {
+                buffer.append(" AND ");
+            }
+
+            DbAttribute key = keys.get(i);
+            buffer.append(strategy.quotedIdentifier(table, TARGET_ALIAS, key.getName())).append(" = ");
+            appendParameter(buffer, key);
+        }
+
+        buffer.append(')');
+
+        List<DbAttribute> updated = getUpdatedAttributes();
+        if (!updated.isEmpty()) {
+            buffer.append(" WHEN MATCHED THEN UPDATE SET ");
+
+            for (int i = 0; i < updated.size(); i++) {
+                if (i > 0) {
+                    buffer.append(", ");
+                }
+
+                DbAttribute attribute = updated.get(i);
+                buffer.append(strategy.quotedName(attribute)).append(" = ");
+                appendParameter(buffer, attribute);
+            }
+        }
+
+        List<DbAttribute> inserted = getInsertedAttributes();
+        buffer.append(" WHEN NOT MATCHED THEN INSERT (");
+        appendColumns(buffer, inserted);
+        buffer.append(") VALUES (");
+        appendParameters(buffer, inserted);
+        buffer.append(')');
+
+        return buffer.toString();
+    }
+
+    /**
+     * Appends the target table of the MERGE with its alias. Subclasses may
+     * override it to add table hints.
+     */
+    protected void appendTarget(StringBuilder buffer, DbEntity table, QuotingStrategy strategy) {
+        buffer.append(strategy.quotedFullyQualifiedName(table)).append(' ');
+        buffer.append(strategy.quotedIdentifier(table, TARGET_ALIAS));
+    }
+}
@@ -0,0 +1,146 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.translator.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.query.BatchQueryRow;
+import org.apache.cayenne.query.UpsertBatchQuery;
+
+/**
+ * Superclass of the translators of UpsertBatchQueries. As some of the upsert
+ * statements reference the same value more than once, subclasses append
+ * parameters with {@link #appendParameter(StringBuilder, DbAttribute)}, which
+ * creates a binding for each parameter position.
+ * 
+ * @since 4.0
+ */
+public abstract class UpsertBatchTranslator extends DefaultBatchTranslator {
+
+    // indexes of the query attributes in the order of statement parameters
+    private List<Integer> parameterIndexes;
+
+    public UpsertBatchTranslator(UpsertBatchQuery query, DbAdapter adapter) {
+        // no trimming is needed here, so passing hardcoded NULL for trim
+        // function
+        super(query, adapter, null);
+    }
+
+    protected UpsertBatchQuery getUpsertQuery() {
+        return (UpsertBatchQuery) query;
+    }
+
+    @Override
+    protected void ensureTranslated() {
+        if (!translated) {
+            parameterIndexes = new ArrayList<Integer>();
+        }
+
+        super.ensureTranslated();
+    }
+
+    /**
+     * Returns the columns written when a row is inserted. Same as with
+     * InsertBatchQuery, generated columns are skipped, unless it is a PK and
+     * the adapter does not support generated keys. The keys are always
+     * written, as their values are needed to match the existing rows.
+     */
+    protected List<DbAttribute> getInsertedAttributes() {
+        List<DbAttribute> keys = getUpsertQuery().getKeyAttributes();
+        List<DbAttribute> inserted = new ArrayList<DbAttribute>();
+        for (DbAttribute attribute : query.getDbAttributes()) {
+            if (keys.contains(attribute) || !attribute.isGenerated()
+                    || (attribute.isPrimaryKey() && !adapter.supportsGeneratedKeys())) {
+                inserted.add(attribute);
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Returns the columns written when a matching row exists, i.e. the
+     * inserted columns except for the keys and the PK.
+     */
+    protected List<DbAttribute> getUpdatedAttributes() {
+        List<DbAttribute> updated = new ArrayList<DbAttribute>();
+        for (DbAttribute attribute : getInsertedAttributes()) {
+            if (!attribute.isPrimaryKey() && !getUpsertQuery().getKeyAttributes().contains(attribute)) {
+                updated.add(attribute);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Appends a comma-separated list of quoted column names.
+     */
+    protected void appendColumns(StringBuilder buffer, List<DbAttribute> attributes) {
+        for (int i = 0; i < attributes.size(); i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(adapter.getQuotingStrategy().quotedName(attributes.get(i)));
+        }
+    }
+
+    /**
+     * Appends a comma-separated list of parameters for the attributes.
+     */
+    protected void appendParameters(StringBuilder buffer, List<DbAttribute> attributes) {
+        for (int i = 0; i < attributes.size(); i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            appendParameter(buffer, attributes.get(i));
+        }
+    }
+
+    /**
+     * Appends a parameter that is bound to the value of the attribute.
+     */
+    protected void appendParameter(StringBuilder buffer, DbAttribute attribute) {
+        buffer.append('?');
+        parameterIndexes.add(query.getDbAttributes().indexOf(attribute));
+    }
+
+    @Override
+    protected BatchParameterBinding[] createBindings() {
+        List<DbAttribute> attributes = query.getDbAttributes();
+        int len = parameterIndexes.size();
+
+        BatchParameterBinding[] bindings = new BatchParameterBinding[len];
+        for (int i = 0; i < len; i++) {
+            bindings[i] = new BatchParameterBinding(attributes.get(parameterIndexes.get(i)));
+        }
+
+        return bindings;
+    }
+
+    @Override
+    protected BatchParameterBinding[] doUpdateBindings(BatchQueryRow row) {
+        for (int i = 0; i < bindings.length; i++) {
+            bindings[i].include(i + 1, row.getValue(parameterIndexes.get(i)));
+        }
+
+        return bindings;
+    }
+}
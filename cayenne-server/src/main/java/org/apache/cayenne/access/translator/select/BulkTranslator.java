@@ -0,0 +1,208 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.translator.select;
+
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.dba.QuotingStrategy;
+import org.apache.cayenne.exp.Property;
+import org.apache.cayenne.exp.parser.ASTDbPath;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.map.DbRelationship;
+import org.apache.cayenne.map.JoinType;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.BulkQuery;
+import org.apache.cayenne.query.BulkUpdateQuery;
+import org.apache.cayenne.query.SelectQuery;
+
+/**
+ * Translates a {@link BulkQuery} to an UPDATE or DELETE statement. The
+ * statement references the root table without an alias, so a qualifier that
+ * requires joins is applied via a subquery on the primary key, e.g.
+ * <code>DELETE FROM ARTIST WHERE ARTIST_ID IN (SELECT t0.ARTIST_ID FROM ARTIST t0 JOIN ...)</code>
+ * . This is only possible for the entities with a single column PK. Also note
+ * that some databases, such as MySQL, do not allow a subquery to reference the
+ * table being updated.
+ *
+ * @since 4.0
+ */
+public class BulkTranslator extends QueryAssembler {
+
+    protected DataNode dataNode;
+    boolean joining;
+
+    public BulkTranslator(BulkQuery query, DataNode dataNode, Connection connection) {
+        super(query, dataNode, connection);
+        this.dataNode = dataNode;
+    }
+
+    public BulkQuery getBulkQuery() {
+        return (BulkQuery) query;
+    }
+
+    @Override
+    public String createSqlString() throws Exception {
+        if (cachedSqlString != null) {
+            return cachedSqlString;
+        }
+
+        DbEntity table = getRootDbEntity();
+        QuotingStrategy strategy = adapter.getQuotingStrategy();
+
+        StringBuilder buffer = new StringBuilder();
+
+        if (query instanceof BulkUpdateQuery) {
+            buffer.append("UPDATE ").append(strategy.quotedFullyQualifiedName(table)).append(" SET ");
+            appendAssignments(buffer, ((BulkUpdateQuery<?>) query).getValues());
+        } else {
+            buffer.append("DELETE FROM ").append(strategy.quotedFullyQualifiedName(table));
+        }
+
+        // qualifier parameters follow the parameters of the SET clause
+        int qualifierParameters = parameterIndex;
+
+        joining = false;
+        StringBuilder qualifierBuffer = adapter.getQualifierTranslator(this).appendPart(new StringBuilder());
+
+        if (joining) {
+            // the qualifier can't be applied to the unaliased table, discard
+            // it and match the rows by PK instead
+            values.subList(qualifierParameters, values.size()).clear();
+            attributes.subList(qualifierParameters, attributes.size()).clear();
+            parameterIndex = qualifierParameters;
+
+            qualifierBuffer = new StringBuilder();
+            appendPkSubquery(qualifierBuffer);
+        }
+
+        if (qualifierBuffer.length() > 0) {
+            buffer.append(" WHERE ").append(qualifierBuffer);
+        }
+
+        cachedSqlString = buffer.toString();
+        return cachedSqlString;
+    }
+
+    protected void appendAssignments(StringBuilder buffer, Map<Property<?>, Object> assignments) {
+
+        if (assignments.isEmpty()) {
+            throw new CayenneRuntimeException("No values to update for entity '%s'", getRootDbEntity().getName());
+        }
+
+        QuotingStrategy strategy = adapter.getQuotingStrategy();
+
+        boolean first = true;
+        for (Map.Entry<Property<?>, Object> assignment : assignments.entrySet()) {
+            DbAttribute attribute = assignedColumn(assignment.getKey());
+
+            if (first) {
+                first = false;
+            } else {
+                buffer.append(", ");
+            }
+
+            buffer.append(strategy.quotedName(attribute)).append(" = ?");
+            addToParamList(attribute, assignment.getValue());
+        }
+    }
+
+    /**
+     * Resolves a column of the root table updated by the property.
+     */
+    protected DbAttribute assignedColumn(Property<?> property) {
+
+        DbEntity table = getRootDbEntity();
+        String name = property.getName();
+        DbAttribute attribute;
+
+        if (name.startsWith(ASTDbPath.DB_PREFIX)) {
+            attribute = table.getAttribute(name.substring(ASTDbPath.DB_PREFIX.length()));
+        } else {
+            ObjEntity entity = getRootEntity();
+            ObjAttribute objAttribute = entity != null ? entity.getAttribute(name) : null;
+            if (objAttribute == null) {
+                throw new CayenneRuntimeException("Can't update '%s', it is not an attribute of the query root", name);
+            }
+
+            if (objAttribute.isFlattened()) {
+                throw new CayenneRuntimeException("Can't update flattened attribute '%s' of entity '%s'", name,
+                        entity.getName());
+            }
+
+            attribute = objAttribute.getDbAttribute();
+        }
+
+        if (attribute == null) {
+            throw new CayenneRuntimeException("Column '%s' is not an attribute of table '%s'", name, table.getName());
+        }
+
+        return attribute;
+    }
+
+    /**
+     * Appends a PK match against a column query that applies the qualifier
+     * with all the joins it needs.
+     */
+    protected void appendPkSubquery(StringBuilder buffer) throws Exception {
+
+        DbEntity table = getRootDbEntity();
+        Collection<DbAttribute> pks = table.getPrimaryKeys();
+        if (pks.size() != 1) {
+            throw new CayenneRuntimeException(
+                    "Bulk query qualifier over relationships requires a single column PK, table '%s' has %s", table
+                            .getName(), pks.size());
+        }
+
+        DbAttribute pk = pks.iterator().next();
+
+        SelectQuery<Object> select = new SelectQuery<Object>(getRootEntity(), getBulkQuery().getQualifier());
+        select.setColumns(new Property<Object>(ASTDbPath.DB_PREFIX + pk.getName()));
+
+        SelectTranslator translator = new SelectTranslator(select, dataNode, connection);
+        String subquery = translator.createSqlString();
+
+        for (int i = 0; i < translator.values.size(); i++) {
+            addToParamList(translator.attributes.get(i), translator.values.get(i));
+        }
+
+        buffer.append(adapter.getQuotingStrategy().quotedIdentifier(table, pk.getName())).append(" IN (")
+                .append(subquery).append(')');
+    }
+
+    @Override
+    public void resetJoinStack() {
+        // noop - the root table is the only table of the statement
+    }
+
+    @Override
+    public String getCurrentAlias() {
+        return null;
+    }
+
+    @Override
+    public void dbRelationshipAdded(DbRelationship relationship, JoinType joinType, String joinSplitAlias) {
+        joining = true;
+    }
+}
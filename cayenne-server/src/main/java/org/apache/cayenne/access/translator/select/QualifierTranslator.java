@@ -36,10 +36,10 @@ import org.apache.cayenne.map.DbAttribute;
 import org.apache.cayenne.map.DbRelationship;
 import org.apache.cayenne.map.JoinType;
 import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.BulkQuery;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SelectQuery;
 import org.apache.cayenne.reflect.ClassDescriptor;
-import org.apache.commons.collections.IteratorUtils;
 import org.apache.commons.collections.Transformer;
 
 /**
@@ -51,6 +51,11 @@ public class QualifierTranslator extends QueryAssemblerHelper implements Travers
     protected boolean matchingObject;
     protected boolean caseInsensitive;
 
+    /**
+     * @since 4.0
+     */
+    protected boolean paddingLists;
+
     public QualifierTranslator(QueryAssembler queryAssembler) {
         super(queryAssembler);
 
@@ -72,6 +77,30 @@ public class QualifierTranslator extends QueryAssemblerHelper implements Travers
         this.caseInsensitive = caseInsensitive;
     }
 
+    /**
+     * Sets whether IN lists should be padded to a size from a small set of
+     * "buckets" by repeating the last value, so that the lists of different
+     * sizes produce the same SQL, and the statements can be reused from the
+     * driver or database statement cache.
+     * 
+     * @since 4.0
+     */
+    public void setPaddingLists(boolean paddingLists) {
+        this.paddingLists = paddingLists;
+    }
+
+    /**
+     * Translates an arbitrary qualifier, such as the HAVING qualifier of a
+     * SelectQuery, to SQL.
+     * 
+     * @since 4.0
+     */
+    public <T extends Appendable> T appendPart(T out, Expression qualifier) throws IOException {
+        this.out = out;
+        doAppendPart(qualifier);
+        return out;
+    }
+
     /**
      * Translates query qualifier to SQL WHERE clause. Qualifier is a method parameter.
      * 
@@ -87,7 +116,8 @@ public class QualifierTranslator extends QueryAssemblerHelper implements Travers
     protected Expression extractQualifier() {
         Query q = queryAssembler.getQuery();
 
-        Expression qualifier = ((SelectQuery<?>) q).getQualifier();
+        Expression qualifier = (q instanceof BulkQuery) ? ((BulkQuery) q).getQualifier() : ((SelectQuery<?>) q)
+                .getQualifier();
 
         // append Entity qualifiers, taking inheritance into account
         ObjEntity entity = getObjEntity();
@@ -459,6 +489,9 @@ public class QualifierTranslator extends QueryAssemblerHelper implements Travers
             else if (parentNode.getType() == Expression.DB_PATH) {
                 appendDbPath(parentNode);
             }
+            else if (parentNode.getType() == Expression.AGGREGATE) {
+                appendAggregate(parentNode);
+            }
             else if (parentNode.getType() == Expression.LIST) {
                 appendList(parentNode, paramsDbType(parentNode));
             }
@@ -485,38 +518,89 @@ public class QualifierTranslator extends QueryAssemblerHelper implements Travers
         if (node.getType() == Expression.DB_PATH)
             return false;
 
+        if (node.getType() == Expression.AGGREGATE)
+            return false;
+
         return true;
     }
 
-    private final void appendList(Expression listExpr, DbAttribute paramDesc)
-            throws IOException {
-        Iterator<?> it = null;
-        Object list = listExpr.getOperand(0);
-        if (list instanceof List) {
-            it = ((List<?>) list).iterator();
+    /**
+     * Appends the values of an IN list, padding the list if needed.
+     * 
+     * @since 4.0
+     */
+    protected void appendList(Expression listExpr, DbAttribute paramDesc) throws IOException {
+
+        Object[] values = listValues(listExpr);
+        if (values.length == 0) {
+            return;
         }
-        else if (list instanceof Object[]) {
-            it = IteratorUtils.arrayIterator((Object[]) list);
+
+        if (inliningList(values)) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.append(", ");
+                }
+                out.append(String.valueOf(values[i]));
+            }
+
+            return;
         }
-        else {
-            String className = (list != null) ? list.getClass().getName() : "<null>";
-            throw new IllegalArgumentException(
-                    "Unsupported type for the list expressions: " + className);
+
+        int size = values.length;
+        if (paddingLists && !matchingObject) {
+            size = Math.max(size, paddedListSize(size));
         }
 
-        // process first element outside the loop
-        // (unroll loop to avoid condition checking
-        if (it.hasNext())
-            appendLiteral(it.next(), paramDesc, listExpr);
-        else
-            return;
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            appendLiteral(values[Math.min(i, values.length - 1)], paramDesc, listExpr);
+        }
+    }
 
-        while (it.hasNext()) {
-            out.append(", ");
-            appendLiteral(it.next(), paramDesc, listExpr);
+    /**
+     * Returns the values of an IN list expression as an array.
+     * 
+     * @since 4.0
+     */
+    protected Object[] listValues(Expression listExpr) {
+        Object list = listExpr.getOperand(0);
+        if (list instanceof List) {
+            return ((List<?>) list).toArray();
+        } else if (list instanceof Object[]) {
+            return (Object[]) list;
+        } else {
+            String className = (list != null) ? list.getClass().getName() : "<null>";
+            throw new IllegalArgumentException("Unsupported type for the list expressions: " + className);
         }
     }
 
+    /**
+     * Returns the size of a padded IN list, which is the next power of two.
+     * Subclasses may override it to stay within the list size limits of the
+     * database.
+     * 
+     * @since 4.0
+     */
+    protected int paddedListSize(int size) {
+        int padded = Integer.highestOneBit(size);
+        return padded < size ? padded << 1 : padded;
+    }
+
+    /**
+     * Returns whether the values of an IN list should be appended to SQL as
+     * literals instead of statement parameters. Subclasses for databases with
+     * a low limit on the number of statement parameters may override it to
+     * inline long lists of numbers. This implementation returns false.
+     * 
+     * @since 4.0
+     */
+    protected boolean inliningList(Object[] values) {
+        return false;
+    }
+
     @Override
     protected void appendLiteral(Object val, DbAttribute attr, Expression parentExpression)
             throws IOException {
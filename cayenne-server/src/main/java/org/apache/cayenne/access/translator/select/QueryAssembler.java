@@ -26,7 +26,9 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.jdbc.ParameterBinding;
 import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.dba.TypesMapping;
 import org.apache.cayenne.log.JdbcEventLogger;
 import org.apache.cayenne.map.DbAttribute;
 import org.apache.cayenne.map.DbEntity;
@@ -172,13 +174,34 @@ public abstract class QueryAssembler {
         values.add(parameterIndex++, anObject);
     }
 
+    /**
+     * Returns PreparedStatement parameters collected during translation, in
+     * the order they are bound. Parameters that could not be matched to a
+     * DbAttribute are reported with {@link TypesMapping#NOT_DEFINED} JDBC
+     * type.
+     * 
+     * @since 4.0
+     */
+    public ParameterBinding[] getBindings() {
+        int len = values.size();
+        ParameterBinding[] bindings = new ParameterBinding[len];
+        for (int i = 0; i < len; i++) {
+            DbAttribute attr = attributes.get(i);
+            bindings[i] = attr != null ? new ParameterBinding(values.get(i), attr.getType(), attr.getScale())
+                    : new ParameterBinding(values.get(i), TypesMapping.NOT_DEFINED, -1);
+        }
+        return bindings;
+    }
+
     /**
      * Translates internal query into PreparedStatement.
      */
     public PreparedStatement createStatement() throws Exception {
         long t1 = System.currentTimeMillis();
         String sqlStr = createSqlString();
-        logger.logQuery(sqlStr, attributes, values, System.currentTimeMillis() - t1);
+        if (logger.isLoggable()) {
+            logger.logQuery(sqlStr, attributes, values, System.currentTimeMillis() - t1);
+        }
         PreparedStatement stmt = connection.prepareStatement(sqlStr);
         initStatement(stmt);
         return stmt;
@@ -30,6 +30,7 @@ import org.apache.cayenne.ObjectId;
 import org.apache.cayenne.Persistent;
 import org.apache.cayenne.dba.QuotingStrategy;
 import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.parser.ASTAggregate;
 import org.apache.cayenne.exp.parser.PatternMatchNode;
 import org.apache.cayenne.exp.parser.SimpleNode;
 import org.apache.cayenne.map.DbAttribute;
@@ -237,6 +238,28 @@ public abstract class QueryAssemblerHelper {
         }
     }
 
+    /**
+     * Appends an aggregate function call for the AGGREGATE expression, e.g.
+     * <code>COUNT(t1.ID)</code>. Joins needed by the aggregated path are added
+     * the same way as for the OBJ_PATH and DB_PATH expressions.
+     * 
+     * @since 4.0
+     */
+    protected void appendAggregate(Expression aggregateExp) throws IOException {
+        ASTAggregate aggregate = (ASTAggregate) aggregateExp;
+        Expression pathExp = aggregate.getPathExp();
+
+        out.append(aggregate.getFunction().name()).append('(');
+
+        if (pathExp.getType() == Expression.DB_PATH) {
+            appendDbPath(pathExp);
+        } else {
+            appendObjPath(pathExp);
+        }
+
+        out.append(')');
+    }
+
     protected void processColumn(DbAttribute dbAttr) throws IOException {
         processColumnWithQuoteSqlIdentifiers(dbAttr, null);
     }
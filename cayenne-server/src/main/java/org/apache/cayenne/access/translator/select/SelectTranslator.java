@@ -22,6 +22,7 @@ package org.apache.cayenne.access.translator.select;
 import java.sql.Connection;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -34,8 +35,11 @@ import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.jdbc.ColumnDescriptor;
 import org.apache.cayenne.dba.QuotingStrategy;
+import org.apache.cayenne.exp.AggregateFunction;
 import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.Property;
 import org.apache.cayenne.exp.parser.ASTDbPath;
+import org.apache.cayenne.exp.parser.ASTObjPath;
 import org.apache.cayenne.map.DataMap;
 import org.apache.cayenne.map.DbAttribute;
 import org.apache.cayenne.map.DbEntity;
@@ -81,12 +85,14 @@ public class SelectTranslator extends QueryAssembler {
     }
 
     JoinStack joinStack;
+    protected DataNode dataNode;
     
     /**
      * @since 4.0
      */
     public SelectTranslator(Query query, DataNode dataNode, Connection connection) {
         super(query, dataNode, connection);
+        this.dataNode = dataNode;
     }
 
     public JoinStack getJoinStack() {
@@ -131,9 +137,22 @@ public class SelectTranslator extends QueryAssembler {
         // build column list
         this.resultColumns = buildResultColumns();
 
+        // build GROUP BY columns that are not among the result columns
+        boolean grouping = isGrouping();
+        List<ColumnDescriptor> groupByColumns = grouping ? buildGroupByColumns() : Collections
+                .<ColumnDescriptor> emptyList();
+
         // build qualifier
-        QualifierTranslator qualifierTranslator = adapter.getQualifierTranslator(this);
-        StringBuilder qualifierBuffer = qualifierTranslator.appendPart(new StringBuilder());
+        StringBuilder qualifierBuffer = new StringBuilder();
+        if (!appendIdSubqueryQualifier(qualifierBuffer)) {
+            adapter.getQualifierTranslator(this).appendPart(qualifierBuffer);
+        }
+
+        // build HAVING, its parameters are bound after the qualifier ones
+        StringBuilder havingBuffer = new StringBuilder();
+        if (grouping && getSelectQuery().getHavingQualifier() != null) {
+            adapter.getQualifierTranslator(this).appendPart(havingBuffer, getSelectQuery().getHavingQualifier());
+        }
 
         // build ORDER BY
         OrderingTranslator orderingTranslator = new OrderingTranslator(this);
@@ -143,33 +162,71 @@ public class SelectTranslator extends QueryAssembler {
         StringBuilder queryBuf = new StringBuilder();
         queryBuf.append("SELECT ");
 
+        // column queries are not made distinct implicitly, as rows multiplied
+        // by to-many joins are a part of their result
+        boolean distinct = getSelectQuery().isDistinct()
+                || (forcingDistinct && !getSelectQuery().isSelectingColumns());
+
         // check if DISTINCT is appropriate
         // side effect: "suppressingDistinct" flag may end up being flipped here
-        if (forcingDistinct || getSelectQuery().isDistinct()) {
-            suppressingDistinct = false;
-
-            for (ColumnDescriptor column : resultColumns) {
-                if (isUnsupportedForDistinct(column.getJdbcType())) {
-                    suppressingDistinct = true;
-                    break;
+        suppressingDistinct = false;
+        if (distinct) {
+
+            // in-memory distinct filtering only works for DataRows, so column
+            // queries always rely on the database
+            if (!getSelectQuery().isSelectingColumns()) {
+                for (ColumnDescriptor column : resultColumns) {
+                    if (isUnsupportedForDistinct(column.getJdbcType())) {
+                        suppressingDistinct = true;
+                        break;
+                    }
                 }
             }
 
-            if (!suppressingDistinct) {
+            // rows of an object query are unique unless multiplied by to-many
+            // joins, so instead of filtering them in memory (and skipping the
+            // fetch offset in memory too), DISTINCT can be dropped altogether
+            if (suppressingDistinct && !forcingDistinct && getRootEntity() != null
+                    && !(getSelectQuery().getRoot() instanceof DbEntity)) {
+                suppressingDistinct = false;
+                distinct = false;
+            }
+
+            if (distinct && !suppressingDistinct) {
                 queryBuf.append("DISTINCT ");
             }
         }
 
-        // convert ColumnDescriptors to column names
+        // convert ColumnDescriptors to column names, wrapping aggregated
+        // columns in function calls and grouping by all the other columns
         List<String> selectColumnExpList = new ArrayList<String>();
-        for (ColumnDescriptor column : resultColumns) {
+        List<String> groupByColumnExpList = new ArrayList<String>();
+        for (int i = 0; i < resultColumns.size(); i++) {
+            ColumnDescriptor column = resultColumns.get(i);
             String fullName = strategy.quotedIdentifier(dataMap, column.getNamePrefix(), column.getName());
+
+            if (grouping) {
+                AggregateFunction aggregate = getSelectQuery().getColumns().get(i).getAggregate();
+                if (aggregate != null) {
+                    fullName = aggregate.name() + "(" + fullName + ")";
+                } else if (!groupByColumnExpList.contains(fullName)) {
+                    groupByColumnExpList.add(fullName);
+                }
+            }
+
             selectColumnExpList.add(fullName);
         }
 
+        for (ColumnDescriptor column : groupByColumns) {
+            String fullName = strategy.quotedIdentifier(dataMap, column.getNamePrefix(), column.getName());
+            if (!groupByColumnExpList.contains(fullName)) {
+                groupByColumnExpList.add(fullName);
+            }
+        }
+
         // append any column expressions used in the order by if this query
         // uses the DISTINCT modifier
-        if (forcingDistinct || getSelectQuery().isDistinct()) {
+        if (distinct) {
             List<String> orderByColumnList = orderingTranslator.getOrderByColumnList();
             for (String orderByColumnExp : orderByColumnList) {
                 // Convert to ColumnDescriptors??
@@ -199,6 +256,16 @@ public class SelectTranslator extends QueryAssembler {
             queryBuf.append(qualifierBuffer);
         }
 
+        if (!groupByColumnExpList.isEmpty()) {
+            queryBuf.append(" GROUP BY ");
+            appendSelectColumns(queryBuf, groupByColumnExpList);
+        }
+
+        if (havingBuffer.length() > 0) {
+            queryBuf.append(" HAVING ");
+            queryBuf.append(havingBuffer);
+        }
+
         // append prebuilt ordering
         if (orderingBuffer.length() > 0) {
             queryBuf.append(" ORDER BY ").append(orderingBuffer);
@@ -228,6 +295,82 @@ public class SelectTranslator extends QueryAssembler {
         }
     }
 
+    /**
+     * Appends a qualifier matching the root PK against a DISTINCT subquery that
+     * applies the query qualifier, if the qualifier has to-many joins, but the
+     * result columns can't be used with DISTINCT. This way the duplicate rows
+     * never leave the database, so there's no need for in-memory filtering,
+     * and the fetch limit and offset can be applied by the database. Returns
+     * false if the qualifier should be translated as usual.
+     * 
+     * @since 4.0
+     */
+    protected boolean appendIdSubqueryQualifier(StringBuilder buffer) throws Exception {
+
+        SelectQuery<?> query = getSelectQuery();
+        if (query.getQualifier() == null || query.isSelectingColumns() || query.getRoot() instanceof DbEntity
+                || getRootEntity() == null || forcingDistinct) {
+            return false;
+        }
+
+        // split aliases must be shared with the result columns
+        if (!queryMetadata.getPathSplitAliases().isEmpty()) {
+            return false;
+        }
+
+        boolean unsupportedColumns = false;
+        for (ColumnDescriptor column : resultColumns) {
+            if (isUnsupportedForDistinct(column.getJdbcType())) {
+                unsupportedColumns = true;
+                break;
+            }
+        }
+
+        if (!unsupportedColumns) {
+            return false;
+        }
+
+        Collection<DbAttribute> pks = getRootDbEntity().getPrimaryKeys();
+        if (pks.size() != 1) {
+            return false;
+        }
+
+        DbAttribute pk = pks.iterator().next();
+
+        SelectQuery<Object> ids = new SelectQuery<Object>(getRootEntity(), query.getQualifier());
+        ids.setColumns(new Property<Object>(ASTDbPath.DB_PREFIX + pk.getName()));
+        ids.setDistinct(true);
+
+        SelectTranslator translator = createSubqueryTranslator(ids);
+        String subquery = translator.createSqlString();
+
+        // without to-many joins the qualifier doesn't multiply the rows
+        if (!translator.forcingDistinct) {
+            return false;
+        }
+
+        for (int i = 0; i < translator.values.size(); i++) {
+            addToParamList(translator.attributes.get(i), translator.values.get(i));
+        }
+
+        buffer.append(
+                adapter.getQuotingStrategy().quotedIdentifier(queryMetadata.getDataMap(),
+                        getJoinStack().rootNode.getTargetTableAlias(), pk.getName())).append(" IN (")
+                .append(subquery).append(')');
+        return true;
+    }
+
+    /**
+     * Creates a translator for a subquery of this query. Subclasses that use
+     * their own join syntax should override it to return a translator of the
+     * same type.
+     * 
+     * @since 4.0
+     */
+    protected SelectTranslator createSubqueryTranslator(SelectQuery<?> query) {
+        return new SelectTranslator(query, dataNode, connection);
+    }
+
     /**
      * Handles appending optional limit and offset clauses. This implementation
      * does nothing, deferring to subclasses to define the LIMIT/OFFSET clause
@@ -295,7 +438,9 @@ public class SelectTranslator extends QueryAssembler {
         List<ColumnDescriptor> columns = new ArrayList<ColumnDescriptor>();
         SelectQuery<?> query = getSelectQuery();
 
-        if (query.getRoot() instanceof DbEntity) {
+        if (query.isSelectingColumns()) {
+            appendPropertyColumns(columns, query);
+        } else if (query.getRoot() instanceof DbEntity) {
             appendDbEntityColumns(columns, query);
         } else if (getQueryMetadata().getPageSize() > 0) {
             appendIdColumns(columns, query);
@@ -318,6 +463,140 @@ public class SelectTranslator extends QueryAssembler {
         return columns;
     }
 
+    /**
+     * Returns true if the query is a column query that has aggregate columns,
+     * GROUP BY properties or a HAVING qualifier.
+     */
+    private boolean isGrouping() {
+        SelectQuery<?> query = getSelectQuery();
+        return query.isSelectingColumns()
+                && (query.isAggregating() || !query.getGroupBy().isEmpty() || query.getHavingQualifier() != null);
+    }
+
+    /**
+     * Appends columns explicitly selected by the query, adding joins for the
+     * columns of related entities. Unlike the columns of object queries, the
+     * same column may be appended more than once, as each query column has its
+     * own position in the result.
+     * 
+     * @since 4.0
+     */
+    <T> List<ColumnDescriptor> appendPropertyColumns(List<ColumnDescriptor> columns, SelectQuery<T> query) {
+
+        for (Property<?> property : query.getColumns()) {
+            columns.add(propertyColumn(property));
+        }
+
+        resetJoinStack();
+        return columns;
+    }
+
+    /**
+     * Returns columns for the explicitly set GROUP BY properties of the query.
+     * 
+     * @since 4.0
+     */
+    List<ColumnDescriptor> buildGroupByColumns() {
+        List<ColumnDescriptor> columns = new ArrayList<ColumnDescriptor>();
+
+        for (Property<?> property : getSelectQuery().getGroupBy()) {
+            columns.add(propertyColumn(property));
+        }
+
+        resetJoinStack();
+        return columns;
+    }
+
+    /**
+     * Resolves a column for the property, adding joins for the columns of
+     * related entities. An aggregate property may point to a relationship, in
+     * which case it is applied to the target PK of a to-many relationship, or
+     * to the FK of a to-one relationship.
+     */
+    private ColumnDescriptor propertyColumn(Property<?> property) {
+
+        DbEntity table = getRootDbEntity();
+        ObjEntity oe = queryMetadata.getObjEntity();
+
+        String name = property.getName();
+        ObjAttribute objAttribute = null;
+        Expression dbPath;
+
+        if (name.startsWith(ASTDbPath.DB_PREFIX)) {
+            dbPath = new ASTDbPath(name.substring(ASTDbPath.DB_PREFIX.length()));
+        } else {
+            if (oe == null) {
+                throw new CayenneRuntimeException("Can't resolve column '%s', query root is not an ObjEntity", name);
+            }
+
+            Expression objPath = new ASTObjPath(name);
+            PathComponent<ObjAttribute, ObjRelationship> last = oe.lastPathComponent(objPath, getPathAliases());
+            objAttribute = last.getAttribute();
+            if (objAttribute == null && !(property.isAggregate() && last.getRelationship() != null)) {
+                throw new CayenneRuntimeException("Column '%s' is not an attribute of entity '%s'", name,
+                        oe.getName());
+            }
+
+            dbPath = oe.translateToDbPath(objPath);
+        }
+
+        resetJoinStack();
+
+        DbAttribute attribute = null;
+        for (PathComponent<DbAttribute, DbRelationship> component : table.resolvePath(dbPath, getPathAliases())) {
+            DbRelationship relationship = component.getRelationship();
+            if (relationship == null) {
+                attribute = component.getAttribute();
+            } else if (component.isLast() && property.isAggregate()) {
+                attribute = relationshipColumn(relationship, component.getJoinType());
+            } else {
+                dbRelationshipAdded(relationship, component.getJoinType(), null);
+            }
+        }
+
+        if (attribute == null) {
+            throw new CayenneRuntimeException("Column '%s' is not an attribute of entity '%s'", name, table.getName());
+        }
+
+        String alias = getCurrentAlias();
+        ColumnDescriptor column = (objAttribute != null) ? new ColumnDescriptor(objAttribute, attribute, alias)
+                : new ColumnDescriptor(attribute, alias);
+        column.setDataRowKey(name);
+
+        // SUM, MIN and MAX are read as values of the aggregated column
+        if (property.getAggregate() == AggregateFunction.COUNT) {
+            column.setJdbcType(Types.BIGINT);
+            column.setJavaClass(Long.class.getName());
+        } else if (property.getAggregate() == AggregateFunction.AVG) {
+            column.setJdbcType(Types.DOUBLE);
+            column.setJavaClass(Double.class.getName());
+        }
+
+        return column;
+    }
+
+    private DbAttribute relationshipColumn(DbRelationship relationship, JoinType joinType) {
+
+        if (relationship.getJoins().size() != 1) {
+            throw new CayenneRuntimeException("Can't aggregate relationship '%s' with %s joins",
+                    relationship.getName(), relationship.getJoins().size());
+        }
+
+        if (!relationship.isToMany()) {
+            return relationship.getJoins().get(0).getSource();
+        }
+
+        dbRelationshipAdded(relationship, joinType, null);
+
+        Collection<DbAttribute> pk = ((DbEntity) relationship.getTargetEntity()).getPrimaryKeys();
+        if (pk.size() != 1) {
+            throw new CayenneRuntimeException("Can't aggregate relationship '%s', its target has %s PK columns",
+                    relationship.getName(), pk.size());
+        }
+
+        return pk.iterator().next();
+    }
+
     /**
      * Appends columns needed for object SelectQuery to the provided columns
      * list.
@@ -328,7 +607,7 @@ public class SelectTranslator extends QueryAssembler {
 
         // fetched attributes include attributes that are either:
         //
-        // * class properties
+        // * class properties, except for the lazy ones
         // * PK
         // * FK used in relationship
         // * joined prefetch PK
@@ -341,6 +620,11 @@ public class SelectTranslator extends QueryAssembler {
             public boolean visitAttribute(AttributeProperty property) {
                 ObjAttribute oa = property.getAttribute();
 
+                // lazy attributes are fetched on access
+                if (oa.isLazy()) {
+                    return true;
+                }
+
                 resetJoinStack();
                 Iterator<CayenneMapEntry> dbPathIterator = oa.getDbPathIterator();
                 while (dbPathIterator.hasNext()) {
@@ -479,7 +763,16 @@ public class SelectTranslator extends QueryAssembler {
                 ObjEntity targetEntity = (ObjEntity) targetRel.getTargetEntity();
 
                 String labelPrefix = dbPrefetch.getPath();
+                Set<DbAttribute> lazyColumns = new HashSet<DbAttribute>();
                 for (ObjAttribute oa : targetEntity.getAttributes()) {
+
+                    if (oa.isLazy()) {
+                        if (!oa.isFlattened()) {
+                            lazyColumns.add(oa.getDbAttribute());
+                        }
+                        continue;
+                    }
+
                     Iterator<CayenneMapEntry> dbPathIterator = oa.getDbPathIterator();
                     while (dbPathIterator.hasNext()) {
                         Object pathPart = dbPathIterator.next();
@@ -500,6 +793,10 @@ public class SelectTranslator extends QueryAssembler {
                 // append remaining target attributes such as keys
                 DbEntity targetDbEntity = (DbEntity) r.getTargetEntity();
                 for (DbAttribute attribute : targetDbEntity.getAttributes()) {
+                    if (lazyColumns.contains(attribute) && !attribute.isPrimaryKey() && !attribute.isForeignKey()) {
+                        continue;
+                    }
+
                     appendColumn(columns, null, attribute, attributes, labelPrefix + '.' + attribute.getName());
                 }
             }
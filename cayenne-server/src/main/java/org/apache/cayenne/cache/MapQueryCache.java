@@ -24,6 +24,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.metrics.MetricsRecorder;
+import org.apache.cayenne.metrics.NoopMetricsRecorder;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.commons.collections.map.LRUMap;
 
@@ -39,12 +41,36 @@ public class MapQueryCache implements QueryCache, Serializable {
 
     protected Map<String, CacheEntry> map;
 
+    /**
+     * @since 4.0
+     */
+    protected transient MetricsRecorder metricsRecorder;
+
     public MapQueryCache() {
         this(DEFAULT_CACHE_SIZE);
     }
 
     public MapQueryCache(int maxSize) {
         this.map = new LRUMap(maxSize);
+        this.metricsRecorder = NoopMetricsRecorder.getInstance();
+    }
+
+    /**
+     * Returns a recorder of cache hits, misses and evictions.
+     * 
+     * @since 4.0
+     */
+    public MetricsRecorder getMetricsRecorder() {
+        return metricsRecorder != null ? metricsRecorder : NoopMetricsRecorder.getInstance();
+    }
+
+    /**
+     * Sets a recorder of cache hits, misses and evictions.
+     * 
+     * @since 4.0
+     */
+    public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+        this.metricsRecorder = metricsRecorder;
     }
 
     @SuppressWarnings("rawtypes")
@@ -59,6 +85,13 @@ public class MapQueryCache implements QueryCache, Serializable {
             entry = map.get(key);
         }
 
+        MetricsRecorder recorder = getMetricsRecorder();
+        if (recorder.isEnabled()) {
+            recorder.incrementCounter(entry != null
+                    ? MetricsRecorder.QUERY_CACHE_HIT
+                    : MetricsRecorder.QUERY_CACHE_MISS, entityName(metadata), null);
+        }
+
         return (entry != null) ? entry.list : null;
     }
 
@@ -102,12 +135,25 @@ public class MapQueryCache implements QueryCache, Serializable {
             entry.list = results;
             entry.cacheGroups = metadata.getCacheGroups();
 
+            boolean evicting;
             synchronized (this) {
+                evicting = map instanceof LRUMap && ((LRUMap) map).isFull() && !map.containsKey(key);
                 map.put(key, entry);
             }
+
+            if (evicting) {
+                MetricsRecorder recorder = getMetricsRecorder();
+                if (recorder.isEnabled()) {
+                    recorder.incrementCounter(MetricsRecorder.QUERY_CACHE_EVICTION, entityName(metadata), null);
+                }
+            }
         }
     }
 
+    private static String entityName(QueryMetadata metadata) {
+        return metadata.getObjEntity() != null ? metadata.getObjEntity().getName() : null;
+    }
+
     public void remove(String key) {
         if (key != null) {
             synchronized (this) {
@@ -23,6 +23,7 @@ import org.apache.cayenne.configuration.Constants;
 import org.apache.cayenne.configuration.RuntimeProperties;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.di.Provider;
+import org.apache.cayenne.metrics.MetricsRecorder;
 
 /**
  * @since 3.1
@@ -31,6 +32,12 @@ public class MapQueryCacheProvider implements Provider<QueryCache> {
 
     protected RuntimeProperties properties;
 
+    /**
+     * @since 4.0
+     */
+    @Inject
+    protected MetricsRecorder metricsRecorder;
+
     public MapQueryCacheProvider(@Inject RuntimeProperties properties) {
         this.properties = properties;
     }
@@ -40,6 +47,8 @@ public class MapQueryCacheProvider implements Provider<QueryCache> {
         int size = properties.getInt(
                 Constants.QUERY_CACHE_SIZE_PROPERTY,
                 MapQueryCache.DEFAULT_CACHE_SIZE);
-        return new MapQueryCache(size);
+        MapQueryCache cache = new MapQueryCache(size);
+        cache.setMetricsRecorder(metricsRecorder);
+        return cache;
     }
 }
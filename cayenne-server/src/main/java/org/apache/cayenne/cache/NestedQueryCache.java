@@ -28,6 +28,7 @@ import org.apache.cayenne.map.Procedure;
 import org.apache.cayenne.query.PrefetchTreeNode;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryCancelHandle;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.reflect.ClassDescriptor;
 
@@ -204,5 +205,13 @@ public class NestedQueryCache implements QueryCache {
         public int getStatementFetchSize() {
             return mdDelegate.getStatementFetchSize();
         }
+
+        public int getQueryTimeout() {
+            return mdDelegate.getQueryTimeout();
+        }
+
+        public QueryCancelHandle getCancelHandle() {
+            return mdDelegate.getCancelHandle();
+        }
     }
 }
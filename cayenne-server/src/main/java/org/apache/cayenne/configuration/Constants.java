@@ -173,4 +173,103 @@ public interface Constants {
      * */
     public final static String QUERY_EXECUTION_TIME_LOGGING_THRESHOLD_PROPERTY = "cayenne.server.query_execution_time_logging_threshold";
 
+    /**
+     * An integer property defining the number of threads used to flush commits
+     * that span multiple DataNodes in parallel. A value less than or equal to
+     * zero (the default) disables parallel flush, and changes are sent to the
+     * nodes one after another.
+     * 
+     * @since 4.0
+     */
+    public final static String SERVER_PARALLEL_FLUSH_THREADS_PROPERTY = "cayenne.server.parallel_flush_threads";
+
+    /**
+     * A long property defining a time in milliseconds after a commit during
+     * which the committing context reads from the primary DataNodes instead of
+     * read replicas. A value less than or equal to zero (the default) disables
+     * this feature.
+     * 
+     * @since 4.0
+     */
+    public final static String SERVER_REPLICA_STICKINESS_PROPERTY = "cayenne.server.replica_stickiness";
+
+    /**
+     * A long property defining the minimum time in milliseconds a statement
+     * must run to be recorded by the slow query detector. A value less than or
+     * equal to zero (the default) disables the detector.
+     * 
+     * @since 4.0
+     */
+    public final static String SERVER_SLOW_QUERY_THRESHOLD_PROPERTY = "cayenne.server.slow_query.threshold";
+
+    /**
+     * An integer property defining how many most recent slow queries are kept
+     * by the slow query detector. Defaults to 100.
+     * 
+     * @since 4.0
+     */
+    public final static String SERVER_SLOW_QUERY_BUFFER_SIZE_PROPERTY = "cayenne.server.slow_query.buffer_size";
+
+    /**
+     * A boolean property that makes the slow query detector capture an
+     * execution plan of slow selects, provided the DbAdapter supports it.
+     * Plans are obtained asynchronously on a separate connection. Default is
+     * false.
+     * 
+     * @since 4.0
+     */
+    public final static String SERVER_SLOW_QUERY_EXPLAIN_PROPERTY = "cayenne.server.slow_query.explain";
+
+    /**
+     * An integer property defining the capacity of the queue used by
+     * {@link org.apache.cayenne.log.AsyncJdbcEventLogger} to pass log records
+     * to the background thread. When the queue is full, new records are
+     * dropped. Defaults to 10000.
+     * 
+     * @since 4.0
+     */
+    public final static String SERVER_JDBC_LOGGER_QUEUE_SIZE_PROPERTY = "cayenne.server.jdbc_logger.queue_size";
+
+    /**
+     * An integer property defining the number of threads used to run
+     * asynchronous ObjectContext operations, such as
+     * {@link org.apache.cayenne.ObjectContext#selectAsync(org.apache.cayenne.query.Select)}.
+     * A value less than or equal to zero makes such operations run
+     * synchronously on the calling thread. Defaults to the number of available
+     * processors.
+     *
+     * @since 4.0
+     */
+    public final static String SERVER_ASYNC_THREADS_PROPERTY = "cayenne.server.async.threads";
+
+    /**
+     * An integer property defining how many asynchronous ObjectContext
+     * operations may wait for a free thread. Once the queue is full, new
+     * operations are executed on the calling thread. Defaults to 1000.
+     *
+     * @since 4.0
+     */
+    public final static String SERVER_ASYNC_QUEUE_SIZE_PROPERTY = "cayenne.server.async.queue_size";
+
+    /**
+     * A boolean property that enables padding of IN lists in the generated
+     * SQL to a power of two by repeating the last value. This keeps the number
+     * of distinct SQL strings low for queries with lists of varying size, so
+     * that the prepared statements can be cached. Defaults to false.
+     *
+     * @since 4.0
+     */
+    public final static String SERVER_IN_LIST_PADDING_PROPERTY = "cayenne.server.in_list_padding";
+
+    /**
+     * An integer property defining the default number of seconds a statement
+     * is allowed to run before it is cancelled by the JDBC driver. Applies to
+     * all statements executed by DataNodes, except for the queries that define
+     * their own timeout. A value less than or equal to zero (the default)
+     * means no timeout.
+     *
+     * @since 4.0
+     */
+    public final static String SERVER_QUERY_TIMEOUT_PROPERTY = "cayenne.server.query_timeout";
+
 }
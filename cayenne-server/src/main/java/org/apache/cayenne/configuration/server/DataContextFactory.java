@@ -20,6 +20,7 @@ package org.apache.cayenne.configuration.server;
 
 import org.apache.cayenne.DataChannel;
 import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectContextExecutor;
 import org.apache.cayenne.access.DataContext;
 import org.apache.cayenne.access.DataDomain;
 import org.apache.cayenne.access.DataRowStore;
@@ -56,6 +57,9 @@ public class DataContextFactory implements ObjectContextFactory {
     @Inject
     protected TransactionFactory transactionFactory;
 
+    @Inject
+    protected ObjectContextExecutor asyncExecutor;
+
     @Override
     public ObjectContext createContext() {
         return createdFromDataDomain(dataDomain);
@@ -81,10 +85,7 @@ public class DataContextFactory implements ObjectContextFactory {
         // for new dataRowStores use the same name for all stores
         // it makes it easier to track the event subject
         DataRowStore snapshotCache = (dataDomain.isSharedCacheEnabled()) ? dataDomain
-                .getSharedSnapshotCache() : new DataRowStore(
-                dataDomain.getName(),
-                dataDomain.getProperties(),
-                eventManager);
+                .getSharedSnapshotCache() : createLocalSnapshotCache(dataDomain);
 
         DataContext context = newInstance(
                 parent, objectStoreFactory.createObjectStore(snapshotCache));
@@ -93,6 +94,21 @@ public class DataContextFactory implements ObjectContextFactory {
         return context;
     }
 
+    /**
+     * Creates a snapshot cache for a context when the shared snapshot cache is
+     * disabled.
+     * 
+     * @since 4.0
+     */
+    protected DataRowStore createLocalSnapshotCache(DataDomain domain) {
+        DataRowStore snapshotCache = new DataRowStore(
+                domain.getName(),
+                domain.getProperties(),
+                eventManager);
+        snapshotCache.setMetricsRecorder(domain.getMetricsRecorder());
+        return snapshotCache;
+    }
+
     protected ObjectContext createFromDataContext(DataContext parent) {
         // child ObjectStore should not have direct access to snapshot cache, so do not
         // pass it in constructor.
@@ -112,8 +128,7 @@ public class DataContextFactory implements ObjectContextFactory {
         // for new dataRowStores use the same name for all stores
         // it makes it easier to track the event subject
         DataRowStore snapshotCache = (parent.isSharedCacheEnabled()) ? parent
-                .getSharedSnapshotCache() : new DataRowStore(parent.getName(), parent
-                .getProperties(), eventManager);
+                .getSharedSnapshotCache() : createLocalSnapshotCache(parent);
 
         DataContext context = newInstance(
                 parent, objectStoreFactory.createObjectStore(snapshotCache));
@@ -124,6 +139,8 @@ public class DataContextFactory implements ObjectContextFactory {
     }
     
     protected DataContext newInstance(DataChannel parent, ObjectStore objectStore) {
-        return new DataContext(parent, objectStore);
+        DataContext context = new DataContext(parent, objectStore);
+        context.setAsyncExecutor(asyncExecutor);
+        return context;
     }
 }
@@ -20,6 +20,10 @@ package org.apache.cayenne.configuration.server;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.cayenne.ConfigurationException;
 import org.apache.cayenne.DataChannel;
@@ -41,6 +45,7 @@ import org.apache.cayenne.di.Provider;
 import org.apache.cayenne.event.EventManager;
 import org.apache.cayenne.map.DataMap;
 import org.apache.cayenne.map.EntitySorter;
+import org.apache.cayenne.metrics.MetricsRecorder;
 import org.apache.cayenne.resource.Resource;
 import org.apache.cayenne.resource.ResourceLocator;
 import org.apache.commons.logging.Log;
@@ -122,10 +127,12 @@ public class DataDomainProvider implements Provider<DataDomain> {
         DataDomain dataDomain = createDataDomain(descriptor.getName());
 
         dataDomain.setMaxIdQualifierSize(runtimeProperties.getInt(Constants.SERVER_MAX_ID_QUALIFIER_SIZE_PROPERTY, -1));
+        dataDomain.setReplicaStickiness(runtimeProperties.getLong(Constants.SERVER_REPLICA_STICKINESS_PROPERTY, 0));
 
         dataDomain.setQueryCache(new NestedQueryCache(queryCache));
         dataDomain.setEntitySorter(injector.getInstance(EntitySorter.class));
         dataDomain.setEventManager(injector.getInstance(EventManager.class));
+        dataDomain.setMetricsRecorder(injector.getInstance(MetricsRecorder.class));
 
         dataDomain.initWithProperties(descriptor.getProperties());
 
@@ -164,9 +171,35 @@ public class DataDomainProvider implements Provider<DataDomain> {
             dataDomain.addFilter(filter);
         }
 
+        int flushThreads = runtimeProperties.getInt(Constants.SERVER_PARALLEL_FLUSH_THREADS_PROPERTY, 0);
+        if (flushThreads > 0 && dataDomain.getDataNodes().size() > 1) {
+            logger.info("enabling parallel flush with " + flushThreads + " thread(s)");
+            dataDomain.setFlushExecutor(createFlushExecutor(dataDomain, flushThreads));
+        }
+
         return dataDomain;
     }
 
+    /**
+     * Creates an executor for parallel flush of changes to multiple DataNodes.
+     * 
+     * @since 4.0
+     */
+    protected ExecutorService createFlushExecutor(final DataDomain dataDomain, int threads) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "cayenne-flush-" + dataDomain.getName() + "-"
+                        + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
     /**
      * @since 4.0
      */
@@ -25,10 +25,14 @@ import org.apache.cayenne.access.dbsync.SchemaUpdateStrategy;
 import org.apache.cayenne.access.jdbc.SQLTemplateProcessor;
 import org.apache.cayenne.access.jdbc.reader.RowReaderFactory;
 import org.apache.cayenne.access.translator.batch.BatchTranslatorFactory;
+import org.apache.cayenne.configuration.Constants;
 import org.apache.cayenne.configuration.DataNodeDescriptor;
+import org.apache.cayenne.configuration.RuntimeProperties;
 import org.apache.cayenne.di.AdhocObjectFactory;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.log.JdbcEventLogger;
+import org.apache.cayenne.log.SlowQueryDetector;
+import org.apache.cayenne.metrics.MetricsRecorder;
 
 /**
  * @since 4.0
@@ -38,6 +42,12 @@ public class DefaultDataNodeFactory implements DataNodeFactory {
     @Inject
     protected JdbcEventLogger jdbcEventLogger;
 
+    @Inject
+    protected MetricsRecorder metricsRecorder;
+
+    @Inject
+    protected SlowQueryDetector slowQueryDetector;
+
     @Inject
     protected RowReaderFactory rowReaderFactory;
 
@@ -59,12 +69,18 @@ public class DefaultDataNodeFactory implements DataNodeFactory {
     @Inject
     protected SQLTemplateProcessor sqlTemplateProcessor;
 
+    @Inject
+    protected RuntimeProperties runtimeProperties;
+
     @Override
     public DataNode createDataNode(DataNodeDescriptor nodeDescriptor) throws Exception {
 
         DataNode dataNode = new DataNode(nodeDescriptor.getName());
 
         dataNode.setJdbcEventLogger(jdbcEventLogger);
+        dataNode.setMetricsRecorder(metricsRecorder);
+        dataNode.setSlowQueryDetector(slowQueryDetector);
+        dataNode.setQueryTimeout(runtimeProperties.getInt(Constants.SERVER_QUERY_TIMEOUT_PROPERTY, 0));
         dataNode.setRowReaderFactory(rowReaderFactory);
         dataNode.setBatchTranslatorFactory(batchTranslatorFactory);
         dataNode.setSqlTemplateProcessor(sqlTemplateProcessor);
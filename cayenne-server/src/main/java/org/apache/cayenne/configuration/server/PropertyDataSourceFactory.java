@@ -32,6 +32,7 @@ import org.apache.cayenne.conn.PoolManager;
 import org.apache.cayenne.di.AdhocObjectFactory;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.log.JdbcEventLogger;
+import org.apache.cayenne.metrics.MetricsRecorder;
 
 /**
  * A DataSourceFactrory that creates a DataSource based on system properties.
@@ -58,6 +59,9 @@ public class PropertyDataSourceFactory implements DataSourceFactory {
     @Inject
     protected JdbcEventLogger jdbcEventLogger;
 
+    @Inject
+    protected MetricsRecorder metricsRecorder;
+
     @Inject
     private AdhocObjectFactory objectFactory;
 
@@ -79,8 +83,10 @@ public class PropertyDataSourceFactory implements DataSourceFactory {
         PoolDataSource poolDS = new PoolDataSource(driverDS);
 
         try {
-            return new PoolManager(poolDS, minConnections, maxConnections, username, password, properties.getLong(
-                    Constants.SERVER_MAX_QUEUE_WAIT_TIME, PoolManager.MAX_QUEUE_WAIT_DEFAULT));
+            PoolManager pool = new PoolManager(poolDS, minConnections, maxConnections, username, password,
+                    properties.getLong(Constants.SERVER_MAX_QUEUE_WAIT_TIME, PoolManager.MAX_QUEUE_WAIT_DEFAULT));
+            pool.setMetricsRecorder(metricsRecorder);
+            return pool;
         } catch (Exception e) {
             jdbcEventLogger.logConnectFailure(e);
             throw e;
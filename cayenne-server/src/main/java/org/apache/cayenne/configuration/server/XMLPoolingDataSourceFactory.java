@@ -33,6 +33,7 @@ import org.apache.cayenne.conn.PoolManager;
 import org.apache.cayenne.di.AdhocObjectFactory;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.log.JdbcEventLogger;
+import org.apache.cayenne.metrics.MetricsRecorder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -52,6 +53,9 @@ public class XMLPoolingDataSourceFactory implements DataSourceFactory {
     @Inject
     protected JdbcEventLogger jdbcEventLogger;
 
+    @Inject
+    protected MetricsRecorder metricsRecorder;
+
     @Inject
     private RuntimeProperties properties;
 
@@ -76,10 +80,12 @@ public class XMLPoolingDataSourceFactory implements DataSourceFactory {
         PoolDataSource poolDS = new PoolDataSource(driverDS);
 
         try {
-            return new PoolManager(poolDS, dataSourceDescriptor.getMinConnections(),
+            PoolManager pool = new PoolManager(poolDS, dataSourceDescriptor.getMinConnections(),
                     dataSourceDescriptor.getMaxConnections(), dataSourceDescriptor.getUserName(),
                     dataSourceDescriptor.getPassword(), properties.getLong(Constants.SERVER_MAX_QUEUE_WAIT_TIME,
                             PoolManager.MAX_QUEUE_WAIT_DEFAULT));
+            pool.setMetricsRecorder(metricsRecorder);
+            return pool;
         } catch (Exception e) {
             jdbcEventLogger.logConnectFailure(e);
             throw e;
@@ -26,6 +26,9 @@ import java.sql.SQLFeatureNotSupportedException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import javax.sql.ConnectionEvent;
@@ -37,9 +40,16 @@ import javax.sql.PooledConnection;
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.di.ScopeEventListener;
 import org.apache.cayenne.log.JdbcEventLogger;
+import org.apache.cayenne.metrics.MetricsRecorder;
+import org.apache.cayenne.metrics.NoopMetricsRecorder;
 
 /**
  * PoolManager is a Cayenne implementation of a pooling DataSource.
+ * <p>
+ * Since 4.0 the pool state is guarded by a {@link ReentrantLock} instead of
+ * the PoolManager monitor, and new physical connections are opened outside of
+ * the lock, so threads waiting for a connection are not blocked behind a slow
+ * database login.
  */
 public class PoolManager implements ScopeEventListener, DataSource,
         ConnectionEventListener {
@@ -76,8 +86,16 @@ public class PoolManager implements ScopeEventListener, DataSource,
 
     private PoolMaintenanceThread poolMaintenanceThread;
 
-    private boolean shuttingDown;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionAvailable = lock.newCondition();
+
+    // number of connections being checked out outside of the lock, that are
+    // neither in the used nor in the unused pool
+    private int pendingConnections;
+
+    private volatile boolean shuttingDown;
     private long maxQueueWaitTime;
+    private MetricsRecorder metricsRecorder = NoopMetricsRecorder.getInstance();
     
     /**
      * Creates new PoolManager using org.apache.cayenne.conn.PoolDataSource for an
@@ -195,10 +213,15 @@ public class PoolManager implements ScopeEventListener, DataSource,
         startMaintenanceThread();
     }
 
-    protected synchronized void startMaintenanceThread() {
-        disposeOfMaintenanceThread();
-        this.poolMaintenanceThread = new PoolMaintenanceThread(this);
-        this.poolMaintenanceThread.start();
+    protected void startMaintenanceThread() {
+        lock.lock();
+        try {
+            disposeOfMaintenanceThread();
+            this.poolMaintenanceThread = new PoolMaintenanceThread(this);
+            this.poolMaintenanceThread.start();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -219,7 +242,17 @@ public class PoolManager implements ScopeEventListener, DataSource,
      * 
      * @since 3.1
      */
-    public synchronized void shutdown() throws SQLException {
+    public void shutdown() throws SQLException {
+
+        lock.lock();
+        try {
+            doShutdown();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void doShutdown() throws SQLException {
 
         // disposing maintenance thread first to avoid any changes to pools
         // during shutdown
@@ -230,6 +263,9 @@ public class PoolManager implements ScopeEventListener, DataSource,
         // event listeners list trying to invoke locked PoolManager's listener methods
         shuttingDown = true;
 
+        // wake up threads waiting for connections, so that they could fail
+        connectionAvailable.signalAll();
+
         ListIterator<PooledConnection> unusedIterator = unusedPool.listIterator();
         while (unusedIterator.hasNext()) {
             PooledConnection con = unusedIterator.next();
@@ -277,42 +313,101 @@ public class PoolManager implements ScopeEventListener, DataSource,
     /**
      * @return true if at least one more connection can be added to the pool.
      */
-    protected synchronized boolean canGrowPool() {
-        return getPoolSize() < maxConnections;
+    protected boolean canGrowPool() {
+        lock.lock();
+        try {
+            return getPoolSize() + pendingConnections < maxConnections;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Increases connection pool by the specified number of connections.
+     * Increases connection pool by the specified number of connections. The
+     * pool slots are reserved while holding the pool lock, but the physical
+     * connections are opened without it.
      * 
      * @return the actual number of created connections.
      * @throws SQLException if an error happens when creating a new connection.
      */
-    protected synchronized int growPool(
+    protected int growPool(
             int addConnections,
             String userName,
             String password) throws SQLException {
 
-        int i = 0;
-        int startPoolSize = getPoolSize();
-        for (; i < addConnections && startPoolSize + i < maxConnections; i++) {
-            PooledConnection newConnection = newPooledConnection(userName, password);
-            unusedPool.add(newConnection);
+        int reserved;
+        lock.lock();
+        try {
+            reserved = Math.max(0, Math.min(addConnections, maxConnections - getPoolSize() - pendingConnections));
+            pendingConnections += reserved;
+        } finally {
+            lock.unlock();
         }
 
-        return i;
-    }
+        int created = 0;
+        try {
+            while (reserved > 0) {
+                PooledConnection newConnection = newPooledConnection(userName, password);
+                boolean shutDown;
 
-    protected synchronized void shrinkPool(int closeConnections) {
-        int idleSize = unusedPool.size();
-        for (int i = 0; i < closeConnections && i < idleSize; i++) {
-            PooledConnection con = unusedPool.remove(i);
+                lock.lock();
+                try {
+                    pendingConnections--;
+                    reserved--;
+
+                    shutDown = shuttingDown;
+                    if (!shutDown) {
+                        unusedPool.add(newConnection);
+                        connectionAvailable.signal();
+                        created++;
+                    }
+                } finally {
+                    lock.unlock();
+                }
 
-            try {
-                con.close();
+                if (shutDown) {
+                    newConnection.removeConnectionEventListener(this);
+                    try {
+                        newConnection.close();
+                    }
+                    catch (SQLException ignored) {
+                    }
+
+                    break;
+                }
             }
-            catch (SQLException ex) {
-                // ignore
+
+            return created;
+        } finally {
+            // give back the slots of the connections that were not opened
+            if (reserved > 0) {
+                lock.lock();
+                try {
+                    pendingConnections -= reserved;
+                    connectionAvailable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    protected void shrinkPool(int closeConnections) {
+        lock.lock();
+        try {
+            int idleSize = unusedPool.size();
+            for (int i = 0; i < closeConnections && i < idleSize; i++) {
+                PooledConnection con = unusedPool.remove(i);
+
+                try {
+                    con.close();
+                }
+                catch (SQLException ex) {
+                    // ignore
+                }
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -366,19 +461,47 @@ public class PoolManager implements ScopeEventListener, DataSource,
         return userName;
     }
 
+    /**
+     * Returns a recorder of connection wait times and pool size.
+     * 
+     * @since 4.0
+     */
+    public MetricsRecorder getMetricsRecorder() {
+        return metricsRecorder;
+    }
+
+    /**
+     * Sets a recorder of connection wait times and pool size.
+     * 
+     * @since 4.0
+     */
+    public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+        this.metricsRecorder = metricsRecorder != null ? metricsRecorder : NoopMetricsRecorder.getInstance();
+    }
+
     /**
      * Returns current number of connections.
      */
-    public synchronized int getPoolSize() {
-        return usedPool.size() + unusedPool.size();
+    public int getPoolSize() {
+        lock.lock();
+        try {
+            return usedPool.size() + unusedPool.size();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Returns the number of connections obtained via this DataSource that are currently
      * in use by the DataSource clients.
      */
-    public synchronized int getCurrentlyInUse() {
-        return usedPool.size();
+    public int getCurrentlyInUse() {
+        lock.lock();
+        try {
+            return usedPool.size();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -386,8 +509,13 @@ public class PoolManager implements ScopeEventListener, DataSource,
      * used by any clients and are available immediately via <code>getConnection</code>
      * method.
      */
-    public synchronized int getCurrentlyUnused() {
-        return unusedPool.size();
+    public int getCurrentlyUnused() {
+        lock.lock();
+        try {
+            return unusedPool.size();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -402,91 +530,181 @@ public class PoolManager implements ScopeEventListener, DataSource,
     }
 
     /** Returns connection from the pool. */
-    public synchronized Connection getConnection(String userName, String password)
+    public Connection getConnection(String userName, String password)
             throws SQLException {
 
         if (shuttingDown) {
             throw new SQLException("Pool manager is shutting down.");
         }
 
-        PooledConnection pooledConnection = uncheckPooledConnection(userName, password);
+        long t0 = System.nanoTime();
+
+        Connection connection = uncheckConnection(userName, password, true);
+
+        if (metricsRecorder.isEnabled()) {
+            metricsRecorder.recordTime(MetricsRecorder.POOL_WAIT_TIME, null, null, System.nanoTime() - t0);
+
+            lock.lock();
+            try {
+                recordPoolSize();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        return connection;
+    }
 
+    /**
+     * Records the number of used and unused connections. Must be called while
+     * holding a lock on the pool.
+     */
+    private void recordPoolSize() {
+        metricsRecorder.recordValue(MetricsRecorder.POOL_ACTIVE, null, null, usedPool.size());
+        metricsRecorder.recordValue(MetricsRecorder.POOL_IDLE, null, null, unusedPool.size());
+    }
+
+    /**
+     * Takes an idle PooledConnection from the pool or opens a new one, and
+     * returns a logical connection for it. Physical connections are opened
+     * without holding the pool lock. If obtaining a logical connection fails,
+     * the PooledConnection is closed. If it was an idle connection that went
+     * stale, and retryStale is true, another connection is tried once.
+     */
+    private Connection uncheckConnection(String userName, String password, boolean retryStale)
+            throws SQLException {
+
+        PooledConnection pooledConnection = null;
+        boolean opening;
+        boolean shutDown = false;
+
+        lock.lock();
         try {
-            return uncheckConnection(pooledConnection);
+            opening = reserveConnection();
+            if (!opening) {
+                // get first connection... lets cycle them in FIFO manner
+                pooledConnection = unusedPool.remove(0);
+            }
+
+            pendingConnections++;
+        } finally {
+            lock.unlock();
         }
-        catch (SQLException ex) {
 
-            try {
-                pooledConnection.close();
+        Connection c = null;
+        boolean stale = false;
+        try {
+            if (opening) {
+                pooledConnection = newPooledConnection(userName, password);
             }
-            catch (SQLException ignored) {
+
+            c = pooledConnection.getConnection();
+        }
+        catch (SQLException ex) {
+            // a connection that has just been opened is not retried, as
+            // opening another one would most likely fail the same way
+            if (opening || !retryStale) {
+                throw ex;
             }
 
-            // do one reconnect attempt...
-            pooledConnection = uncheckPooledConnection(userName, password);
+            stale = true;
+        } finally {
+            lock.lock();
             try {
-                return uncheckConnection(pooledConnection);
+                pendingConnections--;
+
+                if (c != null) {
+                    if (shuttingDown) {
+                        // the pool was shut down while the connection was unchecked
+                        // without holding the lock; shutdown has already cleaned the
+                        // pools, so the connection must not be added there
+                        shutDown = true;
+                    } else {
+                        // only do that on successfully unchecked connection...
+                        usedPool.add(pooledConnection);
+                    }
+                } else {
+                    // the pool has room for one more connection
+                    connectionAvailable.signal();
+                }
+            } finally {
+                lock.unlock();
             }
-            catch (SQLException reconnectEx) {
+
+            if ((c == null || shutDown) && pooledConnection != null) {
+                pooledConnection.removeConnectionEventListener(this);
                 try {
                     pooledConnection.close();
                 }
                 catch (SQLException ignored) {
                 }
-
-                throw reconnectEx;
             }
         }
-    }
 
-    private Connection uncheckConnection(PooledConnection pooledConnection)
-            throws SQLException {
-        Connection c = pooledConnection.getConnection();
+        if (shutDown) {
+            throw new SQLException("Pool manager is shutting down.");
+        }
+
+        if (stale) {
+            return uncheckConnection(userName, password, false);
+        }
 
-        // only do that on successfully unchecked connection...
-        usedPool.add(pooledConnection);
         return c;
     }
 
-    private PooledConnection uncheckPooledConnection(String userName, String password)
-            throws SQLException {
-        // wait for returned connections or the maintenance thread
-        // to bump the pool size...
+    /**
+     * Waits until there is an idle connection in the pool or the pool can
+     * grow. Returns true if the caller must open a new physical connection.
+     * Must be called while holding the pool lock.
+     */
+    private boolean reserveConnection() throws SQLException {
 
-        if (unusedPool.size() == 0) {
+        // note that if we were woken up before the full wait period expired, and
+        // no connections are available yet, go back to sleep. Otherwise we don't
+        // give a maintenance thread a chance to increase pool size
+        long waitTill = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxQueueWaitTime);
+        boolean interrupted = false;
 
-            // first try to open a new connection
-            if (canGrowPool()) {
-                return newPooledConnection(userName, password);
-            }
+        try {
+            while (unusedPool.isEmpty()) {
 
-            // can't open no more... will have to wait for others to return a connection
+                if (shuttingDown) {
+                    throw new SQLException("Pool manager is shutting down.");
+                }
+
+                // first try to open a new connection
+                if (canGrowPool()) {
+                    return true;
+                }
 
-            // note that if we were woken up
-            // before the full wait period expired, and no connections are
-            // available yet, go back to sleep. Otherwise we don't give a maintenance
-            // thread a chance to increase pool size
-            long waitTill = System.currentTimeMillis() + maxQueueWaitTime;
-        	
-            do {
+                // can't open no more... will have to wait for others to return a
+                // connection
                 try {
-                    wait(maxQueueWaitTime);
+                    if (maxQueueWaitTime == 0) {
+                        connectionAvailable.await();
+                    } else {
+                        long remaining = waitTill - System.nanoTime();
+                        if (remaining <= 0) {
+                            throw new ConnectionUnavailableException(
+                                    "Can't obtain connection. Request timed out. Total used connections: "
+                                            + usedPool.size());
+                        }
+
+                        connectionAvailable.awaitNanos(remaining);
+                    }
                 }
                 catch (InterruptedException iex) {
-                    // ignoring
+                    // ignoring, but preserving the interrupt status
+                    interrupted = true;
                 }
+            }
 
-            } while (unusedPool.size() == 0 && (maxQueueWaitTime == 0 || waitTill > System.currentTimeMillis()));
-
-            if (unusedPool.size() == 0) {
-                throw new ConnectionUnavailableException(
-                        "Can't obtain connection. Request timed out. Total used connections: "
-                                + usedPool.size());
+            return false;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
             }
         }
-
-        // get first connection... lets cycle them in FIFO manner
-        return unusedPool.remove(0);
     }
 
     public int getLoginTimeout() throws java.sql.SQLException {
@@ -508,12 +726,22 @@ public class PoolManager implements ScopeEventListener, DataSource,
     /**
      * Returns closed connection to the pool.
      */
-    public synchronized void connectionClosed(ConnectionEvent event) {
+    public void connectionClosed(ConnectionEvent event) {
 
         if (shuttingDown) {
             return;
         }
 
+        lock.lock();
+        try {
+            returnConnection(event);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void returnConnection(ConnectionEvent event) {
+
         // return connection to the pool
         PooledConnection closedConn = (PooledConnection) event.getSource();
 
@@ -525,7 +753,11 @@ public class PoolManager implements ScopeEventListener, DataSource,
             unusedPool.add(closedConn);
 
             // notify threads waiting for connections
-            notifyAll();
+            connectionAvailable.signal();
+
+            if (metricsRecorder.isEnabled()) {
+                recordPoolSize();
+            }
         }
         // else ....
         // other possibility is that this is a bad connection, so just ignore its closing
@@ -538,12 +770,22 @@ public class PoolManager implements ScopeEventListener, DataSource,
      * PoolManager connections on connection errors to notify PoolManager that connection
      * is in invalid state.
      */
-    public synchronized void connectionErrorOccurred(ConnectionEvent event) {
+    public void connectionErrorOccurred(ConnectionEvent event) {
 
         if (shuttingDown) {
             return;
         }
 
+        lock.lock();
+        try {
+            removeConnection(event);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeConnection(ConnectionEvent event) {
+
         // later on we should analyze the error to see if this
         // is fatal... right now just kill this PooledConnection
 
@@ -562,6 +804,9 @@ public class PoolManager implements ScopeEventListener, DataSource,
                 unusedPool.remove(unusedInd);
         }
 
+        // the pool may grow now, let waiting threads open a new connection
+        connectionAvailable.signal();
+
         // do not close connection,
         // let the code that catches the exception handle it
         // ....
@@ -591,7 +836,8 @@ public class PoolManager implements ScopeEventListener, DataSource,
                     // ignore...
                 }
 
-                synchronized (pool) {
+                pool.lock.lock();
+                try {
                     // TODO: implement a smarter algorithm for pool management...
                     // right now it will simply close one connection if the count is
                     // above median and there are any idle connections.
@@ -611,6 +857,8 @@ public class PoolManager implements ScopeEventListener, DataSource,
                     if (unused > 0 && total > median) {
                         pool.shrinkPool(1);
                     }
+                } finally {
+                    pool.lock.unlock();
                 }
             }
         }
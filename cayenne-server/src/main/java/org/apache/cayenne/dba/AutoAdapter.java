@@ -25,6 +25,7 @@ import java.util.Collection;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.batch.BatchTranslator;
 import org.apache.cayenne.access.translator.ejbql.EJBQLTranslatorFactory;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
@@ -37,6 +38,7 @@ import org.apache.cayenne.map.DbRelationship;
 import org.apache.cayenne.merge.MergerFactory;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
+import org.apache.cayenne.query.UpsertBatchQuery;
 
 /**
  * A DbAdapter that automatically detects the kind of database it is running on and
@@ -255,4 +257,20 @@ public class AutoAdapter implements DbAdapter {
     public EJBQLTranslatorFactory getEjbqlTranslatorFactory() {
         return getAdapter().getEjbqlTranslatorFactory();
     }
+
+    /**
+     * @since 4.0
+     */
+    @Override
+    public String createExplainSql(String sql) {
+        return getAdapter().createExplainSql(sql);
+    }
+
+    /**
+     * @since 4.0
+     */
+    @Override
+    public BatchTranslator createUpsertTranslator(UpsertBatchQuery query) {
+        return getAdapter().createUpsertTranslator(query);
+    }
 }
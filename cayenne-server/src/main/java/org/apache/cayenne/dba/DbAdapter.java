@@ -24,6 +24,7 @@ import java.sql.Types;
 import java.util.Collection;
 
 import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.batch.BatchTranslator;
 import org.apache.cayenne.access.translator.ejbql.EJBQLTranslatorFactory;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
@@ -34,6 +35,7 @@ import org.apache.cayenne.map.DbRelationship;
 import org.apache.cayenne.merge.MergerFactory;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
+import org.apache.cayenne.query.UpsertBatchQuery;
 
 /**
  * A Cayenne extension point that abstracts the differences between specifics of
@@ -211,4 +213,22 @@ public interface DbAdapter {
      * @since 4.0
      */
     EJBQLTranslatorFactory getEjbqlTranslatorFactory();
+
+    /**
+     * Returns a statement that would show the execution plan of a given SQL
+     * query, or null if the database has no EXPLAIN-like facility supported by
+     * this adapter.
+     * 
+     * @since 4.0
+     */
+    String createExplainSql(String sql);
+
+    /**
+     * Returns a translator of the UpsertBatchQuery to a native "insert or
+     * update" statement of the database, or null if the database has no such
+     * statement supported by this adapter.
+     * 
+     * @since 4.0
+     */
+    BatchTranslator createUpsertTranslator(UpsertBatchQuery query);
 }
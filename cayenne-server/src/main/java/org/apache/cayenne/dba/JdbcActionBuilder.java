@@ -21,11 +21,13 @@ package org.apache.cayenne.dba;
 
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.jdbc.BatchAction;
+import org.apache.cayenne.access.jdbc.BulkAction;
 import org.apache.cayenne.access.jdbc.EJBQLAction;
 import org.apache.cayenne.access.jdbc.ProcedureAction;
 import org.apache.cayenne.access.jdbc.SQLTemplateAction;
 import org.apache.cayenne.access.jdbc.SelectAction;
 import org.apache.cayenne.query.BatchQuery;
+import org.apache.cayenne.query.BulkQuery;
 import org.apache.cayenne.query.EJBQLQuery;
 import org.apache.cayenne.query.ProcedureQuery;
 import org.apache.cayenne.query.SQLAction;
@@ -83,4 +85,12 @@ public class JdbcActionBuilder implements SQLActionVisitor {
     public SQLAction ejbqlAction(EJBQLQuery query) {
         return new EJBQLAction(query, this, dataNode);
     }
+
+    /**
+     * @since 4.0
+     */
+    @Override
+    public SQLAction bulkAction(BulkQuery query) {
+        return new BulkAction(query, dataNode);
+    }
 }
@@ -30,6 +30,7 @@ import java.util.List;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.batch.BatchTranslator;
 import org.apache.cayenne.access.translator.batch.BatchTranslatorFactory;
 import org.apache.cayenne.access.translator.ejbql.EJBQLTranslatorFactory;
 import org.apache.cayenne.access.translator.ejbql.JdbcEJBQLTranslatorFactory;
@@ -49,6 +50,7 @@ import org.apache.cayenne.map.DbRelationship;
 import org.apache.cayenne.merge.MergerFactory;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.resource.Resource;
 import org.apache.cayenne.resource.ResourceLocator;
 import org.apache.cayenne.util.Util;
@@ -72,6 +74,11 @@ public class JdbcAdapter implements DbAdapter {
     protected ResourceLocator resourceLocator;
     protected boolean caseInsensitiveCollations;
 
+    /**
+     * @since 4.0
+     */
+    protected boolean paddingLists;
+
     /**
      * @since 3.1
      * @deprecated since 4.0 BatchQueryBuilderfactory is attached to the
@@ -96,6 +103,7 @@ public class JdbcAdapter implements DbAdapter {
         this.setSupportsBatchUpdates(false);
         this.setSupportsUniqueConstraints(true);
         this.caseInsensitiveCollations = runtimeProperties.getBoolean(Constants.CI_PROPERTY, false);
+        this.paddingLists = runtimeProperties.getBoolean(Constants.SERVER_IN_LIST_PADDING_PROPERTY, false);
         this.resourceLocator = resourceLocator;
 
         this.pkGenerator = createPkGenerator();
@@ -510,6 +518,7 @@ public class JdbcAdapter implements DbAdapter {
     public QualifierTranslator getQualifierTranslator(QueryAssembler queryAssembler) {
         QualifierTranslator translator = new QualifierTranslator(queryAssembler);
         translator.setCaseInsensitive(caseInsensitiveCollations);
+        translator.setPaddingLists(paddingLists);
         return translator;
     }
 
@@ -644,4 +653,27 @@ public class JdbcAdapter implements DbAdapter {
         return this;
     }
 
+    /**
+     * Returns null, as there is no portable way to obtain a query plan.
+     * Subclasses for databases that support EXPLAIN override this method.
+     * 
+     * @since 4.0
+     */
+    @Override
+    public String createExplainSql(String sql) {
+        return null;
+    }
+
+    /**
+     * Returns null, as there is no portable upsert statement. Subclasses for
+     * databases that support MERGE or a similar statement override this
+     * method.
+     * 
+     * @since 4.0
+     */
+    @Override
+    public BatchTranslator createUpsertTranslator(UpsertBatchQuery query) {
+        return null;
+    }
+
 }
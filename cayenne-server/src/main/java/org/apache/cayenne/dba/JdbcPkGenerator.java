@@ -31,6 +31,13 @@ import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.DataRow;
@@ -54,10 +61,15 @@ public class JdbcPkGenerator implements PkGenerator {
     public static final int DEFAULT_PK_CACHE_SIZE = 20;
     static final long DEFAULT_PK_START_VALUE = 200;
 
+    static final long PREFETCH_THREAD_KEEP_ALIVE = 30;
+
     protected JdbcAdapter adapter;
-    protected ConcurrentHashMap<String, Queue<Long>> pkCache = new ConcurrentHashMap<String, Queue<Long>>();
+    protected ConcurrentHashMap<String, PkRange> pkCache = new ConcurrentHashMap<String, PkRange>();
     protected int pkCacheSize = DEFAULT_PK_CACHE_SIZE;
     protected long pkStartValue = DEFAULT_PK_START_VALUE;
+    protected boolean pkPrefetch = true;
+
+    private volatile Executor prefetchExecutor;
 
     public JdbcPkGenerator(JdbcAdapter adapter) {
         this.adapter = adapter;
@@ -230,6 +242,11 @@ public class JdbcPkGenerator implements PkGenerator {
      * executing select and subsequent update. Adapter-specific implementations are more
      * robust.
      * </p>
+     * <p>
+     * Keys are served from a per-entity cache. Only one thread per entity fetches a new
+     * range when the cache is exhausted, and unless "pkPrefetch" is turned off, the next
+     * range is fetched in the background once the cache drops below a low watermark.
+     * </p>
      * 
      * @since 3.0
      */
@@ -257,23 +274,24 @@ public class JdbcPkGenerator implements PkGenerator {
             value = longPkFromDatabase(node, entity);
         }
         else {
-            Queue<Long> pks = pkCache.get(entity.getName());
-
-            if (pks == null) {
-                // created exhausted LongPkRange
-                pks = new ConcurrentLinkedQueue<Long>();
-                Queue<Long> previousPks = pkCache.putIfAbsent(entity.getName(), pks);
-                if (previousPks != null) {
-                	pks = previousPks;
+            PkRange range = pkCache.get(entity.getName());
+
+            if (range == null) {
+                // created exhausted range
+                range = new PkRange();
+                PkRange previousRange = pkCache.putIfAbsent(entity.getName(), range);
+                if (previousRange != null) {
+                    range = previousRange;
                 }
             }
 
-            value = pks.poll();
+            value = range.poll();
             if (value == null) {
-            	value = longPkFromDatabase(node, entity);
-            	for (long i = value+1; i < value + cacheSize; i++) {
-            		pks.add(i);
-            	}
+                value = fetchRange(node, entity, range, (int) cacheSize);
+            }
+
+            if (pkPrefetch && range.needsPrefetch()) {
+                prefetchRange(node, entity, range, (int) cacheSize);
             }
         }
 
@@ -286,6 +304,102 @@ public class JdbcPkGenerator implements PkGenerator {
         }
     }
 
+    /**
+     * Fetches a new range of keys from the database when the cached range is exhausted.
+     * Only one thread per entity goes to the database, others wait and take their keys
+     * from the fetched range. Returns the first key of the range.
+     */
+    private Long fetchRange(DataNode node, DbEntity entity, PkRange range, int cacheSize)
+            throws Exception {
+
+        synchronized (range) {
+
+            // range might have been refilled while we were waiting
+            Long value = range.poll();
+            if (value != null) {
+                return value;
+            }
+
+            long start = System.nanoTime();
+            long first = longPkFromDatabase(node, entity);
+            range.add(first + 1, cacheSize - 1, cacheSize, System.nanoTime() - start);
+            return first;
+        }
+    }
+
+    /**
+     * Schedules a background fetch of the next range of keys, so that it is available
+     * before the current range is exhausted. Does nothing if a prefetch for this entity
+     * is already in progress.
+     */
+    private void prefetchRange(
+            final DataNode node,
+            final DbEntity entity,
+            final PkRange range,
+            final int cacheSize) {
+
+        if (!range.prefetching.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            getPrefetchExecutor().execute(new Runnable() {
+
+                public void run() {
+                    try {
+                        long start = System.nanoTime();
+                        long first = longPkFromDatabase(node, entity);
+                        range.add(first, cacheSize, cacheSize, System.nanoTime() - start);
+                    }
+                    catch (Exception e) {
+                        // the next caller that finds the range exhausted will fetch it
+                        // synchronously and get a proper exception if the problem persists
+                        if (adapter != null) {
+                            adapter.getJdbcEventLogger().logQueryError(e);
+                        }
+                    }
+                    finally {
+                        range.prefetching.set(false);
+                    }
+                }
+            });
+        }
+        catch (RuntimeException e) {
+            range.prefetching.set(false);
+            throw e;
+        }
+    }
+
+    private Executor getPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            synchronized (this) {
+                if (prefetchExecutor == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                            1,
+                            1,
+                            PREFETCH_THREAD_KEEP_ALIVE,
+                            TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(),
+                            new ThreadFactory() {
+
+                                public Thread newThread(Runnable r) {
+                                    Thread thread = new Thread(r, "cayenne-pk-prefetch");
+                                    thread.setDaemon(true);
+                                    return thread;
+                                }
+                            });
+
+                    // let the thread die when there's nothing to prefetch, so that
+                    // the generator doesn't need an explicit shutdown
+                    executor.allowCoreThreadTimeOut(true);
+                    prefetchExecutor = executor;
+                }
+            }
+        }
+
+        return prefetchExecutor;
+    }
+
 	/**
      * Performs primary key generation ignoring cache. Generates a range of primary keys
      * as specified by "pkCacheSize" bean property.
@@ -346,10 +460,97 @@ public class JdbcPkGenerator implements PkGenerator {
         this.pkStartValue = startValue;
     }
 
+    /**
+     * Returns whether the next range of keys is fetched in the background before the
+     * cached range is exhausted. Default is true.
+     * 
+     * @since 4.0
+     */
+    public boolean isPkPrefetch() {
+        return pkPrefetch;
+    }
+
+    /**
+     * Sets whether the next range of keys should be fetched in the background before the
+     * cached range is exhausted. Prefetching removes PK table round trips from the
+     * committing thread at the cost of a potentially bigger gap in key sequences on
+     * application restart.
+     * 
+     * @since 4.0
+     */
+    public void setPkPrefetch(boolean pkPrefetch) {
+        this.pkPrefetch = pkPrefetch;
+    }
+
     public void reset() {
         pkCache.clear();
     }
 
+    /**
+     * A cached sequence of keys for a single entity. Tracks the rate at which keys are
+     * taken from the cache and the time it takes to fetch a new range to decide when a
+     * background prefetch should start. The prefetch threshold ("low watermark") is
+     * sized to cover twice the number of keys consumed during one database round trip,
+     * and is never bigger than the range size.
+     * 
+     * @since 4.0
+     */
+    static final class PkRange {
+
+        final Queue<Long> pks = new ConcurrentLinkedQueue<Long>();
+
+        // ConcurrentLinkedQueue.size() is not a constant-time operation
+        final AtomicInteger size = new AtomicInteger();
+        final AtomicBoolean prefetching = new AtomicBoolean();
+
+        volatile int lowWatermark;
+        long lastRangeTime;
+
+        Long poll() {
+            Long value = pks.poll();
+            if (value != null) {
+                size.decrementAndGet();
+            }
+
+            return value;
+        }
+
+        boolean needsPrefetch() {
+            return size.get() <= lowWatermark && !prefetching.get();
+        }
+
+        synchronized void add(long first, int count, int rangeSize, long fetchTime) {
+            for (long i = first; i < first + count; i++) {
+                pks.add(i);
+            }
+            size.addAndGet(count);
+
+            long now = System.nanoTime();
+
+            if (lastRangeTime > 0) {
+
+                // keys consumed during a single fetch at the rate observed since the
+                // previous range
+                long interval = Math.max(now - lastRangeTime, 1);
+                double perFetch = (double) rangeSize * fetchTime / interval;
+                lowWatermark = (int) Math.min(rangeSize - 1, Math.ceil(perFetch * 2));
+            }
+            else {
+                lowWatermark = rangeSize / 4;
+            }
+
+            lastRangeTime = now;
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        int getLowWatermark() {
+            return lowWatermark;
+        }
+    }
+
     /**
      * OperationObserver for primary key retrieval.
      */
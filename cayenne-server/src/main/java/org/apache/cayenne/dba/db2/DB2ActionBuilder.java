@@ -18,10 +18,15 @@
  ****************************************************************/
 package org.apache.cayenne.dba.db2;
 
+import java.sql.Connection;
+
 import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.jdbc.SelectAction;
+import org.apache.cayenne.access.translator.select.SelectTranslator;
 import org.apache.cayenne.dba.JdbcActionBuilder;
 import org.apache.cayenne.query.ProcedureQuery;
 import org.apache.cayenne.query.SQLAction;
+import org.apache.cayenne.query.SelectQuery;
 
 /**
  * @since 3.1
@@ -36,4 +41,23 @@ public class DB2ActionBuilder extends JdbcActionBuilder {
     public SQLAction procedureAction(ProcedureQuery query) {
         return new DB2ProcedureAction(query, dataNode);
     }
+
+    @Override
+    public <T> SQLAction objectSelectAction(SelectQuery<T> query) {
+        return new SelectAction(query, dataNode) {
+
+            private DB2SelectTranslator translator;
+
+            @Override
+            protected SelectTranslator createTranslator(Connection connection) {
+                translator = new DB2SelectTranslator(query, dataNode, connection);
+                return translator;
+            }
+
+            @Override
+            protected int getInMemoryOffset(int queryOffset) {
+                return translator != null && translator.isOffsetApplied() ? 0 : queryOffset;
+            }
+        };
+    }
 }
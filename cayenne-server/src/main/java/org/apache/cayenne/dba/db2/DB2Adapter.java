@@ -27,6 +27,8 @@ import java.util.List;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.batch.BatchTranslator;
+import org.apache.cayenne.access.translator.batch.MergeBatchTranslator;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
 import org.apache.cayenne.access.types.BooleanType;
@@ -47,6 +49,7 @@ import org.apache.cayenne.map.DbEntity;
 import org.apache.cayenne.merge.MergerFactory;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.resource.ResourceLocator;
 
 /**
@@ -204,6 +207,7 @@ public class DB2Adapter extends JdbcAdapter {
                 queryAssembler,
                 "RTRIM");
         translator.setCaseInsensitive(caseInsensitiveCollations);
+        translator.setPaddingLists(paddingLists);
         return translator;
     }
 
@@ -256,4 +260,14 @@ public class DB2Adapter extends JdbcAdapter {
     public SQLAction getAction(Query query, DataNode node) {
         return query.createSQLAction(new DB2ActionBuilder(node));
     }
+
+    /**
+     * Returns a translator of UpsertBatchQuery to MERGE statement.
+     * 
+     * @since 4.0
+     */
+    @Override
+    public BatchTranslator createUpsertTranslator(UpsertBatchQuery query) {
+        return new MergeBatchTranslator(query, this, "SYSIBM.SYSDUMMY1");
+    }
 }
@@ -29,6 +29,7 @@ import org.apache.cayenne.access.jdbc.ProcedureAction;
 import org.apache.cayenne.access.jdbc.RowDescriptor;
 import org.apache.cayenne.access.translator.procedure.ProcedureTranslator;
 import org.apache.cayenne.query.ProcedureQuery;
+import org.apache.cayenne.query.QueryMetadata;
 
 /**
  * @since 3.1
@@ -50,9 +51,11 @@ class DB2ProcedureAction extends ProcedureAction {
         ProcedureTranslator transl = createTranslator(connection);
 
         CallableStatement statement = (CallableStatement) transl.createStatement();
+        QueryMetadata metadata = query.getMetaData(dataNode.getEntityResolver());
 
         try {
             initStatement(statement);
+            beforeExecute(statement, metadata);
             boolean hasResultSet = statement.execute();
 
             // read out parameters
@@ -83,6 +86,7 @@ class DB2ProcedureAction extends ProcedureAction {
                 hasResultSet = statement.getMoreResults();
             }
         } finally {
+            afterExecute(statement, metadata);
             try {
                 statement.close();
             } catch (SQLException ex) {
@@ -0,0 +1,84 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.dba.db2;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.select.SelectTranslator;
+import org.apache.cayenne.query.Query;
+
+/**
+ * A translator of SelectQueries for DB2 that applies the fetch limit via
+ * "FETCH FIRST ... ROWS ONLY" clause. The fetch offset is applied via "OFFSET
+ * ... ROWS" clause, which requires DB2 11.1 or newer. On older versions the
+ * query is limited to the rows up to the end of the requested page, and the
+ * offset rows are skipped by the caller.
+ * 
+ * @since 4.0
+ */
+class DB2SelectTranslator extends SelectTranslator {
+
+    private boolean offsetApplied;
+
+    public DB2SelectTranslator(Query query, DataNode dataNode, Connection connection) {
+        super(query, dataNode, connection);
+    }
+
+    @Override
+    protected void appendLimitAndOffsetClauses(StringBuilder buffer) {
+        int offset = queryMetadata.getFetchOffset();
+        int limit = queryMetadata.getFetchLimit();
+
+        if (offset > 0 && isOffsetSupported()) {
+            buffer.append(" OFFSET ").append(offset).append(" ROWS");
+            offsetApplied = true;
+        } else if (limit > 0) {
+            limit += offset;
+        }
+
+        if (limit > 0) {
+            buffer.append(" FETCH FIRST ").append(limit).append(" ROWS ONLY");
+        }
+    }
+
+    /**
+     * Returns whether the server is DB2 11.1 or newer. If the server version
+     * can't be read, the offset is applied in memory.
+     */
+    boolean isOffsetSupported() {
+        try {
+            DatabaseMetaData md = connection.getMetaData();
+            int major = md.getDatabaseMajorVersion();
+            return major > 11 || major == 11 && md.getDatabaseMinorVersion() >= 1;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the fetch offset was applied in the generated SQL.
+     */
+    boolean isOffsetApplied() {
+        return offsetApplied;
+    }
+}
@@ -25,6 +25,9 @@ import java.sql.Types;
 import java.util.List;
 
 import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.batch.BatchTranslator;
+import org.apache.cayenne.access.translator.batch.MergeBatchTranslator;
 import org.apache.cayenne.access.translator.ejbql.EJBQLTranslatorFactory;
 import org.apache.cayenne.access.translator.ejbql.JdbcEJBQLTranslatorFactory;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
@@ -44,6 +47,9 @@ import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.map.DbAttribute;
 import org.apache.cayenne.map.DbEntity;
 import org.apache.cayenne.merge.MergerFactory;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.SQLAction;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.resource.ResourceLocator;
 
 /**
@@ -197,6 +203,7 @@ public class DerbyAdapter extends JdbcAdapter {
                 queryAssembler,
                 "RTRIM");
         translator.setCaseInsensitive(caseInsensitiveCollations);
+        translator.setPaddingLists(paddingLists);
         return translator;
     }
     
@@ -231,4 +238,24 @@ public class DerbyAdapter extends JdbcAdapter {
         }
     }
 
+    /**
+     * Returns a translator of UpsertBatchQuery to MERGE statement.
+     * 
+     * @since 4.0
+     */
+    @Override
+    public BatchTranslator createUpsertTranslator(UpsertBatchQuery query) {
+        return new MergeBatchTranslator(query, this, "SYSIBM.SYSDUMMY1");
+    }
+
+    /**
+     * Uses Derby specific action builder that applies the fetch limit and
+     * offset in SQL.
+     * 
+     * @since 4.0
+     */
+    @Override
+    public SQLAction getAction(Query query, DataNode node) {
+        return query.createSQLAction(new DerbyActionBuilder(node));
+    }
 }
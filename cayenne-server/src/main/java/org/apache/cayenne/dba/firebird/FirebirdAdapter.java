@@ -23,6 +23,7 @@ import java.sql.Types;
 import java.util.List;
 
 import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
 import org.apache.cayenne.access.types.ByteArrayType;
@@ -37,6 +38,8 @@ import org.apache.cayenne.dba.TypesMapping;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.map.DbAttribute;
 import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.SQLAction;
 import org.apache.cayenne.resource.ResourceLocator;
 
 /**
@@ -126,5 +129,14 @@ public class FirebirdAdapter extends JdbcAdapter {
         return new FirebirdQualifierTranslator(queryAssembler);
     }
 
-
+    /**
+     * Uses Firebird specific action builder that applies the fetch limit and
+     * offset in SQL.
+     * 
+     * @since 4.0
+     */
+    @Override
+    public SQLAction getAction(Query query, DataNode node) {
+        return query.createSQLAction(new FirebirdActionBuilder(node));
+    }
 }
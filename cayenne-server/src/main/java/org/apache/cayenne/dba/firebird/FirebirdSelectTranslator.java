@@ -0,0 +1,62 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.dba.firebird;
+
+import java.sql.Connection;
+
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.select.SelectTranslator;
+import org.apache.cayenne.query.Query;
+
+/**
+ * A translator of SelectQueries for Firebird that applies the fetch limit and
+ * offset via "FIRST ... SKIP ..." clause that follows the SELECT keyword.
+ * 
+ * @since 4.0
+ */
+class FirebirdSelectTranslator extends SelectTranslator {
+
+    static final String SELECT_PREFIX = "SELECT";
+
+    public FirebirdSelectTranslator(Query query, DataNode dataNode, Connection connection) {
+        super(query, dataNode, connection);
+    }
+
+    @Override
+    protected void appendLimitAndOffsetClauses(StringBuilder buffer) {
+        int offset = queryMetadata.getFetchOffset();
+        int limit = queryMetadata.getFetchLimit();
+
+        if ((offset > 0 || limit > 0) && buffer.length() > SELECT_PREFIX.length()
+                && SELECT_PREFIX.equals(buffer.substring(0, SELECT_PREFIX.length()))) {
+
+            StringBuilder clause = new StringBuilder();
+            if (limit > 0) {
+                clause.append(" FIRST ").append(limit);
+            }
+
+            if (offset > 0) {
+                clause.append(" SKIP ").append(offset);
+            }
+
+            buffer.insert(SELECT_PREFIX.length(), clause);
+        }
+    }
+}
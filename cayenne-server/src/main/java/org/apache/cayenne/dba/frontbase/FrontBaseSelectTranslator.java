@@ -39,6 +39,10 @@ class FrontBaseSelectTranslator extends SelectTranslator {
         super(query, dataNode, connection);
     }
 
+    /**
+     * Limits the result to the rows up to the end of the requested page. The
+     * offset rows are skipped by the caller.
+     */
     @Override
     protected void appendLimitAndOffsetClauses(StringBuilder buffer) {
 
@@ -46,7 +50,7 @@ class FrontBaseSelectTranslator extends SelectTranslator {
         if (limit > 0 && buffer.length() > SELECT_PREFIX.length()) {
 
             if (SELECT_PREFIX.equals(buffer.substring(0, SELECT_PREFIX.length()))) {
-                buffer.insert(SELECT_PREFIX.length(), " TOP " + limit);
+                buffer.insert(SELECT_PREFIX.length(), " TOP " + (queryMetadata.getFetchOffset() + limit));
             }
         }
     }
@@ -21,6 +21,8 @@ package org.apache.cayenne.dba.h2;
 
 import java.util.List;
 
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.batch.BatchTranslator;
 import org.apache.cayenne.access.types.ExtendedType;
 import org.apache.cayenne.access.types.ExtendedTypeFactory;
 import org.apache.cayenne.configuration.Constants;
@@ -30,6 +32,9 @@ import org.apache.cayenne.dba.PkGenerator;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.map.DbAttribute;
 import org.apache.cayenne.merge.MergerFactory;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.SQLAction;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.resource.ResourceLocator;
 
 /**
@@ -74,4 +79,33 @@ public class H2Adapter extends JdbcAdapter {
     protected PkGenerator createPkGenerator() {
         return new H2PkGenerator(this);
     }
+
+    /**
+     * @since 4.0
+     */
+    @Override
+    public String createExplainSql(String sql) {
+        return "EXPLAIN " + sql;
+    }
+
+    /**
+     * Returns a translator of UpsertBatchQuery to "MERGE ... KEY" statement.
+     * 
+     * @since 4.0
+     */
+    @Override
+    public BatchTranslator createUpsertTranslator(UpsertBatchQuery query) {
+        return new H2MergeBatchTranslator(query, this);
+    }
+
+    /**
+     * Uses H2 specific action builder that applies the fetch limit and
+     * offset in SQL.
+     * 
+     * @since 4.0
+     */
+    @Override
+    public SQLAction getAction(Query query, DataNode node) {
+        return query.createSQLAction(new H2ActionBuilder(node));
+    }
 }
@@ -30,6 +30,7 @@ import java.util.List;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.batch.BatchTranslator;
 import org.apache.cayenne.access.translator.ejbql.EJBQLTranslatorFactory;
 import org.apache.cayenne.access.translator.ejbql.JdbcEJBQLTranslatorFactory;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
@@ -53,6 +54,7 @@ import org.apache.cayenne.map.DbRelationship;
 import org.apache.cayenne.merge.MergerFactory;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.resource.ResourceLocator;
 
 /**
@@ -114,6 +116,7 @@ public class MySQLAdapter extends JdbcAdapter {
     public QualifierTranslator getQualifierTranslator(QueryAssembler queryAssembler) {
         QualifierTranslator translator = new MySQLQualifierTranslator(queryAssembler);
         translator.setCaseInsensitive(caseInsensitiveCollations);
+        translator.setPaddingLists(paddingLists);
         return translator;
     }
 
@@ -387,4 +390,23 @@ public class MySQLAdapter extends JdbcAdapter {
     public void setStorageEngine(String engine) {
         this.storageEngine = engine;
     }
+
+    /**
+     * @since 4.0
+     */
+    @Override
+    public String createExplainSql(String sql) {
+        return "EXPLAIN " + sql;
+    }
+
+    /**
+     * Returns a translator of UpsertBatchQuery to
+     * "INSERT ... ON DUPLICATE KEY UPDATE" statement.
+     * 
+     * @since 4.0
+     */
+    @Override
+    public BatchTranslator createUpsertTranslator(UpsertBatchQuery query) {
+        return new MySQLUpsertBatchTranslator(query, this);
+    }
 }
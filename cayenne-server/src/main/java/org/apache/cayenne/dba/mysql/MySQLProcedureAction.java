@@ -29,6 +29,7 @@ import org.apache.cayenne.access.jdbc.ProcedureAction;
 import org.apache.cayenne.access.jdbc.RowDescriptor;
 import org.apache.cayenne.access.translator.procedure.ProcedureTranslator;
 import org.apache.cayenne.query.ProcedureQuery;
+import org.apache.cayenne.query.QueryMetadata;
 
 /**
  * @since 3.0
@@ -47,8 +48,10 @@ class MySQLProcedureAction extends ProcedureAction {
 
         ProcedureTranslator transl = createTranslator(connection);
         CallableStatement statement = (CallableStatement) transl.createStatement();
+        QueryMetadata metadata = query.getMetaData(dataNode.getEntityResolver());
 
         try {
+            beforeExecute(statement, metadata);
 
             // this is one difference with super - we need to read the first result set
             // without calling 'getMoreResults' - which may actually be a good default
@@ -77,6 +80,7 @@ class MySQLProcedureAction extends ProcedureAction {
             }
         }
         finally {
+            afterExecute(statement, metadata);
             try {
                 statement.close();
             }
@@ -0,0 +1,75 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.dba.mysql;
+
+import java.util.List;
+
+import org.apache.cayenne.access.translator.batch.UpsertBatchTranslator;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.dba.QuotingStrategy;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.query.UpsertBatchQuery;
+
+/**
+ * Translates UpsertBatchQuery to MySQL
+ * "INSERT ... ON DUPLICATE KEY UPDATE" statement. Note that MySQL detects the
+ * existing rows using any PK or unique index of the table, so the keys of the
+ * query only determine which columns are left unchanged on update.
+ * 
+ * @since 4.0
+ */
+class MySQLUpsertBatchTranslator extends UpsertBatchTranslator {
+
+    MySQLUpsertBatchTranslator(UpsertBatchQuery query, DbAdapter adapter) {
+        super(query, adapter);
+    }
+
+    @Override
+    protected String createSql() {
+
+        QuotingStrategy strategy = adapter.getQuotingStrategy();
+        List<DbAttribute> inserted = getInsertedAttributes();
+
+        StringBuilder buffer = new StringBuilder("INSERT INTO ");
+        buffer.append(strategy.quotedFullyQualifiedName(query.getDbEntity()));
+        buffer.append(" (");
+        appendColumns(buffer, inserted);
+        buffer.append(") VALUES (");
+        appendParameters(buffer, inserted);
+        buffer.append(") ON DUPLICATE KEY UPDATE ");
+
+        List<DbAttribute> updated = getUpdatedAttributes();
+        if (updated.isEmpty()) {
+            // a noop assignment, so that matching rows are left as is
+            String column = strategy.quotedName(getUpsertQuery().getKeyAttributes().get(0));
+            buffer.append(column).append(" = ").append(column);
+        } else {
+            for (int i = 0; i < updated.size(); i++) {
+                if (i > 0) {
+                    buffer.append(", ");
+                }
+
+                String column = strategy.quotedName(updated.get(i));
+                buffer.append(column).append(" = VALUES(").append(column).append(')');
+            }
+        }
+
+        return buffer.toString();
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.translator.select.JoinStack;
 import org.apache.cayenne.access.translator.select.SelectTranslator;
 import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.SelectQuery;
 
 /**
  * @since 1.2
@@ -43,11 +44,21 @@ class OpenBaseSelectTranslator extends SelectTranslator {
         return new OpenBaseJoinStack(getAdapter(), queryMetadata.getDataMap(), this);
     }
 
+    @Override
+    protected SelectTranslator createSubqueryTranslator(SelectQuery<?> query) {
+        return new OpenBaseSelectTranslator(query, dataNode, connection);
+    }
+
+    /**
+     * Limits the result to the rows up to the end of the requested page, as
+     * OpenBase has no way to skip the offset rows, which are skipped by the
+     * caller instead.
+     */
     @Override
     protected void appendLimitAndOffsetClauses(StringBuilder buffer) {
         int limit = queryMetadata.getFetchLimit();
         if (limit > 0) {
-            buffer.append(" RETURN RESULTS ").append(limit);
+            buffer.append(" RETURN RESULTS ").append(queryMetadata.getFetchOffset() + limit);
         }
     }
 
@@ -102,6 +102,7 @@ public class Oracle8Adapter extends OracleAdapter {
     public QualifierTranslator getQualifierTranslator(QueryAssembler queryAssembler) {
         QualifierTranslator translator = new Oracle8QualifierTranslator(queryAssembler);
         translator.setCaseInsensitive(caseInsensitiveCollations);
+        translator.setPaddingLists(paddingLists);
         return translator;
     }
 }
@@ -61,6 +61,7 @@ class Oracle8SQLTemplateAction extends SQLTemplateAction {
         PreparedStatement statement = connection.prepareStatement(compiled.getSql());
         try {
             bind(statement, compiled.getBindings());
+            beforeExecute(statement);
 
             // start - code different from super
             if (select) {
@@ -82,6 +83,7 @@ class Oracle8SQLTemplateAction extends SQLTemplateAction {
             // end - code different from super
         } finally {
             if (!iteratedResult) {
+                afterExecute(statement);
                 statement.close();
             }
         }
@@ -22,7 +22,9 @@ import java.sql.Connection;
 
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.translator.select.JoinStack;
+import org.apache.cayenne.access.translator.select.SelectTranslator;
 import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.SelectQuery;
 
 /**
  * @since 3.0
@@ -45,4 +47,9 @@ class Oracle8SelectTranslator extends OracleSelectTranslator {
         return new Oracle8JoinStack(getAdapter(), queryMetadata.getDataMap(), this);
     }
 
+    @Override
+    protected SelectTranslator createSubqueryTranslator(SelectQuery<?> query) {
+        return new Oracle8SelectTranslator(query, dataNode, connection);
+    }
+
 }
@@ -38,6 +38,13 @@ import org.apache.commons.collections.Transformer;
  */
 public class OracleQualifierTranslator extends TrimmingQualifierTranslator {
 
+    /**
+     * Maximum number of values in a single Oracle IN list.
+     * 
+     * @since 4.0
+     */
+    public static final int MAX_IN_SIZE = 1000;
+
     public OracleQualifierTranslator(QueryAssembler queryAssembler) {
         super(queryAssembler, OracleAdapter.TRIM_FUNCTION);
     }
@@ -51,6 +58,16 @@ public class OracleQualifierTranslator extends TrimmingQualifierTranslator {
         rootNode.traverse(this);
     }
 
+    /**
+     * Pads IN lists to no more than {@link #MAX_IN_SIZE} values.
+     * 
+     * @since 4.0
+     */
+    @Override
+    protected int paddedListSize(int size) {
+        return Math.min(super.paddedListSize(size), MAX_IN_SIZE);
+    }
+
     public static class INTrimmer implements Transformer {
 
         public Expression trimmedInExpression(Expression exp, int maxInSize) {
@@ -92,7 +109,7 @@ public class OracleQualifierTranslator extends TrimmingQualifierTranslator {
 
         public Object transform(Object input) {
             if (input instanceof ASTIn || input instanceof ASTNotIn) {
-                return trimmedInExpression((Expression) input, 1000);
+                return trimmedInExpression((Expression) input, MAX_IN_SIZE);
             }
             return input;
         }
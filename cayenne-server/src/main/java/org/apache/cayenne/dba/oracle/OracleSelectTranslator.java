@@ -83,7 +83,9 @@ class OracleSelectTranslator extends SelectTranslator {
     @Override
     public PreparedStatement createStatement() throws Exception {
         String sqlStr = createSqlString();
-        logger.logQuery(sqlStr, values);
+        if (logger.isLoggable()) {
+            logger.logQuery(sqlStr, values);
+        }
         PreparedStatement stmt = connection.prepareStatement(sqlStr);
 
         initStatement(stmt);
@@ -27,6 +27,7 @@ import java.util.List;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.batch.BatchTranslator;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
 import org.apache.cayenne.access.types.CharType;
@@ -45,6 +46,7 @@ import org.apache.cayenne.map.DbEntity;
 import org.apache.cayenne.merge.MergerFactory;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.resource.ResourceLocator;
 
 /**
@@ -91,6 +93,7 @@ public class PostgresAdapter extends JdbcAdapter {
 
         map.registerType(new CharType(true, false));
         map.registerType(new PostgresByteArrayType(true, true));
+        map.registerType(new PostgresArrayType());
     }
 
     @Override
@@ -247,6 +250,7 @@ public class PostgresAdapter extends JdbcAdapter {
     public QualifierTranslator getQualifierTranslator(QueryAssembler queryAssembler) {
         QualifierTranslator translator = new PostgresQualifierTranslator(queryAssembler);
         translator.setCaseInsensitive(caseInsensitiveCollations);
+        translator.setPaddingLists(paddingLists);
         return translator;
     }
 
@@ -262,4 +266,23 @@ public class PostgresAdapter extends JdbcAdapter {
     public MergerFactory mergerFactory() {
         return new PostgresMergerFactory();
     }
+
+    /**
+     * @since 4.0
+     */
+    @Override
+    public String createExplainSql(String sql) {
+        return "EXPLAIN " + sql;
+    }
+
+    /**
+     * Returns a translator of UpsertBatchQuery to "INSERT ... ON CONFLICT"
+     * statement.
+     * 
+     * @since 4.0
+     */
+    @Override
+    public BatchTranslator createUpsertTranslator(UpsertBatchQuery query) {
+        return new PostgresUpsertBatchTranslator(query, this);
+    }
 }
@@ -0,0 +1,50 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.dba.postgres;
+
+import java.util.Arrays;
+
+/**
+ * A statement parameter bound as a PostgreSQL array of a given element type.
+ * 
+ * @since 4.0
+ */
+class PostgresArray {
+
+    private String elementType;
+    private Object[] elements;
+
+    PostgresArray(String elementType, Object[] elements) {
+        this.elementType = elementType;
+        this.elements = elements;
+    }
+
+    String getElementType() {
+        return elementType;
+    }
+
+    Object[] getElements() {
+        return elements;
+    }
+
+    @Override
+    public String toString() {
+        return elementType + Arrays.toString(elements);
+    }
+}
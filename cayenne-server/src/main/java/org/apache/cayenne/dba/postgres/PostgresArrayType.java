@@ -0,0 +1,64 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.dba.postgres;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+
+import org.apache.cayenne.access.types.ExtendedType;
+
+/**
+ * Binds {@link PostgresArray} parameters, creating a JDBC array from the
+ * statement connection. Arrays are only used as query parameters, so reading
+ * them is not supported.
+ * 
+ * @since 4.0
+ */
+class PostgresArrayType implements ExtendedType {
+
+    @Override
+    public String getClassName() {
+        return PostgresArray.class.getName();
+    }
+
+    @Override
+    public void setJdbcObject(PreparedStatement statement, Object value, int pos, int type, int scale)
+            throws Exception {
+
+        if (value == null) {
+            statement.setNull(pos, Types.ARRAY);
+        } else {
+            PostgresArray array = (PostgresArray) value;
+            statement.setArray(pos,
+                    statement.getConnection().createArrayOf(array.getElementType(), array.getElements()));
+        }
+    }
+
+    @Override
+    public Object materializeObject(ResultSet rs, int index, int type) throws Exception {
+        throw new UnsupportedOperationException("Reading PostgresArray is not supported");
+    }
+
+    @Override
+    public Object materializeObject(CallableStatement rs, int index, int type) throws Exception {
+        throw new UnsupportedOperationException("Reading PostgresArray is not supported");
+    }
+}
@@ -20,15 +20,22 @@
 package org.apache.cayenne.dba.postgres;
 
 import java.io.IOException;
+import java.sql.Types;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
 import org.apache.cayenne.access.translator.select.TrimmingQualifierTranslator;
 import org.apache.cayenne.exp.Expression;
 import org.apache.cayenne.exp.parser.PatternMatchNode;
+import org.apache.cayenne.exp.parser.SimpleNode;
+import org.apache.cayenne.map.DbAttribute;
 
 /**
- * Uses Postgres extensions to optimize various translations.
+ * Uses Postgres extensions to optimize various translations. In particular, IN
+ * lists of strings and numbers are bound as a single array parameter, i.e.
+ * "x IN (?, ?, ...)" is translated to "x = ANY (?)", so that the SQL does not
+ * depend on the list size, and the lists are not limited by the maximum
+ * number of statement parameters.
  * 
  * @since 1.1
  */
@@ -114,6 +121,20 @@ public class PostgresQualifierTranslator extends TrimmingQualifierTranslator {
                 case Expression.NOT_LIKE_IGNORE_CASE:
                     finishedChildNodeAppendExpression(node, " NOT ILIKE ");
                     break;
+                case Expression.IN:
+                    if (arrayElementType(node) != null) {
+                        out.append(" = ANY ");
+                    } else {
+                        super.finishedChild(node, childIndex, hasMoreChildren);
+                    }
+                    break;
+                case Expression.NOT_IN:
+                    if (arrayElementType(node) != null) {
+                        out.append(" <> ALL ");
+                    } else {
+                        super.finishedChild(node, childIndex, hasMoreChildren);
+                    }
+                    break;
                 default:
                     super.finishedChild(node, childIndex, hasMoreChildren);
             }
@@ -132,4 +153,76 @@ public class PostgresQualifierTranslator extends TrimmingQualifierTranslator {
             objectMatchTranslator.setExpression(node);
         }
     }
+
+    /**
+     * @since 4.0
+     */
+    @Override
+    protected void appendList(Expression listExpr, DbAttribute paramDesc) throws IOException {
+
+        Object parent = ((SimpleNode) listExpr).jjtGetParent();
+        String elementType = parent instanceof Expression ? arrayElementType((Expression) parent) : null;
+
+        if (elementType != null) {
+            out.append('?');
+            queryAssembler.addToParamList(paramDesc, new PostgresArray(elementType, listValues(listExpr)));
+        } else {
+            super.appendList(listExpr, paramDesc);
+        }
+    }
+
+    /**
+     * Returns Postgres type of the array that an IN list can be bound as, or
+     * null if the list should be translated as usual.
+     */
+    private String arrayElementType(Expression node) {
+
+        if (matchingObject || (node.getType() != Expression.IN && node.getType() != Expression.NOT_IN)) {
+            return null;
+        }
+
+        Object list = node.getOperand(1);
+        if (!(list instanceof Expression) || ((Expression) list).getType() != Expression.LIST) {
+            return null;
+        }
+
+        DbAttribute attribute = paramsDbType(node);
+        if (attribute == null) {
+            return null;
+        }
+
+        String elementType;
+        switch (attribute.getType()) {
+            case Types.INTEGER:
+                elementType = "int4";
+                break;
+            case Types.BIGINT:
+                elementType = "int8";
+                break;
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                elementType = "int2";
+                break;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                elementType = "numeric";
+                break;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+                elementType = "varchar";
+                break;
+            default:
+                return null;
+        }
+
+        // other values may need conversion by ExtendedTypes
+        for (Object value : listValues((Expression) list)) {
+            if (value != null && !(value instanceof String) && !(value instanceof Number)) {
+                return null;
+            }
+        }
+
+        return elementType;
+    }
 }
@@ -0,0 +1,77 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.dba.postgres;
+
+import java.util.List;
+
+import org.apache.cayenne.access.translator.batch.UpsertBatchTranslator;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.dba.QuotingStrategy;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.query.UpsertBatchQuery;
+
+/**
+ * Translates UpsertBatchQuery to PostgreSQL
+ * "INSERT ... ON CONFLICT (...) DO UPDATE" statement, available since
+ * PostgreSQL 9.5. The keys of the query must be covered by a unique index or
+ * constraint.
+ * 
+ * @since 4.0
+ */
+class PostgresUpsertBatchTranslator extends UpsertBatchTranslator {
+
+    PostgresUpsertBatchTranslator(UpsertBatchQuery query, DbAdapter adapter) {
+        super(query, adapter);
+    }
+
+    @Override
+    protected String createSql() {
+
+        QuotingStrategy strategy = adapter.getQuotingStrategy();
+        List<DbAttribute> inserted = getInsertedAttributes();
+
+        StringBuilder buffer = new StringBuilder("INSERT INTO ");
+        buffer.append(strategy.quotedFullyQualifiedName(query.getDbEntity()));
+        buffer.append(" (");
+        appendColumns(buffer, inserted);
+        buffer.append(") VALUES (");
+        appendParameters(buffer, inserted);
+        buffer.append(") ON CONFLICT (");
+        appendColumns(buffer, getUpsertQuery().getKeyAttributes());
+        buffer.append(')');
+
+        List<DbAttribute> updated = getUpdatedAttributes();
+        if (updated.isEmpty()) {
+            buffer.append(" DO NOTHING");
+        } else {
+            buffer.append(" DO UPDATE SET ");
+
+            for (int i = 0; i < updated.size(); i++) {
+                if (i > 0) {
+                    buffer.append(", ");
+                }
+
+                String column = strategy.quotedName(updated.get(i));
+                buffer.append(column).append(" = EXCLUDED.").append(column);
+            }
+        }
+
+        return buffer.toString();
+    }
+}
@@ -18,10 +18,15 @@
  ****************************************************************/
 package org.apache.cayenne.dba.sqlite;
 
+import java.sql.Connection;
+
 import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.jdbc.SelectAction;
+import org.apache.cayenne.access.translator.select.SelectTranslator;
 import org.apache.cayenne.dba.JdbcActionBuilder;
 import org.apache.cayenne.query.SQLAction;
 import org.apache.cayenne.query.SQLTemplate;
+import org.apache.cayenne.query.SelectQuery;
 
 /**
  * @since 3.0
@@ -36,4 +41,20 @@ class SQLiteActionBuilder extends JdbcActionBuilder {
     public SQLAction sqlAction(SQLTemplate query) {
         return new SQLiteSQLTemplateAction(query, dataNode);
     }
+
+    @Override
+    public <T> SQLAction objectSelectAction(SelectQuery<T> query) {
+        return new SelectAction(query, dataNode) {
+
+            @Override
+            protected SelectTranslator createTranslator(Connection connection) {
+                return new SQLiteSelectTranslator(query, dataNode, connection);
+            }
+
+            @Override
+            protected int getInMemoryOffset(int queryOffset) {
+                return 0;
+            }
+        };
+    }
 }
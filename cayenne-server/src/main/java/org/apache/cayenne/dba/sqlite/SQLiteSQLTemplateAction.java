@@ -60,6 +60,7 @@ class SQLiteSQLTemplateAction extends SQLTemplateAction {
         PreparedStatement statement = connection.prepareStatement(compiled.getSql());
         try {
             bind(statement, compiled.getBindings());
+            beforeExecute(statement);
 
             // start - code different from super
             if (select) {
@@ -90,6 +91,7 @@ class SQLiteSQLTemplateAction extends SQLTemplateAction {
         }
         finally {
             if (!iteratedResult) {
+                afterExecute(statement);
                 statement.close();
             }
         }
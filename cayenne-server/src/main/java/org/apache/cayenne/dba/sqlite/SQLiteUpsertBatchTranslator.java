@@ -0,0 +1,57 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.dba.sqlite;
+
+import java.util.List;
+
+import org.apache.cayenne.access.translator.batch.UpsertBatchTranslator;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.query.UpsertBatchQuery;
+
+/**
+ * Translates UpsertBatchQuery to SQLite "INSERT OR REPLACE" statement. Note
+ * that SQLite detects the existing rows using any PK or unique constraint of
+ * the table, and replaces them by deleting and inserting a row. So the columns
+ * that are not written by the query get their default values.
+ * 
+ * @since 4.0
+ */
+class SQLiteUpsertBatchTranslator extends UpsertBatchTranslator {
+
+    SQLiteUpsertBatchTranslator(UpsertBatchQuery query, DbAdapter adapter) {
+        super(query, adapter);
+    }
+
+    @Override
+    protected String createSql() {
+
+        List<DbAttribute> inserted = getInsertedAttributes();
+
+        StringBuilder buffer = new StringBuilder("INSERT OR REPLACE INTO ");
+        buffer.append(adapter.getQuotingStrategy().quotedFullyQualifiedName(query.getDbEntity()));
+        buffer.append(" (");
+        appendColumns(buffer, inserted);
+        buffer.append(") VALUES (");
+        appendParameters(buffer, inserted);
+        buffer.append(')');
+
+        return buffer.toString();
+    }
+}
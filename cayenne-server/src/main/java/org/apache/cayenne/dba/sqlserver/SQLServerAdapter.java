@@ -22,6 +22,7 @@ package org.apache.cayenne.dba.sqlserver;
 import java.util.List;
 
 import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.batch.BatchTranslator;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
 import org.apache.cayenne.access.types.ExtendedType;
@@ -34,6 +35,7 @@ import org.apache.cayenne.map.DbAttribute;
 import org.apache.cayenne.merge.MergerFactory;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.resource.ResourceLocator;
 
 /**
@@ -111,6 +113,7 @@ public class SQLServerAdapter extends SybaseAdapter {
                 queryAssembler,
                 SQLServerAdapter.TRIM_FUNCTION);
         translator.setCaseInsensitive(caseInsensitiveCollations);
+        translator.setPaddingLists(paddingLists);
         return translator;
     }
 
@@ -135,4 +138,13 @@ public class SQLServerAdapter extends SybaseAdapter {
         return new SQLServerMergerFactory();
     }
 
+    /**
+     * Returns a translator of UpsertBatchQuery to MERGE statement.
+     * 
+     * @since 4.0
+     */
+    @Override
+    public BatchTranslator createUpsertTranslator(UpsertBatchQuery query) {
+        return new SQLServerMergeBatchTranslator(query, this);
+    }
 }
@@ -0,0 +1,51 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.dba.sqlserver;
+
+import org.apache.cayenne.access.translator.batch.MergeBatchTranslator;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.dba.QuotingStrategy;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.query.UpsertBatchQuery;
+
+/**
+ * MERGE translator for SQL Server, which requires the statement to be
+ * terminated with a semicolon. The target table is locked with HOLDLOCK, as
+ * otherwise concurrent upserts of the same key may both take the insert
+ * branch and fail with a key violation.
+ * 
+ * @since 4.0
+ */
+class SQLServerMergeBatchTranslator extends MergeBatchTranslator {
+
+    SQLServerMergeBatchTranslator(UpsertBatchQuery query, DbAdapter adapter) {
+        super(query, adapter, "(SELECT 1 AS X) AS S");
+    }
+
+    @Override
+    protected void appendTarget(StringBuilder buffer, DbEntity table, QuotingStrategy strategy) {
+        buffer.append(strategy.quotedFullyQualifiedName(table)).append(" WITH (HOLDLOCK) AS ");
+        buffer.append(strategy.quotedIdentifier(table, TARGET_ALIAS));
+    }
+
+    @Override
+    protected String createSql() {
+        return super.createSql() + ";";
+    }
+}
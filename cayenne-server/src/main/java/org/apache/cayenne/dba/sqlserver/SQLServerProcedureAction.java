@@ -35,6 +35,7 @@ import org.apache.cayenne.access.jdbc.RowDescriptor;
 import org.apache.cayenne.access.translator.procedure.ProcedureTranslator;
 import org.apache.cayenne.query.ProcedureQuery;
 import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryMetadata;
 
 /**
  * ProcedureAction for SQLServer MS JDBC driver. Customizes OUT parameter processing - it
@@ -61,8 +62,11 @@ public class SQLServerProcedureAction extends ProcedureAction {
 
         ProcedureTranslator transl = createTranslator(connection);
         CallableStatement statement = (CallableStatement) transl.createStatement();
+        QueryMetadata metadata = query.getMetaData(dataNode.getEntityResolver());
 
         try {
+            beforeExecute(statement, metadata);
+
             // stored procedure may contain a mixture of update counts and result sets,
             // and out parameters. Read out parameters first, then
             // iterate until we exhaust all results
@@ -114,6 +118,7 @@ public class SQLServerProcedureAction extends ProcedureAction {
             localObserver.flushResults(query);
         }
         finally {
+            afterExecute(statement, metadata);
             try {
                 statement.close();
             }
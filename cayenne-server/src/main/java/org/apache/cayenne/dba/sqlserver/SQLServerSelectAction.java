@@ -27,13 +27,25 @@ import org.apache.cayenne.query.SelectQuery;
 
 public class SQLServerSelectAction extends SelectAction {
 
+    private SQLServerSelectTranslator translator;
+
     public <T> SQLServerSelectAction(SelectQuery<T> query, DataNode dataNode) {
         super(query, dataNode);
     }
 
     @Override
     protected SelectTranslator createTranslator(Connection connection) {
-        return new SQLServerSelectTranslator(query, dataNode, connection);
+        translator = new SQLServerSelectTranslator(query, dataNode, connection);
+        return translator;
+    }
+
+    /**
+     * Skips the offset rows in memory, unless the server is SQL Server 2012 or
+     * newer and the offset was applied in SQL.
+     */
+    @Override
+    protected int getInMemoryOffset(int queryOffset) {
+        return translator != null && translator.isOffsetApplied() ? 0 : queryOffset;
     }
 
 }
@@ -19,13 +19,23 @@
 package org.apache.cayenne.dba.sqlserver;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.translator.select.SelectTranslator;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryMetadata;
+import org.apache.cayenne.query.SelectQuery;
 
 public class SQLServerSelectTranslator extends SelectTranslator {
+
+    /**
+     * Major version of SQL Server 2012, the first one supporting "OFFSET ...
+     * FETCH NEXT" clause.
+     */
+    static final int OFFSET_MAJOR_VERSION = 11;
+
+    private boolean offsetApplied;
 	
     /**
      * @since 4.0
@@ -34,14 +44,33 @@ public class SQLServerSelectTranslator extends SelectTranslator {
         super(query, dataNode, connection);
     }
     
+    /**
+     * Appends "OFFSET ... ROWS FETCH NEXT ... ROWS ONLY" clause if the query
+     * has a fetch offset and the server is SQL Server 2012 or newer. Such
+     * clause is only allowed after ORDER BY, so unordered queries are ordered
+     * by the first result column. Otherwise the query is limited via TOP to
+     * the rows up to the end of the requested page, and the offset rows are
+     * skipped by the caller.
+     */
     @Override
     protected void appendLimitAndOffsetClauses(StringBuilder buffer) {
         QueryMetadata metadata = getQuery().getMetaData(getEntityResolver());
         
         int limit = metadata.getFetchLimit();
         int offset = metadata.getFetchOffset();
-        
-        if (limit > 0) {
+
+        if (offset > 0 && isOffsetSupported()) {
+            if (((SelectQuery<?>) getQuery()).getOrderings().isEmpty()) {
+                buffer.append(" ORDER BY 1");
+            }
+
+            buffer.append(" OFFSET ").append(offset).append(" ROWS");
+            if (limit > 0) {
+                buffer.append(" FETCH NEXT ").append(limit).append(" ROWS ONLY");
+            }
+
+            offsetApplied = true;
+        } else if (limit > 0) {
         	String sql = buffer.toString();
         	
         	// If contains distinct insert top limit after
@@ -54,4 +83,28 @@ public class SQLServerSelectTranslator extends SelectTranslator {
         }
     }
 
+    /**
+     * Returns whether the server supports "OFFSET ... FETCH NEXT" clause. If
+     * the server version can't be read, the offset is applied in memory.
+     * 
+     * @since 4.0
+     */
+    protected boolean isOffsetSupported() {
+        try {
+            return connection.getMetaData().getDatabaseMajorVersion() >= OFFSET_MAJOR_VERSION;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the fetch offset was applied in the generated SQL, so
+     * the rows don't have to be skipped in memory.
+     * 
+     * @since 4.0
+     */
+    public boolean isOffsetApplied() {
+        return offsetApplied;
+    }
+
 }
\ No newline at end of file
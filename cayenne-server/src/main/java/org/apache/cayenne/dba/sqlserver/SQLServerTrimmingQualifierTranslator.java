@@ -19,10 +19,12 @@
 package org.apache.cayenne.dba.sqlserver;
 
 import java.io.IOException;
+import java.math.BigInteger;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
 import org.apache.cayenne.access.translator.select.TrimmingQualifierTranslator;
 import org.apache.cayenne.exp.Expression;
@@ -33,6 +35,12 @@ import org.apache.cayenne.map.DbAttribute;
  */
 class SQLServerTrimmingQualifierTranslator extends TrimmingQualifierTranslator {
 
+    // SQL Server allows up to 2100 parameters per statement
+    static final int MAX_PARAMETERS = 2100;
+
+    // leaving some of the parameters for the rest of the query
+    static final int MAX_LIST_PARAMETERS = 2000;
+
     // since LIKE IGNORE CASE requires more contextual information than the super
     // translator can provide, we are using an internal element stack to trace translation
     // context.. Maybe it is a good idea to introduce it in the superclass?
@@ -116,4 +124,56 @@ class SQLServerTrimmingQualifierTranslator extends TrimmingQualifierTranslator {
 
         return expressionStack.get(index);
     }
+
+    /**
+     * Fails early on the IN lists that can neither be inlined nor bound within
+     * the statement parameters limit, instead of letting the driver fail with
+     * a less obvious error.
+     * 
+     * @since 4.0
+     */
+    @Override
+    protected void appendList(Expression listExpr, DbAttribute paramDesc) throws IOException {
+        Object[] values = listValues(listExpr);
+
+        if (values.length > MAX_PARAMETERS && !inliningList(values)) {
+            throw new CayenneRuntimeException("IN list of %d values exceeds SQL Server limit of %d statement "
+                    + "parameters. Only lists of integers are inlined, split the query into several queries",
+                    values.length, MAX_PARAMETERS);
+        }
+
+        super.appendList(listExpr, paramDesc);
+    }
+
+    /**
+     * Pads IN lists to no more than {@link #MAX_LIST_PARAMETERS} values.
+     * 
+     * @since 4.0
+     */
+    @Override
+    protected int paddedListSize(int size) {
+        return Math.min(super.paddedListSize(size), MAX_LIST_PARAMETERS);
+    }
+
+    /**
+     * Inlines the IN lists of integer numbers that exceed the statement
+     * parameters limit. Such literals can be safely appended to SQL.
+     * 
+     * @since 4.0
+     */
+    @Override
+    protected boolean inliningList(Object[] values) {
+        if (values.length <= MAX_LIST_PARAMETERS) {
+            return false;
+        }
+
+        for (Object value : values) {
+            if (!(value instanceof Integer || value instanceof Long || value instanceof Short
+                    || value instanceof Byte || value instanceof BigInteger)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
 }
@@ -0,0 +1,120 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.event;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A concurrent map that holds its keys with weak references. Lookups do not take any
+ * locks, stale entries are expunged lazily on access. Used by the event dispatch
+ * machinery to keep subjects and senders collectable without synchronizing on every
+ * posted event.
+ * 
+ * @since 4.0
+ */
+class ConcurrentWeakKeyMap<K, V> {
+
+    private final ConcurrentMap<WeakKey<K>, V> map;
+    private final ReferenceQueue<K> staleKeys;
+
+    ConcurrentWeakKeyMap() {
+        this.map = new ConcurrentHashMap<WeakKey<K>, V>();
+        this.staleKeys = new ReferenceQueue<K>();
+    }
+
+    V get(K key) {
+        expungeStaleKeys();
+        return map.get(new WeakKey<K>(key, null));
+    }
+
+    /**
+     * Stores the value unless a value is already mapped for the key, returning the
+     * existing value, or null if the new value was stored.
+     */
+    V putIfAbsent(K key, V value) {
+        expungeStaleKeys();
+        return map.putIfAbsent(new WeakKey<K>(key, staleKeys), value);
+    }
+
+    V remove(K key) {
+        expungeStaleKeys();
+        return map.remove(new WeakKey<K>(key, null));
+    }
+
+    /**
+     * Returns a snapshot of values mapped to the keys that are still reachable.
+     */
+    Collection<V> values() {
+        expungeStaleKeys();
+
+        Collection<V> values = new ArrayList<V>(map.size());
+        for (Map.Entry<WeakKey<K>, V> entry : map.entrySet()) {
+
+            // a key may be cleared, but not yet enqueued
+            if (entry.getKey().get() != null) {
+                values.add(entry.getValue());
+            }
+        }
+
+        return values;
+    }
+
+    private void expungeStaleKeys() {
+        Reference<? extends K> ref;
+        while ((ref = staleKeys.poll()) != null) {
+            map.remove(ref);
+        }
+    }
+
+    static final class WeakKey<K> extends WeakReference<K> {
+
+        private final int hash;
+
+        WeakKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hash = key.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (object == this) {
+                return true;
+            }
+
+            if (!(object instanceof WeakKey)) {
+                return false;
+            }
+
+            Object key = get();
+            return key != null && key.equals(((WeakKey<?>) object).get());
+        }
+    }
+}
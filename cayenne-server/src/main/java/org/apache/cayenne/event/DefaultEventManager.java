@@ -19,19 +19,26 @@
 package org.apache.cayenne.event;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.EventObject;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.di.BeforeScopeEnd;
 import org.apache.cayenne.util.Invocation;
 
 /**
- * A default implementation of {@link EventManager}.
+ * A default implementation of {@link EventManager}. Non-blocking events are dispatched
+ * by a shared {@link ExecutorService}, with events of the same subject delivered in the
+ * order they were posted. Listener lookup on the posting thread does not take any locks.
  * 
  * @since 3.1
  */
@@ -39,12 +46,21 @@ public class DefaultEventManager implements EventManager {
 
     static final int DEFAULT_DISPATCH_THREAD_COUNT = 5;
 
+    // max number of events a subject lane dispatches before yielding its thread to
+    // other subjects
+    static final int LANE_BATCH_SIZE = 64;
+
     // keeps weak references to subjects
-    protected Map<EventSubject, DispatchQueue> subjects;
-    protected List<Dispatch> eventQueue;
+    final ConcurrentWeakKeyMap<EventSubject, DispatchQueue> subjects;
+    protected ExecutorService dispatchExecutor;
     protected boolean singleThread;
     protected volatile boolean stopped;
-    List<DispatchThread> dispatchThreads;
+    private boolean ownsExecutor;
+
+    private final AtomicInteger queueDepth;
+    private final AtomicLong dispatchCount;
+    private final AtomicLong dispatchLatencyTotal;
+    private final AtomicLong dispatchLatencyMax;
 
     /**
      * Creates a multithreaded EventManager using default thread count.
@@ -59,26 +75,28 @@ public class DefaultEventManager implements EventManager {
      * less.
      */
     public DefaultEventManager(int dispatchThreadCount) {
-        this.subjects = Collections
-                .synchronizedMap(new WeakHashMap<EventSubject, DispatchQueue>());
-        this.eventQueue = Collections.synchronizedList(new LinkedList<Dispatch>());
-        this.singleThread = dispatchThreadCount <= 0;
-
-        if (!singleThread) {
-            dispatchThreads = new ArrayList<DispatchThread>(dispatchThreadCount);
-
-            String prefix = "cayenne-edt-" + hashCode() + "-";
+        this(dispatchThreadCount > 0 ? Executors.newFixedThreadPool(
+                dispatchThreadCount,
+                new DispatchThreadFactory()) : null);
+        this.ownsExecutor = !singleThread;
+    }
 
-            // start dispatch threads
-            for (int i = 0; i < dispatchThreadCount; i++) {
-                DispatchThread thread = new DispatchThread(prefix + i);
-                dispatchThreads.add(thread);
-                thread.start();
-            }
-        }
-        else {
-            dispatchThreads = Collections.emptyList();
-        }
+    /**
+     * Creates an EventManager that dispatches non-blocking events using a caller-provided
+     * executor. The executor lifecycle is managed by the caller and is not affected by
+     * {@link #shutdown()}. A null executor creates a single-threaded EventManager.
+     * 
+     * @since 4.0
+     */
+    public DefaultEventManager(ExecutorService dispatchExecutor) {
+        this.subjects = new ConcurrentWeakKeyMap<EventSubject, DispatchQueue>();
+        this.dispatchExecutor = dispatchExecutor;
+        this.singleThread = dispatchExecutor == null;
+
+        this.queueDepth = new AtomicInteger();
+        this.dispatchCount = new AtomicLong();
+        this.dispatchLatencyTotal = new AtomicLong();
+        this.dispatchLatencyMax = new AtomicLong();
     }
 
     /**
@@ -114,14 +132,53 @@ public class DefaultEventManager implements EventManager {
 
             this.stopped = true;
 
-            for (DispatchThread thread : dispatchThreads) {
-                thread.interrupt();
+            if (ownsExecutor) {
+                dispatchExecutor.shutdownNow();
             }
-
-            dispatchThreads.clear();
         }
     }
 
+    /**
+     * Returns the number of non-blocking dispatches that are queued, but not yet
+     * delivered.
+     * 
+     * @since 4.0
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Returns the number of non-blocking dispatches delivered since the EventManager
+     * startup.
+     * 
+     * @since 4.0
+     */
+    public long getDispatchCount() {
+        return dispatchCount.get();
+    }
+
+    /**
+     * Returns a mean time in nanoseconds between queueing a non-blocking dispatch and
+     * the end of its delivery.
+     * 
+     * @since 4.0
+     */
+    public long getMeanDispatchLatency() {
+        long count = dispatchCount.get();
+        return count > 0 ? dispatchLatencyTotal.get() / count : 0;
+    }
+
+    /**
+     * Returns a maximum time in nanoseconds between queueing a non-blocking dispatch and
+     * the end of its delivery.
+     * 
+     * @since 4.0
+     */
+    public long getMaxDispatchLatency() {
+        return dispatchLatencyMax.get();
+    }
+
     /**
      * Register an <code>EventListener</code> for events sent by any sender.
      * 
@@ -237,12 +294,8 @@ public class DefaultEventManager implements EventManager {
 
         boolean didRemove = false;
 
-        synchronized (subjects) {
-            if (!subjects.isEmpty()) {
-                for (EventSubject subject : subjects.keySet()) {
-                    didRemove |= this.removeListener(listener, subject);
-                }
-            }
+        for (DispatchQueue queue : subjects.values()) {
+            didRemove |= queue.removeInvocations(listener, null);
         }
 
         return didRemove;
@@ -253,9 +306,7 @@ public class DefaultEventManager implements EventManager {
      */
     public boolean removeAllListeners(EventSubject subject) {
         if (subject != null) {
-            synchronized (subjects) {
-                return subjects.remove(subject) != null;
-            }
+            return subjects.remove(subject) != null;
         }
 
         return false;
@@ -300,20 +351,31 @@ public class DefaultEventManager implements EventManager {
     /**
      * Sends an event to all registered objects about a particular subject. Event is sent
      * synchronously, so the sender thread is blocked until all the listeners finish
-     * processing the event.
+     * processing the event. Non-blocking listeners are notified later in a separate
+     * thread.
      * 
      * @param event the event to be posted to the observers
      * @param subject the subject about which observers will be notified
      * @throws IllegalArgumentException if event or subject are null
      */
     public void postEvent(EventObject event, EventSubject subject) {
-        dispatchEvent(new Dispatch(event, subject));
+        DispatchQueue dispatchQueue = dispatchQueueForSubject(subject, false);
+        if (dispatchQueue != null) {
+            Dispatch dispatch = new Dispatch(event, subject, false);
+            dispatchQueue.dispatchEvent(dispatch);
+
+            // a single queued dispatch delivers the event to all non-blocking listeners
+            if (dispatch.nonBlockingInvocations != null) {
+                dispatchQueue.getLane().enqueue(dispatch);
+            }
+        }
     }
 
     /**
      * Sends an event to all registered objects about a particular subject. Event is
      * queued by EventManager, releasing the sender thread, and is later dispatched in a
-     * separate thread.
+     * separate thread. Events of the same subject are dispatched in the order they were
+     * posted.
      * 
      * @param event the event to be posted to the observers
      * @param subject the subject about which observers will be notified
@@ -326,29 +388,37 @@ public class DefaultEventManager implements EventManager {
                     "EventManager is configured to be single-threaded.");
         }
 
-        // add dispatch to the queue and return
-        synchronized (eventQueue) {
-            eventQueue.add(new Dispatch(event, subject));
-            eventQueue.notifyAll();
-        }
-    }
-
-    private void dispatchEvent(Dispatch dispatch) {
-        DispatchQueue dispatchQueue = dispatchQueueForSubject(dispatch.subject, false);
+        // no listeners, nothing to dispatch
+        DispatchQueue dispatchQueue = dispatchQueueForSubject(subject, false);
         if (dispatchQueue != null) {
-            dispatchQueue.dispatchEvent(dispatch);
+            dispatchQueue.getLane().enqueue(new Dispatch(event, subject, true));
         }
     }
 
     // returns a subject's mapping from senders to registered listener invocations
     private DispatchQueue dispatchQueueForSubject(EventSubject subject, boolean create) {
-        synchronized (subjects) {
-            DispatchQueue listenersStore = subjects.get(subject);
-            if (create && listenersStore == null) {
-                listenersStore = new DispatchQueue();
-                subjects.put(subject, listenersStore);
+        DispatchQueue listenersStore = subjects.get(subject);
+        if (create && listenersStore == null) {
+            listenersStore = new DispatchQueue(this);
+            DispatchQueue existing = subjects.putIfAbsent(subject, listenersStore);
+            if (existing != null) {
+                listenersStore = existing;
+            }
+        }
+        return listenersStore;
+    }
+
+    void dispatchCompleted(long queuedAt) {
+        long latency = System.nanoTime() - queuedAt;
+
+        dispatchCount.incrementAndGet();
+        dispatchLatencyTotal.addAndGet(latency);
+
+        long max;
+        while ((max = dispatchLatencyMax.get()) < latency) {
+            if (dispatchLatencyMax.compareAndSet(max, latency)) {
+                break;
             }
-            return listenersStore;
         }
     }
 
@@ -358,42 +428,54 @@ public class DefaultEventManager implements EventManager {
         EventObject[] eventArgument;
         EventSubject subject;
 
-        Dispatch(EventObject event, EventSubject subject) {
-            this(new EventObject[] {
-                event
-            }, subject);
-        }
+        // true if the dispatch is delivered in an event thread, false if it is
+        // delivered in the posting thread
+        boolean async;
+
+        // non-blocking listeners collected during a synchronous dispatch
+        List<Invocation> nonBlockingInvocations;
+        long queuedAt;
 
-        Dispatch(EventObject[] eventArgument, EventSubject subject) {
-            this.eventArgument = eventArgument;
+        Dispatch(EventObject event, EventSubject subject, boolean async) {
+            this.eventArgument = new EventObject[] {
+                event
+            };
             this.subject = subject;
+            this.async = async;
         }
 
         Object getSender() {
             return eventArgument[0].getSource();
         }
 
-        void fire() {
-            DefaultEventManager.this.dispatchEvent(Dispatch.this);
+        // called from an event thread
+        void fire(DispatchQueue dispatchQueue) {
+            if (async) {
+                dispatchQueue.dispatchEvent(this);
+            }
+            else {
+                for (Invocation invocation : nonBlockingInvocations) {
+                    // there is no way to kill the invocation if it is bad...
+                    // so don't check for status
+                    invocation.fire(eventArgument);
+                }
+            }
         }
 
         boolean fire(Invocation invocation) {
-            if (invocation instanceof NonBlockingInvocation) {
+            if (!async && invocation instanceof NonBlockingInvocation) {
 
                 // do minimal checks first...
                 if (invocation.getTarget() == null) {
                     return false;
                 }
 
-                // inject single invocation dispatch into the queue
-                synchronized (eventQueue) {
-                    eventQueue.add(new InvocationDispatch(
-                            eventArgument,
-                            subject,
-                            invocation));
-                    eventQueue.notifyAll();
+                // defer invocation until the dispatch is processed by an event thread
+                if (nonBlockingInvocations == null) {
+                    nonBlockingInvocations = new ArrayList<Invocation>();
                 }
 
+                nonBlockingInvocations.add(invocation);
                 return true;
             }
             else {
@@ -402,25 +484,6 @@ public class DefaultEventManager implements EventManager {
         }
     }
 
-    // represents a posted event that should be sent to a single known listener
-    class InvocationDispatch extends Dispatch {
-
-        Invocation target;
-
-        InvocationDispatch(EventObject[] eventArgument, EventSubject subject,
-                Invocation target) {
-            super(eventArgument, subject);
-            this.target = target;
-        }
-
-        @Override
-        void fire() {
-            // there is no way to kill the invocation if it is bad...
-            // so don't check for status
-            target.fire(eventArgument);
-        }
-    }
-
     // subclass exists only to tag invocations that should be
     // dispatched in a separate thread
     final class NonBlockingInvocation extends Invocation {
@@ -431,48 +494,90 @@ public class DefaultEventManager implements EventManager {
         }
     }
 
-    final class DispatchThread extends Thread {
+    // a per-subject queue of non-blocking dispatches. At most one executor thread
+    // drains a given lane at any time, preserving the order of events within a subject.
+    final class DispatchLane implements Runnable {
+
+        private final Queue<Dispatch> dispatches;
+        private final AtomicBoolean scheduled;
+        private final DispatchQueue dispatchQueue;
 
-        DispatchThread(String name) {
-            super(name);
-            setDaemon(true);
+        DispatchLane(DispatchQueue dispatchQueue) {
+            this.dispatchQueue = dispatchQueue;
+            this.dispatches = new ConcurrentLinkedQueue<Dispatch>();
+            this.scheduled = new AtomicBoolean();
+        }
+
+        void enqueue(Dispatch dispatch) {
+            if (stopped) {
+                return;
+            }
+
+            dispatch.queuedAt = System.nanoTime();
+            dispatches.add(dispatch);
+            queueDepth.incrementAndGet();
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatchExecutor.execute(this);
+                }
+                catch (RejectedExecutionException e) {
+                    // executor is shut down... drop the queued events
+                    scheduled.set(false);
+                }
+            }
         }
 
-        @Override
         public void run() {
-            while (!stopped) {
-
-                // get event from the queue, if the queue
-                // is empty, just wait
-                Dispatch dispatch = null;
-
-                synchronized (DefaultEventManager.this.eventQueue) {
-                    if (DefaultEventManager.this.eventQueue.size() > 0) {
-                        dispatch = DefaultEventManager.this.eventQueue.remove(0);
-                    }
-                    else {
-                        try {
-                            // wake up occasionally to check whether EM has been stopped
-                            DefaultEventManager.this.eventQueue.wait(3 * 60 * 1000);
-                        }
-                        catch (InterruptedException e) {
-                            // ignore interrupts...
-                        }
-                    }
+
+            for (int i = 0; i < LANE_BATCH_SIZE && !stopped; i++) {
+
+                Dispatch dispatch = dispatches.poll();
+                if (dispatch == null) {
+                    break;
                 }
 
-                // dispatch outside of synchronized block
-                if (!stopped && dispatch != null) {
-                    // this try/catch is needed to prevent DispatchThread
-                    // from dying on dispatch errors
-                    try {
-                        dispatch.fire();
-                    }
-                    catch (Throwable th) {
-                        // ignoring exception
-                    }
+                queueDepth.decrementAndGet();
+
+                // this try/catch is needed to prevent dispatch errors from
+                // killing the lane
+                try {
+                    dispatch.fire(dispatchQueue);
+                }
+                catch (Throwable th) {
+                    // ignoring exception
                 }
+
+                dispatchCompleted(dispatch.queuedAt);
+            }
+
+            scheduled.set(false);
+
+            // reschedule if more events arrived while we were releasing the lane, or
+            // if the batch limit was reached
+            if (!stopped && !dispatches.isEmpty()) {
+                schedule();
             }
         }
     }
+
+    static final class DispatchThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter;
+
+        DispatchThreadFactory() {
+            this.prefix = "cayenne-edt-" + System.identityHashCode(this) + "-";
+            this.counter = new AtomicInteger();
+        }
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
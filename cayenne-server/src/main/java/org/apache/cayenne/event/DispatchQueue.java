@@ -22,11 +22,11 @@ package org.apache.cayenne.event;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import org.apache.cayenne.event.DefaultEventManager.Dispatch;
+import org.apache.cayenne.event.DefaultEventManager.DispatchLane;
 import org.apache.cayenne.util.Invocation;
 
 /**
@@ -40,14 +40,20 @@ import org.apache.cayenne.util.Invocation;
 class DispatchQueue {
 
     private final ConcurrentMap<Invocation, Object> subjectInvocations;
-    private final Map<Object, ConcurrentMap<Invocation, Object>> invocationsBySender;
+    private final ConcurrentWeakKeyMap<Object, ConcurrentMap<Invocation, Object>> invocationsBySender;
 
-    DispatchQueue() {
-        subjectInvocations = new ConcurrentHashMap<Invocation, Object>();
+    // serializes non-blocking dispatches of this subject; null for single-threaded
+    // managers
+    private final DispatchLane lane;
 
-        // TODO: need something like com.google.common.collect.MapMaker to avoid
-        // synchronization on invocationsBySender
-        invocationsBySender = new WeakHashMap<Object, ConcurrentMap<Invocation, Object>>();
+    DispatchQueue(DefaultEventManager manager) {
+        this.subjectInvocations = new ConcurrentHashMap<Invocation, Object>();
+        this.invocationsBySender = new ConcurrentWeakKeyMap<Object, ConcurrentMap<Invocation, Object>>();
+        this.lane = manager.isSingleThreaded() ? null : manager.new DispatchLane(this);
+    }
+
+    DispatchLane getLane() {
+        return lane;
     }
 
     /**
@@ -101,11 +107,9 @@ class DispatchQueue {
         // remove listener from all collections
         boolean didRemove = removeInvocations(subjectInvocations, listener);
 
-        synchronized (invocationsBySender) {
-            for (ConcurrentMap<Invocation, Object> senderInvocations : invocationsBySender
-                    .values()) {
-                didRemove = removeInvocations(senderInvocations, listener) || didRemove;
-            }
+        for (ConcurrentMap<Invocation, Object> senderInvocations : invocationsBySender
+                .values()) {
+            didRemove = removeInvocations(senderInvocations, listener) || didRemove;
         }
 
         return didRemove;
@@ -115,17 +119,18 @@ class DispatchQueue {
             Object sender,
             boolean create) {
 
-        synchronized (invocationsBySender) {
-
-            ConcurrentMap<Invocation, Object> senderInvocations = invocationsBySender
-                    .get(sender);
-            if (create && senderInvocations == null) {
-                senderInvocations = new ConcurrentHashMap<Invocation, Object>();
-                invocationsBySender.put(sender, senderInvocations);
+        ConcurrentMap<Invocation, Object> senderInvocations = invocationsBySender
+                .get(sender);
+        if (create && senderInvocations == null) {
+            senderInvocations = new ConcurrentHashMap<Invocation, Object>();
+            ConcurrentMap<Invocation, Object> existing = invocationsBySender
+                    .putIfAbsent(sender, senderInvocations);
+            if (existing != null) {
+                senderInvocations = existing;
             }
-
-            return senderInvocations;
         }
+
+        return senderInvocations;
     }
 
     // removes all invocations for a given listener
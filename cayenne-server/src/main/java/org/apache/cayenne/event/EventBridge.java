@@ -24,8 +24,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.EventListener;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
 
 import org.apache.cayenne.util.Util;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 /**
  * <p>An object that passes events between a local EventManager and some other event dispatch
@@ -67,9 +72,29 @@ public abstract class EventBridge implements EventListener {
 
     protected Object externalEventSource;
 
+    /**
+     * @since 4.0
+     */
+    private static final Log logger = LogFactory.getLog(EventBridge.class);
+
+    protected EventCodec eventCodec;
+
+    /**
+     * @since 4.0
+     */
+    protected long coalescingWindow;
+
     // keeps all listeners so that they are not deallocated
     Collection<SubjectListener> listeners;
 
+    // local events accumulated during the current coalescing window
+    private List<CayenneEvent> pendingEvents;
+    private Timer coalescingTimer;
+
+    // held while the pending events are sent, so that shutdown can wait for a
+    // flush in progress on the timer thread
+    private final Object sendLock = new Object();
+
     /**
      * A utility method that performs consistent translation from an EventSubject to a
      * String that can be used by external transport as subject for distributed
@@ -150,6 +175,48 @@ public abstract class EventBridge implements EventListener {
         return externalEventSource != null ? externalEventSource : this;
     }
 
+    /**
+     * Returns a codec used to encode events sent over the external transport, or null
+     * if events are sent as serialized objects.
+     * 
+     * @since 4.0
+     */
+    public EventCodec getEventCodec() {
+        return eventCodec;
+    }
+
+    /**
+     * Sets a codec used to encode outgoing and decode incoming external events. Must be
+     * set before the bridge is started. Subclasses that do not override
+     * {@link #sendExternalEncodedEvents(byte[])} still send the events one by one.
+     * 
+     * @since 4.0
+     */
+    public void setEventCodec(EventCodec eventCodec) {
+        this.eventCodec = eventCodec;
+    }
+
+    /**
+     * Returns a time in milliseconds during which local events are accumulated before
+     * being sent over the external transport as a single batch. Zero (the default) means
+     * that each event is sent immediately.
+     * 
+     * @since 4.0
+     */
+    public long getCoalescingWindow() {
+        return coalescingWindow;
+    }
+
+    /**
+     * Sets a time in milliseconds during which local events are accumulated before being
+     * sent. Must be set before the bridge is started.
+     * 
+     * @since 4.0
+     */
+    public void setCoalescingWindow(long coalescingWindow) {
+        this.coalescingWindow = coalescingWindow;
+    }
+
     /**
      * Returns true if the bridge is configured to receive local events from its internal
      * EventManager.
@@ -227,6 +294,10 @@ public abstract class EventBridge implements EventListener {
 
         if (receivesLocalEvents() && !localSubjects.isEmpty()) {
 
+            if (coalescingWindow > 0) {
+                coalescingTimer = new Timer("cayenne-bridge-" + externalSubject, true);
+            }
+
             listeners = new ArrayList<SubjectListener>(localSubjects.size());
 
             for (EventSubject subject : localSubjects) {
@@ -255,6 +326,20 @@ public abstract class EventBridge implements EventListener {
      */
     public void shutdown() throws Exception {
 
+        Timer timer;
+        synchronized (this) {
+            timer = coalescingTimer;
+            coalescingTimer = null;
+        }
+
+        // send whatever was accumulated before closing the transport. A timer task
+        // that is already running is not stopped by cancel(), but flushing here
+        // waits for it to finish sending.
+        if (timer != null) {
+            timer.cancel();
+            sendPendingEvents();
+        }
+
         this.externalEventSource = null;
 
         if (listeners != null && eventManager != null) {
@@ -305,11 +390,106 @@ public abstract class EventBridge implements EventListener {
         }
     }
 
+    /**
+     * Helper method intended to be called by subclasses to post events from a message
+     * encoded with this bridge {@link EventCodec}.
+     * 
+     * @since 4.0
+     */
+    protected void onExternalEncodedEvents(byte[] data) throws Exception {
+        for (CayenneEvent event : eventCodec.decode(data, localSubjects)) {
+            onExternalEvent(event);
+        }
+    }
+
     /**
      * Sends a Cayenne event over the transport supported by this bridge.
      */
     protected abstract void sendExternalEvent(CayenneEvent localEvent) throws Exception;
 
+    /**
+     * Sends a message produced by this bridge {@link EventCodec} over the transport
+     * supported by this bridge. Default implementation decodes the message and sends
+     * each event via {@link #sendExternalEvent(CayenneEvent)}, subclasses supporting
+     * binary messages should override it.
+     * 
+     * @since 4.0
+     */
+    protected void sendExternalEncodedEvents(byte[] data) throws Exception {
+        for (CayenneEvent event : eventCodec.decode(data, localSubjects)) {
+            sendExternalEvent(event);
+        }
+    }
+
+    /**
+     * Sends a batch of local events over the transport, encoding them as a single
+     * message if the bridge has an {@link EventCodec}.
+     * 
+     * @since 4.0
+     */
+    protected void sendExternalEvents(List<CayenneEvent> localEvents) throws Exception {
+        if (eventCodec != null) {
+            sendExternalEncodedEvents(eventCodec.encode(localEvents));
+        }
+        else {
+            for (CayenneEvent event : localEvents) {
+                sendExternalEvent(event);
+            }
+        }
+    }
+
+    void sendLocalEvent(CayenneEvent event) throws Exception {
+
+        if (coalescingWindow > 0) {
+            synchronized (this) {
+
+                // timer is null if the bridge is being shut down
+                if (coalescingTimer != null) {
+                    if (pendingEvents == null) {
+                        pendingEvents = new ArrayList<CayenneEvent>();
+
+                        // the first event in the window schedules the flush
+                        coalescingTimer.schedule(new TimerTask() {
+
+                            @Override
+                            public void run() {
+                                try {
+                                    sendPendingEvents();
+                                }
+                                catch (Exception e) {
+                                    // the timer thread must survive, so just log the
+                                    // lost events
+                                    logger.warn("Error sending coalesced events", e);
+                                }
+                            }
+                        }, coalescingWindow);
+                    }
+
+                    pendingEvents.add(event);
+                    return;
+                }
+            }
+        }
+
+        sendExternalEvents(Collections.singletonList(event));
+    }
+
+    void sendPendingEvents() throws Exception {
+
+        synchronized (sendLock) {
+            List<CayenneEvent> events;
+
+            synchronized (this) {
+                events = pendingEvents;
+                pendingEvents = null;
+            }
+
+            if (events != null) {
+                sendExternalEvents(events);
+            }
+        }
+    }
+
     final class SubjectListener {
 
         EventSubject subject;
@@ -335,7 +515,7 @@ public abstract class EventBridge implements EventListener {
                     event = clone;
                 }
 
-                sendExternalEvent(event);
+                sendLocalEvent(event);
             }
         }
     }
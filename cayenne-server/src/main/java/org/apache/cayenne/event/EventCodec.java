@@ -0,0 +1,47 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Converts Cayenne events to a compact transport-neutral binary form and back. An
+ * {@link EventBridge} configured with a codec sends a batch of events as a single
+ * encoded message instead of a Java-serialized event per message. All bridges connected
+ * to the same external subject must use compatible codecs.
+ * 
+ * @since 4.0
+ */
+public interface EventCodec {
+
+    /**
+     * Encodes a non-empty list of events as a single message. Implementations may merge
+     * events with the same subject.
+     */
+    byte[] encode(List<CayenneEvent> events) throws Exception;
+
+    /**
+     * Decodes events from a message produced by {@link #encode(List)}. Event subjects are
+     * resolved against the provided collection of local subjects; events with unknown
+     * subjects should be skipped.
+     */
+    List<CayenneEvent> decode(byte[] data, Collection<EventSubject> subjects)
+            throws Exception;
+}
@@ -22,6 +22,7 @@ package org.apache.cayenne.event;
 import java.io.Serializable;
 import java.util.Collection;
 
+import javax.jms.BytesMessage;
 import javax.jms.Message;
 import javax.jms.MessageFormatException;
 import javax.jms.MessageListener;
@@ -83,6 +84,14 @@ public class JMSBridge extends EventBridge implements MessageListener {
                 return;
             }
 
+            if (eventCodec != null && message instanceof BytesMessage) {
+                BytesMessage bytesMessage = (BytesMessage) message;
+                byte[] data = new byte[(int) bytesMessage.getBodyLength()];
+                bytesMessage.readBytes(data);
+                onExternalEncodedEvents(data);
+                return;
+            }
+
             if (!(message instanceof ObjectMessage)) {
                 return;
             }
@@ -239,6 +248,17 @@ public class JMSBridge extends EventBridge implements MessageListener {
         publisher.publish(message);
     }
 
+    /**
+     * @since 4.0
+     */
+    @Override
+    protected void sendExternalEncodedEvents(byte[] data) throws Exception {
+        BytesMessage message = sendSession.createBytesMessage();
+        message.writeBytes(data);
+        message.setObjectProperty(JMSBridge.VM_ID_PROPERRTY, JMSBridge.VM_ID);
+        publisher.publish(message);
+    }
+
     /**
      * Converts CayenneEvent to a serializable object that will be sent via JMS. Default
      * implementation simply returns the event, but subclasses can customize this
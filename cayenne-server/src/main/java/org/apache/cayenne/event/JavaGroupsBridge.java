@@ -97,6 +97,11 @@ public class JavaGroupsBridge extends EventBridge implements MessageListener {
      */
     public void receive(Message message) {
         try {
+            if (eventCodec != null) {
+                onExternalEncodedEvents(message.getBuffer());
+                return;
+            }
+
             CayenneEvent event = messageObjectToEvent((Serializable) message.getObject());
             if (event != null) {
 
@@ -183,6 +188,15 @@ public class JavaGroupsBridge extends EventBridge implements MessageListener {
         channel.send(message);
     }
 
+    /**
+     * @since 4.0
+     */
+    @Override
+    protected void sendExternalEncodedEvents(byte[] data) throws Exception {
+        Message message = new Message(null, null, data);
+        channel.send(message);
+    }
+
     /**
      * Converts CayenneEvent to a serializable object that will be sent via JMS. Default
      * implementation simply returns the event, but subclasses can customize this
@@ -230,6 +230,21 @@ public class XMPPBridge extends EventBridge {
         groupChat.sendMessage(message);
     }
 
+    /**
+     * @since 4.0
+     */
+    @Override
+    protected void sendExternalEncodedEvents(byte[] data) throws Exception {
+
+        Message message = groupChat.createMessage();
+        message.setBody(new String(Base64Codec.encodeBase64(data)));
+
+        // set thread to our session handle to be able to discard messages from self
+        message.setThread(sessionHandle);
+
+        groupChat.sendMessage(message);
+    }
+
     class XMPPListener implements PacketListener {
 
         public void processPacket(Packet packet) {
@@ -246,6 +261,14 @@ public class XMPPBridge extends EventBridge {
                     String payload = message.getBody();
 
                     try {
+                        if (eventCodec != null) {
+                            if (!Util.isEmptyString(payload)) {
+                                onExternalEncodedEvents(Base64Codec.decodeBase64(payload
+                                        .getBytes()));
+                            }
+                            return;
+                        }
+
                         Object event = deserializeFromString(payload);
                         if (event instanceof CayenneEvent) {
                             onExternalEvent((CayenneEvent) event);
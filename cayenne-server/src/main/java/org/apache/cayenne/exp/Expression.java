@@ -150,6 +150,14 @@ public abstract class Expression implements Serializable, XMLSerializable {
 	 */
 	public static final int BITWISE_RIGHT_SHIFT = 44;
 
+	/**
+	 * Interpreted as an aggregate function applied to a path, such as
+	 * COUNT(path).
+	 * 
+	 * @since 4.0
+	 */
+	public static final int AGGREGATE = 45;
+
 	protected int type;
 
 	/**
@@ -219,6 +227,8 @@ public abstract class Expression implements Serializable, XMLSerializable {
 			return "NOT LIKE";
 		case NOT_LIKE_IGNORE_CASE:
 			return "NOT LIKE IGNORE CASE";
+		case AGGREGATE:
+			return "AGGREGATE";
 		default:
 			return "other";
 		}
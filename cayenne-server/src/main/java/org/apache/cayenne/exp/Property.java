@@ -18,11 +18,26 @@
  ****************************************************************/
 package org.apache.cayenne.exp;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import org.apache.cayenne.exp.parser.ASTAggregate;
+import org.apache.cayenne.exp.parser.ASTBetween;
+import org.apache.cayenne.exp.parser.ASTEqual;
+import org.apache.cayenne.exp.parser.ASTFalse;
+import org.apache.cayenne.exp.parser.ASTGreater;
+import org.apache.cayenne.exp.parser.ASTGreaterOrEqual;
+import org.apache.cayenne.exp.parser.ASTIn;
+import org.apache.cayenne.exp.parser.ASTLess;
+import org.apache.cayenne.exp.parser.ASTLessOrEqual;
+import org.apache.cayenne.exp.parser.ASTList;
+import org.apache.cayenne.exp.parser.ASTNotEqual;
+import org.apache.cayenne.exp.parser.ASTNotIn;
 import org.apache.cayenne.exp.parser.ASTObjPath;
+import org.apache.cayenne.exp.parser.ASTPath;
+import org.apache.cayenne.exp.parser.ASTTrue;
 import org.apache.cayenne.query.Ordering;
 import org.apache.cayenne.query.PrefetchTreeNode;
 import org.apache.cayenne.query.SortOrder;
@@ -39,6 +54,12 @@ import org.apache.cayenne.reflect.PropertyUtils;
  * </p>
  * 
  * <p>
+ * A property can also represent an aggregate function applied to a path (see
+ * {@link #count()}, {@link #sum()}, etc.), to be used as a column of a
+ * SelectQuery, or in its HAVING qualifier.
+ * </p>
+ * 
+ * <p>
  * Instances of this class are immutable
  * </p>
  * 
@@ -46,18 +67,34 @@ import org.apache.cayenne.reflect.PropertyUtils;
  *            The type this property returns.
  * @since 4.0
  */
-public class Property<E> {
+public class Property<E> implements Serializable {
+
+    private static final long serialVersionUID = -4553498839296183298L;
 
     /**
      * Name of the property in the object
      */
     private final String name;
 
+    /**
+     * Aggregate function applied to the property, or null
+     */
+    private final AggregateFunction aggregate;
+
     /**
      * Constructs a new property with the given name.
      */
     public Property(String name) {
+        this(name, null);
+    }
+
+    /**
+     * Constructs a new property representing an aggregate function applied to
+     * the given path.
+     */
+    public Property(String name, AggregateFunction aggregate) {
         this.name = name;
+        this.aggregate = aggregate;
     }
 
     /**
@@ -67,14 +104,30 @@ public class Property<E> {
         return name;
     }
 
+    /**
+     * @return Aggregate function applied to this property, or null if this is
+     *         a plain property.
+     */
+    public AggregateFunction getAggregate() {
+        return aggregate;
+    }
+
+    /**
+     * @return true if this property represents an aggregate function.
+     */
+    public boolean isAggregate() {
+        return aggregate != null;
+    }
+
     @Override
     public int hashCode() {
-        return getName().hashCode();
+        return aggregate != null ? 31 * getName().hashCode() + aggregate.hashCode() : getName().hashCode();
     }
 
     @Override
     public boolean equals(Object obj) {
-        return obj instanceof Property && ((Property<?>) obj).getName().equals(getName());
+        return obj instanceof Property && ((Property<?>) obj).getName().equals(getName())
+                && ((Property<?>) obj).aggregate == aggregate;
     }
 
     /**
@@ -106,18 +159,72 @@ public class Property<E> {
         return name.endsWith("+");
     }
 
+    /**
+     * @return A property representing the number of non-null values of this
+     *         property. For a relationship, the number of related objects.
+     */
+    public Property<Long> count() {
+        return aggregate(AggregateFunction.COUNT);
+    }
+
+    /**
+     * @return A property representing the sum of the values of this property.
+     */
+    public Property<E> sum() {
+        return aggregate(AggregateFunction.SUM);
+    }
+
+    /**
+     * @return A property representing the average of the values of this
+     *         property. Note that some databases truncate the average of
+     *         integer values.
+     */
+    public Property<Double> avg() {
+        return aggregate(AggregateFunction.AVG);
+    }
+
+    /**
+     * @return A property representing the smallest value of this property.
+     */
+    public Property<E> min() {
+        return aggregate(AggregateFunction.MIN);
+    }
+
+    /**
+     * @return A property representing the largest value of this property.
+     */
+    public Property<E> max() {
+        return aggregate(AggregateFunction.MAX);
+    }
+
+    private <T> Property<T> aggregate(AggregateFunction function) {
+        if (aggregate != null) {
+            throw new IllegalStateException("Property '" + name + "' is already an aggregate");
+        }
+
+        return new Property<T>(name, function);
+    }
+
+    /**
+     * Returns a path expression for this property, taking aggregate function
+     * into account.
+     */
+    private ASTPath path() {
+        return aggregate != null ? new ASTAggregate(aggregate, name) : new ASTObjPath(name);
+    }
+
     /**
      * @return An expression representing null.
      */
     public Expression isNull() {
-        return ExpressionFactory.matchExp(getName(), null);
+        return new ASTEqual(path(), null);
     }
 
     /**
      * @return An expression representing a non-null value.
      */
     public Expression isNotNull() {
-        return ExpressionFactory.matchExp(getName(), null).notExp();
+        return new ASTEqual(path(), null).notExp();
     }
 
     /**
@@ -138,7 +245,7 @@ public class Property<E> {
      * @return An expression representing equality to a value.
      */
     public Expression eq(E value) {
-        return ExpressionFactory.matchExp(getName(), value);
+        return new ASTEqual(path(), value);
     }
 
     /**
@@ -146,14 +253,14 @@ public class Property<E> {
      *         (columns).
      */
     public Expression eq(Property<?> value) {
-        return ExpressionFactory.matchExp(getName(), new ASTObjPath(value.getName()));
+        return new ASTEqual(path(), new ASTObjPath(value.getName()));
     }
 
     /**
      * @return An expression representing inequality to a value.
      */
     public Expression ne(E value) {
-        return ExpressionFactory.noMatchExp(getName(), value);
+        return new ASTNotEqual(path(), value);
     }
 
     /**
@@ -161,7 +268,7 @@ public class Property<E> {
      *         (columns).
      */
     public Expression ne(Property<?> value) {
-        return ExpressionFactory.noMatchExp(getName(), new ASTObjPath(value.getName()));
+        return new ASTNotEqual(path(), new ASTObjPath(value.getName()));
     }
 
     /**
@@ -202,7 +309,7 @@ public class Property<E> {
      *            The upper bound.
      */
     public Expression between(E lower, E upper) {
-        return ExpressionFactory.betweenExp(getName(), lower, upper);
+        return new ASTBetween(path(), lower, upper);
     }
 
     /**
@@ -219,7 +326,7 @@ public class Property<E> {
             System.arraycopy(moreValues, 0, values, 1, moreValuesLength);
         }
 
-        return ExpressionFactory.inExp(getName(), values);
+        return new ASTIn(path(), new ASTList(values));
     }
 
     /**
@@ -237,14 +344,17 @@ public class Property<E> {
             System.arraycopy(moreValues, 0, values, 1, moreValuesLength);
         }
 
-        return ExpressionFactory.notInExp(getName(), values);
+        return new ASTNotIn(path(), new ASTList(values));
     }
 
     /**
      * @return An expression for finding objects with values in the given set.
      */
     public Expression in(Collection<E> values) {
-        return ExpressionFactory.inExp(getName(), values);
+        if (values.isEmpty()) {
+            return new ASTFalse();
+        }
+        return new ASTIn(path(), new ASTList(values));
     }
 
     /**
@@ -252,14 +362,17 @@ public class Property<E> {
      *         set.
      */
     public Expression nin(Collection<E> values) {
-        return ExpressionFactory.notInExp(getName(), values);
+        if (values.isEmpty()) {
+            return new ASTTrue();
+        }
+        return new ASTNotIn(path(), new ASTList(values));
     }
 
     /**
      * @return A greater than Expression.
      */
     public Expression gt(E value) {
-        return ExpressionFactory.greaterExp(getName(), value);
+        return new ASTGreater(path(), value);
     }
 
     /**
@@ -267,14 +380,14 @@ public class Property<E> {
      *         (columns).
      */
     public Expression gt(Property<?> value) {
-        return ExpressionFactory.greaterExp(getName(), new ASTObjPath(value.getName()));
+        return new ASTGreater(path(), new ASTObjPath(value.getName()));
     }
 
     /**
      * @return A greater than or equal to Expression.
      */
     public Expression gte(E value) {
-        return ExpressionFactory.greaterOrEqualExp(getName(), value);
+        return new ASTGreaterOrEqual(path(), value);
     }
 
     /**
@@ -282,14 +395,14 @@ public class Property<E> {
      *         attributes (columns).
      */
     public Expression gte(Property<?> value) {
-        return ExpressionFactory.greaterOrEqualExp(getName(), new ASTObjPath(value.getName()));
+        return new ASTGreaterOrEqual(path(), new ASTObjPath(value.getName()));
     }
 
     /**
      * @return A less than Expression.
      */
     public Expression lt(E value) {
-        return ExpressionFactory.lessExp(getName(), value);
+        return new ASTLess(path(), value);
     }
 
     /**
@@ -297,14 +410,14 @@ public class Property<E> {
      *         (columns).
      */
     public Expression lt(Property<?> value) {
-        return ExpressionFactory.lessExp(getName(), new ASTObjPath(value.getName()));
+        return new ASTLess(path(), new ASTObjPath(value.getName()));
     }
 
     /**
      * @return A less than or equal to Expression.
      */
     public Expression lte(E value) {
-        return ExpressionFactory.lessOrEqualExp(getName(), value);
+        return new ASTLessOrEqual(path(), value);
     }
 
     /**
@@ -312,7 +425,7 @@ public class Property<E> {
      *         attributes (columns).
      */
     public Expression lte(Property<?> value) {
-        return ExpressionFactory.lessOrEqualExp(getName(), new ASTObjPath(value.getName()));
+        return new ASTLessOrEqual(path(), new ASTObjPath(value.getName()));
     }
 
     /**
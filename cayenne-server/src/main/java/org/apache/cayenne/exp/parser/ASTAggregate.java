@@ -0,0 +1,111 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.exp.parser;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.cayenne.exp.AggregateFunction;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.ExpressionException;
+
+/**
+ * Aggregate function applied to an object path (or a DB path prefixed with
+ * "db:"), e.g. <code>COUNT(paintingArray)</code>. As aggregates are calculated
+ * over groups of rows, such expressions can only be translated to SQL and are
+ * not evaluated in memory.
+ * 
+ * @since 4.0
+ */
+public class ASTAggregate extends ASTPath {
+
+    protected AggregateFunction function;
+
+    ASTAggregate(int id) {
+        super(id);
+    }
+
+    public ASTAggregate(AggregateFunction function, Object path) {
+        // there's no node for aggregates in the parser grammar
+        super(ExpressionParserTreeConstants.JJTVOID);
+        this.function = function;
+        setPath(path);
+    }
+
+    public AggregateFunction getFunction() {
+        return function;
+    }
+
+    /**
+     * Returns an expression for the path this aggregate is applied to.
+     */
+    public Expression getPathExp() {
+        return path.startsWith(ASTDbPath.DB_PREFIX) ? new ASTDbPath(path.substring(ASTDbPath.DB_PREFIX.length()))
+                : new ASTObjPath(path);
+    }
+
+    @Override
+    protected Object evaluateNode(Object o) throws Exception {
+        throw new ExpressionException("Aggregate function %s(%s) can't be evaluated in memory", function, path);
+    }
+
+    /**
+     * Creates a copy of this expression node, without copying children.
+     */
+    @Override
+    public Expression shallowCopy() {
+        ASTAggregate copy = new ASTAggregate(id);
+        copy.function = function;
+        copy.path = path;
+        return copy;
+    }
+
+    @Override
+    public void appendAsEJBQL(List<Object> parameterAccumulator, Appendable out, String rootId) throws IOException {
+        out.append(function.name()).append('(');
+        getPathExp().appendAsEJBQL(parameterAccumulator, out, rootId);
+        out.append(')');
+    }
+
+    @Override
+    public void appendAsString(Appendable out) throws IOException {
+        out.append(function.name().toLowerCase()).append('(').append(path).append(')');
+    }
+
+    @Override
+    public String expName() {
+        return function.name();
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return super.equals(object) && function == ((ASTAggregate) object).function;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (path != null ? path.hashCode() : 0) + function.hashCode();
+    }
+
+    @Override
+    public int getType() {
+        return Expression.AGGREGATE;
+    }
+}
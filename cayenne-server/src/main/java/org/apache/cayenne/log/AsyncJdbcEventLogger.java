@@ -0,0 +1,475 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.apache.cayenne.access.translator.batch.BatchParameterBinding;
+import org.apache.cayenne.configuration.Constants;
+import org.apache.cayenne.configuration.RuntimeProperties;
+import org.apache.cayenne.conn.DataSourceInfo;
+import org.apache.cayenne.map.DbAttribute;
+
+/**
+ * A {@link JdbcEventLogger} decorator that moves message formatting and
+ * output to a background thread. When the delegate is loggable, each call is
+ * captured as a record holding the SQL, a copy of the bindings and the
+ * timings, and placed in a bounded queue. If the queue is full, the record is
+ * dropped and counted, so a slow log appender never blocks query execution.
+ * Query and connection errors are never dropped: if they don't fit in the
+ * queue, they are written in the calling thread.
+ * When the delegate is not loggable, calls are passed to it directly, as they
+ * are cheap in that case.
+ * <p>
+ * To enable, decorate the default logger in a custom module:
+ * 
+ * <pre>
+ * binder.decorate(JdbcEventLogger.class).after(AsyncJdbcEventLogger.class);
+ * </pre>
+ * 
+ * @since 4.0
+ */
+public class AsyncJdbcEventLogger implements JdbcEventLogger {
+
+    static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    protected JdbcEventLogger delegate;
+
+    private final BlockingQueue<LogRecord> queue;
+    private final AtomicLong droppedRecords;
+    private final Thread worker;
+    private volatile boolean stopped;
+    private long lastReportedDrops;
+
+    @Inject
+    public AsyncJdbcEventLogger(JdbcEventLogger delegate, RuntimeProperties runtimeProperties) {
+        this(delegate, runtimeProperties.getInt(Constants.SERVER_JDBC_LOGGER_QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE));
+    }
+
+    public AsyncJdbcEventLogger(JdbcEventLogger delegate, int queueSize) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<LogRecord>(queueSize > 0 ? queueSize : DEFAULT_QUEUE_SIZE);
+        this.droppedRecords = new AtomicLong();
+
+        this.worker = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                processRecords();
+            }
+        }, "cayenne-jdbc-logger");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Returns the total number of records dropped because the queue was full.
+     */
+    public long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    /**
+     * Stops the background thread, writing out records that are still queued.
+     */
+    @PreDestroy
+    public void shutdown() {
+        stopped = true;
+        worker.interrupt();
+
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        drain();
+    }
+
+    void processRecords() {
+        while (!stopped) {
+            LogRecord record;
+            try {
+                record = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            write(record);
+
+            if (queue.isEmpty()) {
+                reportDropped();
+            }
+        }
+    }
+
+    void drain() {
+        LogRecord record;
+        while ((record = queue.poll()) != null) {
+            write(record);
+        }
+
+        reportDropped();
+    }
+
+    private void write(LogRecord record) {
+        try {
+            record.writeTo(delegate);
+        } catch (RuntimeException e) {
+            // keep the thread alive, a broken message should not stop logging
+        }
+    }
+
+    private void reportDropped() {
+        long dropped = droppedRecords.get();
+        if (dropped > lastReportedDrops) {
+            delegate.log("*** log queue is full, dropped " + (dropped - lastReportedDrops) + " records.");
+            lastReportedDrops = dropped;
+        }
+    }
+
+    /**
+     * Queues a record for the background thread, dropping it if the queue is
+     * full. After shutdown records are written synchronously.
+     */
+    private void enqueue(LogRecord record) {
+        if (stopped) {
+            write(record);
+        } else if (!queue.offer(record)) {
+            droppedRecords.incrementAndGet();
+        }
+    }
+
+    /**
+     * Queues a record that must not be lost, writing it in the calling thread
+     * if the queue is full.
+     */
+    private void enqueueOrWrite(LogRecord record) {
+        if (stopped || !queue.offer(record)) {
+            write(record);
+        }
+    }
+
+    @Override
+    public void log(final String message) {
+        if (delegate.isLoggable()) {
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.log(message);
+                }
+            });
+        } else {
+            delegate.log(message);
+        }
+    }
+
+    @Override
+    public void logConnect(final String dataSource) {
+        if (delegate.isLoggable()) {
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logConnect(dataSource);
+                }
+            });
+        } else {
+            delegate.logConnect(dataSource);
+        }
+    }
+
+    @Override
+    public void logConnect(final String url, final String userName, final String password) {
+        if (delegate.isLoggable()) {
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logConnect(url, userName, password);
+                }
+            });
+        } else {
+            delegate.logConnect(url, userName, password);
+        }
+    }
+
+    @Override
+    public void logPoolCreated(final DataSourceInfo dsi) {
+        if (delegate.isLoggable()) {
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logPoolCreated(dsi);
+                }
+            });
+        } else {
+            delegate.logPoolCreated(dsi);
+        }
+    }
+
+    @Override
+    public void logConnectSuccess() {
+        if (delegate.isLoggable()) {
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logConnectSuccess();
+                }
+            });
+        } else {
+            delegate.logConnectSuccess();
+        }
+    }
+
+    @Override
+    public void logConnectFailure(final Throwable th) {
+        if (delegate.isLoggable()) {
+            enqueueOrWrite(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logConnectFailure(th);
+                }
+            });
+        } else {
+            delegate.logConnectFailure(th);
+        }
+    }
+
+    @Override
+    public void logGeneratedKey(final DbAttribute attribute, final Object value) {
+        if (delegate.isLoggable()) {
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logGeneratedKey(attribute, value);
+                }
+            });
+        } else {
+            delegate.logGeneratedKey(attribute, value);
+        }
+    }
+
+    @Override
+    public void logQuery(final String sql, List<?> params) {
+        if (delegate.isLoggable()) {
+            final List<?> paramsCopy = copy(params);
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logQuery(sql, paramsCopy);
+                }
+            });
+        } else {
+            delegate.logQuery(sql, params);
+        }
+    }
+
+    @Override
+    public void logQuery(final String sql, List<DbAttribute> attrs, List<?> params, final long time) {
+        if (delegate.isLoggable()) {
+            final List<DbAttribute> attrsCopy = copy(attrs);
+            final List<?> paramsCopy = copy(params);
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logQuery(sql, attrsCopy, paramsCopy, time);
+                }
+            });
+        } else {
+            delegate.logQuery(sql, attrs, params, time);
+        }
+    }
+
+    @Override
+    public void logQueryParameters(final String label, BatchParameterBinding[] bindings) {
+        if (delegate.isLoggable()) {
+
+            // bindings are reused by the translator for every batch row, so
+            // take a snapshot of the current values
+            final BatchParameterBinding[] bindingsCopy = new BatchParameterBinding[bindings.length];
+            for (int i = 0; i < bindings.length; i++) {
+                BatchParameterBinding copy = new BatchParameterBinding(bindings[i].getAttribute());
+                if (!bindings[i].isExcluded()) {
+                    copy.include(bindings[i].getStatementPosition(), bindings[i].getValue());
+                }
+                bindingsCopy[i] = copy;
+            }
+
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logQueryParameters(label, bindingsCopy);
+                }
+            });
+        } else {
+            delegate.logQueryParameters(label, bindings);
+        }
+    }
+
+    /**
+     * @deprecated since 4.0 in favor of
+     *             {@link #logQueryParameters(String, BatchParameterBinding[])}
+     */
+    @Deprecated
+    @Override
+    public void logQueryParameters(final String label, List<DbAttribute> attrs, List<Object> parameters,
+            final boolean isInserting) {
+        if (delegate.isLoggable()) {
+            final List<DbAttribute> attrsCopy = copy(attrs);
+            final List<Object> parametersCopy = copy(parameters);
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logQueryParameters(label, attrsCopy, parametersCopy, isInserting);
+                }
+            });
+        } else {
+            delegate.logQueryParameters(label, attrs, parameters, isInserting);
+        }
+    }
+
+    @Override
+    public void logSelectCount(int count, long time) {
+        logSelectCount(count, time, null);
+    }
+
+    @Override
+    public void logSelectCount(final int count, final long time, final String sql) {
+        if (delegate.isLoggable()) {
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logSelectCount(count, time, sql);
+                }
+            });
+        } else {
+            delegate.logSelectCount(count, time, sql);
+        }
+    }
+
+    @Override
+    public void logUpdateCount(final int count) {
+        if (delegate.isLoggable()) {
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logUpdateCount(count);
+                }
+            });
+        } else {
+            delegate.logUpdateCount(count);
+        }
+    }
+
+    @Override
+    public void logBeginTransaction(final String transactionLabel) {
+        if (delegate.isLoggable()) {
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logBeginTransaction(transactionLabel);
+                }
+            });
+        } else {
+            delegate.logBeginTransaction(transactionLabel);
+        }
+    }
+
+    @Override
+    public void logCommitTransaction(final String transactionLabel) {
+        if (delegate.isLoggable()) {
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logCommitTransaction(transactionLabel);
+                }
+            });
+        } else {
+            delegate.logCommitTransaction(transactionLabel);
+        }
+    }
+
+    @Override
+    public void logRollbackTransaction(final String transactionLabel) {
+        if (delegate.isLoggable()) {
+            enqueue(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logRollbackTransaction(transactionLabel);
+                }
+            });
+        } else {
+            delegate.logRollbackTransaction(transactionLabel);
+        }
+    }
+
+    @Override
+    public void logQueryError(final Throwable th) {
+        if (delegate.isLoggable()) {
+            enqueueOrWrite(new LogRecord() {
+
+                @Override
+                void writeTo(JdbcEventLogger logger) {
+                    logger.logQueryError(th);
+                }
+            });
+        } else {
+            delegate.logQueryError(th);
+        }
+    }
+
+    @Override
+    public boolean isLoggable() {
+        return delegate.isLoggable();
+    }
+
+    private static <T> List<T> copy(List<T> list) {
+        return list != null ? new ArrayList<T>(list) : null;
+    }
+
+    /**
+     * A log call captured for deferred execution.
+     */
+    static abstract class LogRecord {
+
+        abstract void writeTo(JdbcEventLogger logger);
+    }
+}
@@ -0,0 +1,138 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.log;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes a single statement captured by {@link SlowQueryDetector}.
+ * Parameter values are stored as printable strings, so that the record does
+ * not retain references to user objects or large LOBs.
+ * 
+ * @since 4.0
+ */
+public class SlowQuery {
+
+    private long timestamp;
+    private String nodeName;
+    private String queryType;
+    private String sql;
+    private List<String> parameters;
+    private int rowCount;
+    private long time;
+    private StackTraceElement caller;
+    private volatile String explainPlan;
+
+    public SlowQuery(long timestamp, String nodeName, String queryType, String sql, List<String> parameters,
+            int rowCount, long time, StackTraceElement caller) {
+        this.timestamp = timestamp;
+        this.nodeName = nodeName;
+        this.queryType = queryType;
+        this.sql = sql;
+        this.parameters = parameters != null ? Collections.unmodifiableList(parameters) : Collections
+                .<String> emptyList();
+        this.rowCount = rowCount;
+        this.time = time;
+        this.caller = caller;
+    }
+
+    /**
+     * Returns the time when the statement has finished, in milliseconds since
+     * the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    /**
+     * Returns a simple class name of the Query that produced the statement.
+     */
+    public String getQueryType() {
+        return queryType;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns a number of rows read or updated by the statement, or -1 if
+     * unknown.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns statement execution time in milliseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the first stack frame outside of Cayenne and JDK that triggered
+     * the statement, or null if it can't be determined.
+     */
+    public StackTraceElement getCaller() {
+        return caller;
+    }
+
+    /**
+     * Returns the execution plan of the statement or null if it wasn't
+     * requested, is not supported by the adapter or is not available yet.
+     */
+    public String getExplainPlan() {
+        return explainPlan;
+    }
+
+    void setExplainPlan(String explainPlan) {
+        this.explainPlan = explainPlan;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("[").append(time).append(" ms, ").append(rowCount).append(" rows, ").append(queryType);
+        if (nodeName != null) {
+            buffer.append(", node: ").append(nodeName);
+        }
+
+        if (caller != null) {
+            buffer.append(", at ").append(caller);
+        }
+
+        buffer.append("] ").append(sql);
+
+        if (!parameters.isEmpty()) {
+            buffer.append(" ").append(parameters);
+        }
+
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,300 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.jdbc.ParameterBinding;
+import org.apache.cayenne.configuration.Constants;
+import org.apache.cayenne.configuration.RuntimeProperties;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.dba.TypesMapping;
+import org.apache.cayenne.query.Query;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Records statements that run longer than a configured threshold in a
+ * bounded buffer that can be inspected at runtime, and logs them as warnings.
+ * Unlike full SQL logging, the detector only does extra work for statements
+ * that are actually slow. If enabled, it also captures an execution plan of
+ * slow selects using {@link DbAdapter#createExplainSql(String)}. The plan is
+ * obtained asynchronously on a separate connection, so it never delays the
+ * calling thread.
+ * 
+ * @since 4.0
+ */
+public class SlowQueryDetector {
+
+    private static final Log logger = LogFactory.getLog(SlowQueryDetector.class);
+
+    static final int DEFAULT_BUFFER_SIZE = 100;
+    private static final int TRIM_VALUES_THRESHOLD = 30;
+
+    protected volatile long threshold;
+    protected volatile boolean explaining;
+
+    private final SlowQuery[] buffer;
+    private int next;
+    private int size;
+
+    private ExecutorService explainExecutor;
+
+    @Inject
+    public SlowQueryDetector(RuntimeProperties runtimeProperties) {
+        this(runtimeProperties.getLong(Constants.SERVER_SLOW_QUERY_THRESHOLD_PROPERTY, 0), runtimeProperties.getInt(
+                Constants.SERVER_SLOW_QUERY_BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE), runtimeProperties.getBoolean(
+                Constants.SERVER_SLOW_QUERY_EXPLAIN_PROPERTY, false));
+    }
+
+    public SlowQueryDetector(long threshold, int bufferSize, boolean explaining) {
+        this.threshold = threshold;
+        this.explaining = explaining;
+        this.buffer = new SlowQuery[bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Returns true if the detector is enabled and a statement that took a
+     * given number of milliseconds should be reported.
+     */
+    public boolean isSlow(long elapsedMillis) {
+        long threshold = this.threshold;
+        return threshold > 0 && elapsedMillis >= threshold;
+    }
+
+    /**
+     * Records a slow statement. Callers are expected to check
+     * {@link #isSlow(long)} first.
+     * 
+     * @param rowCount
+     *            number of rows read or updated, or -1 if unknown.
+     * @param select
+     *            whether the statement is a select, i.e. whether its
+     *            execution plan can be safely requested.
+     */
+    public SlowQuery report(DataNode node, Query query, String sql, ParameterBinding[] bindings, int rowCount,
+            long elapsedMillis, boolean select) {
+
+        List<String> parameters = new ArrayList<String>(bindings != null ? bindings.length : 0);
+        if (bindings != null) {
+            for (ParameterBinding binding : bindings) {
+                parameters.add(printableValue(binding.getValue()));
+            }
+        }
+
+        SlowQuery slowQuery = new SlowQuery(System.currentTimeMillis(), node != null ? node.getName() : null,
+                query != null ? query.getClass().getSimpleName() : null, sql, parameters, rowCount, elapsedMillis,
+                findCaller());
+
+        synchronized (buffer) {
+            buffer[next] = slowQuery;
+            next = (next + 1) % buffer.length;
+            if (size < buffer.length) {
+                size++;
+            }
+        }
+
+        logger.warn("*** slow query: " + slowQuery);
+
+        if (select && explaining && node != null && node.getAdapter() != null) {
+            String explainSql = node.getAdapter().createExplainSql(sql);
+            if (explainSql != null) {
+                explainLater(node, slowQuery, explainSql, bindings);
+            }
+        }
+
+        return slowQuery;
+    }
+
+    /**
+     * Returns a snapshot of the recorded slow queries, most recent first.
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (buffer) {
+            List<SlowQuery> result = new ArrayList<SlowQuery>(size);
+            for (int i = 1; i <= size; i++) {
+                result.add(buffer[(next - i + buffer.length) % buffer.length]);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Discards all recorded slow queries.
+     */
+    public void clear() {
+        synchronized (buffer) {
+            for (int i = 0; i < buffer.length; i++) {
+                buffer[i] = null;
+            }
+            next = 0;
+            size = 0;
+        }
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Sets a minimum statement time in milliseconds that is considered slow. A
+     * value less than or equal to zero disables the detector.
+     */
+    public void setThreshold(long threshold) {
+        this.threshold = threshold;
+    }
+
+    public boolean isExplaining() {
+        return explaining;
+    }
+
+    public void setExplaining(boolean explaining) {
+        this.explaining = explaining;
+    }
+
+    /**
+     * Stops a thread used to obtain execution plans, if it was started.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (explainExecutor != null) {
+            explainExecutor.shutdownNow();
+            explainExecutor = null;
+        }
+    }
+
+    protected synchronized void explainLater(final DataNode node, final SlowQuery slowQuery, final String explainSql,
+            final ParameterBinding[] bindings) {
+
+        if (explainExecutor == null) {
+            explainExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "cayenne-slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        explainExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    slowQuery.setExplainPlan(explain(node, explainSql, bindings));
+                } catch (Exception e) {
+                    logger.debug("Error obtaining execution plan for " + explainSql, e);
+                }
+            }
+        });
+    }
+
+    protected String explain(DataNode node, String explainSql, ParameterBinding[] bindings) throws Exception {
+        DbAdapter adapter = node.getAdapter();
+        Connection connection = node.getDataSource().getConnection();
+        try {
+            PreparedStatement statement = connection.prepareStatement(explainSql);
+            try {
+                if (bindings != null) {
+                    for (int i = 0; i < bindings.length; i++) {
+                        ParameterBinding binding = bindings[i];
+                        if (binding.getJdbcType() == TypesMapping.NOT_DEFINED) {
+                            statement.setObject(i + 1, binding.getValue());
+                        } else {
+                            adapter.bindParameter(statement, binding.getValue(), i + 1, binding.getJdbcType(),
+                                    binding.getScale());
+                        }
+                    }
+                }
+
+                ResultSet rs = statement.executeQuery();
+                try {
+                    ResultSetMetaData md = rs.getMetaData();
+                    int columns = md.getColumnCount();
+                    StringBuilder plan = new StringBuilder();
+                    while (rs.next()) {
+                        if (plan.length() > 0) {
+                            plan.append('\n');
+                        }
+
+                        for (int i = 1; i <= columns; i++) {
+                            if (i > 1) {
+                                plan.append(" | ");
+                            }
+                            plan.append(rs.getString(i));
+                        }
+                    }
+                    return plan.toString();
+                } finally {
+                    rs.close();
+                }
+            } finally {
+                statement.close();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Returns the first stack frame that belongs to the application code.
+     */
+    StackTraceElement findCaller() {
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            String className = element.getClassName();
+            if (!className.startsWith("org.apache.cayenne.") && !className.startsWith("java.")
+                    && !className.startsWith("javax.") && !className.startsWith("sun.")) {
+                return element;
+            }
+        }
+
+        return null;
+    }
+
+    String printableValue(Object value) {
+        if (value == null) {
+            return "NULL";
+        } else if (value instanceof byte[]) {
+            return "< binary " + ((byte[]) value).length + " bytes >";
+        } else if (value instanceof char[]) {
+            return "< char " + ((char[]) value).length + " chars >";
+        }
+
+        String string = String.valueOf(value);
+        if (string.length() > TRIM_VALUES_THRESHOLD) {
+            string = string.substring(0, TRIM_VALUES_THRESHOLD) + "...";
+        }
+
+        return value instanceof String ? "'" + string + "'" : string;
+    }
+}
@@ -842,6 +842,9 @@ public class MapLoader extends DefaultHandler {
         String readOnly = atts.getValue("", "readOnly");
         objEntity.setReadOnly(TRUE.equalsIgnoreCase(readOnly));
 
+        String sharedReadOnly = atts.getValue("", "sharedReadOnly");
+        objEntity.setSharedReadOnly(TRUE.equalsIgnoreCase(sharedReadOnly));
+
         String serverOnly = atts.getValue("", "serverOnly");
         objEntity.setServerOnly(TRUE.equalsIgnoreCase(serverOnly));
 
@@ -879,10 +882,12 @@ public class MapLoader extends DefaultHandler {
         String type = atts.getValue("", "type");
 
         String lock = atts.getValue("", "lock");
+        String lazy = atts.getValue("", "lazy");
 
         ObjAttribute oa = new ObjAttribute(name);
         oa.setType(type);
         oa.setUsedForLocking(TRUE.equalsIgnoreCase(lock));
+        oa.setLazy(TRUE.equalsIgnoreCase(lazy));
         objEntity.addAttribute(oa);
         String dbPath = atts.getValue("", "db-attribute-path");
         if (dbPath == null) {
@@ -36,6 +36,7 @@ public class ObjAttribute extends Attribute implements ConfigurationNode {
 
     protected String type;
     protected boolean usedForLocking;
+    protected boolean lazy;
     protected String dbAttributePath;
 
     public ObjAttribute() {
@@ -62,6 +63,7 @@ public class ObjAttribute extends Attribute implements ConfigurationNode {
         setEntity(attribute.getEntity());
         setDbAttributePath(attribute.getDbAttributePath());
         setUsedForLocking(attribute.isUsedForLocking());
+        setLazy(attribute.isLazy());
     }
 
     @Override
@@ -112,6 +114,10 @@ public class ObjAttribute extends Attribute implements ConfigurationNode {
             encoder.print(" lock=\"true\"");
         }
 
+        if (isLazy()) {
+            encoder.print(" lazy=\"true\"");
+        }
+
         // If this obj attribute is mapped to db attribute
         if (getDbAttribute() != null
                 || (((ObjEntity) getEntity()).isAbstract() && !Util.isEmptyString(getDbAttributePath()))) {
@@ -169,6 +175,30 @@ public class ObjAttribute extends Attribute implements ConfigurationNode {
         this.usedForLocking = usedForLocking;
     }
 
+    /**
+     * Returns whether this attribute is loaded lazily. A lazy attribute is
+     * not fetched together with the rest of the object, and its value is
+     * initially a fault. On first access the fault is resolved with a single
+     * query for all objects of the same entity in the ObjectContext whose
+     * attribute is still unresolved. This is useful for large columns, such as
+     * BLOBs and CLOBs, that are rarely read. Lazy attributes are not used for
+     * optimistic locking.
+     * 
+     * @since 4.0
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Sets whether this attribute is loaded lazily.
+     * 
+     * @since 4.0
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
     /**
      * Returns a DbAttribute mapped by this ObjAttribute.
      */
@@ -75,6 +75,11 @@ public class ObjEntity extends Entity implements ObjEntityListener, Configuratio
     protected String superEntityName;
     protected Expression qualifier;
     protected boolean readOnly;
+
+    /**
+     * @since 4.0
+     */
+    protected boolean sharedReadOnly;
     protected int lockType;
 
     protected boolean _abstract;
@@ -152,6 +157,10 @@ public class ObjEntity extends Entity implements ObjEntityListener, Configuratio
             encoder.print("\" readOnly=\"true");
         }
 
+        if (isSharedReadOnly()) {
+            encoder.print("\" sharedReadOnly=\"true");
+        }
+
         if (getDeclaredLockType() == LOCK_TYPE_OPTIMISTIC) {
             encoder.print("\" lock-type=\"optimistic");
         }
@@ -979,6 +988,25 @@ public class ObjEntity extends Entity implements ObjEntityListener, Configuratio
         this.readOnly = readOnly;
     }
 
+    /**
+     * Returns true if objects of this entity are immutable and a single copy
+     * of each object is shared by all ObjectContexts of the runtime. Such
+     * objects are not registered with each context, and can't be modified.
+     * This is intended for small lookup tables that rarely change.
+     * 
+     * @since 4.0
+     */
+    public boolean isSharedReadOnly() {
+        return sharedReadOnly;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public void setSharedReadOnly(boolean sharedReadOnly) {
+        this.sharedReadOnly = sharedReadOnly;
+    }
+
     /**
      * Returns true if this entity directly or indirectly inherits from a given
      * entity, false otherwise.
@@ -0,0 +1,131 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.metrics;
+
+/**
+ * A service that receives timings, counters and gauges from the Cayenne stack.
+ * Implementations would normally forward the numbers to a metrics library
+ * that maintains latency histograms. Each measurement is tagged with an
+ * optional entity name and an optional type (e.g. a query type), either of
+ * which can be null. The default implementation is
+ * {@link NoopMetricsRecorder}, that discards all measurements. A custom
+ * recorder can be installed by binding it in a custom DI module.
+ * <p>
+ * Recorder methods are invoked on the threads executing the measured
+ * operations, often while holding internal locks, so they must be thread-safe
+ * and return quickly.
+ * 
+ * @since 4.0
+ */
+public interface MetricsRecorder {
+
+    /**
+     * Time to execute a select query and read its result, tagged by the root
+     * entity and the query type.
+     */
+    String QUERY_TIME = "cayenne.query.time";
+
+    /**
+     * Time to execute a batch, tagged by the DbEntity and the batch type.
+     */
+    String BATCH_TIME = "cayenne.batch.time";
+
+    /**
+     * Time to flush committed changes to the database, from sorting the
+     * changes to updating the snapshot cache.
+     */
+    String COMMIT_TIME = "cayenne.commit.time";
+
+    /**
+     * Time a caller spent obtaining a connection from a connection pool.
+     */
+    String POOL_WAIT_TIME = "cayenne.pool.wait_time";
+
+    /**
+     * A gauge of the number of connections in use in a connection pool.
+     */
+    String POOL_ACTIVE = "cayenne.pool.active";
+
+    /**
+     * A gauge of the number of idle connections in a connection pool.
+     */
+    String POOL_IDLE = "cayenne.pool.idle";
+
+    /**
+     * A query cache lookup that found a cached result, tagged by entity.
+     */
+    String QUERY_CACHE_HIT = "cayenne.query_cache.hit";
+
+    /**
+     * A query cache lookup that found no cached result, tagged by entity.
+     */
+    String QUERY_CACHE_MISS = "cayenne.query_cache.miss";
+
+    /**
+     * A query cache entry removed to free space for a new entry.
+     */
+    String QUERY_CACHE_EVICTION = "cayenne.query_cache.eviction";
+
+    /**
+     * A snapshot cache lookup that found a snapshot, tagged by entity.
+     */
+    String SNAPSHOT_CACHE_HIT = "cayenne.snapshot_cache.hit";
+
+    /**
+     * A snapshot cache lookup that found no snapshot, tagged by entity.
+     */
+    String SNAPSHOT_CACHE_MISS = "cayenne.snapshot_cache.miss";
+
+    /**
+     * A snapshot removed from a full snapshot cache, tagged by entity.
+     */
+    String SNAPSHOT_CACHE_EVICTION = "cayenne.snapshot_cache.eviction";
+
+    /**
+     * Time to resolve a page of a paginated query result, tagged by entity.
+     */
+    String PAGE_FAULT_TIME = "cayenne.paginated_list.fault_time";
+
+    /**
+     * Time to resolve a relationship fault, tagged by the source entity and
+     * the relationship name.
+     */
+    String RELATIONSHIP_FAULT_TIME = "cayenne.relationship.fault_time";
+
+    /**
+     * Returns whether this recorder keeps measurements. The stack may skip
+     * collecting a measurement if this method returns false.
+     */
+    boolean isEnabled();
+
+    /**
+     * Records the duration of an operation in nanoseconds.
+     */
+    void recordTime(String metric, String entity, String type, long nanos);
+
+    /**
+     * Increments a counter by one.
+     */
+    void incrementCounter(String metric, String entity, String type);
+
+    /**
+     * Records the current value of a gauge.
+     */
+    void recordValue(String metric, String entity, String type, long value);
+}
@@ -47,6 +47,7 @@ class BaseQueryMetadata implements QueryMetadata, XMLSerializable, Serializable
     int fetchOffset = QueryMetadata.FETCH_OFFSET_DEFAULT;
 
     int statementFetchSize = QueryMetadata.FETCH_OFFSET_DEFAULT;
+    int queryTimeout = QueryMetadata.QUERY_TIMEOUT_DEFAULT;
 
     int pageSize = QueryMetadata.PAGE_SIZE_DEFAULT;
     boolean fetchingDataRows = QueryMetadata.FETCHING_DATA_ROWS_DEFAULT;
@@ -62,6 +63,7 @@ class BaseQueryMetadata implements QueryMetadata, XMLSerializable, Serializable
     transient Object lastRoot;
     transient ClassDescriptor classDescriptor;
     transient EntityResolver lastEntityResolver;
+    transient QueryCancelHandle cancelHandle;
 
     /**
      * Copies values of another QueryMetadata object to this object.
@@ -80,6 +82,8 @@ class BaseQueryMetadata implements QueryMetadata, XMLSerializable, Serializable
         this.cacheKey = info.getCacheKey();
         this.cacheGroups = info.getCacheGroups();
         this.resultSetMapping = info.getResultSetMapping();
+        this.queryTimeout = info.getQueryTimeout();
+        this.cancelHandle = info.getCancelHandle();
 
         setPrefetchTree(info.getPrefetchTree());
     }
@@ -163,6 +167,7 @@ class BaseQueryMetadata implements QueryMetadata, XMLSerializable, Serializable
         Object fetchLimit = properties.get(QueryMetadata.FETCH_LIMIT_PROPERTY);
         Object pageSize = properties.get(QueryMetadata.PAGE_SIZE_PROPERTY);
         Object statementFetchSize = properties.get(QueryMetadata.STATEMENT_FETCH_SIZE_PROPERTY);
+        Object queryTimeout = properties.get(QueryMetadata.QUERY_TIMEOUT_PROPERTY);
         Object fetchingDataRows = properties.get(QueryMetadata.FETCHING_DATA_ROWS_PROPERTY);
 
         Object cacheStrategy = properties.get(QueryMetadata.CACHE_STRATEGY_PROPERTY);
@@ -181,6 +186,9 @@ class BaseQueryMetadata implements QueryMetadata, XMLSerializable, Serializable
         this.statementFetchSize = (statementFetchSize != null) ? Integer.parseInt(statementFetchSize.toString())
                 : QueryMetadata.STATEMENT_FETCH_SIZE_DEFAULT;
 
+        this.queryTimeout = (queryTimeout != null) ? Integer.parseInt(queryTimeout.toString())
+                : QueryMetadata.QUERY_TIMEOUT_DEFAULT;
+
         this.fetchingDataRows = (fetchingDataRows != null) ? "true".equalsIgnoreCase(fetchingDataRows.toString())
                 : QueryMetadata.FETCHING_DATA_ROWS_DEFAULT;
 
@@ -225,6 +233,10 @@ class BaseQueryMetadata implements QueryMetadata, XMLSerializable, Serializable
             encoder.printProperty(QueryMetadata.STATEMENT_FETCH_SIZE_PROPERTY, statementFetchSize);
         }
 
+        if (queryTimeout != QueryMetadata.QUERY_TIMEOUT_DEFAULT) {
+            encoder.printProperty(QueryMetadata.QUERY_TIMEOUT_PROPERTY, queryTimeout);
+        }
+
         if (prefetchTree != null) {
             prefetchTree.encodeAsXML(encoder);
         }
@@ -408,6 +420,36 @@ class BaseQueryMetadata implements QueryMetadata, XMLSerializable, Serializable
         return statementFetchSize;
     }
 
+    /**
+     * Sets statement timeout in seconds (0 for the DataNode default).
+     * 
+     * @since 4.0
+     */
+    void setQueryTimeout(int timeout) {
+        this.queryTimeout = timeout;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * @since 4.0
+     */
+    void setCancelHandle(QueryCancelHandle cancelHandle) {
+        this.cancelHandle = cancelHandle;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public QueryCancelHandle getCancelHandle() {
+        return cancelHandle;
+    }
+
     /**
      * Adds a joint prefetch.
      * 
@@ -22,6 +22,7 @@ package org.apache.cayenne.query;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.configuration.ConfigurationNodeVisitor;
 import org.apache.cayenne.map.DataMap;
 import org.apache.cayenne.map.DbAttribute;
@@ -35,7 +36,7 @@ import org.apache.cayenne.map.EntityResolver;
  * values.
  * 
  */
-public abstract class BatchQuery implements Query {
+public abstract class BatchQuery implements Query, Cloneable {
 
     /**
      * @since 1.2
@@ -72,6 +73,22 @@ public abstract class BatchQuery implements Query {
         return rows;
     }
 
+    /**
+     * Creates a copy of this query that contains a subset of its rows. Used to
+     * split a batch between several DataNodes.
+     * 
+     * @since 4.0
+     */
+    public BatchQuery createSubBatch(List<BatchQueryRow> rows) {
+        try {
+            BatchQuery copy = (BatchQuery) super.clone();
+            copy.rows = rows;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new CayenneRuntimeException("Can't copy batch query", e);
+        }
+    }
+
     @Override
     public <T> T acceptVisitor(ConfigurationNodeVisitor<T> visitor) {
         return visitor.visitQuery(this);
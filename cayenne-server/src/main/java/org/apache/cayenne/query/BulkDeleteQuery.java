@@ -0,0 +1,44 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.query;
+
+import org.apache.cayenne.exp.Expression;
+
+/**
+ * A query that deletes all rows of the root entity matching a qualifier with a
+ * single DELETE statement. Delete rules and lifecycle callbacks are not
+ * applied, so the rows referencing the deleted rows must be taken care of by
+ * the caller or by the database.
+ * 
+ * @since 4.0
+ */
+public class BulkDeleteQuery<T> extends BulkQuery {
+
+    public BulkDeleteQuery(Class<T> rootClass) {
+        this(rootClass, null);
+    }
+
+    public BulkDeleteQuery(Class<T> rootClass, Expression qualifier) {
+        super(rootClass, qualifier);
+    }
+
+    public BulkDeleteQuery(String entityName, Expression qualifier) {
+        super(entityName, qualifier);
+    }
+}
@@ -0,0 +1,119 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.query;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.exp.Expression;
+
+/**
+ * A superclass of the queries that update or delete all rows of the root
+ * entity matching a qualifier with a single SQL statement, without fetching
+ * the objects. After the statement is executed, Cayenne invalidates the cached
+ * snapshots of the affected entity, so that the objects are refetched on next
+ * access, and removes the query cache groups configured for the query.
+ * <p>
+ * By default, all cached snapshots of the root entity and the entities that
+ * share its table are invalidated. If the query is "preselecting ids", the ids
+ * of the matching rows are fetched in the same transaction before the
+ * statement is run, and only the snapshots with these ids are invalidated.
+ * This is cheaper when a qualifier matches a few rows of a big cache.
+ *
+ * @since 4.0
+ */
+public abstract class BulkQuery extends AbstractQuery {
+
+    protected Expression qualifier;
+    protected boolean preselectingIds;
+    protected String[] cacheGroups;
+
+    protected BulkQuery(Object root, Expression qualifier) {
+        setRoot(root);
+        this.qualifier = qualifier;
+    }
+
+    /**
+     * Runs the query in a given context, returning the number of updated or
+     * deleted rows.
+     */
+    public int execute(ObjectContext context) {
+        QueryResponse response = context.performGenericQuery(this);
+
+        int count = 0;
+        for (response.reset(); response.next();) {
+            if (!response.isList()) {
+                for (int c : response.currentUpdateCount()) {
+                    count += c;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns a qualifier of the rows affected by this query. If null, the
+     * query affects all rows of the root entity.
+     */
+    public Expression getQualifier() {
+        return qualifier;
+    }
+
+    public void setQualifier(Expression qualifier) {
+        this.qualifier = qualifier;
+    }
+
+    /**
+     * Adds the specified qualifier to the existing qualifier joining it using
+     * "AND".
+     */
+    public void andQualifier(Expression e) {
+        qualifier = (qualifier != null) ? qualifier.andExp(e) : e;
+    }
+
+    /**
+     * Returns whether the ids of the affected rows are fetched before the
+     * statement is run to invalidate just the matching snapshots. By default
+     * all snapshots of the root entity are invalidated.
+     */
+    public boolean isPreselectingIds() {
+        return preselectingIds;
+    }
+
+    public void setPreselectingIds(boolean preselectingIds) {
+        this.preselectingIds = preselectingIds;
+    }
+
+    /**
+     * Returns the names of the query cache groups removed from the cache after
+     * the query is run.
+     */
+    public String[] getCacheGroups() {
+        return cacheGroups != null ? cacheGroups : new String[0];
+    }
+
+    public void setCacheGroups(String... cacheGroups) {
+        this.cacheGroups = cacheGroups;
+    }
+
+    @Override
+    public SQLAction createSQLAction(SQLActionVisitor visitor) {
+        return visitor.bulkAction(this);
+    }
+}
@@ -0,0 +1,80 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.query;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.Property;
+
+/**
+ * A query that updates all rows of the root entity matching a qualifier with a
+ * single UPDATE statement, e.g.:
+ * 
+ * <pre>
+ * int updated = new BulkUpdateQuery&lt;Artist&gt;(Artist.class, Artist.ARTIST_NAME.like(&quot;A%&quot;))
+ *         .set(Artist.DATE_OF_BIRTH, null).execute(context);
+ * </pre>
+ * 
+ * Only the attributes stored in the root table can be assigned, either via
+ * ObjAttribute properties or "db:" properties. The qualifier may reference
+ * related entities.
+ * 
+ * @since 4.0
+ */
+public class BulkUpdateQuery<T> extends BulkQuery {
+
+    protected Map<Property<?>, Object> values;
+
+    public BulkUpdateQuery(Class<T> rootClass) {
+        this(rootClass, null);
+    }
+
+    public BulkUpdateQuery(Class<T> rootClass, Expression qualifier) {
+        super(rootClass, qualifier);
+        this.values = new LinkedHashMap<Property<?>, Object>();
+    }
+
+    public BulkUpdateQuery(String entityName, Expression qualifier) {
+        super(entityName, qualifier);
+        this.values = new LinkedHashMap<Property<?>, Object>();
+    }
+
+    /**
+     * Adds an assignment of a value to the column of the property. Assignments
+     * are appended to the SET clause in the order they were added.
+     */
+    public <E> BulkUpdateQuery<T> set(Property<E> property, E value) {
+        if (property.isAggregate()) {
+            throw new IllegalArgumentException("Can't assign a value to an aggregate property: " + property);
+        }
+
+        values.put(property, value);
+        return this;
+    }
+
+    /**
+     * Returns the assignments of this query, in the order they were added.
+     */
+    public Map<Property<?>, Object> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+}
@@ -134,4 +134,12 @@ class DefaultQueryMetadata implements QueryMetadata {
     public int getStatementFetchSize() {
         return QueryMetadata.STATEMENT_FETCH_SIZE_DEFAULT;
     }
+
+    public int getQueryTimeout() {
+        return QueryMetadata.QUERY_TIMEOUT_DEFAULT;
+    }
+
+    public QueryCancelHandle getCancelHandle() {
+        return null;
+    }
 }
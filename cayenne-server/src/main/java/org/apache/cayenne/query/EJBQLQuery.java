@@ -319,6 +319,40 @@ public class EJBQLQuery implements Query, XMLSerializable {
     public int getStatementFetchSize() {
         return metadata.getStatementFetchSize();
     }
+
+    /**
+     * Sets the number of seconds a statement of this query is allowed to run
+     * before it is cancelled by the JDBC driver (0 for the DataNode default).
+     * 
+     * @since 4.0
+     */
+    public void setQueryTimeout(int seconds) {
+        metadata.setQueryTimeout(seconds);
+    }
+
+    /**
+     * @since 4.0
+     */
+    public int getQueryTimeout() {
+        return metadata.getQueryTimeout();
+    }
+
+    /**
+     * Sets a handle that can cancel this query from another thread while it is
+     * running.
+     * 
+     * @since 4.0
+     */
+    public void setCancelHandle(QueryCancelHandle cancelHandle) {
+        metadata.setCancelHandle(cancelHandle);
+    }
+
+    /**
+     * @since 4.0
+     */
+    public QueryCancelHandle getCancelHandle() {
+        return metadata.getCancelHandle();
+    }
     
     
 }
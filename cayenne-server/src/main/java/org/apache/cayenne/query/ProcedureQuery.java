@@ -532,4 +532,38 @@ public class ProcedureQuery extends AbstractQuery implements ParameterizedQuery,
     public int getStatementFetchSize() {
         return metaData.getStatementFetchSize();
     }
+
+    /**
+     * Sets the number of seconds a statement of this query is allowed to run
+     * before it is cancelled by the JDBC driver (0 for the DataNode default).
+     * 
+     * @since 4.0
+     */
+    public void setQueryTimeout(int seconds) {
+        metaData.setQueryTimeout(seconds);
+    }
+
+    /**
+     * @since 4.0
+     */
+    public int getQueryTimeout() {
+        return metaData.getQueryTimeout();
+    }
+
+    /**
+     * Sets a handle that can cancel this query from another thread while it is
+     * running.
+     * 
+     * @since 4.0
+     */
+    public void setCancelHandle(QueryCancelHandle cancelHandle) {
+        metaData.setCancelHandle(cancelHandle);
+    }
+
+    /**
+     * @since 4.0
+     */
+    public QueryCancelHandle getCancelHandle() {
+        return metaData.getCancelHandle();
+    }
 }
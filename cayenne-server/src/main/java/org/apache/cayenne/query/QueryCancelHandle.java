@@ -0,0 +1,129 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.query;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ResultIterator;
+
+/**
+ * A handle that cancels a running query from another thread. A handle is
+ * assigned to a query before it is executed, e.g. via
+ * {@link SelectQuery#setCancelHandle(QueryCancelHandle)}, and then
+ * {@link #cancel()} can be called by any thread. Cancelling calls
+ * {@link Statement#cancel()} for the statements being executed and closes the
+ * result iterators open for the query, releasing their connections. Once
+ * cancelled, a handle stays cancelled, and the queries that use it fail
+ * before executing any statements.
+ * 
+ * @since 4.0
+ */
+public class QueryCancelHandle {
+
+    private final Set<Statement> statements;
+    private final Set<ResultIterator<?>> iterators;
+    private volatile boolean cancelled;
+
+    public QueryCancelHandle() {
+        this.statements = Collections.newSetFromMap(new ConcurrentHashMap<Statement, Boolean>());
+        this.iterators = Collections.newSetFromMap(new ConcurrentHashMap<ResultIterator<?>, Boolean>());
+    }
+
+    /**
+     * Cancels the running statements and closes the open result iterators of
+     * the queries using this handle.
+     */
+    public void cancel() {
+        cancelled = true;
+
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // the statement may have finished or been closed meanwhile
+            }
+        }
+
+        for (ResultIterator<?> iterator : iterators) {
+            try {
+                iterator.close();
+            } catch (CayenneRuntimeException e) {
+                // closing is best effort, the iterator may have been closed
+                // by its owner meanwhile
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers a statement that is about to be executed.
+     * 
+     * @throws CayenneRuntimeException
+     *             if the handle is already cancelled.
+     */
+    public void register(Statement statement) {
+        statements.add(statement);
+
+        // checking after adding the statement, so that a concurrent "cancel"
+        // either sees the statement or is seen here
+        if (cancelled) {
+            statements.remove(statement);
+            throw new CayenneRuntimeException("Query is cancelled");
+        }
+    }
+
+    /**
+     * Unregisters a statement that is done executing.
+     */
+    public void unregister(Statement statement) {
+        statements.remove(statement);
+    }
+
+    /**
+     * Registers an open result iterator, that will be closed if the handle is
+     * cancelled.
+     * 
+     * @throws CayenneRuntimeException
+     *             if the handle is already cancelled.
+     */
+    public void register(ResultIterator<?> iterator) {
+        iterators.add(iterator);
+
+        if (cancelled) {
+            iterators.remove(iterator);
+            throw new CayenneRuntimeException("Query is cancelled");
+        }
+    }
+
+    /**
+     * Unregisters a closed result iterator.
+     */
+    public void unregister(ResultIterator<?> iterator) {
+        iterators.remove(iterator);
+    }
+}
@@ -103,6 +103,22 @@ public interface QueryMetadata {
      */
     public static final int STATEMENT_FETCH_SIZE_DEFAULT = 0;
 
+    /**
+     * Defines the name of the property for the query {@link #getQueryTimeout()
+     * timeout}.
+     * 
+     * @since 4.0
+     */
+    public static final String QUERY_TIMEOUT_PROPERTY = "cayenne.GenericSelectQuery.queryTimeout";
+
+    /**
+     * Defines default query timeout, which is 0, meaning that the default
+     * timeout of the DataNode applies.
+     * 
+     * @since 4.0
+     */
+    public static final int QUERY_TIMEOUT_DEFAULT = 0;
+
     /**
      * @since 3.0
      */
@@ -232,4 +248,21 @@ public interface QueryMetadata {
      * @since 3.0
      */
     public int getStatementFetchSize();
+
+    /**
+     * Returns the number of seconds a statement of this query is allowed to
+     * run before it is cancelled by the JDBC driver, or 0 if the default
+     * timeout of the DataNode applies.
+     * 
+     * @since 4.0
+     */
+    int getQueryTimeout();
+
+    /**
+     * Returns a handle that cancels the running statements of this query from
+     * another thread, or null if the query has no such handle.
+     * 
+     * @since 4.0
+     */
+    QueryCancelHandle getCancelHandle();
 }
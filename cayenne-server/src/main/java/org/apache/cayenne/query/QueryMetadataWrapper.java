@@ -171,4 +171,23 @@ class QueryMetadataWrapper implements QueryMetadata {
         Number n = (Number) overrides.get(QueryMetadata.STATEMENT_FETCH_SIZE_PROPERTY);
         return n != null ? n.intValue() : 0;
     }
+
+    /**
+     * @since 4.0
+     */
+    public int getQueryTimeout() {
+        if (!overrideExists(QueryMetadata.QUERY_TIMEOUT_PROPERTY)) {
+            return info.getQueryTimeout();
+        }
+
+        Number n = (Number) overrides.get(QueryMetadata.QUERY_TIMEOUT_PROPERTY);
+        return n != null ? n.intValue() : 0;
+    }
+
+    /**
+     * @since 4.0
+     */
+    public QueryCancelHandle getCancelHandle() {
+        return info.getCancelHandle();
+    }
 }
@@ -0,0 +1,78 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.query;
+
+import org.apache.cayenne.map.EntityResolver;
+
+/**
+ * A query decorator that tells Cayenne whether a wrapped query should be run
+ * against a read replica of a DataNode or against the primary node. By default
+ * only selects run outside of a transaction are sent to replicas; this hint
+ * allows to send other read-only queries, such as SQLTemplate or EJBQL
+ * selects, to a replica, or to force a select to go to the primary node, e.g.
+ * to read the latest committed data. Queries run within a transaction are
+ * always sent to the primary node.
+ * 
+ * @since 4.0
+ */
+public class ReadRoutingQuery extends IndirectQuery {
+
+    protected Query query;
+    protected boolean replica;
+
+    /**
+     * Creates a query that is run against one of the read replicas.
+     */
+    public static ReadRoutingQuery onReplica(Query query) {
+        return new ReadRoutingQuery(query, true);
+    }
+
+    /**
+     * Creates a query that is run against the primary node.
+     */
+    public static ReadRoutingQuery onPrimary(Query query) {
+        return new ReadRoutingQuery(query, false);
+    }
+
+    public ReadRoutingQuery(Query query, boolean replica) {
+        if (query == null) {
+            throw new NullPointerException("Null query");
+        }
+
+        this.query = query;
+        this.replica = replica;
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    /**
+     * Returns true if the query should be routed to a read replica, and false
+     * if it should be routed to the primary node.
+     */
+    public boolean isReplica() {
+        return replica;
+    }
+
+    @Override
+    protected Query createReplacementQuery(EntityResolver resolver) {
+        return query;
+    }
+}
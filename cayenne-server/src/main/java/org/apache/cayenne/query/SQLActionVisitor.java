@@ -56,4 +56,11 @@ public interface SQLActionVisitor {
      * Creates an action to execute EJBQL query.
      */
     SQLAction ejbqlAction(EJBQLQuery query);
+
+    /**
+     * Creates an action to execute a bulk UPDATE or DELETE query.
+     * 
+     * @since 4.0
+     */
+    SQLAction bulkAction(BulkQuery query);
 }
@@ -98,6 +98,8 @@ public class SQLSelect<T> extends IndirectQuery implements Select<T> {
 	protected int offset;
 	protected int pageSize;
 	protected int statementFetchSize;
+	protected int queryTimeout;
+	protected QueryCancelHandle cancelHandle;
 
 	public SQLSelect(String sql) {
 		this(null, sql);
@@ -231,6 +233,8 @@ public class SQLSelect<T> extends IndirectQuery implements Select<T> {
 		template.setFetchOffset(offset);
 		template.setPageSize(pageSize);
 		template.setStatementFetchSize(statementFetchSize);
+		template.setQueryTimeout(queryTimeout);
+		template.setCancelHandle(cancelHandle);
 
 		if (isFetchingScalars()) {
 			SQLResult resultMap = new SQLResult();
@@ -397,4 +401,48 @@ public class SQLSelect<T> extends IndirectQuery implements Select<T> {
 	public int getStatementFetchSize() {
 		return statementFetchSize;
 	}
+
+	/**
+	 * Sets the number of seconds the JDBC statement is allowed to run before
+	 * it is cancelled by the driver (0 for the DataNode default).
+	 * 
+	 * @since 4.0
+	 */
+	public SQLSelect<T> queryTimeout(int seconds) {
+		if (this.queryTimeout != seconds) {
+			this.queryTimeout = seconds;
+			this.replacementQuery = null;
+		}
+
+		return this;
+	}
+
+	/**
+	 * @since 4.0
+	 */
+	public int getQueryTimeout() {
+		return queryTimeout;
+	}
+
+	/**
+	 * Sets a handle that can cancel this query from another thread while it
+	 * is running.
+	 * 
+	 * @since 4.0
+	 */
+	public SQLSelect<T> cancelHandle(QueryCancelHandle cancelHandle) {
+		if (this.cancelHandle != cancelHandle) {
+			this.cancelHandle = cancelHandle;
+			this.replacementQuery = null;
+		}
+
+		return this;
+	}
+
+	/**
+	 * @since 4.0
+	 */
+	public QueryCancelHandle getCancelHandle() {
+		return cancelHandle;
+	}
 }
@@ -20,6 +20,8 @@
 package org.apache.cayenne.query;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +29,7 @@ import java.util.Map;
 import org.apache.cayenne.DataRow;
 import org.apache.cayenne.exp.Expression;
 import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.exp.Property;
 import org.apache.cayenne.map.DbEntity;
 import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.map.MapLoader;
@@ -52,6 +55,21 @@ public class SelectQuery<T> extends AbstractQuery implements ParameterizedQuery,
 	protected List<Ordering> orderings;
 	protected boolean distinct;
 
+	/**
+	 * @since 4.0
+	 */
+	protected List<Property<?>> columns;
+
+	/**
+	 * @since 4.0
+	 */
+	protected List<Property<?>> groupBy;
+
+	/**
+	 * @since 4.0
+	 */
+	protected Expression havingQualifier;
+
 	SelectQueryMetadata metaData = new SelectQueryMetadata();
 
 	/**
@@ -137,6 +155,45 @@ public class SelectQuery<T> extends AbstractQuery implements ParameterizedQuery,
 		return query;
 	}
 
+	/**
+	 * Creates a SelectQuery that fetches a single column of the objects of a
+	 * given persistent class, returning a list of scalars instead of objects.
+	 * The column may be an attribute of a related object, e.g.
+	 * <code>Painting.TO_ARTIST.dot(Artist.ARTIST_NAME)</code>.
+	 * 
+	 * @param rootClass
+	 *            the Class of objects whose column is fetched.
+	 * @param column
+	 *            a property pointing to an attribute.
+	 * 
+	 * @since 4.0
+	 */
+	public static <E> SelectQuery<E> columnQuery(Class<?> rootClass, Property<E> column) {
+		SelectQuery<E> query = new SelectQuery<E>();
+		query.setRoot(rootClass);
+		query.setColumns(column);
+		return query;
+	}
+
+	/**
+	 * Creates a SelectQuery that fetches a number of columns of the objects of
+	 * a given persistent class, returning a list of Object[], one array element
+	 * per column.
+	 * 
+	 * @param rootClass
+	 *            the Class of objects whose columns are fetched.
+	 * @param columns
+	 *            properties pointing to attributes.
+	 * 
+	 * @since 4.0
+	 */
+	public static SelectQuery<Object[]> columnQuery(Class<?> rootClass, Property<?>... columns) {
+		SelectQuery<Object[]> query = new SelectQuery<Object[]>();
+		query.setRoot(rootClass);
+		query.setColumns(columns);
+		return query;
+	}
+
 	/** Creates an empty SelectQuery. */
 	public SelectQuery() {
 	}
@@ -310,10 +367,16 @@ public class SelectQuery<T> extends AbstractQuery implements ParameterizedQuery,
 	public QueryMetadata getMetaData(EntityResolver resolver) {
 		metaData.resolve(root, resolver, this);
 
-		// must force DataRows if DbEntity is fetched
-		if (root instanceof DbEntity) {
+		// must force DataRows if DbEntity is fetched; column queries return
+		// scalars that need no conversion to objects and can't be paginated
+		if (root instanceof DbEntity || isSelectingColumns()) {
 			QueryMetadataWrapper wrapper = new QueryMetadataWrapper(metaData);
 			wrapper.override(QueryMetadata.FETCHING_DATA_ROWS_PROPERTY, Boolean.TRUE);
+
+			if (isSelectingColumns()) {
+				wrapper.override(QueryMetadata.PAGE_SIZE_PROPERTY, 0);
+			}
+
 			return wrapper;
 		} else {
 			return metaData;
@@ -464,6 +527,14 @@ public class SelectQuery<T> extends AbstractQuery implements ParameterizedQuery,
 		SelectQuery<T> query = new SelectQuery<T>();
 		query.setDistinct(distinct);
 
+		if (columns != null) {
+			query.setColumns(columns);
+		}
+
+		if (groupBy != null) {
+			query.setGroupBy(groupBy);
+		}
+
 		query.metaData.copyFromInfo(this.metaData);
 		query.setRoot(root);
 
@@ -476,6 +547,10 @@ public class SelectQuery<T> extends AbstractQuery implements ParameterizedQuery,
 			query.setQualifier(qualifier.params(parameters, pruneMissing));
 		}
 
+		if (havingQualifier != null) {
+			query.setHavingQualifier(havingQualifier.params(parameters, pruneMissing));
+		}
+
 		return query;
 	}
 
@@ -556,6 +631,100 @@ public class SelectQuery<T> extends AbstractQuery implements ParameterizedQuery,
 		this.distinct = distinct;
 	}
 
+	/**
+	 * Returns properties of the columns fetched by this query, or an empty list
+	 * if the query fetches objects or DataRows.
+	 * 
+	 * @since 4.0
+	 */
+	public List<Property<?>> getColumns() {
+		return (columns != null) ? columns : Collections.<Property<?>> emptyList();
+	}
+
+	/**
+	 * Sets properties of the columns to fetch instead of whole objects. Each
+	 * property must resolve to an attribute of the root entity, or of a related
+	 * entity, in which case the joins are added to the query. A property may
+	 * also be an aggregate, such as <code>Artist.PAINTING_ARRAY.count()</code>,
+	 * in which case the rows are grouped by the remaining columns (see
+	 * {@link #setGroupBy(Collection)}). A query with a single column returns a
+	 * list of scalars, with multiple columns - a list of Object[]. Column queries are not paginated and do not fetch
+	 * prefetches. Unlike object queries, joins over to-many relationships do
+	 * not make the query DISTINCT implicitly, call {@link #setDistinct(boolean)}
+	 * if needed.
+	 * 
+	 * @since 4.0
+	 */
+	public void setColumns(Collection<Property<?>> columns) {
+		this.columns = (columns != null && !columns.isEmpty()) ? new ArrayList<Property<?>>(columns) : null;
+	}
+
+	/**
+	 * @since 4.0
+	 * @see #setColumns(Collection)
+	 */
+	public void setColumns(Property<?>... columns) {
+		setColumns(columns != null ? Arrays.<Property<?>> asList(columns) : null);
+	}
+
+	/**
+	 * Returns true if this query fetches individual columns instead of whole
+	 * objects or DataRows.
+	 * 
+	 * @since 4.0
+	 */
+	public boolean isSelectingColumns() {
+		return columns != null && !columns.isEmpty();
+	}
+
+	/**
+	 * Returns true if any of the columns fetched by this query is an aggregate.
+	 * 
+	 * @since 4.0
+	 */
+	public boolean isAggregating() {
+		if (columns != null) {
+			for (Property<?> column : columns) {
+				if (column.isAggregate()) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns properties explicitly set to group the rows of an aggregate
+	 * column query by.
+	 * 
+	 * @since 4.0
+	 */
+	public List<Property<?>> getGroupBy() {
+		return (groupBy != null) ? groupBy : Collections.<Property<?>> emptyList();
+	}
+
+	/**
+	 * Sets properties to group the rows of an aggregate column query by. There
+	 * is usually no need to call this method, as such queries are always
+	 * grouped by all the columns that are not aggregates. Properties set here
+	 * are used to group rows by the paths that are not among the fetched
+	 * columns.
+	 * 
+	 * @since 4.0
+	 */
+	public void setGroupBy(Collection<Property<?>> groupBy) {
+		this.groupBy = (groupBy != null && !groupBy.isEmpty()) ? new ArrayList<Property<?>>(groupBy) : null;
+	}
+
+	/**
+	 * @since 4.0
+	 * @see #setGroupBy(Collection)
+	 */
+	public void setGroupBy(Property<?>... groupBy) {
+		setGroupBy(groupBy != null ? Arrays.<Property<?>> asList(groupBy) : null);
+	}
+
 	/**
 	 * Adds one or more aliases for the qualifier expression path. Aliases serve
 	 * to instruct Cayenne to generate separate sets of joins for overlapping
@@ -794,6 +963,40 @@ public class SelectQuery<T> extends AbstractQuery implements ParameterizedQuery,
 		return metaData.getStatementFetchSize();
 	}
 
+	/**
+	 * Sets the number of seconds a statement of this query is allowed to run
+	 * before it is cancelled by the JDBC driver (0 for the DataNode default).
+	 * 
+	 * @since 4.0
+	 */
+	public void setQueryTimeout(int seconds) {
+		metaData.setQueryTimeout(seconds);
+	}
+
+	/**
+	 * @since 4.0
+	 */
+	public int getQueryTimeout() {
+		return metaData.getQueryTimeout();
+	}
+
+	/**
+	 * Sets a handle that can cancel this query from another thread while it is
+	 * running.
+	 * 
+	 * @since 4.0
+	 */
+	public void setCancelHandle(QueryCancelHandle cancelHandle) {
+		metaData.setCancelHandle(cancelHandle);
+	}
+
+	/**
+	 * @since 4.0
+	 */
+	public QueryCancelHandle getCancelHandle() {
+		return metaData.getCancelHandle();
+	}
+
 	/**
 	 * Sets new query qualifier.
 	 */
@@ -822,4 +1025,36 @@ public class SelectQuery<T> extends AbstractQuery implements ParameterizedQuery,
 	public void orQualifier(Expression e) {
 		qualifier = (qualifier != null) ? qualifier.orExp(e) : e;
 	}
+
+	/**
+	 * Returns a qualifier applied to the groups of rows of an aggregate column
+	 * query, i.e. its SQL HAVING clause.
+	 * 
+	 * @since 4.0
+	 */
+	public Expression getHavingQualifier() {
+		return havingQualifier;
+	}
+
+	/**
+	 * Sets a qualifier applied to the groups of rows of an aggregate column
+	 * query, usually built from aggregate properties, e.g.
+	 * <code>Artist.PAINTING_ARRAY.count().gt(10L)</code>. Ignored by queries
+	 * that fetch objects or DataRows.
+	 * 
+	 * @since 4.0
+	 */
+	public void setHavingQualifier(Expression havingQualifier) {
+		this.havingQualifier = havingQualifier;
+	}
+
+	/**
+	 * Adds specified qualifier to the existing HAVING qualifier joining it
+	 * using "AND".
+	 * 
+	 * @since 4.0
+	 */
+	public void andHavingQualifier(Expression e) {
+		havingQualifier = (havingQualifier != null) ? havingQualifier.andExp(e) : e;
+	}
 }
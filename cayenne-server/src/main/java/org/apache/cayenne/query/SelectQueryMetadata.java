@@ -19,12 +19,15 @@
 package org.apache.cayenne.query;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.Property;
 import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.map.ObjEntity;
 
@@ -43,6 +46,10 @@ class SelectQueryMetadata extends BaseQueryMetadata {
 
     <T> boolean resolve(Object root, EntityResolver resolver, SelectQuery<T> query) {
 
+        // columns can be changed without changing the root, so always resolve
+        // them
+        resolveColumns(query);
+
         if (super.resolve(root, resolver, null)) {
 
             // generate unique cache key...
@@ -83,6 +90,25 @@ class SelectQueryMetadata extends BaseQueryMetadata {
                     }
                 }
 
+                if (query.isSelectingColumns()) {
+                    key.append("/columns");
+                    appendColumnsKey(key, query.getColumns());
+
+                    if (!query.getGroupBy().isEmpty()) {
+                        key.append("/group");
+                        appendColumnsKey(key, query.getGroupBy());
+                    }
+
+                    if (query.getHavingQualifier() != null) {
+                        key.append("/having/");
+                        try {
+                            query.getHavingQualifier().appendAsString(key);
+                        } catch (IOException e) {
+                            throw new CayenneRuntimeException("Unexpected IO Exception appending to StringBuilder", e);
+                        }
+                    }
+                }
+
                 if (query.getFetchOffset() > 0 || query.getFetchLimit() > 0) {
                     key.append('/');
                     if (query.getFetchOffset() > 0) {
@@ -104,6 +130,31 @@ class SelectQueryMetadata extends BaseQueryMetadata {
         return false;
     }
 
+    private void appendColumnsKey(StringBuilder key, List<Property<?>> columns) {
+        for (Property<?> column : columns) {
+            key.append(':');
+            if (column.isAggregate()) {
+                key.append(column.getAggregate().name()).append('(').append(column.getName()).append(')');
+            } else {
+                key.append(column.getName());
+            }
+        }
+    }
+
+    private <T> void resolveColumns(SelectQuery<T> query) {
+        if (query.isSelectingColumns()) {
+            List<Property<?>> columns = query.getColumns();
+            List<Object> mapping = new ArrayList<Object>(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                mapping.add(new ColumnResultSegment(columns.get(i).getName(), i));
+            }
+
+            this.resultSetMapping = mapping;
+        } else {
+            this.resultSetMapping = null;
+        }
+    }
+
     private <T> void resolveAutoAliases(SelectQuery<T> query) {
         Expression qualifier = query.getQualifier();
         if (qualifier != null) {
@@ -160,4 +211,26 @@ class SelectQueryMetadata extends BaseQueryMetadata {
             pathSplitAliases.put(alias, path);
         }
     }
+
+    // a scalar result segment of a column query
+    static class ColumnResultSegment implements ScalarResultSegment {
+
+        private String column;
+        private int offset;
+
+        ColumnResultSegment(String column, int offset) {
+            this.column = column;
+            this.offset = offset;
+        }
+
+        @Override
+        public String getColumn() {
+            return column;
+        }
+
+        @Override
+        public int getColumnOffset() {
+            return offset;
+        }
+    }
 }
@@ -100,6 +100,8 @@ class SelectQueryPrefetchRouterAction implements PrefetchProcessor {
                 prefetchPath,
                 relationship);
         prefetchQuery.setStatementFetchSize(query.getStatementFetchSize());
+        prefetchQuery.setQueryTimeout(query.getQueryTimeout());
+        prefetchQuery.setCancelHandle(query.getCancelHandle());
 
         prefetchQuery.setQualifier(classDescriptor.getEntity().translateToRelatedEntity(
                 queryQualifier,
@@ -0,0 +1,109 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+
+/**
+ * Batched "insert or update" query. Each row is inserted, unless the table
+ * already has a row with the same values of the key columns, in which case the
+ * other columns of that row are updated. The key columns are usually a natural
+ * key of the table and must be covered by a PK or a unique constraint. The
+ * statement is native to the database, see
+ * {@link org.apache.cayenne.dba.DbAdapter#createUpsertTranslator(UpsertBatchQuery)}
+ * , so a row is written in a single round trip without a race between
+ * checking for and inserting the row.
+ * <p>
+ * Unlike InsertBatchQuery, only the columns passed to the constructor are
+ * written, so the columns missing from the source data keep their values on
+ * update. The primary key columns are never updated.
+ * 
+ * @since 4.0
+ */
+public class UpsertBatchQuery extends BatchQuery {
+
+    protected List<DbAttribute> keyAttributes;
+
+    /**
+     * Creates an upsert batch that writes all columns of the entity, matching
+     * the rows by the primary key.
+     */
+    public UpsertBatchQuery(DbEntity entity, int batchCapacity) {
+        this(entity, new ArrayList<DbAttribute>(entity.getAttributes()), new ArrayList<DbAttribute>(entity
+                .getPrimaryKeys()), batchCapacity);
+    }
+
+    /**
+     * Creates an upsert batch that writes the specified columns, matching the
+     * rows by the key columns, which must be a subset of the written columns.
+     */
+    public UpsertBatchQuery(DbEntity entity, List<DbAttribute> dbAttributes, List<DbAttribute> keyAttributes,
+            int batchCapacity) {
+        super(entity, dbAttributes, batchCapacity);
+
+        if (keyAttributes.isEmpty()) {
+            throw new CayenneRuntimeException("No key columns to match the rows of '%s'", entity.getName());
+        }
+
+        for (DbAttribute key : keyAttributes) {
+            if (!dbAttributes.contains(key)) {
+                throw new CayenneRuntimeException("Key column '%s' is not one of the columns written to '%s'",
+                        key.getName(), entity.getName());
+            }
+        }
+
+        this.keyAttributes = keyAttributes;
+    }
+
+    /**
+     * Returns the columns used to match the batch rows with the rows of the
+     * table.
+     */
+    public List<DbAttribute> getKeyAttributes() {
+        return keyAttributes;
+    }
+
+    /**
+     * Adds a snapshot to batch. A shortcut for "add(snapshot, null)".
+     */
+    public void add(Map<String, Object> snapshot) {
+        add(snapshot, null);
+    }
+
+    /**
+     * Adds a snapshot to batch, optionally storing the object id for the
+     * snapshot.
+     */
+    public void add(final Map<String, Object> snapshot, ObjectId id) {
+        rows.add(new BatchQueryRow(id, null) {
+            @Override
+            public Object getValue(int i) {
+                return getValue(snapshot, dbAttributes.get(i));
+            }
+        });
+    }
+}
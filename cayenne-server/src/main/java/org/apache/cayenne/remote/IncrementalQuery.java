@@ -31,6 +31,7 @@ import org.apache.cayenne.map.Procedure;
 import org.apache.cayenne.query.PrefetchTreeNode;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryCancelHandle;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.query.QueryRouter;
 import org.apache.cayenne.query.SQLAction;
@@ -145,6 +146,14 @@ class IncrementalQuery implements Query {
             public int getStatementFetchSize() {
                 return metadata.getStatementFetchSize();
             }
+
+            public int getQueryTimeout() {
+                return metadata.getQueryTimeout();
+            }
+
+            public QueryCancelHandle getCancelHandle() {
+                return metadata.getCancelHandle();
+            }
         };
     }
 
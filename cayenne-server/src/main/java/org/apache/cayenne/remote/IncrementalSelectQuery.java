@@ -32,6 +32,7 @@ import org.apache.cayenne.query.Ordering;
 import org.apache.cayenne.query.PrefetchTreeNode;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryCancelHandle;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.query.QueryRouter;
 import org.apache.cayenne.query.SQLAction;
@@ -142,6 +143,14 @@ class IncrementalSelectQuery<T> extends SelectQuery<T> {
             public int getStatementFetchSize() {
                 return metadata.getStatementFetchSize();
             }
+
+            public int getQueryTimeout() {
+                return metadata.getQueryTimeout();
+            }
+
+            public QueryCancelHandle getCancelHandle() {
+                return metadata.getCancelHandle();
+            }
         };
     }
 
@@ -31,6 +31,7 @@ import org.apache.cayenne.map.Procedure;
 import org.apache.cayenne.query.PrefetchTreeNode;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryCancelHandle;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.query.QueryRouter;
 import org.apache.cayenne.query.SQLAction;
@@ -154,6 +155,14 @@ class RangeQuery implements Query {
             public int getStatementFetchSize() {
                 return 0;
             }
+
+            public int getQueryTimeout() {
+                return 0;
+            }
+
+            public QueryCancelHandle getCancelHandle() {
+                return null;
+            }
         };
     }
 
@@ -0,0 +1,37 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.stream;
+
+/**
+ * A source of a potentially unbounded number of items that are pushed to a
+ * {@link Subscriber} according to the demand it signals. Mirrors the
+ * Reactive Streams <code>Publisher</code> contract, so adapting it to a
+ * reactive library is a matter of a thin wrapper.
+ * 
+ * @since 4.0
+ */
+public interface Publisher<T> {
+
+    /**
+     * Starts delivering items to the subscriber. The publisher calls
+     * {@link Subscriber#onSubscribe(Subscription)} first, and delivers no
+     * items until the subscriber requests them.
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+}
@@ -0,0 +1,382 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ResultIterator;
+import org.apache.cayenne.query.QueryMetadata;
+import org.apache.cayenne.query.Select;
+import org.apache.cayenne.tx.BaseTransaction;
+import org.apache.cayenne.tx.Transaction;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A {@link Publisher} that streams the result of a {@link Select} to
+ * subscribers. Each subscription runs the query separately. The query is not
+ * started until the subscriber requests the first item, and rows are only
+ * read from the underlying ResultIterator to satisfy the outstanding demand,
+ * so the JDBC driver fetches no more than the statement fetch size ahead of
+ * the subscriber. Cancelling a subscription closes the iterator together with
+ * its statement and connection.
+ * <p>
+ * Items are delivered on the provided Executor, or on a thread calling
+ * {@link Subscription#request(long)} if the Executor is null. An optional
+ * stall timeout terminates subscriptions that keep a connection open without
+ * requesting more items.
+ * 
+ * @since 4.0
+ */
+public class SelectPublisher<T> implements Publisher<T> {
+
+    private static final Log logger = LogFactory.getLog(SelectPublisher.class);
+
+    static final int DEFAULT_BATCH_SIZE = 100;
+
+    protected ObjectContext context;
+    protected Select<?> query;
+    protected Executor executor;
+    protected int batchSize;
+    protected long stallTimeout;
+
+    /**
+     * Creates a publisher that emits objects returned by the query one by
+     * one.
+     */
+    public static <T> SelectPublisher<T> objects(ObjectContext context, Select<T> query, Executor executor) {
+        return new SelectPublisher<T>(context, query, executor, 0);
+    }
+
+    /**
+     * Creates a publisher that emits objects returned by the query in lists.
+     * Each requested item is a list of up to
+     * {@link QueryMetadata#getStatementFetchSize()} objects, or 100 objects if
+     * the fetch size is not set. The size can be changed with
+     * {@link #batchSize(int)}.
+     */
+    public static <T> SelectPublisher<List<T>> batches(ObjectContext context, Select<T> query, Executor executor) {
+        int fetchSize = query.getMetaData(context.getEntityResolver()).getStatementFetchSize();
+        return new SelectPublisher<List<T>>(context, query, executor, fetchSize > 0 ? fetchSize : DEFAULT_BATCH_SIZE);
+    }
+
+    protected SelectPublisher(ObjectContext context, Select<?> query, Executor executor, int batchSize) {
+        this.context = context;
+        this.query = query;
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Changes the number of objects in a single list emitted by a batching
+     * publisher. Has no effect on publishers created with
+     * {@link #objects(ObjectContext, Select, Executor)}.
+     */
+    public SelectPublisher<T> batchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+
+        if (this.batchSize > 0) {
+            this.batchSize = batchSize;
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets a time in milliseconds a subscriber may keep the query open without
+     * requesting more items. When it expires, the subscription is closed and
+     * the subscriber receives {@link Subscriber#onError(Throwable)}. Zero (the
+     * default) means no timeout.
+     */
+    public SelectPublisher<T> stallTimeout(long stallTimeout) {
+        this.stallTimeout = stallTimeout;
+        return this;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Null subscriber");
+        }
+
+        SelectSubscription subscription = new SelectSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    static ScheduledExecutorService timeoutScheduler() {
+        return TimeoutSchedulerHolder.SCHEDULER;
+    }
+
+    static class TimeoutSchedulerHolder {
+
+        static final ScheduledExecutorService SCHEDULER = createScheduler();
+
+        static ScheduledExecutorService createScheduler() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "cayenne-stream-timeout");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            return scheduler;
+        }
+    }
+
+    /**
+     * Delivers items to a single subscriber. All work with the iterator and
+     * the subscriber happens in {@link #run()}, which is never executed
+     * concurrently with itself, as guaranteed by the "work in progress"
+     * counter.
+     */
+    class SelectSubscription implements Subscription, Runnable {
+
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong demand;
+        private final AtomicInteger wip;
+
+        private volatile boolean cancelled;
+        private volatile Throwable pendingError;
+        private volatile boolean timeoutExpired;
+
+        // accessed only from 'run'
+        private ResultIterator<?> iterator;
+        private Transaction transaction;
+        private boolean done;
+        private ScheduledFuture<?> timeoutCheck;
+        private long emitted;
+        private long emittedAtTimeoutCheck;
+
+        SelectSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+            this.demand = new AtomicLong();
+            this.wip = new AtomicInteger();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                pendingError = new IllegalArgumentException("Requested a non-positive number of items: " + n);
+            } else {
+                for (;;) {
+                    long current = demand.get();
+                    long next = current + n;
+                    if (next < 0) {
+                        next = Long.MAX_VALUE;
+                    }
+
+                    if (demand.compareAndSet(current, next)) {
+                        break;
+                    }
+                }
+            }
+
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                if (executor != null) {
+                    executor.execute(this);
+                } else {
+                    run();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+
+            // the transaction started by the iterator stays bound to the
+            // thread that opened it; as consecutive runs may happen on
+            // different threads, bind it only for the duration of the run
+            Transaction threadTransaction = BaseTransaction.getThreadTransaction();
+            if (transaction != null) {
+                BaseTransaction.bindThreadTransaction(transaction);
+            }
+
+            try {
+                int missed = 1;
+                for (;;) {
+                    drain();
+
+                    missed = wip.addAndGet(-missed);
+                    if (missed == 0) {
+                        break;
+                    }
+                }
+            } finally {
+                Transaction current = BaseTransaction.getThreadTransaction();
+                transaction = !done && current != threadTransaction ? current : null;
+                BaseTransaction.bindThreadTransaction(threadTransaction);
+            }
+        }
+
+        private void drain() {
+
+            if (done) {
+                return;
+            }
+
+            if (cancelled) {
+                close();
+                return;
+            }
+
+            Throwable error = pendingError;
+            if (error != null) {
+                close();
+                subscriber.onError(error);
+                return;
+            }
+
+            long requested = demand.get();
+
+            if (timeoutExpired) {
+                timeoutExpired = false;
+                timeoutCheck = null;
+
+                if (requested == 0 && emitted == emittedAtTimeoutCheck) {
+                    close();
+                    subscriber.onError(new CayenneRuntimeException(
+                            "Subscriber requested no items for %d ms, closing the result", stallTimeout));
+                    return;
+                }
+            }
+
+            if (requested == 0) {
+                scheduleTimeoutCheck();
+                return;
+            }
+
+            long count = 0;
+            try {
+                if (iterator == null) {
+                    iterator = context.iterator(query);
+                }
+
+                while (count < requested && !cancelled) {
+                    if (!iterator.hasNextRow()) {
+                        close();
+                        subscriber.onComplete();
+                        return;
+                    }
+
+                    Object item = batchSize > 0 ? nextBatch() : iterator.nextRow();
+                    count++;
+                    emitted++;
+                    onNext(item);
+
+                    if (done) {
+                        return;
+                    }
+                }
+            } catch (Throwable th) {
+                close();
+                subscriber.onError(th);
+                return;
+            }
+
+            if (cancelled) {
+                close();
+                return;
+            }
+
+            if (requested != Long.MAX_VALUE && demand.addAndGet(-count) == 0) {
+                scheduleTimeoutCheck();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void onNext(Object item) {
+            try {
+                subscriber.onNext((T) item);
+            } catch (RuntimeException e) {
+                // a misbehaving subscriber... treat it as cancelled
+                logger.warn("Subscriber failed, cancelling subscription", e);
+                close();
+            }
+        }
+
+        private List<Object> nextBatch() {
+            List<Object> batch = new ArrayList<Object>(batchSize);
+            do {
+                batch.add(iterator.nextRow());
+            } while (batch.size() < batchSize && iterator.hasNextRow());
+
+            return batch;
+        }
+
+        private void scheduleTimeoutCheck() {
+            if (stallTimeout <= 0 || iterator == null || timeoutCheck != null) {
+                return;
+            }
+
+            emittedAtTimeoutCheck = emitted;
+            timeoutCheck = timeoutScheduler().schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    timeoutExpired = true;
+                    schedule();
+                }
+            }, stallTimeout, TimeUnit.MILLISECONDS);
+        }
+
+        private void close() {
+            done = true;
+
+            if (timeoutCheck != null) {
+                timeoutCheck.cancel(false);
+                timeoutCheck = null;
+            }
+
+            if (iterator != null) {
+                try {
+                    iterator.close();
+                } catch (Exception e) {
+                    logger.warn("Error closing result iterator", e);
+                }
+                iterator = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.stream;
+
+/**
+ * A receiver of items from a {@link Publisher}. Methods of a subscriber are
+ * never called concurrently. After {@link #onError(Throwable)} or
+ * {@link #onComplete()} no further calls are made.
+ * 
+ * @since 4.0
+ */
+public interface Subscriber<T> {
+
+    /**
+     * Called once before any other method. The subscriber must call
+     * {@link Subscription#request(long)} to receive items.
+     */
+    void onSubscribe(Subscription subscription);
+
+    void onNext(T item);
+
+    void onError(Throwable error);
+
+    void onComplete();
+}
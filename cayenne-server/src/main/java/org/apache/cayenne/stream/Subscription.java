@@ -0,0 +1,41 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.stream;
+
+/**
+ * A link between a {@link Publisher} and a {@link Subscriber} used by the
+ * subscriber to signal demand and to cancel delivery. Both methods can be
+ * called from any thread.
+ * 
+ * @since 4.0
+ */
+public interface Subscription {
+
+    /**
+     * Requests up to <code>n</code> more items. Demand is cumulative.
+     * Non-positive values result in {@link Subscriber#onError(Throwable)}.
+     */
+    void request(long n);
+
+    /**
+     * Stops delivery and releases resources held by the subscription. Some
+     * items may still be delivered after the call.
+     */
+    void cancel();
+}
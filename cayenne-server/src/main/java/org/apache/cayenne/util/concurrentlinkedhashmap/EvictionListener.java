@@ -45,7 +45,7 @@ package org.apache.cayenne.util.concurrentlinkedhashmap;
  * time can be achieved by performing the operation asynchronously, such as by submitting
  * a task to an {@link java.util.concurrent.ExecutorService}.
  */
-interface EvictionListener<K, V> {
+public interface EvictionListener<K, V> {
 
     /**
      * A call-back notification that the entry was evicted.
@@ -0,0 +1,165 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.cayenne.tx.BaseTransaction;
+import org.apache.cayenne.tx.ExternalTransaction;
+import org.apache.cayenne.tx.Transaction;
+import org.junit.After;
+import org.junit.Test;
+
+public class ObjectContextExecutorTest {
+
+    @After
+    public void unbind() {
+        BaseTransaction.bindThreadTransaction(null);
+        BaseContext.bindThreadObjectContext(null);
+    }
+
+    @Test
+    public void testSubmit_PropagatesThreadState() throws Exception {
+
+        ObjectContextExecutor executor = new ObjectContextExecutor(Executors.newSingleThreadExecutor());
+        try {
+            final ObjectContext context = new MockBaseContext();
+            BaseContext.bindThreadObjectContext(context);
+
+            final Thread caller = Thread.currentThread();
+            Future<Object[]> future = executor.submit(new Callable<Object[]>() {
+
+                @Override
+                public Object[] call() throws Exception {
+                    return new Object[] { Thread.currentThread(), BaseTransaction.getThreadTransaction(),
+                            BaseContext.getThreadObjectContext() };
+                }
+            });
+
+            Object[] state = future.get();
+            assertNotSame(caller, state[0]);
+            assertNull(state[1]);
+            assertSame(context, state[2]);
+
+            // worker thread must be cleaned up after the task
+            BaseContext.bindThreadObjectContext(null);
+
+            Object[] state2 = executor.submit(new Callable<Object[]>() {
+
+                @Override
+                public Object[] call() throws Exception {
+                    return new Object[] { BaseTransaction.getThreadTransaction(),
+                            BaseContext.threadObjectContext.get() };
+                }
+            }).get();
+
+            assertNull(state2[0]);
+            assertNull(state2[1]);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSubmit_InTransaction() throws Exception {
+
+        ObjectContextExecutor executor = new ObjectContextExecutor(Executors.newSingleThreadExecutor());
+        try {
+            final Transaction tx = new ExternalTransaction(null);
+            BaseTransaction.bindThreadTransaction(tx);
+
+            // a transaction can't be shared between threads, so the task must
+            // run on the calling thread within the transaction
+            final Thread caller = Thread.currentThread();
+            Future<Object[]> future = executor.submit(new Callable<Object[]>() {
+
+                @Override
+                public Object[] call() throws Exception {
+                    return new Object[] { Thread.currentThread(), BaseTransaction.getThreadTransaction() };
+                }
+            });
+
+            assertTrue(future.isDone());
+
+            Object[] state = future.get();
+            assertSame(caller, state[0]);
+            assertSame(tx, state[1]);
+            assertSame(tx, BaseTransaction.getThreadTransaction());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSubmit_Synchronous() throws Exception {
+
+        final Thread caller = Thread.currentThread();
+        Future<Thread> future = ObjectContextExecutor.SYNCHRONOUS.submit(new Callable<Thread>() {
+
+            @Override
+            public Thread call() throws Exception {
+                return Thread.currentThread();
+            }
+        });
+
+        assertSame(caller, future.get());
+    }
+
+    @Test
+    public void testJoin_UnwrapsRuntimeException() {
+
+        final CayenneRuntimeException ex = new CayenneRuntimeException("test");
+        Future<Object> future = ObjectContextExecutor.SYNCHRONOUS.submit(new Callable<Object>() {
+
+            @Override
+            public Object call() throws Exception {
+                throw ex;
+            }
+        });
+
+        try {
+            ObjectContextExecutor.join(future);
+            fail("Exception expected");
+        } catch (CayenneRuntimeException e) {
+            assertSame(ex, e);
+        }
+    }
+
+    @Test
+    public void testJoin() {
+        Future<String> future = ObjectContextExecutor.SYNCHRONOUS.submit(new Callable<String>() {
+
+            @Override
+            public String call() throws Exception {
+                return "x";
+            }
+        });
+
+        assertEquals("x", ObjectContextExecutor.join(future));
+    }
+}
@@ -19,7 +19,12 @@
 
 package org.apache.cayenne.access;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.Executors;
+
 import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.query.SelectQuery;
 import org.apache.cayenne.testdo.db1.CrossdbM1E1;
 import org.apache.cayenne.testdo.db2.CrossdbM2E1;
 import org.apache.cayenne.testdo.db2.CrossdbM2E2;
@@ -64,4 +69,40 @@ public class DataContextCrossDBIT extends ServerCase {
         o3.setToM1E1(o1);
         context.commitChanges();
     }
+
+    @Test
+    public void testMultiDBUpdate_ParallelFlush() {
+
+        DataDomain domain = context.getParentDataDomain();
+        domain.setFlushExecutor(Executors.newFixedThreadPool(2));
+
+        try {
+            // independent nodes - flushed in parallel
+            CrossdbM1E1 o1 = context.newObject(CrossdbM1E1.class);
+            o1.setName("o1");
+
+            CrossdbM2E1 o2 = context.newObject(CrossdbM2E1.class);
+            o2.setName("o2");
+            context.commitChanges();
+
+            assertEquals(1, context.performQuery(new SelectQuery<CrossdbM1E1>(CrossdbM1E1.class)).size());
+            assertEquals(1, context.performQuery(new SelectQuery<CrossdbM2E1>(CrossdbM2E1.class)).size());
+
+            // cross-node relationship - flushed sequentially
+            CrossdbM2E2 o3 = context.newObject(CrossdbM2E2.class);
+            o3.setName("o3");
+            o3.setToM1E1(o1);
+            o3.setToM2E1(o2);
+
+            CrossdbM1E1 o11 = context.newObject(CrossdbM1E1.class);
+            o11.setName("o11");
+            context.commitChanges();
+
+            assertEquals(2, context.performQuery(new SelectQuery<CrossdbM1E1>(CrossdbM1E1.class)).size());
+            assertEquals(1, context.performQuery(new SelectQuery<CrossdbM2E2>(CrossdbM2E2.class)).size());
+        } finally {
+            domain.getFlushExecutor().shutdown();
+            domain.setFlushExecutor(null);
+        }
+    }
 }
@@ -0,0 +1,170 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.List;
+
+import org.apache.cayenne.Fault;
+import org.apache.cayenne.PersistenceState;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
+import org.apache.cayenne.testdo.testmap.Painting;
+import org.apache.cayenne.testing.CayenneConfiguration;
+import org.apache.cayenne.unit.di.DataChannelInterceptor;
+import org.apache.cayenne.unit.di.UnitTestClosure;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.junit.Test;
+
+@CayenneConfiguration(ServerCase.TESTMAP_PROJECT)
+public class DataContextLazyAttributeIT extends ServerCase {
+
+    @Inject
+    private DataContext context;
+
+    @Inject
+    private DataContext context2;
+
+    @Inject
+    private EntityResolver resolver;
+
+    @Inject
+    private DBHelper dbHelper;
+
+    @Inject
+    private DataChannelInterceptor queryInterceptor;
+
+    private TableHelper tPainting;
+
+    @Override
+    protected void setUpAfterInjection() throws Exception {
+        dbHelper.deleteAll("PAINTING_INFO");
+        dbHelper.deleteAll("PAINTING");
+        dbHelper.deleteAll("ARTIST_EXHIBIT");
+        dbHelper.deleteAll("ARTIST_GROUP");
+        dbHelper.deleteAll("ARTIST");
+
+        tPainting = new TableHelper(dbHelper, "PAINTING");
+        tPainting.setColumns("PAINTING_ID", "PAINTING_TITLE", "PAINTING_DESCRIPTION");
+
+        resolver.getObjEntity("Painting").getAttribute(Painting.PAINTING_DESCRIPTION_PROPERTY).setLazy(true);
+    }
+
+    @Override
+    protected void tearDownBeforeInjection() throws Exception {
+        resolver.getObjEntity("Painting").getAttribute(Painting.PAINTING_DESCRIPTION_PROPERTY).setLazy(false);
+    }
+
+    protected void createPaintingsDataSet() throws Exception {
+        tPainting.insert(1, "p1", "d1");
+        tPainting.insert(2, "p2", "d2");
+        tPainting.insert(3, "p3", null);
+    }
+
+    @Test
+    public void testFetch() throws Exception {
+        createPaintingsDataSet();
+
+        List<Painting> paintings = context.select(new SelectQuery<Painting>(Painting.class));
+        assertEquals(3, paintings.size());
+
+        for (Painting p : paintings) {
+            assertEquals(PersistenceState.COMMITTED, p.getPersistenceState());
+            assertTrue(p.readPropertyDirectly(Painting.PAINTING_DESCRIPTION_PROPERTY) instanceof Fault);
+        }
+    }
+
+    @Test
+    public void testResolve_Batch() throws Exception {
+        createPaintingsDataSet();
+
+        final List<Painting> paintings = context.select(new SelectQuery<Painting>(Painting.class,
+                null, Painting.PAINTING_TITLE.ascs()));
+
+        int queries = queryInterceptor.runWithQueryCounter(new UnitTestClosure() {
+
+            public void execute() {
+                assertEquals("d1", paintings.get(0).getPaintingDescription());
+            }
+        });
+        assertEquals(1, queries);
+
+        // the siblings must have been resolved by the same query
+        queryInterceptor.runWithQueriesBlocked(new UnitTestClosure() {
+
+            public void execute() {
+                assertEquals("d2", paintings.get(1).getPaintingDescription());
+                assertNull(paintings.get(2).getPaintingDescription());
+            }
+        });
+
+        for (Painting p : paintings) {
+            assertEquals(PersistenceState.COMMITTED, p.getPersistenceState());
+        }
+    }
+
+    @Test
+    public void testResolve_Hollow() throws Exception {
+        createPaintingsDataSet();
+
+        Painting p1 = context.select(new SelectQuery<Painting>(Painting.class, Painting.PAINTING_TITLE.eq("p1")))
+                .get(0);
+        context.invalidateObjects(p1);
+        assertEquals(PersistenceState.HOLLOW, p1.getPersistenceState());
+
+        assertEquals("d1", p1.getPaintingDescription());
+        assertEquals(PersistenceState.COMMITTED, p1.getPersistenceState());
+    }
+
+    @Test
+    public void testCommit_ModifiedWithoutResolving() throws Exception {
+        createPaintingsDataSet();
+
+        Painting p1 = context.select(new SelectQuery<Painting>(Painting.class, Painting.PAINTING_TITLE.eq("p1")))
+                .get(0);
+        p1.setPaintingTitle("p1_renamed");
+        context.commitChanges();
+
+        p1.setPaintingDescription("d1_updated");
+        context.commitChanges();
+
+        Painting p1Copy = context2.select(
+                new SelectQuery<Painting>(Painting.class, Painting.PAINTING_TITLE.eq("p1_renamed"))).get(0);
+        assertEquals("d1_updated", p1Copy.getPaintingDescription());
+    }
+
+    @Test
+    public void testCommit_ResolvedAfterModification() throws Exception {
+        tPainting.insert(1, "p1", "d1");
+
+        Painting p1 = context.select(new SelectQuery<Painting>(Painting.class)).get(0);
+        p1.setPaintingTitle("p1_renamed");
+
+        // resolving the lazy attribute of a modified object is not a change
+        assertEquals("d1", p1.getPaintingDescription());
+
+        tPainting.update().set("PAINTING_DESCRIPTION", "d1_external").execute();
+        context.commitChanges();
+
+        assertEquals("p1_renamed", tPainting.getString("PAINTING_TITLE"));
+        assertEquals("d1_external", tPainting.getString("PAINTING_DESCRIPTION"));
+    }
+}
@@ -0,0 +1,226 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.conn.DataSourceInfo;
+import org.apache.cayenne.conn.PoolManager;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.query.ReadRoutingQuery;
+import org.apache.cayenne.query.SQLTemplate;
+import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.testing.CayenneConfiguration;
+import org.apache.cayenne.tx.TransactionalOperation;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.junit.Test;
+
+/**
+ * Checks which database the reads are routed to when the test DataNode has a
+ * read replica. The replica is a separate in-memory database holding different
+ * rows than the test database, so the test is only run on HSQLDB.
+ */
+@CayenneConfiguration(ServerCase.TESTMAP_PROJECT)
+public class DataContextReplicaIT extends ServerCase {
+
+    @Inject
+    private DataContext context;
+
+    @Inject
+    private ServerRuntime runtime;
+
+    @Inject
+    private DataNode node;
+
+    @Inject
+    private DataSourceInfo dataSourceInfo;
+
+    @Inject
+    private DBHelper dbHelper;
+
+    private boolean enabled;
+    private PoolManager replicaDataSource;
+    private DataNode replica;
+
+    @Override
+    protected void setUpAfterInjection() throws Exception {
+        dbHelper.deleteAll("PAINTING_INFO");
+        dbHelper.deleteAll("PAINTING");
+        dbHelper.deleteAll("ARTIST_EXHIBIT");
+        dbHelper.deleteAll("ARTIST_GROUP");
+        dbHelper.deleteAll("ARTIST");
+
+        enabled = dataSourceInfo.getDataSourceUrl().startsWith("jdbc:hsqldb:");
+        if (!enabled) {
+            return;
+        }
+
+        replicaDataSource = new PoolManager(dataSourceInfo.getJdbcDriver(), "jdbc:hsqldb:mem:replica_it", 1, 2,
+                dataSourceInfo.getUserName(), dataSourceInfo.getPassword());
+
+        Connection c = replicaDataSource.getConnection();
+        try {
+            Statement st = c.createStatement();
+            try {
+                st.execute(node.getAdapter().createTable(context.getEntityResolver().getDbEntity("ARTIST")));
+            } finally {
+                st.close();
+            }
+        } finally {
+            c.close();
+        }
+
+        replica = node.addReplica("replica", replicaDataSource);
+
+        new TableHelper(dbHelper, "ARTIST").setColumns("ARTIST_ID", "ARTIST_NAME").insert(1, "primary");
+        new TableHelper(new DBHelper(replicaDataSource), "ARTIST").setColumns("ARTIST_ID", "ARTIST_NAME").insert(
+                1, "replica");
+    }
+
+    @Override
+    protected void tearDownBeforeInjection() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        node.removeReplica(replica);
+        runtime.getDataDomain().setReplicaStickiness(0);
+
+        Connection c = replicaDataSource.getConnection();
+        try {
+            Statement st = c.createStatement();
+            try {
+                st.execute("DROP TABLE ARTIST");
+            } finally {
+                st.close();
+            }
+        } finally {
+            c.close();
+        }
+
+        replicaDataSource.shutdown();
+    }
+
+    private static List<String> names(List<?> artists) {
+        List<String> names = new ArrayList<String>(artists.size());
+        for (Object artist : artists) {
+            names.add(((Artist) artist).getArtistName());
+        }
+
+        Collections.sort(names);
+        return names;
+    }
+
+    @Test
+    public void testSelect_RoutedToReplica() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        assertEquals(Arrays.asList("replica"), names(context.select(new SelectQuery<Artist>(Artist.class))));
+    }
+
+    @Test
+    public void testSQLTemplate_RoutedToPrimary() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        // a raw SQL query may modify data, so it is not sent to a replica
+        // unless explicitly requested
+        SQLTemplate query = new SQLTemplate(Artist.class, "SELECT * FROM ARTIST");
+        assertEquals(Arrays.asList("primary"), names(context.performQuery(query)));
+    }
+
+    @Test
+    public void testSelect_InTransactionRoutedToPrimary() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        List<?> artists = runtime.performInTransaction(new TransactionalOperation<List<?>>() {
+
+            @Override
+            public List<?> perform() {
+                return context.select(new SelectQuery<Artist>(Artist.class));
+            }
+        });
+
+        assertEquals(Arrays.asList("primary"), names(artists));
+    }
+
+    @Test
+    public void testReadRoutingQuery() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        SelectQuery<Artist> select = new SelectQuery<Artist>(Artist.class);
+        assertEquals(Arrays.asList("primary"), names(context.performQuery(ReadRoutingQuery.onPrimary(select))));
+
+        SQLTemplate sql = new SQLTemplate(Artist.class, "SELECT * FROM ARTIST");
+        assertEquals(Arrays.asList("replica"), names(context.performQuery(ReadRoutingQuery.onReplica(sql))));
+    }
+
+    @Test
+    public void testSelect_StickyToPrimaryAfterCommit() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        runtime.getDataDomain().setReplicaStickiness(60000);
+
+        Artist artist = context.newObject(Artist.class);
+        artist.setArtistName("new");
+        context.commitChanges();
+
+        // the context that has just committed reads its own changes
+        assertEquals(Arrays.asList("new", "primary"), names(context.select(new SelectQuery<Artist>(Artist.class))));
+
+        // other contexts still read from the replica
+        DataContext otherContext = (DataContext) runtime.newContext();
+        assertEquals(Arrays.asList("replica"), names(otherContext.select(new SelectQuery<Artist>(Artist.class))));
+
+        // an explicit routing takes precedence over stickiness
+        SQLTemplate sql = new SQLTemplate(Artist.class, "SELECT * FROM ARTIST");
+        assertEquals(Arrays.asList("replica"), names(context.performQuery(ReadRoutingQuery.onReplica(sql))));
+    }
+
+    @Test
+    public void testSelect_NotStickyWithoutStickiness() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        Artist artist = context.newObject(Artist.class);
+        artist.setArtistName("new");
+        context.commitChanges();
+
+        assertEquals(Arrays.asList("replica"), names(context.select(new SelectQuery<Artist>(Artist.class))));
+    }
+}
@@ -0,0 +1,114 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.List;
+
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.query.SQLTemplate;
+import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.testdo.testmap.Painting;
+import org.apache.cayenne.testing.CayenneConfiguration;
+import org.apache.cayenne.tx.TransactionalOperation;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.junit.Test;
+
+@CayenneConfiguration(ServerCase.TESTMAP_PROJECT)
+public class DataContextSelectConcurrentlyIT extends ServerCase {
+
+    @Inject
+    private DataContext context;
+
+    @Inject
+    private ServerRuntime runtime;
+
+    @Inject
+    private DBHelper dbHelper;
+
+    private TableHelper tArtist;
+    private TableHelper tPainting;
+
+    @Override
+    protected void setUpAfterInjection() throws Exception {
+        dbHelper.deleteAll("PAINTING_INFO");
+        dbHelper.deleteAll("PAINTING");
+        dbHelper.deleteAll("ARTIST_EXHIBIT");
+        dbHelper.deleteAll("ARTIST_GROUP");
+        dbHelper.deleteAll("ARTIST");
+
+        tArtist = new TableHelper(dbHelper, "ARTIST");
+        tArtist.setColumns("ARTIST_ID", "ARTIST_NAME");
+
+        tPainting = new TableHelper(dbHelper, "PAINTING");
+        tPainting.setColumns("PAINTING_ID", "PAINTING_TITLE", "ARTIST_ID");
+    }
+
+    protected void createArtistsAndPaintingsDataSet() throws Exception {
+        tArtist.insert(1, "artist1");
+        tArtist.insert(2, "artist2");
+
+        tPainting.insert(1, "p1", 1);
+        tPainting.insert(2, "p2", 1);
+        tPainting.insert(3, "p3", 2);
+    }
+
+    @Test
+    public void testSelectConcurrently() throws Exception {
+        createArtistsAndPaintingsDataSet();
+
+        List<List<?>> results = context.selectConcurrently(new SelectQuery<Artist>(Artist.class),
+                new SelectQuery<Painting>(Painting.class), new SelectQuery<Artist>(Artist.class,
+                        Artist.ARTIST_NAME.eq("artist2")));
+
+        assertEquals(3, results.size());
+        assertEquals(2, results.get(0).size());
+        assertEquals(3, results.get(1).size());
+        assertEquals(1, results.get(2).size());
+        assertEquals("artist2", ((Artist) results.get(2).get(0)).getArtistName());
+    }
+
+    @Test
+    public void testSelectConcurrently_InTransaction() throws Exception {
+        createArtistsAndPaintingsDataSet();
+
+        List<List<?>> results = runtime.performInTransaction(new TransactionalOperation<List<List<?>>>() {
+
+            @Override
+            public List<List<?>> perform() {
+
+                // an uncommitted row is only visible to the selects that run
+                // within this transaction
+                context.performGenericQuery(new SQLTemplate(Artist.class,
+                        "INSERT INTO ARTIST (ARTIST_ID, ARTIST_NAME) VALUES (3, 'artist3')"));
+
+                return context.selectConcurrently(new SelectQuery<Artist>(Artist.class), new SelectQuery<Painting>(
+                        Painting.class));
+            }
+        });
+
+        assertEquals(2, results.size());
+        assertEquals(3, results.get(0).size());
+        assertEquals(3, results.get(1).size());
+        assertEquals(3, tArtist.getRowCount());
+    }
+}
@@ -0,0 +1,305 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cayenne.Cayenne;
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ResultIterator;
+import org.apache.cayenne.conn.DataSourceInfo;
+import org.apache.cayenne.conn.PoolManager;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.query.SortOrder;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.testing.CayenneConfiguration;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.junit.Test;
+
+/**
+ * Runs queries and commits against two shards of the test DataNode. The first
+ * shard is the test database, the second one is a separate in-memory database,
+ * so the test is only run on HSQLDB.
+ */
+@CayenneConfiguration(ServerCase.TESTMAP_PROJECT)
+public class DataContextShardingIT extends ServerCase {
+
+    @Inject
+    private DataContext context;
+
+    @Inject
+    private DataNode node;
+
+    @Inject
+    private DataSourceInfo dataSourceInfo;
+
+    @Inject
+    private DBHelper dbHelper;
+
+    private boolean enabled;
+    private PoolManager shardDataSource;
+    private TableHelper tArtist0;
+    private TableHelper tArtist1;
+
+    @Override
+    protected void setUpAfterInjection() throws Exception {
+        dbHelper.deleteAll("PAINTING_INFO");
+        dbHelper.deleteAll("PAINTING");
+        dbHelper.deleteAll("ARTIST_EXHIBIT");
+        dbHelper.deleteAll("ARTIST_GROUP");
+        dbHelper.deleteAll("ARTIST");
+
+        enabled = dataSourceInfo.getDataSourceUrl().startsWith("jdbc:hsqldb:");
+        if (!enabled) {
+            return;
+        }
+
+        shardDataSource = new PoolManager(dataSourceInfo.getJdbcDriver(), "jdbc:hsqldb:mem:sharding_it", 1, 2,
+                dataSourceInfo.getUserName(), dataSourceInfo.getPassword());
+
+        Connection c = shardDataSource.getConnection();
+        try {
+            Statement st = c.createStatement();
+            try {
+                st.execute(node.getAdapter().createTable(context.getEntityResolver().getDbEntity("ARTIST")));
+            } finally {
+                st.close();
+            }
+        } finally {
+            c.close();
+        }
+
+        // shard keys are mapped to shards by their remainder, so even ids go to
+        // the test database and odd ids to the in-memory one
+        node.addShard("shard0", node.getDataSource());
+        node.addShard("shard1", shardDataSource);
+        node.setShardingStrategy(new ShardKeyShardingStrategy("ARTIST_ID"));
+
+        tArtist0 = new TableHelper(dbHelper, "ARTIST").setColumns("ARTIST_ID", "ARTIST_NAME");
+        tArtist1 = new TableHelper(new DBHelper(shardDataSource), "ARTIST").setColumns("ARTIST_ID", "ARTIST_NAME");
+    }
+
+    @Override
+    protected void tearDownBeforeInjection() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        for (DataNode shard : node.getShards()) {
+            node.removeShard(shard);
+        }
+        node.setShardingStrategy(null);
+
+        Connection c = shardDataSource.getConnection();
+        try {
+            Statement st = c.createStatement();
+            try {
+                st.execute("DROP TABLE ARTIST");
+            } finally {
+                st.close();
+            }
+        } finally {
+            c.close();
+        }
+
+        shardDataSource.shutdown();
+    }
+
+    private void createArtistsDataSet() throws Exception {
+        tArtist0.insert(2, "b");
+        tArtist0.insert(4, "e");
+        tArtist0.insert(6, "c");
+        tArtist1.insert(1, "f");
+        tArtist1.insert(3, "a");
+        tArtist1.insert(5, "d");
+    }
+
+    private static List<String> names(List<Artist> artists) {
+        List<String> names = new ArrayList<String>(artists.size());
+        for (Artist artist : artists) {
+            names.add(artist.getArtistName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testSelect_MergesShards() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        createArtistsDataSet();
+
+        SelectQuery<Artist> query = new SelectQuery<Artist>(Artist.class);
+        query.addOrdering(Artist.ARTIST_NAME.getName(), SortOrder.ASCENDING);
+
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e", "f"), names(context.select(query)));
+    }
+
+    @Test
+    public void testSelect_OffsetAndLimitAfterMerge() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        createArtistsDataSet();
+
+        SelectQuery<Artist> query = new SelectQuery<Artist>(Artist.class);
+        query.addOrdering(Artist.ARTIST_NAME.getName(), SortOrder.DESCENDING);
+        query.setFetchOffset(1);
+        query.setFetchLimit(3);
+
+        assertEquals(Arrays.asList("e", "d", "c"), names(context.select(query)));
+    }
+
+    @Test
+    public void testSelect_SingleShard() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        createArtistsDataSet();
+
+        SelectQuery<Artist> query = new SelectQuery<Artist>(Artist.class, ExpressionFactory.inDbExp("ARTIST_ID",
+                3, 5));
+        query.addOrdering(Artist.ARTIST_NAME.getName(), SortOrder.ASCENDING);
+
+        assertEquals(Arrays.asList("a", "d"), names(context.select(query)));
+    }
+
+    @Test
+    public void testSelect_RelationshipOrderingRejected() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        SelectQuery<Artist> query = new SelectQuery<Artist>(Artist.class);
+        query.addOrdering("paintingArray.paintingTitle", SortOrder.ASCENDING);
+
+        try {
+            context.select(query);
+            fail("Ordering by a related column can't be restored after merging shards");
+        } catch (CayenneRuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSelect_PaginatedRejected() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        SelectQuery<Artist> query = new SelectQuery<Artist>(Artist.class);
+        query.addOrdering(Artist.ARTIST_NAME.getName(), SortOrder.ASCENDING);
+        query.setPageSize(2);
+
+        try {
+            context.select(query);
+            fail("Paginated results of several shards can't be ordered");
+        } catch (CayenneRuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIterator_Rejected() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        createArtistsDataSet();
+
+        try {
+            context.iterator(new SelectQuery<Artist>(Artist.class)).close();
+            fail("Iterating over several shards must be refused");
+        } catch (CayenneRuntimeException e) {
+            // expected
+        }
+
+        // a query matching a single shard can be iterated
+        List<String> names = new ArrayList<String>();
+        ResultIterator<Artist> it = context.iterator(new SelectQuery<Artist>(Artist.class, ExpressionFactory
+                .matchDbExp("ARTIST_ID", 4)));
+        try {
+            while (it.hasNextRow()) {
+                names.add(it.nextRow().getArtistName());
+            }
+        } finally {
+            it.close();
+        }
+
+        assertEquals(Arrays.asList("e"), names);
+    }
+
+    @Test
+    public void testCommit_SplitsBatchesByShard() throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        List<Artist> artists = new ArrayList<Artist>();
+        for (int i = 0; i < 6; i++) {
+            Artist artist = context.newObject(Artist.class);
+            artist.setArtistName("n" + i);
+            artists.add(artist);
+        }
+
+        context.commitChanges();
+
+        int even = 0;
+        for (Artist artist : artists) {
+            if (Cayenne.longPKForObject(artist) % 2 == 0) {
+                even++;
+            }
+        }
+
+        // generated ids are consecutive, so both shards get some of the rows
+        assertEquals(even, tArtist0.getRowCount());
+        assertEquals(6 - even, tArtist1.getRowCount());
+
+        for (Artist artist : artists) {
+            artist.setArtistName("u" + Cayenne.longPKForObject(artist));
+        }
+
+        context.commitChanges();
+
+        for (Object[] row : tArtist0.selectAll()) {
+            assertEquals("u" + ((Number) row[0]).longValue(), row[1]);
+        }
+
+        for (Object[] row : tArtist1.selectAll()) {
+            assertEquals("u" + ((Number) row[0]).longValue(), row[1]);
+        }
+
+        context.deleteObjects(artists);
+        context.commitChanges();
+
+        assertEquals(0, tArtist0.getRowCount());
+        assertEquals(0, tArtist1.getRowCount());
+    }
+}
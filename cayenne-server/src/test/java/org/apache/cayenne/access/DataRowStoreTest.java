@@ -0,0 +1,252 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EventObject;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.access.event.SnapshotEvent;
+import org.apache.cayenne.event.EventSubject;
+import org.apache.cayenne.event.MockEventManager;
+import org.apache.cayenne.test.parallel.ParallelTestContainer;
+import org.apache.commons.collections.map.AbstractReferenceMap;
+import org.apache.commons.collections.map.ReferenceMap;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DataRowStoreTest {
+
+    private List<SnapshotEvent> storeEvents;
+    private List<SnapshotEvent> broadcastEvents;
+    private DataRowStore cache;
+
+    @Before
+    public void before() {
+        this.storeEvents = new ArrayList<SnapshotEvent>();
+        this.broadcastEvents = new ArrayList<SnapshotEvent>();
+
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(DataRowStore.REMOTE_NOTIFICATION_PROPERTY, Boolean.FALSE);
+
+        this.cache = new DataRowStore("cache", properties, new MockEventManager() {
+
+            @Override
+            public void postEvent(EventObject event, EventSubject subject) {
+                if (subject == cache.getObjectStoreEventSubject()) {
+                    storeEvents.add((SnapshotEvent) event);
+                } else if (subject == cache.getSnapshotEventSubject()) {
+                    broadcastEvents.add((SnapshotEvent) event);
+                }
+            }
+        });
+    }
+
+    private static ObjectId id(int id) {
+        return new ObjectId("Artist", "ARTIST_ID", id);
+    }
+
+    private static Persistent register(ObjectStore store, ObjectId id) {
+        Persistent object = new CayenneDataObject();
+        object.setObjectId(id);
+        store.registerNode(id, object);
+        return object;
+    }
+
+    private void invalidate(Object postedBy, ObjectId... ids) {
+        cache.processSnapshotChanges(
+                postedBy,
+                Collections.EMPTY_MAP,
+                Collections.EMPTY_LIST,
+                Arrays.asList(ids),
+                Collections.EMPTY_LIST);
+    }
+
+    @Test
+    public void testProcessSnapshotChanges_OnlyAffectedStores() {
+        ObjectStore s1 = new ObjectStore(cache, new HashMap<Object, Persistent>());
+        ObjectStore s2 = new ObjectStore(cache, new HashMap<Object, Persistent>());
+        ObjectStore s3 = new ObjectStore(cache, new HashMap<Object, Persistent>());
+
+        register(s1, id(1));
+        register(s1, id(2));
+        register(s2, id(2));
+        register(s3, id(3));
+
+        invalidate(this, id(1), id(2));
+
+        assertEquals(1, broadcastEvents.size());
+        assertEquals(2, broadcastEvents.get(0).getInvalidatedIds().size());
+
+        assertEquals(2, storeEvents.size());
+        for (SnapshotEvent e : storeEvents) {
+            assertSame(this, e.getPostedBy());
+
+            if (e.getSource() == s1) {
+                assertEquals(2, e.getInvalidatedIds().size());
+            } else {
+                assertSame(s2, e.getSource());
+                assertEquals(Collections.singletonList(id(2)), e.getInvalidatedIds());
+            }
+        }
+    }
+
+    @Test
+    public void testProcessSnapshotChanges_SkipsPostingStore() {
+        ObjectStore s1 = new ObjectStore(cache, new HashMap<Object, Persistent>());
+        ObjectStore s2 = new ObjectStore(cache, new HashMap<Object, Persistent>());
+
+        register(s1, id(1));
+        register(s2, id(1));
+
+        invalidate(s1, id(1));
+
+        assertEquals(1, storeEvents.size());
+        assertSame(s2, storeEvents.get(0).getSource());
+    }
+
+    @Test
+    public void testProcessSnapshotChanges_ModifiedDiffs() {
+        ObjectStore s1 = new ObjectStore(cache, new HashMap<Object, Persistent>());
+        ObjectStore s2 = new ObjectStore(cache, new HashMap<Object, Persistent>());
+        register(s1, id(1));
+        register(s2, id(2));
+
+        DataRow r1 = new DataRow(2);
+        r1.put("NAME", "a");
+        DataRow r2 = new DataRow(2);
+        r2.put("NAME", "b");
+        Map<ObjectId, DataRow> snapshots = new HashMap<ObjectId, DataRow>();
+        snapshots.put(id(1), r1);
+        snapshots.put(id(2), r2);
+        cache.processSnapshotChanges(this, snapshots, Collections.EMPTY_LIST, Collections.EMPTY_LIST,
+                Collections.EMPTY_LIST);
+
+        // new snapshots produce no diffs
+        assertTrue(storeEvents.isEmpty());
+
+        DataRow r1Modified = new DataRow(2);
+        r1Modified.put("NAME", "c");
+        r1Modified.setReplacesVersion(r1.getVersion());
+        cache.processSnapshotChanges(this, Collections.singletonMap(id(1), r1Modified), Collections.EMPTY_LIST,
+                Collections.EMPTY_LIST, Collections.EMPTY_LIST);
+
+        assertEquals(1, storeEvents.size());
+        SnapshotEvent e = storeEvents.get(0);
+        assertSame(s1, e.getSource());
+        assertEquals(Collections.singleton(id(1)), e.getModifiedDiffs().keySet());
+    }
+
+    @Test
+    public void testProcessSnapshotChanges_UnregisteredObjects() {
+        ObjectStore s1 = new ObjectStore(cache, new HashMap<Object, Persistent>());
+        ObjectStore s2 = new ObjectStore(cache, new HashMap<Object, Persistent>());
+        register(s1, id(1));
+        register(s2, id(1));
+
+        s1.unregisterNode(id(1));
+
+        // unregistering posts an invalidation of its own
+        storeEvents.clear();
+
+        invalidate(this, id(1));
+        assertEquals(1, storeEvents.size());
+        assertSame(s2, storeEvents.get(0).getSource());
+    }
+
+    @Test
+    public void testProcessSnapshotChanges_TemporaryIds() {
+        ObjectStore s1 = new ObjectStore(cache, new HashMap<Object, Persistent>());
+
+        ObjectId temp = new ObjectId("Artist");
+        register(s1, temp);
+        invalidate(this, temp);
+        assertTrue(storeEvents.isEmpty());
+
+        s1.processIdChange(temp, id(1));
+        invalidate(this, id(1));
+        assertEquals(1, storeEvents.size());
+        assertSame(s1, storeEvents.get(0).getSource());
+    }
+
+    @Test
+    public void testProcessSnapshotChanges_NoSyncStore() {
+        ObjectStore s1 = new NoSyncObjectStore(cache, new HashMap<Object, Persistent>());
+        register(s1, id(1));
+
+        invalidate(this, id(1));
+        assertEquals(1, broadcastEvents.size());
+        assertTrue(storeEvents.isEmpty());
+    }
+
+    @Test
+    public void testSetDataRowCache_IndexesRegisteredObjects() {
+        ObjectStore s1 = new ObjectStore(null, new HashMap<Object, Persistent>());
+        register(s1, id(1));
+
+        s1.setDataRowCache(cache);
+        invalidate(this, id(1));
+        assertEquals(1, storeEvents.size());
+
+        s1.setDataRowCache(null);
+        storeEvents.clear();
+        invalidate(this, id(1));
+        assertTrue(storeEvents.isEmpty());
+    }
+
+    @Test
+    public void testObjectStoreIndex_ReleasesCollectedObjects() throws Exception {
+        ObjectStore s1 = new ObjectStore(cache, new ReferenceMap(AbstractReferenceMap.HARD,
+                AbstractReferenceMap.WEAK));
+
+        Persistent retained = register(s1, id(0));
+        for (int i = 1; i <= 100; i++) {
+            register(s1, id(i));
+        }
+
+        assertEquals(101, cache.objectStoreIndexSize());
+
+        // allow for slow GC
+        new ParallelTestContainer() {
+
+            @Override
+            protected void assertResult() throws Exception {
+                System.gc();
+                assertEquals(1, cache.objectStoreIndexSize());
+            }
+        }.runTest(2000);
+
+        invalidate(this, id(0), id(1));
+        assertEquals(1, storeEvents.size());
+        assertEquals(Collections.singletonList(id(0)), storeEvents.get(0).getInvalidatedIds());
+        assertSame(retained, s1.getNode(id(0)));
+    }
+}
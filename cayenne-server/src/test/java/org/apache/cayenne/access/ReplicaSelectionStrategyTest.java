@@ -0,0 +1,107 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ReplicaSelectionStrategyTest {
+
+    @Test
+    public void testSelectReplica_NoReplicas() {
+        DataNode primary = new DataNode("primary");
+        assertSame(primary, primary.selectReplica());
+    }
+
+    @Test
+    public void testRoundRobin() {
+        DataNode primary = new DataNode("primary");
+        DataNode r1 = new DataNode("r1");
+        DataNode r2 = new DataNode("r2");
+
+        primary.addReplica(r1);
+        primary.addReplica(r2);
+        assertEquals(Arrays.asList(r1, r2), primary.getReplicas());
+
+        assertSame(r1, primary.selectReplica());
+        assertSame(r2, primary.selectReplica());
+        assertSame(r1, primary.selectReplica());
+
+        assertTrue(primary.removeReplica(r1));
+        assertSame(r2, primary.selectReplica());
+        assertSame(r2, primary.selectReplica());
+    }
+
+    @Test
+    public void testLeastLatency() {
+        DataNode primary = new DataNode("primary");
+        DataNode r1 = new DataNode("r1");
+        DataNode r2 = new DataNode("r2");
+        List<DataNode> replicas = Arrays.asList(r1, r2);
+
+        r1.recordQueryTime(1000);
+        r2.recordQueryTime(100);
+
+        LeastLatencyReplicaSelectionStrategy strategy = new LeastLatencyReplicaSelectionStrategy(0);
+        assertSame(r2, strategy.select(primary, replicas));
+
+        for (int i = 0; i < 50; i++) {
+            r2.recordQueryTime(5000);
+        }
+        assertSame(r1, strategy.select(primary, replicas));
+    }
+
+    @Test
+    public void testLeastLatency_Probe() {
+        DataNode primary = new DataNode("primary");
+        DataNode r1 = new DataNode("r1");
+        DataNode r2 = new DataNode("r2");
+        List<DataNode> replicas = Arrays.asList(r1, r2);
+
+        r1.recordQueryTime(1000);
+        r2.recordQueryTime(100);
+
+        LeastLatencyReplicaSelectionStrategy strategy = new LeastLatencyReplicaSelectionStrategy(4);
+
+        // first pick is a probe
+        assertSame(r1, strategy.select(primary, replicas));
+        assertSame(r2, strategy.select(primary, replicas));
+        assertSame(r2, strategy.select(primary, replicas));
+        assertSame(r2, strategy.select(primary, replicas));
+        assertSame(r2, strategy.select(primary, replicas));
+    }
+
+    @Test
+    public void testRecordQueryTime() {
+        DataNode node = new DataNode("n");
+        assertEquals(0, node.getAverageQueryTime());
+
+        node.recordQueryTime(800);
+        assertEquals(800, node.getAverageQueryTime());
+
+        node.recordQueryTime(1600);
+        assertEquals(900, node.getAverageQueryTime());
+    }
+}
@@ -0,0 +1,207 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.map.DataMap;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.BatchQueryRow;
+import org.apache.cayenne.query.DeleteBatchQuery;
+import org.apache.cayenne.query.InsertBatchQuery;
+import org.apache.cayenne.query.SQLTemplate;
+import org.apache.cayenne.query.SelectQuery;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShardKeyShardingStrategyTest {
+
+    private DbEntity dbEntity;
+    private DataNode node;
+    private DataNode s0;
+    private DataNode s1;
+    private DataNode s2;
+
+    @Before
+    public void before() {
+        DataMap map = new DataMap("map");
+
+        dbEntity = new DbEntity("ORDERS");
+        DbAttribute id = new DbAttribute("ID", Types.INTEGER, dbEntity);
+        id.setPrimaryKey(true);
+        dbEntity.addAttribute(id);
+        dbEntity.addAttribute(new DbAttribute("TENANT_ID", Types.INTEGER, dbEntity));
+        map.addDbEntity(dbEntity);
+
+        ObjEntity objEntity = new ObjEntity("Order");
+        objEntity.setDbEntityName("ORDERS");
+        ObjAttribute tenantId = new ObjAttribute("tenantId", Integer.class.getName(), objEntity);
+        tenantId.setDbAttributePath("TENANT_ID");
+        objEntity.addAttribute(tenantId);
+        map.addObjEntity(objEntity);
+
+        node = new DataNode("node");
+        node.setEntityResolver(new EntityResolver(Collections.singleton(map)));
+        node.setShardingStrategy(new ShardKeyShardingStrategy("TENANT_ID"));
+
+        s0 = new DataNode("s0");
+        s1 = new DataNode("s1");
+        s2 = new DataNode("s2");
+        node.addShard(s0);
+        node.addShard(s1);
+        node.addShard(s2);
+    }
+
+    @Test
+    public void testSelectShards_NoShards() {
+        DataNode plain = new DataNode("plain");
+        assertEquals(Collections.singletonList(plain), plain.selectShards(new SQLTemplate(), null));
+    }
+
+    @Test
+    public void testSelectShards_ObjPath() {
+        SelectQuery<Object> query = new SelectQuery<Object>("Order", ExpressionFactory.matchExp("tenantId", 4));
+        assertEquals(Collections.singletonList(s1), node.selectShards(query, null));
+    }
+
+    @Test
+    public void testSelectShards_DbPathInConjunction() {
+        SelectQuery<Object> query = new SelectQuery<Object>("Order", ExpressionFactory.matchDbExp("ID", 1).andExp(
+                ExpressionFactory.matchDbExp("TENANT_ID", 5)));
+        assertEquals(Collections.singletonList(s2), node.selectShards(query, null));
+    }
+
+    @Test
+    public void testSelectShards_In() {
+        SelectQuery<Object> query = new SelectQuery<Object>("Order", ExpressionFactory.inExp("tenantId", 3, 6, 4));
+        assertEquals(Arrays.asList(s0, s1), node.selectShards(query, null));
+    }
+
+    @Test
+    public void testSelectShards_NoKey() {
+        SelectQuery<Object> query = new SelectQuery<Object>("Order", ExpressionFactory.matchDbExp("ID", 1)
+                .orExp(ExpressionFactory.matchDbExp("TENANT_ID", 5)));
+        assertEquals(Arrays.asList(s0, s1, s2), node.selectShards(query, null));
+        assertEquals(Arrays.asList(s0, s1, s2), node.selectShards(new SQLTemplate(), null));
+    }
+
+    @Test
+    public void testSelectShards_ContextKey() {
+        DataContext context = new DataContext();
+        context.setUserProperty(ShardKeyShardingStrategy.SHARD_KEY_PROPERTY, 2);
+
+        assertEquals(Collections.singletonList(s2), node.selectShards(new SQLTemplate(), context));
+
+        // qualifier takes precedence over the context
+        SelectQuery<Object> query = new SelectQuery<Object>("Order", ExpressionFactory.matchExp("tenantId", 4));
+        assertEquals(Collections.singletonList(s1), node.selectShards(query, context));
+    }
+
+    @Test
+    public void testSelectShard_InsertRow() {
+        InsertBatchQuery batch = new InsertBatchQuery(dbEntity, 2);
+        batch.add(snapshot(1, 7), new ObjectId("Order", "ID", 1));
+        batch.add(snapshot(2, 9), new ObjectId("Order", "ID", 2));
+
+        assertSame(s1, node.selectShard(batch, batch.getRows().get(0), null));
+        assertSame(s0, node.selectShard(batch, batch.getRows().get(1), null));
+    }
+
+    @Test
+    public void testSelectShard_IdSnapshot() {
+        InsertBatchQuery batch = new InsertBatchQuery(dbEntity, 1);
+        batch.add(Collections.<String, Object> singletonMap("ID", 1), new ObjectId("Order", snapshot(1, 8)));
+
+        assertSame(s2, node.selectShard(batch, batch.getRows().get(0), null));
+    }
+
+    @Test
+    public void testSelectShard_Qualifier() {
+        DeleteBatchQuery batch = new DeleteBatchQuery(dbEntity, Collections.singletonList(dbEntity.getAttribute("ID")),
+                Collections.<String> emptySet(), 1);
+        batch.add(snapshot(1, 3));
+
+        assertSame(s0, node.selectShard(batch, batch.getRows().get(0), null));
+    }
+
+    @Test
+    public void testSelectShard_NoKey() {
+        DeleteBatchQuery batch = new DeleteBatchQuery(dbEntity, Collections.singletonList(dbEntity.getAttribute("ID")),
+                Collections.<String> emptySet(), 1);
+        batch.add(Collections.<String, Object> singletonMap("ID", 1));
+        BatchQueryRow row = batch.getRows().get(0);
+
+        try {
+            node.selectShard(batch, row, null);
+            fail("Must have failed without a shard key");
+        } catch (CayenneRuntimeException e) {
+            // expected
+        }
+
+        DataContext context = new DataContext();
+        context.setUserProperty(ShardKeyShardingStrategy.SHARD_KEY_PROPERTY, 1);
+        assertSame(s1, node.selectShard(batch, row, context));
+    }
+
+    @Test
+    public void testCreateSubBatch() {
+        InsertBatchQuery batch = new InsertBatchQuery(dbEntity, 2);
+        batch.add(snapshot(1, 7));
+        batch.add(snapshot(2, 9));
+
+        List<BatchQueryRow> rows = batch.getRows().subList(1, 2);
+        InsertBatchQuery subBatch = (InsertBatchQuery) batch.createSubBatch(rows);
+
+        assertSame(dbEntity, subBatch.getDbEntity());
+        assertSame(batch.getDbAttributes(), subBatch.getDbAttributes());
+        assertSame(rows, subBatch.getRows());
+        assertEquals(2, batch.getRows().size());
+    }
+
+    @Test
+    public void testShardForKey_Negative() {
+        ShardKeyShardingStrategy strategy = new ShardKeyShardingStrategy("TENANT_ID");
+        assertSame(s2, strategy.shardForKey(-1, node.getShards()));
+        assertNull(strategy.keyFromContext(null));
+    }
+
+    private static Map<String, Object> snapshot(int id, int tenantId) {
+        Map<String, Object> snapshot = new HashMap<String, Object>();
+        snapshot.put("ID", id);
+        snapshot.put("TENANT_ID", tenantId);
+        return snapshot;
+    }
+}
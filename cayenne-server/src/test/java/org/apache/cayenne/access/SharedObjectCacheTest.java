@@ -0,0 +1,193 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.DataObject;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.PersistenceState;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.access.event.SnapshotEvent;
+import org.apache.cayenne.map.DataMap;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.util.ListResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedObjectCacheTest {
+
+    private DataDomain domain;
+    private int fetchCount;
+    private String code;
+
+    @Before
+    public void before() {
+        DataMap map = new DataMap("map");
+
+        DbEntity dbEntity = new DbEntity("CURRENCY");
+        DbAttribute id = new DbAttribute("ID", Types.INTEGER, dbEntity);
+        id.setPrimaryKey(true);
+        dbEntity.addAttribute(id);
+        dbEntity.addAttribute(new DbAttribute("CODE", Types.VARCHAR, dbEntity));
+        map.addDbEntity(dbEntity);
+
+        ObjEntity entity = new ObjEntity("Currency");
+        entity.setClassName(CayenneDataObject.class.getName());
+        entity.setDbEntityName("CURRENCY");
+        entity.setSharedReadOnly(true);
+        ObjAttribute code = new ObjAttribute("code", String.class.getName(), entity);
+        code.setDbAttributePath("CODE");
+        entity.addAttribute(code);
+        map.addObjEntity(entity);
+
+        this.fetchCount = 0;
+        this.code = "USD";
+
+        // a domain that returns two rows for any query
+        this.domain = new DataDomain("domain") {
+
+            @Override
+            public QueryResponse onQuery(ObjectContext originatingContext, Query query) {
+                fetchCount++;
+
+                DataContext context = (DataContext) originatingContext;
+                ObjectResolver resolver = new ObjectResolver(context, context.getEntityResolver()
+                        .getClassDescriptor("Currency"), true);
+                return new ListResponse(resolver.synchronizedObjectsFromDataRows(rows()));
+            }
+        };
+        domain.addDataMap(map);
+    }
+
+    private List<DataRow> rows() {
+        List<DataRow> rows = new ArrayList<DataRow>();
+        for (int i = 1; i <= 2; i++) {
+            rows.add(row(i, i == 1 ? code : "EUR"));
+        }
+
+        return rows;
+    }
+
+    private static DataRow diff(String code) {
+        DataRow diff = new DataRow(2);
+        diff.put("CODE", code);
+        return diff;
+    }
+
+    private static DataRow row(int id, String code) {
+        DataRow row = new DataRow(2);
+        row.put("ID", id);
+        row.put("CODE", code);
+        return row;
+    }
+
+    private DataContext createContext() {
+        return new DataContext(domain, new ObjectStore(new DataRowStore("domain", null, null),
+                new HashMap<Object, Persistent>()));
+    }
+
+    @Test
+    public void testSharedBetweenContexts() {
+        DataContext c1 = createContext();
+        DataContext c2 = createContext();
+
+        ObjectId id = new ObjectId("Currency", "ID", 1);
+        Persistent o1 = c1.findOrCreateObject(id);
+        Persistent o2 = c2.findOrCreateObject(id);
+
+        assertSame(o1, o2);
+        assertEquals(1, fetchCount);
+        assertEquals(PersistenceState.COMMITTED, o1.getPersistenceState());
+        assertEquals("USD", ((DataObject) o1).readProperty("code"));
+
+        assertNull(c1.getObjectStore().getNode(id));
+        assertNull(c2.getObjectStore().getNode(id));
+    }
+
+    @Test
+    public void testModificationRejected() {
+        DataObject object = (DataObject) createContext().findOrCreateObject(new ObjectId("Currency", "ID", 2));
+
+        try {
+            object.writeProperty("code", "GBP");
+            fail("Shared object must not be modifiable");
+        } catch (CayenneRuntimeException e) {
+            // expected
+        }
+
+        assertEquals("EUR", object.readProperty("code"));
+    }
+
+    @Test
+    public void testSnapshotsChanged() {
+        ObjectId id = new ObjectId("Currency", "ID", 1);
+        Persistent o1 = createContext().findOrCreateObject(id);
+
+        // a diff that matches the shared object
+        domain.getSharedObjectCache().snapshotsChanged(
+                new SnapshotEvent(this, this, Collections.singletonMap(id, diff("USD")), null, null, null));
+        assertSame(o1, createContext().findOrCreateObject(id));
+        assertEquals(1, fetchCount);
+
+        code = "CAD";
+        domain.getSharedObjectCache().snapshotsChanged(
+                new SnapshotEvent(this, this, Collections.singletonMap(id, diff("CAD")), null, null, null));
+
+        Persistent o2 = createContext().findOrCreateObject(id);
+        assertNotSame(o1, o2);
+        assertEquals(2, fetchCount);
+        assertEquals("CAD", ((DataObject) o2).readProperty("code"));
+
+        // objects handed out earlier stay unchanged
+        assertEquals("USD", ((DataObject) o1).readProperty("code"));
+    }
+
+    @Test
+    public void testNotShared() {
+        domain.getEntityResolver().getObjEntity("Currency").setSharedReadOnly(false);
+
+        DataContext context = createContext();
+        Persistent object = context.findOrCreateObject(new ObjectId("Currency", "ID", 1));
+
+        assertSame(context, object.getObjectContext());
+        assertEquals(0, fetchCount);
+        assertFalse(object.getObjectContext() instanceof SharedObjectContext);
+    }
+}
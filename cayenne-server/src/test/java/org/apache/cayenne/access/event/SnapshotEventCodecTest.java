@@ -0,0 +1,222 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.event.CayenneEvent;
+import org.apache.cayenne.event.EventSubject;
+import org.junit.Test;
+
+public class SnapshotEventCodecTest {
+
+    private static final EventSubject SUBJECT = EventSubject.getSubject(
+            SnapshotEventCodecTest.class,
+            "codec");
+
+    @Test
+    public void testRoundTrip() throws Exception {
+
+        ObjectId id1 = new ObjectId("Artist", "ARTIST_ID", 1);
+        ObjectId id2 = new ObjectId("Artist", "ARTIST_ID", 2L);
+
+        Map<String, Object> compoundKey = new HashMap<String, Object>();
+        compoundKey.put("KEY1", "a");
+        compoundKey.put("KEY2", 5);
+        ObjectId id3 = new ObjectId("Compound", compoundKey);
+
+        DataRow diff = new DataRow(5);
+        diff.put("ARTIST_NAME", "X");
+        diff.put("ESTIMATED_PRICE", new BigDecimal("12.50"));
+        diff.put("DATE_OF_BIRTH", new Timestamp(1000L));
+        diff.put("IMAGE", new byte[] {
+                1, 2, 3
+        });
+        diff.put("NOTES", null);
+
+        SnapshotEvent event = new SnapshotEvent(
+                this,
+                this,
+                Collections.singletonMap(id1, diff),
+                Collections.singletonList(id2),
+                Collections.singletonList(id3),
+                Collections.EMPTY_LIST);
+        event.setSubject(SUBJECT);
+
+        SnapshotEventCodec codec = new SnapshotEventCodec();
+        byte[] data = codec.encode(Collections.<CayenneEvent> singletonList(event));
+
+        List<CayenneEvent> decoded = codec.decode(data, Collections.singleton(SUBJECT));
+        assertEquals(1, decoded.size());
+
+        SnapshotEvent result = (SnapshotEvent) decoded.get(0);
+        assertEquals(SUBJECT, result.getSubject());
+        assertEquals(event.getTimestamp(), result.getTimestamp());
+        assertEquals(Collections.singletonList(id2), result.getDeletedIds());
+        assertEquals(Collections.singletonList(id3), result.getInvalidatedIds());
+        assertTrue(result.getIndirectlyModifiedIds().isEmpty());
+
+        DataRow resultDiff = (DataRow) result.getModifiedDiffs().get(id1);
+        assertEquals(5, resultDiff.size());
+        assertEquals("X", resultDiff.get("ARTIST_NAME"));
+        assertEquals(new BigDecimal("12.50"), resultDiff.get("ESTIMATED_PRICE"));
+        assertEquals(new Timestamp(1000L), resultDiff.get("DATE_OF_BIRTH"));
+        assertTrue(Arrays.equals(new byte[] {
+                1, 2, 3
+        }, (byte[]) resultDiff.get("IMAGE")));
+        assertTrue(resultDiff.containsKey("NOTES"));
+    }
+
+    @Test
+    public void testRoundTrip_LongString() throws Exception {
+
+        // longer than 64K bytes, and not ASCII, so it takes several bytes per char
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 40000; i++) {
+            buffer.append('\u00e9');
+        }
+        String text = buffer.toString();
+
+        ObjectId id = new ObjectId("Artist", "ARTIST_ID", 1);
+        DataRow diff = new DataRow(1);
+        diff.put("NOTES", text);
+
+        SnapshotEvent event = new SnapshotEvent(
+                this,
+                this,
+                Collections.singletonMap(id, diff),
+                Collections.EMPTY_LIST,
+                Collections.EMPTY_LIST,
+                Collections.EMPTY_LIST);
+        event.setSubject(SUBJECT);
+
+        SnapshotEventCodec codec = new SnapshotEventCodec();
+        byte[] data = codec.encode(Collections.<CayenneEvent> singletonList(event));
+
+        List<CayenneEvent> decoded = codec.decode(data, Collections.singleton(SUBJECT));
+        DataRow resultDiff = (DataRow) ((SnapshotEvent) decoded.get(0)).getModifiedDiffs().get(id);
+        assertEquals(text, resultDiff.get("NOTES"));
+    }
+
+    @Test
+    public void testUnknownSubject() throws Exception {
+        SnapshotEvent event = new SnapshotEvent(
+                this,
+                this,
+                null,
+                Collections.singletonList(new ObjectId("Artist", "ARTIST_ID", 1)),
+                null,
+                null);
+        event.setSubject(SUBJECT);
+
+        SnapshotEventCodec codec = new SnapshotEventCodec();
+        byte[] data = codec.encode(Collections.<CayenneEvent> singletonList(event));
+
+        EventSubject other = EventSubject.getSubject(
+                SnapshotEventCodecTest.class,
+                "other");
+        assertTrue(codec.decode(data, Collections.singleton(other)).isEmpty());
+    }
+
+    @Test
+    public void testIdsOnly() throws Exception {
+        ObjectId id1 = new ObjectId("Artist", "ARTIST_ID", 1);
+
+        DataRow diff = new DataRow(1);
+        diff.put("ARTIST_NAME", "X");
+
+        SnapshotEvent event = new SnapshotEvent(
+                this,
+                this,
+                Collections.singletonMap(id1, diff),
+                null,
+                null,
+                null);
+        event.setSubject(SUBJECT);
+
+        SnapshotEventCodec codec = new SnapshotEventCodec(true);
+        byte[] data = codec.encode(Collections.<CayenneEvent> singletonList(event));
+
+        SnapshotEvent result = (SnapshotEvent) codec.decode(
+                data,
+                Collections.singleton(SUBJECT)).get(0);
+        assertTrue(result.getModifiedDiffs().isEmpty());
+        assertEquals(Collections.singletonList(id1), result.getInvalidatedIds());
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        ObjectId id1 = new ObjectId("Artist", "ARTIST_ID", 1);
+        ObjectId id2 = new ObjectId("Artist", "ARTIST_ID", 2);
+        ObjectId id3 = new ObjectId("Artist", "ARTIST_ID", 3);
+
+        DataRow diff11 = new DataRow(2);
+        diff11.put("ARTIST_NAME", "X");
+        diff11.put("DATE_OF_BIRTH", null);
+
+        DataRow diff12 = new DataRow(2);
+        diff12.put("ARTIST_NAME", "Y");
+
+        DataRow diff2 = new DataRow(2);
+        diff2.put("ARTIST_NAME", "Z");
+
+        SnapshotEvent e1 = new SnapshotEvent(this, this, Collections.singletonMap(
+                id1,
+                diff11), null, null, null);
+        e1.setSubject(SUBJECT);
+
+        Map<ObjectId, DataRow> diffs2 = new HashMap<ObjectId, DataRow>();
+        diffs2.put(id1, diff12);
+        diffs2.put(id2, diff2);
+        SnapshotEvent e2 = new SnapshotEvent(this, this, diffs2, null, null, Collections
+                .singletonList(id3));
+        e2.setSubject(SUBJECT);
+
+        SnapshotEvent e3 = new SnapshotEvent(this, this, null, Collections
+                .singletonList(id2), null, null);
+        e3.setSubject(SUBJECT);
+
+        SnapshotEventCodec codec = new SnapshotEventCodec();
+        byte[] data = codec.encode(Arrays.<CayenneEvent> asList(e1, e2, e3));
+
+        List<CayenneEvent> decoded = codec.decode(data, Collections.singleton(SUBJECT));
+        assertEquals(1, decoded.size());
+
+        SnapshotEvent result = (SnapshotEvent) decoded.get(0);
+        assertEquals(1, result.getModifiedDiffs().size());
+
+        DataRow diff1 = (DataRow) result.getModifiedDiffs().get(id1);
+        assertEquals("Y", diff1.get("ARTIST_NAME"));
+        assertTrue(diff1.containsKey("DATE_OF_BIRTH"));
+
+        assertEquals(Collections.singletonList(id2), result.getDeletedIds());
+        assertEquals(Collections.singletonList(id3), result.getIndirectlyModifiedIds());
+    }
+}
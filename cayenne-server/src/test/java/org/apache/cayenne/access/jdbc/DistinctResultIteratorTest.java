@@ -0,0 +1,189 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.access.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ResultIterator;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+import org.junit.Test;
+
+public class DistinctResultIteratorTest {
+
+    private static DbEntity entity(String... pks) {
+        DbEntity entity = new DbEntity("E");
+        for (String pk : pks) {
+            DbAttribute attribute = new DbAttribute(pk, Types.INTEGER, entity);
+            attribute.setPrimaryKey(true);
+            entity.addAttribute(attribute);
+        }
+
+        entity.addAttribute(new DbAttribute("NAME", Types.VARCHAR, entity));
+        return entity;
+    }
+
+    private static DataRow row(Object... keysAndValues) {
+        DataRow row = new DataRow(keysAndValues.length / 2);
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            row.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return row;
+    }
+
+    private static List<DataRow> distinct(List<DataRow> rows, DbEntity entity, boolean compareFullRows) {
+        return new DistinctResultIterator<DataRow>(new ListResultIterator(rows), entity,
+                compareFullRows).allRows();
+    }
+
+    @Test
+    public void testIntegralPk() {
+        List<DataRow> rows = new ArrayList<DataRow>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(row("ID", i % 300, "NAME", "n" + i));
+        }
+
+        List<DataRow> distinct = distinct(rows, entity("ID"), false);
+        assertEquals(300, distinct.size());
+        assertSame(rows.get(0), distinct.get(0));
+        assertSame(rows.get(299), distinct.get(299));
+    }
+
+    @Test
+    public void testCompoundPk() {
+        List<DataRow> rows = new ArrayList<DataRow>();
+        rows.add(row("ID1", 1, "ID2", 1, "NAME", "a"));
+        rows.add(row("ID1", 1, "ID2", 2, "NAME", "b"));
+        rows.add(row("ID1", 1, "ID2", 1, "NAME", "c"));
+        rows.add(row("ID1", 2, "ID2", 1, "NAME", "d"));
+
+        List<DataRow> distinct = distinct(rows, entity("ID1", "ID2"), false);
+        assertEquals(3, distinct.size());
+        assertEquals("d", distinct.get(2).get("NAME"));
+    }
+
+    @Test
+    public void testFullRows() {
+        List<DataRow> rows = new ArrayList<DataRow>();
+        rows.add(row("ID", 1, "NAME", "a", "PRICE", new BigDecimal("1.0")));
+        rows.add(row("ID", 1, "NAME", "a", "PRICE", new BigDecimal("1.0")));
+        rows.add(row("ID", 1, "NAME", "a", "PRICE", new BigDecimal("1.00")));
+        rows.add(row("ID", 1, "NAME", "b", "PRICE", null));
+        rows.add(row("ID", 1, "NAME", null, "PRICE", "b"));
+        rows.add(row("ID", 1, "NAME", "b", "PRICE", null));
+
+        List<DataRow> distinct = distinct(rows, entity("ID"), true);
+        assertEquals(4, distinct.size());
+    }
+
+    @Test
+    public void testFullRows_Bytes() {
+        List<DataRow> rows = new ArrayList<DataRow>();
+        rows.add(row("ID", 1, "DATA", new byte[] { 1, 2 }));
+        rows.add(row("ID", 1, "DATA", new byte[] { 1, 2 }));
+        rows.add(row("ID", 1, "DATA", new byte[] { 2, 1 }));
+
+        List<DataRow> distinct = distinct(rows, entity("ID"), true);
+        assertEquals(2, distinct.size());
+    }
+
+    @Test
+    public void testFullRows_UnhashableValues() {
+        Object value = new Object();
+
+        List<DataRow> rows = new ArrayList<DataRow>();
+        rows.add(row("ID", 1, "VALUE", value));
+        rows.add(row("ID", 1, "VALUE", value));
+        rows.add(row("ID", 1, "VALUE", new Object()));
+
+        List<DataRow> distinct = distinct(rows, entity("ID"), true);
+        assertEquals(2, distinct.size());
+    }
+
+    @Test
+    public void testRowHashSet() {
+        DistinctResultIterator.RowHashSet set = new DistinctResultIterator.RowHashSet();
+
+        for (long i = 0; i < 1000; i++) {
+            assertTrue(set.add(i, i % 7));
+            assertTrue(set.add(i, i % 7 + 1));
+        }
+
+        for (long i = 0; i < 1000; i++) {
+            assertFalse(set.add(i, i % 7));
+            assertFalse(set.add(i, i % 7 + 1));
+        }
+
+        assertTrue(set.add(1000, 0));
+        assertFalse(set.add(0, 0));
+    }
+
+    private static class ListResultIterator implements ResultIterator<DataRow> {
+
+        private Iterator<DataRow> rows;
+
+        ListResultIterator(List<DataRow> rows) {
+            this.rows = rows.iterator();
+        }
+
+        @Override
+        public Iterator<DataRow> iterator() {
+            return rows;
+        }
+
+        @Override
+        public List<DataRow> allRows() {
+            List<DataRow> list = new ArrayList<DataRow>();
+            while (rows.hasNext()) {
+                list.add(rows.next());
+            }
+            return list;
+        }
+
+        @Override
+        public boolean hasNextRow() {
+            return rows.hasNext();
+        }
+
+        @Override
+        public DataRow nextRow() {
+            return rows.next();
+        }
+
+        @Override
+        public void skipRow() {
+            rows.next();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -22,10 +22,18 @@ package org.apache.cayenne.access.jdbc;
 import static org.mockito.Mockito.mock;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
 
+import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.DataRow;
+import org.apache.cayenne.access.jdbc.reader.BatchRowReader;
 import org.apache.cayenne.access.jdbc.reader.DefaultRowReaderFactory;
 import org.apache.cayenne.access.jdbc.reader.RowReader;
 import org.apache.cayenne.access.types.ExtendedTypeMap;
@@ -82,4 +90,132 @@ public class JDBCResultIteratorTest extends TestCase {
         assertTrue(s.isClosed());
     }
 
+	@Test
+    public void testBatchRows() throws Exception {
+        MockStatement s = new MockStatement(new MockConnection());
+        MockResultSet rs = new MockResultSet("rs");
+        rs.addColumn("a", new Object[] { "1", "2", "3", "4", "5" });
+
+        TstBatchRowReader rowReader = new TstBatchRowReader(2);
+        JDBCResultIterator<String> it = new JDBCResultIterator<String>(s, rs, rowReader);
+
+        assertEquals(Arrays.asList("1*", "2*", "3*", "4*", "5*"), it.allRows());
+        assertEquals(Arrays.asList(2, 2, 1), rowReader.batches);
+    }
+
+	@Test
+    public void testBatchRows_SkipRow() throws Exception {
+        MockStatement s = new MockStatement(new MockConnection());
+        MockResultSet rs = new MockResultSet("rs");
+        rs.addColumn("a", new Object[] { "1", "2", "3" });
+
+        TstBatchRowReader rowReader = new TstBatchRowReader(2);
+        JDBCResultIterator<String> it = new JDBCResultIterator<String>(s, rs, rowReader);
+
+        assertEquals("1*", it.nextRow());
+        it.skipRow();
+        assertEquals("3*", it.nextRow());
+        assertFalse(it.hasNextRow());
+    }
+
+	@Test
+    public void testBatchRows_ClosePartiallyConsumed() throws Exception {
+        MockStatement s = new MockStatement(new MockConnection());
+        MockResultSet rs = new MockResultSet("rs");
+        rs.addColumn("a", new Object[] { "1", "2", "3", "4", "5" });
+
+        TstBatchRowReader rowReader = new TstBatchRowReader(3);
+        JDBCResultIterator<String> it = new JDBCResultIterator<String>(s, rs, rowReader);
+
+        assertEquals("1*", it.nextRow());
+        assertTrue(it.hasNextRow());
+
+        it.close();
+
+        assertTrue(rs.isClosed());
+        assertTrue(s.isClosed());
+
+        // the rest of the buffered batch is dropped, and no more rows are read
+        assertFalse(it.hasNextRow());
+        try {
+            it.nextRow();
+            fail("No rows can be read from a closed iterator");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+
+        assertEquals(3, rowReader.rowsRead);
+        assertEquals(Arrays.asList(3), rowReader.batches);
+
+        // closing again is a noop
+        it.close();
+    }
+
+	@Test
+    public void testBatchRows_ProcessingError() throws Exception {
+        MockStatement s = new MockStatement(new MockConnection());
+        MockResultSet rs = new MockResultSet("rs");
+        rs.addColumn("a", new Object[] { "1", "2", "3" });
+
+        TstBatchRowReader rowReader = new TstBatchRowReader(2);
+        rowReader.failOnBatch = 2;
+        JDBCResultIterator<String> it = new JDBCResultIterator<String>(s, rs, rowReader);
+
+        assertEquals("1*", it.nextRow());
+        assertEquals("2*", it.nextRow());
+
+        try {
+            it.nextRow();
+            fail("Batch processing error must be rethrown");
+        } catch (CayenneRuntimeException e) {
+            // expected
+        }
+
+        // the unprocessed rows of the failed batch are not returned
+        assertFalse(it.hasNextRow());
+
+        it.close();
+        assertTrue(rs.isClosed());
+        assertTrue(s.isClosed());
+    }
+
+    static class TstBatchRowReader implements BatchRowReader<String> {
+
+        int batchSize;
+        int rowsRead;
+        int failOnBatch;
+        List<Integer> batches = new ArrayList<Integer>();
+
+        TstBatchRowReader(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public String readRow(ResultSet resultSet) {
+            rowsRead++;
+            try {
+                return resultSet.getString(1);
+            } catch (SQLException e) {
+                throw new CayenneRuntimeException("Error reading row", e);
+            }
+        }
+
+        @Override
+        public int batchSize() {
+            return batchSize;
+        }
+
+        @Override
+        public void processRows(List<String> rows) {
+            batches.add(rows.size());
+            if (batches.size() == failOnBatch) {
+                throw new CayenneRuntimeException("Error processing rows");
+            }
+
+            for (int i = 0; i < rows.size(); i++) {
+                rows.set(i, rows.get(i) + "*");
+            }
+        }
+    }
+
 }
@@ -0,0 +1,160 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.translator.batch;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.dba.JdbcAdapter;
+import org.apache.cayenne.di.AdhocObjectFactory;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.query.UpsertBatchQuery;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
+import org.apache.cayenne.testdo.locking.SimpleLockingTestEntity;
+import org.apache.cayenne.testing.CayenneConfiguration;
+import org.apache.cayenne.unit.UnitDbAdapter;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.junit.Test;
+
+@CayenneConfiguration(ServerCase.LOCKING_PROJECT)
+public class UpsertBatchTranslatorIT extends ServerCase {
+
+    @Inject
+    private ServerRuntime runtime;
+
+    @Inject
+    private DBHelper dbHelper;
+
+    @Inject
+    private UnitDbAdapter unitAdapter;
+
+    @Inject
+    private AdhocObjectFactory objectFactory;
+
+    private TableHelper tSimpleLockingTest;
+
+    @Override
+    protected void setUpAfterInjection() throws Exception {
+        dbHelper.deleteAll("LOCKING_HELPER");
+        dbHelper.deleteAll("REL_LOCKING_TEST");
+        dbHelper.deleteAll("SIMPLE_LOCKING_TEST");
+
+        tSimpleLockingTest = new TableHelper(dbHelper, "SIMPLE_LOCKING_TEST");
+        tSimpleLockingTest.setColumns("LOCKING_TEST_ID", "NAME", "DESCRIPTION").setColumnTypes(Types.INTEGER,
+                Types.VARCHAR, Types.VARCHAR);
+    }
+
+    private DbEntity getEntity() {
+        return runtime.getDataDomain().getEntityResolver().getObjEntity(SimpleLockingTestEntity.class).getDbEntity();
+    }
+
+    private Map<String, Object> snapshot(int id, String name, String description) {
+        Map<String, Object> snapshot = new HashMap<String, Object>();
+        snapshot.put("LOCKING_TEST_ID", id);
+        snapshot.put("NAME", name);
+        snapshot.put("DESCRIPTION", description);
+        return snapshot;
+    }
+
+    @Test
+    public void testCreateSqlString() throws Exception {
+        DbEntity entity = getEntity();
+        List<DbAttribute> keys = Collections.singletonList(entity.getAttribute("NAME"));
+
+        DbAdapter adapter = objectFactory.newInstance(DbAdapter.class, JdbcAdapter.class.getName());
+        UpsertBatchQuery query = new UpsertBatchQuery(entity, new ArrayList<DbAttribute>(entity.getAttributes()),
+                keys, 1);
+        MergeBatchTranslator builder = new MergeBatchTranslator(query, adapter, "DUAL");
+
+        assertEquals("MERGE INTO " + entity.getName() + " T USING DUAL ON (T.NAME = ?)"
+                + " WHEN MATCHED THEN UPDATE SET DESCRIPTION = ?"
+                + " WHEN NOT MATCHED THEN INSERT (DESCRIPTION, LOCKING_TEST_ID, NAME) VALUES (?, ?, ?)",
+                builder.getSql());
+    }
+
+    @Test
+    public void testUpdateBindings() throws Exception {
+        DbEntity entity = getEntity();
+        List<DbAttribute> keys = Collections.singletonList(entity.getAttribute("NAME"));
+
+        DbAdapter adapter = objectFactory.newInstance(DbAdapter.class, JdbcAdapter.class.getName());
+        UpsertBatchQuery query = new UpsertBatchQuery(entity, new ArrayList<DbAttribute>(entity.getAttributes()),
+                keys, 1);
+        query.add(snapshot(1, "n1", "d1"));
+
+        MergeBatchTranslator builder = new MergeBatchTranslator(query, adapter, "DUAL");
+        BatchParameterBinding[] bindings = builder.updateBindings(query.getRows().get(0));
+
+        // the key and the updated columns are bound twice
+        assertEquals(5, bindings.length);
+        assertEquals("n1", bindings[0].getValue());
+        assertEquals("d1", bindings[1].getValue());
+        assertEquals("d1", bindings[2].getValue());
+        assertEquals(1, bindings[3].getValue());
+        assertEquals("n1", bindings[4].getValue());
+
+        for (int i = 0; i < bindings.length; i++) {
+            assertEquals(i + 1, bindings[i].getStatementPosition());
+        }
+    }
+
+    @Test(expected = CayenneRuntimeException.class)
+    public void testKeyNotWritten() throws Exception {
+        DbEntity entity = getEntity();
+        List<DbAttribute> attributes = Collections.singletonList(entity.getAttribute("DESCRIPTION"));
+        new UpsertBatchQuery(entity, attributes, Collections.singletonList(entity.getAttribute("NAME")), 1);
+    }
+
+    @Test
+    public void testUpsert() throws Exception {
+        if (!unitAdapter.supportsUpsert()) {
+            return;
+        }
+
+        tSimpleLockingTest.insert(1, "n1", "d1");
+
+        UpsertBatchQuery query = new UpsertBatchQuery(getEntity(), 2);
+        query.add(snapshot(1, "n1_updated", "d1_updated"));
+        query.add(snapshot(2, "n2", "d2"));
+        runtime.newContext().performGenericQuery(query);
+
+        List<Object[]> rows = tSimpleLockingTest.selectAll();
+        assertEquals(2, rows.size());
+
+        Map<Object, Object[]> byId = new HashMap<Object, Object[]>();
+        for (Object[] row : rows) {
+            byId.put(((Number) row[0]).intValue(), row);
+        }
+
+        assertEquals("n1_updated", byId.get(1)[1]);
+        assertEquals("d1_updated", byId.get(1)[2]);
+        assertEquals("n2", byId.get(2)[1]);
+        assertEquals("d2", byId.get(2)[2]);
+    }
+}
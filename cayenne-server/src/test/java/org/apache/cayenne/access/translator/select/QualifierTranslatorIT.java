@@ -35,6 +35,7 @@ import org.apache.cayenne.exp.TstUnaryExpSuite;
 import org.apache.cayenne.map.ObjEntity;
 import org.apache.cayenne.query.MockQuery;
 import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.testdo.testmap.Artist;
 import org.apache.cayenne.testdo.testmap.Gallery;
 import org.apache.cayenne.testing.CayenneConfiguration;
 import org.apache.cayenne.unit.di.server.ServerCase;
@@ -119,6 +120,37 @@ public class QualifierTranslatorIT extends ServerCase {
         doExpressionTest(suite);
     }
 
+    @Test
+    public void testPaddingLists() throws Exception {
+        SelectQuery<Artist> q = new SelectQuery<Artist>(Artist.class, Artist.ARTIST_NAME.in("a", "b", "c"));
+        TstQueryAssembler qa = new TstQueryAssembler(q, node, connection);
+
+        QualifierTranslator translator = new QualifierTranslator(qa);
+        translator.setPaddingLists(true);
+
+        StringBuilder out = new StringBuilder();
+        translator.appendPart(out);
+        assertEquals("ta.ARTIST_NAME IN (?, ?, ?, ?)", out.toString());
+        assertEquals(4, qa.getValues().size());
+
+        // the last value is repeated
+        assertEquals("c", qa.getValues().get(3));
+    }
+
+    @Test
+    public void testPaddingLists_PowerOfTwo() throws Exception {
+        SelectQuery<Artist> q = new SelectQuery<Artist>(Artist.class, Artist.ARTIST_NAME.in("a", "b", "c", "d"));
+        TstQueryAssembler qa = new TstQueryAssembler(q, node, connection);
+
+        QualifierTranslator translator = new QualifierTranslator(qa);
+        translator.setPaddingLists(true);
+
+        StringBuilder out = new StringBuilder();
+        translator.appendPart(out);
+        assertEquals("ta.ARTIST_NAME IN (?, ?, ?, ?)", out.toString());
+        assertEquals(4, qa.getValues().size());
+    }
+
     private void doExpressionTest(TstExpressionSuite suite) throws Exception {
 
         TstExpressionCase[] cases = suite.cases();
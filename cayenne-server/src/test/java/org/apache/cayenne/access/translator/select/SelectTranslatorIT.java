@@ -19,6 +19,7 @@
 
 package org.apache.cayenne.access.translator.select;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.util.Date;
 import java.util.List;
@@ -789,4 +790,53 @@ public class SelectTranslatorIT extends ServerCase {
         }
     }
 
+
+    @Test
+    public void testCreateSqlString_Columns() throws Exception {
+        SelectQuery<Object[]> q = SelectQuery.columnQuery(Painting.class, Painting.PAINTING_TITLE,
+                Painting.TO_ARTIST.dot(Artist.ARTIST_NAME), Painting.PAINTING_TITLE);
+
+        SelectTranslator transl = new SelectTranslator(q, dataNode, connection);
+        String generatedSql = transl.createSqlString();
+
+        // the same column may be selected more than once
+        int from = generatedSql.indexOf(" FROM ");
+        assertTrue(generatedSql, generatedSql.indexOf("ARTIST_NAME") < from);
+        assertTrue(generatedSql, generatedSql.lastIndexOf("PAINTING_TITLE", from) > generatedSql
+                .indexOf("PAINTING_TITLE"));
+        assertTrue(generatedSql, generatedSql.indexOf(" JOIN ") > from);
+
+        ColumnDescriptor[] columns = transl.getResultColumns();
+        assertEquals(3, columns.length);
+        assertEquals("toArtist.artistName", columns[1].getDataRowKey());
+    }
+
+    @Test
+    public void testCreateSqlString_Aggregates() throws Exception {
+        SelectQuery<Object[]> q = SelectQuery.columnQuery(Artist.class, Artist.ARTIST_NAME,
+                Artist.PAINTING_ARRAY.count(), Artist.PAINTING_ARRAY.dot(Painting.ESTIMATED_PRICE).max());
+        q.setHavingQualifier(Artist.PAINTING_ARRAY.count().gt(1L));
+
+        SelectTranslator transl = new SelectTranslator(q, dataNode, connection);
+        String generatedSql = transl.createSqlString();
+
+        int from = generatedSql.indexOf(" FROM ");
+        int groupBy = generatedSql.indexOf(" GROUP BY ");
+        int having = generatedSql.indexOf(" HAVING ");
+
+        assertTrue(generatedSql, generatedSql.indexOf("COUNT(") > 0 && generatedSql.indexOf("COUNT(") < from);
+        assertTrue(generatedSql, generatedSql.indexOf("MAX(") > 0 && generatedSql.indexOf("MAX(") < from);
+        assertTrue(generatedSql, groupBy > from);
+        assertTrue(generatedSql, generatedSql.indexOf("ARTIST_NAME", groupBy) > groupBy);
+        assertTrue(generatedSql, having > groupBy);
+        assertTrue(generatedSql, generatedSql.indexOf("COUNT(", having) > having);
+
+        // the aggregates are not implicitly DISTINCT, despite to-many joins
+        assertFalse(generatedSql, generatedSql.contains("DISTINCT"));
+
+        ColumnDescriptor[] columns = transl.getResultColumns();
+        assertEquals(3, columns.length);
+        assertEquals(Long.class.getName(), columns[1].getJavaClass());
+        assertEquals(BigDecimal.class.getName(), columns[2].getJavaClass());
+    }
 }
@@ -18,9 +18,16 @@
  ****************************************************************/
 package org.apache.cayenne.cache;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 import java.util.ArrayList;
 
+import org.apache.cayenne.metrics.MetricsRecorder;
 import org.apache.cayenne.query.MockQueryMetadata;
+import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.testing.TestCase;
 import org.apache.cayenne.util.Util;
 import org.junit.Test;
@@ -45,4 +52,43 @@ public class MapQueryCacheTest extends TestCase {
         assertNotNull(deserialized);
         assertEquals(1, deserialized.size());
     }
+
+    @Test
+    public void testMetrics() throws Exception {
+
+        MetricsRecorder recorder = mock(MetricsRecorder.class);
+        when(recorder.isEnabled()).thenReturn(true);
+
+        MapQueryCache cache = new MapQueryCache(2);
+        cache.setMetricsRecorder(recorder);
+
+        QueryMetadata md1 = metadata("key1");
+        QueryMetadata md2 = metadata("key2");
+        QueryMetadata md3 = metadata("key3");
+
+        assertNull(cache.get(md1));
+        cache.put(md1, new ArrayList<Object>());
+        assertNotNull(cache.get(md1));
+        verify(recorder).incrementCounter(MetricsRecorder.QUERY_CACHE_MISS, null, null);
+        verify(recorder).incrementCounter(MetricsRecorder.QUERY_CACHE_HIT, null, null);
+
+        // replacing an entry in a full cache is not an eviction
+        cache.put(md2, new ArrayList<Object>());
+        cache.put(md2, new ArrayList<Object>());
+        verify(recorder, times(0)).incrementCounter(MetricsRecorder.QUERY_CACHE_EVICTION, null, null);
+
+        cache.put(md3, new ArrayList<Object>());
+        verify(recorder).incrementCounter(MetricsRecorder.QUERY_CACHE_EVICTION, null, null);
+        assertEquals(2, cache.size());
+    }
+
+    private static QueryMetadata metadata(final String key) {
+        return new MockQueryMetadata() {
+
+            @Override
+            public String getCacheKey() {
+                return key;
+            }
+        };
+    }
 }
@@ -20,6 +20,7 @@ package org.apache.cayenne.configuration.server;
 
 import java.util.Collections;
 
+import org.apache.cayenne.ObjectContextExecutor;
 import org.apache.cayenne.access.DataContext;
 import org.apache.cayenne.access.DataDomain;
 import org.apache.cayenne.access.DefaultObjectMapRetainStrategy;
@@ -68,6 +69,7 @@ public class DataContextFactoryTest extends TestCase {
                 binder.bind(ObjectStoreFactory.class).to(DefaultObjectStoreFactory.class);
                 binder.bind(TransactionFactory.class).to(DefaultTransactionFactory.class);
                 binder.bind(TransactionManager.class).to(DefaultTransactionManager.class);
+                binder.bind(ObjectContextExecutor.class).to(ObjectContextExecutor.class);
             }
         };
 
@@ -103,6 +105,7 @@ public class DataContextFactoryTest extends TestCase {
                 binder.bind(ObjectStoreFactory.class).to(DefaultObjectStoreFactory.class);
                 binder.bind(TransactionFactory.class).to(DefaultTransactionFactory.class);
                 binder.bind(TransactionManager.class).to(DefaultTransactionManager.class);
+                binder.bind(ObjectContextExecutor.class).to(ObjectContextExecutor.class);
             }
         };
 
@@ -75,8 +75,11 @@ import org.apache.cayenne.event.EventManager;
 import org.apache.cayenne.event.MockEventManager;
 import org.apache.cayenne.log.CommonsJdbcEventLogger;
 import org.apache.cayenne.log.JdbcEventLogger;
+import org.apache.cayenne.log.SlowQueryDetector;
 import org.apache.cayenne.map.DataMap;
 import org.apache.cayenne.map.EntitySorter;
+import org.apache.cayenne.metrics.MetricsRecorder;
+import org.apache.cayenne.metrics.NoopMetricsRecorder;
 import org.apache.cayenne.resource.ClassLoaderResourceLocator;
 import org.apache.cayenne.resource.Resource;
 import org.apache.cayenne.resource.ResourceLocator;
@@ -198,6 +201,8 @@ public class DataDomainProviderTest extends TestCase {
 
 				binder.bind(DataSourceFactory.class).toInstance(new MockDataSourceFactory());
 				binder.bind(JdbcEventLogger.class).to(CommonsJdbcEventLogger.class);
+				binder.bind(MetricsRecorder.class).toInstance(NoopMetricsRecorder.getInstance());
+				binder.bind(SlowQueryDetector.class).to(SlowQueryDetector.class);
 				binder.bind(QueryCache.class).toInstance(mock(QueryCache.class));
 				binder.bind(RowReaderFactory.class).toInstance(mock(RowReaderFactory.class));
 				binder.bind(DataNodeFactory.class).to(DefaultDataNodeFactory.class);
@@ -37,6 +37,8 @@ import org.apache.cayenne.di.spi.DefaultAdhocObjectFactory;
 import org.apache.cayenne.di.spi.DefaultClassLoaderManager;
 import org.apache.cayenne.log.CommonsJdbcEventLogger;
 import org.apache.cayenne.log.JdbcEventLogger;
+import org.apache.cayenne.metrics.MetricsRecorder;
+import org.apache.cayenne.metrics.NoopMetricsRecorder;
 import org.apache.cayenne.resource.ResourceLocator;
 import org.apache.cayenne.resource.mock.MockResourceLocator;
 import org.apache.cayenne.testing.TestCase;
@@ -57,6 +59,7 @@ public class DefaultDataSourceFactoryLoaderTest extends TestCase {
                 binder.bind(ResourceLocator.class).to(MockResourceLocator.class);
                 binder.bind(RuntimeProperties.class).toInstance(mock(RuntimeProperties.class));
                 binder.bind(JdbcEventLogger.class).to(CommonsJdbcEventLogger.class);
+                binder.bind(MetricsRecorder.class).toInstance(NoopMetricsRecorder.getInstance());
             }
         };
 
@@ -118,6 +121,7 @@ public class DefaultDataSourceFactoryLoaderTest extends TestCase {
                 binder.bind(ResourceLocator.class).to(MockResourceLocator.class);
                 binder.bind(RuntimeProperties.class).toInstance(properties);
                 binder.bind(JdbcEventLogger.class).to(CommonsJdbcEventLogger.class);
+                binder.bind(MetricsRecorder.class).toInstance(NoopMetricsRecorder.getInstance());
             }
         };
 
@@ -0,0 +1,399 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.conn;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.ConnectionPoolDataSource;
+import javax.sql.PooledConnection;
+
+import org.junit.Test;
+
+public class PoolManagerTest {
+
+    @Test
+    public void testGetConnection_Concurrent() throws Exception {
+
+        final MockPoolDataSource dataSource = new MockPoolDataSource(5);
+        final PoolManager pm = new PoolManager(dataSource, 0, 5, null, null, 10000);
+
+        try {
+            final AtomicInteger inUse = new AtomicInteger();
+            final AtomicInteger maxInUse = new AtomicInteger();
+            final AtomicInteger failures = new AtomicInteger();
+
+            Thread[] threads = new Thread[20];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread() {
+
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 50; j++) {
+                            try {
+                                Connection c = pm.getConnection();
+                                try {
+                                    int used = inUse.incrementAndGet();
+                                    if (used > maxInUse.get()) {
+                                        maxInUse.set(used);
+                                    }
+
+                                    Thread.yield();
+                                } finally {
+                                    inUse.decrementAndGet();
+                                    c.close();
+                                }
+                            } catch (SQLException e) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    }
+                };
+                threads[i].start();
+            }
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(0, failures.get());
+            assertTrue("max in use: " + maxInUse.get() + ", opened: " + dataSource.opened.get(), maxInUse.get() <= 5);
+            assertTrue(pm.getPoolSize() <= 5);
+            assertTrue(dataSource.opened.get() <= 5);
+            assertEquals(0, pm.getCurrentlyInUse());
+        } finally {
+            pm.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetConnection_SlowLoginDoesNotBlockPool() throws Exception {
+
+        final MockPoolDataSource dataSource = new MockPoolDataSource(0);
+        final PoolManager pm = new PoolManager(dataSource, 0, 2, null, null, 10000);
+
+        try {
+            Connection c1 = pm.getConnection();
+
+            // the next physical connection will take a while to open
+            dataSource.loginDelay = 2000;
+
+            final CountDownLatch opening = new CountDownLatch(1);
+            Thread slow = new Thread() {
+
+                @Override
+                public void run() {
+                    try {
+                        opening.countDown();
+                        pm.getConnection().close();
+                    } catch (SQLException e) {
+                        // ignore
+                    }
+                }
+            };
+            slow.start();
+            opening.await();
+            Thread.sleep(100);
+
+            // returning and taking an idle connection must not wait for the login
+            long t0 = System.currentTimeMillis();
+            c1.close();
+            Connection c2 = pm.getConnection();
+            long t1 = System.currentTimeMillis();
+            c2.close();
+
+            assertTrue("Waited for a login in progress: " + (t1 - t0) + " ms", t1 - t0 < 1000);
+            slow.join();
+        } finally {
+            pm.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetConnection_Timeout() throws Exception {
+
+        PoolManager pm = new PoolManager(new MockPoolDataSource(0), 0, 1, null, null, 100);
+
+        try {
+            Connection c1 = pm.getConnection();
+
+            try {
+                pm.getConnection();
+                fail("Connection must not be available");
+            } catch (PoolManager.ConnectionUnavailableException e) {
+                // expected
+            }
+
+            c1.close();
+            pm.getConnection().close();
+        } finally {
+            pm.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetConnection_ShutdownWhileOpening() throws Exception {
+
+        final MockPoolDataSource dataSource = new MockPoolDataSource(1000);
+        final PoolManager pm = new PoolManager(dataSource, 0, 2, null, null, 10000);
+
+        final CountDownLatch opening = new CountDownLatch(1);
+        final List<Exception> errors = new ArrayList<Exception>();
+        final List<Connection> connections = new ArrayList<Connection>();
+
+        Thread slow = new Thread() {
+
+            @Override
+            public void run() {
+                try {
+                    opening.countDown();
+                    connections.add(pm.getConnection());
+                } catch (SQLException e) {
+                    errors.add(e);
+                }
+            }
+        };
+        slow.start();
+        opening.await();
+        Thread.sleep(200);
+
+        // shut down while the physical connection is being opened
+        pm.shutdown();
+        slow.join();
+
+        assertTrue(connections.isEmpty());
+        assertEquals(1, errors.size());
+        assertEquals(1, dataSource.opened.get());
+        assertEquals(1, dataSource.closed.get());
+        assertEquals(0, pm.getPoolSize());
+    }
+
+    @Test
+    public void testGetConnection_LoginFailureNotRetried() throws Exception {
+
+        MockPoolDataSource dataSource = new MockPoolDataSource(0);
+        PoolManager pm = new PoolManager(dataSource, 0, 2, null, null, 10000);
+
+        try {
+            dataSource.failLogin = true;
+
+            try {
+                pm.getConnection();
+                fail("Login failure must be rethrown");
+            } catch (SQLException e) {
+                // expected
+            }
+
+            assertEquals(1, dataSource.logins.get());
+
+            // the slot reserved for the failed connection is given back
+            dataSource.failLogin = false;
+            pm.getConnection().close();
+            pm.getConnection().close();
+            assertEquals(1, pm.getPoolSize());
+        } finally {
+            pm.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetConnection_StaleConnectionRetried() throws Exception {
+
+        MockPoolDataSource dataSource = new MockPoolDataSource(0);
+        PoolManager pm = new PoolManager(dataSource, 1, 2, null, null, 10000);
+
+        try {
+            assertEquals(1, pm.getCurrentlyUnused());
+            dataSource.stale.addAll(dataSource.pooledConnections);
+
+            Connection c = pm.getConnection();
+            c.close();
+
+            assertEquals(2, dataSource.opened.get());
+            assertEquals(1, dataSource.closed.get());
+            assertEquals(1, pm.getPoolSize());
+        } finally {
+            pm.shutdown();
+        }
+    }
+
+    @Test
+    public void testGrowPool_LoginFailure() throws Exception {
+
+        MockPoolDataSource dataSource = new MockPoolDataSource(0);
+        PoolManager pm = new PoolManager(dataSource, 0, 3, null, null, 10000);
+
+        try {
+            assertEquals(2, pm.growPool(2, null, null));
+            assertEquals(1, pm.growPool(2, null, null));
+
+            dataSource.failLogin = true;
+            pm.shrinkPool(1);
+
+            try {
+                pm.growPool(1, null, null);
+                fail("Login failure must be rethrown");
+            } catch (SQLException e) {
+                // expected
+            }
+
+            // the reserved slot is given back
+            dataSource.failLogin = false;
+            assertEquals(1, pm.growPool(1, null, null));
+            assertEquals(3, pm.getPoolSize());
+        } finally {
+            pm.shutdown();
+        }
+    }
+
+    static class MockPoolDataSource implements ConnectionPoolDataSource {
+
+        final AtomicInteger logins = new AtomicInteger();
+        final AtomicInteger opened = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+        final List<PooledConnection> pooledConnections = new CopyOnWriteArrayList<PooledConnection>();
+        final List<PooledConnection> stale = new CopyOnWriteArrayList<PooledConnection>();
+        volatile long loginDelay;
+        volatile boolean failLogin;
+
+        MockPoolDataSource(long loginDelay) {
+            this.loginDelay = loginDelay;
+        }
+
+        @Override
+        public PooledConnection getPooledConnection() throws SQLException {
+            logins.incrementAndGet();
+
+            if (failLogin) {
+                throw new SQLException("Login failed");
+            }
+
+            if (loginDelay > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(loginDelay);
+                } catch (InterruptedException e) {
+                    throw new SQLException("Interrupted");
+                }
+            }
+
+            opened.incrementAndGet();
+
+            PooledConnection connection = createPooledConnection();
+            pooledConnections.add(connection);
+            return connection;
+        }
+
+        @Override
+        public PooledConnection getPooledConnection(String user, String password) throws SQLException {
+            return getPooledConnection();
+        }
+
+        private PooledConnection createPooledConnection() {
+            final List<ConnectionEventListener> listeners = new ArrayList<ConnectionEventListener>();
+            final PooledConnection[] pooled = new PooledConnection[1];
+
+            pooled[0] = (PooledConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { PooledConnection.class }, new InvocationHandler() {
+
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            if ("equals".equals(method.getName())) {
+                                return proxy == args[0];
+                            } else if ("hashCode".equals(method.getName())) {
+                                return System.identityHashCode(proxy);
+                            } else if ("addConnectionEventListener".equals(method.getName())) {
+                                listeners.add((ConnectionEventListener) args[0]);
+                            } else if ("removeConnectionEventListener".equals(method.getName())) {
+                                listeners.remove(args[0]);
+                            } else if ("getConnection".equals(method.getName())) {
+                                if (stale.contains(proxy)) {
+                                    throw new SQLException("Stale connection");
+                                }
+
+                                return createConnection(pooled[0], listeners);
+                            } else if ("close".equals(method.getName())) {
+                                closed.incrementAndGet();
+                            }
+                            return null;
+                        }
+                    });
+
+            return pooled[0];
+        }
+
+        private Connection createConnection(final PooledConnection pooled,
+                final List<ConnectionEventListener> listeners) {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { Connection.class }, new InvocationHandler() {
+
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            if ("close".equals(method.getName())) {
+                                ConnectionEvent event = new ConnectionEvent(pooled);
+                                for (ConnectionEventListener listener : new ArrayList<ConnectionEventListener>(
+                                        listeners)) {
+                                    listener.connectionClosed(event);
+                                }
+                            }
+                            return null;
+                        }
+                    });
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return 0;
+        }
+
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.dba;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.test.parallel.ParallelTestContainer;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JdbcPkGeneratorTest {
+
+    private DbAttribute pk;
+
+    @Before
+    public void setUp() {
+        DbEntity entity = new DbEntity("TEST");
+        pk = new DbAttribute("ID", Types.BIGINT, entity);
+        pk.setPrimaryKey(true);
+        entity.addAttribute(pk);
+    }
+
+    @Test
+    public void testGeneratePk_SingleFlight() throws Exception {
+
+        final TestPkGenerator generator = new TestPkGenerator(100);
+        generator.setPkPrefetch(false);
+
+        final List<Object> pks = Collections.synchronizedList(new ArrayList<Object>());
+        Thread[] threads = new Thread[10];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+
+                @Override
+                public void run() {
+                    try {
+                        pks.add(generator.generatePk(null, pk));
+                    }
+                    catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, generator.fetches.get());
+        assertEquals(10, new HashSet<Object>(pks).size());
+    }
+
+    @Test
+    public void testGeneratePk_Prefetch() throws Exception {
+
+        final TestPkGenerator generator = new TestPkGenerator(0);
+
+        Set<Object> pks = new HashSet<Object>();
+
+        // first key in a range is fetched synchronously, prefetch starts at the low
+        // watermark
+        for (int i = 0; i < 16; i++) {
+            pks.add(generator.generatePk(null, pk));
+        }
+
+        assertEquals(1, generator.syncFetches.get());
+
+        new ParallelTestContainer() {
+
+            @Override
+            protected void assertResult() throws Exception {
+                assertEquals(2, generator.fetches.get());
+            }
+        }.runTest(5000);
+
+        for (int i = 0; i < 4; i++) {
+            pks.add(generator.generatePk(null, pk));
+        }
+
+        // next key comes from the prefetched range
+        pks.add(generator.generatePk(null, pk));
+        assertEquals(21, pks.size());
+        assertEquals(1, generator.syncFetches.get());
+        assertTrue(pks.contains(Long.valueOf(20)));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        TestPkGenerator generator = new TestPkGenerator(0);
+        generator.setPkPrefetch(false);
+
+        assertEquals(Long.valueOf(0), generator.generatePk(null, pk));
+        generator.reset();
+        assertEquals(Long.valueOf(20), generator.generatePk(null, pk));
+        assertEquals(2, generator.fetches.get());
+    }
+
+    static class TestPkGenerator extends JdbcPkGenerator {
+
+        final AtomicInteger fetches = new AtomicInteger();
+        final AtomicInteger syncFetches = new AtomicInteger();
+        final long delay;
+
+        TestPkGenerator(long delay) {
+            super(null);
+            this.delay = delay;
+        }
+
+        @Override
+        protected long longPkFromDatabase(DataNode node, DbEntity entity) throws Exception {
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+
+            if (!Thread.currentThread().getName().startsWith("cayenne-pk-prefetch")) {
+                syncFetches.incrementAndGet();
+            }
+
+            return (long) (fetches.getAndIncrement()) * pkCacheSize;
+        }
+    }
+}
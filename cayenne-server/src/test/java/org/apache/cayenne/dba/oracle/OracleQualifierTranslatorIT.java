@@ -0,0 +1,100 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.dba.oracle;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.select.TstQueryAssembler;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.testdo.testmap.Painting;
+import org.apache.cayenne.testing.CayenneConfiguration;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.apache.cayenne.unit.di.server.ServerCaseDataSourceFactory;
+import org.junit.Test;
+
+@CayenneConfiguration(ServerCase.TESTMAP_PROJECT)
+public class OracleQualifierTranslatorIT extends ServerCase {
+
+    @Inject
+    private DataNode node;
+
+    @Inject
+    private ServerCaseDataSourceFactory dataSourceFactory;
+
+    private Connection connection;
+
+    @Override
+    protected void setUpAfterInjection() throws Exception {
+        this.connection = dataSourceFactory.getSharedDataSource().getConnection();
+    }
+
+    @Override
+    protected void tearDownBeforeInjection() throws Exception {
+        connection.close();
+    }
+
+    private TstQueryAssembler translate(int size, StringBuilder out) throws Exception {
+        List<String> values = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            values.add("v" + i);
+        }
+
+        TstQueryAssembler qa = new TstQueryAssembler(new SelectQuery<Painting>(Painting.class,
+                ExpressionFactory.inDbExp("PAINTING_TITLE", values)), node, connection);
+
+        OracleQualifierTranslator translator = new OracleQualifierTranslator(qa);
+        translator.setPaddingLists(true);
+        translator.appendPart(out);
+        return qa;
+    }
+
+    private static int count(String string, String part) {
+        int count = 0;
+        for (int i = string.indexOf(part); i >= 0; i = string.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testIn_PaddingCapped() throws Exception {
+        StringBuilder out = new StringBuilder();
+        TstQueryAssembler qa = translate(700, out);
+
+        // padding to 1024 would exceed the IN list limit
+        assertEquals(OracleQualifierTranslator.MAX_IN_SIZE, qa.getValues().size());
+        assertEquals(1, count(out.toString(), " IN "));
+    }
+
+    @Test
+    public void testIn_SplitAndPadded() throws Exception {
+        StringBuilder out = new StringBuilder();
+        TstQueryAssembler qa = translate(1300, out);
+
+        // 1000 values in the first list, 300 padded to 512 in the second one
+        assertEquals(2, count(out.toString(), " IN "));
+        assertEquals(1512, qa.getValues().size());
+        assertEquals(1, count(out.toString(), " OR "));
+    }
+}
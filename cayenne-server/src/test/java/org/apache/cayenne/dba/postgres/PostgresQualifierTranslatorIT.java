@@ -0,0 +1,138 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.dba.postgres;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.select.TstQueryAssembler;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.testdo.testmap.Painting;
+import org.apache.cayenne.testing.CayenneConfiguration;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.apache.cayenne.unit.di.server.ServerCaseDataSourceFactory;
+import org.junit.Test;
+
+@CayenneConfiguration(ServerCase.TESTMAP_PROJECT)
+public class PostgresQualifierTranslatorIT extends ServerCase {
+
+    @Inject
+    private DataNode node;
+
+    @Inject
+    private ServerCaseDataSourceFactory dataSourceFactory;
+
+    private Connection connection;
+
+    @Override
+    protected void setUpAfterInjection() throws Exception {
+        this.connection = dataSourceFactory.getSharedDataSource().getConnection();
+    }
+
+    @Override
+    protected void tearDownBeforeInjection() throws Exception {
+        connection.close();
+    }
+
+    private <T> TstQueryAssembler translate(Class<T> root, Expression qualifier, StringBuilder out)
+            throws Exception {
+        TstQueryAssembler qa = new TstQueryAssembler(new SelectQuery<T>(root, qualifier), node, connection);
+        new PostgresQualifierTranslator(qa).appendPart(out);
+        return qa;
+    }
+
+    @Test
+    public void testIn_Varchar() throws Exception {
+        StringBuilder out = new StringBuilder();
+        TstQueryAssembler qa = translate(Painting.class, Painting.PAINTING_TITLE.in("a", "b", "c"), out);
+
+        assertEquals("ta.PAINTING_TITLE = ANY (?)", out.toString());
+        assertEquals(1, qa.getValues().size());
+
+        PostgresArray array = (PostgresArray) qa.getValues().get(0);
+        assertEquals("varchar", array.getElementType());
+        assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList(array.getElements()));
+    }
+
+    @Test
+    public void testNotIn_Varchar() throws Exception {
+        StringBuilder out = new StringBuilder();
+        TstQueryAssembler qa = translate(Painting.class, Painting.PAINTING_TITLE.nin("a", "b"), out);
+
+        assertEquals("ta.PAINTING_TITLE <> ALL (?)", out.toString());
+        assertEquals(1, qa.getValues().size());
+        assertEquals("varchar", ((PostgresArray) qa.getValues().get(0)).getElementType());
+    }
+
+    @Test
+    public void testIn_Numeric() throws Exception {
+        StringBuilder out = new StringBuilder();
+        TstQueryAssembler qa = translate(Painting.class,
+                Painting.ESTIMATED_PRICE.in(new BigDecimal("1.5"), new BigDecimal("2.5")), out);
+
+        assertEquals("ta.ESTIMATED_PRICE = ANY (?)", out.toString());
+        assertEquals("numeric", ((PostgresArray) qa.getValues().get(0)).getElementType());
+    }
+
+    @Test
+    public void testIn_Integer() throws Exception {
+        StringBuilder out = new StringBuilder();
+        TstQueryAssembler qa = translate(Painting.class, ExpressionFactory.inDbExp("PAINTING_ID", 1, 2, 3), out);
+
+        assertEquals("ta.PAINTING_ID = ANY (?)", out.toString());
+        assertEquals("int4", ((PostgresArray) qa.getValues().get(0)).getElementType());
+
+        out = new StringBuilder();
+        qa = translate(Painting.class, ExpressionFactory.inDbExp("ARTIST_ID", 1L, 2L), out);
+
+        assertEquals("ta.ARTIST_ID = ANY (?)", out.toString());
+        assertEquals("int8", ((PostgresArray) qa.getValues().get(0)).getElementType());
+    }
+
+    @Test
+    public void testIn_OtherTypesNotBoundAsArray() throws Exception {
+        StringBuilder out = new StringBuilder();
+        TstQueryAssembler qa = translate(Artist.class, Artist.DATE_OF_BIRTH.in(new Date(0), new Date(1000)), out);
+
+        assertEquals("ta.DATE_OF_BIRTH IN (?, ?)", out.toString());
+        assertEquals(2, qa.getValues().size());
+    }
+
+    @Test
+    public void testIn_ObjectsNotBoundAsArray() throws Exception {
+        Artist a1 = new Artist();
+        a1.setObjectId(new ObjectId("Artist", Artist.ARTIST_ID_PK_COLUMN, 1L));
+        Artist a2 = new Artist();
+        a2.setObjectId(new ObjectId("Artist", Artist.ARTIST_ID_PK_COLUMN, 2L));
+
+        StringBuilder out = new StringBuilder();
+        TstQueryAssembler qa = translate(Painting.class, Painting.TO_ARTIST.in(a1, a2), out);
+
+        assertEquals("ta.ARTIST_ID IN (?, ?)", out.toString());
+        assertEquals(Arrays.asList(1L, 2L), qa.getValues());
+    }
+}
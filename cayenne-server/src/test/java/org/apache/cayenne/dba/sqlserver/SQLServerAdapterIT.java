@@ -19,11 +19,14 @@
 package org.apache.cayenne.dba.sqlserver;
 
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
 
 import org.apache.cayenne.di.AdhocObjectFactory;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.map.DbAttribute;
 import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.testing.CayenneConfiguration;
 import org.apache.cayenne.unit.di.server.ServerCase;
 import org.junit.Test;
@@ -54,4 +57,25 @@ public class SQLServerAdapterIT extends ServerCase {
         assertEquals(-1, sql.indexOf("float(22, 12)"));
         assertEquals("CREATE TABLE Test (dbl1 float(22) NULL)", sql);
     }
+
+    @Test
+    public void testCreateUpsertTranslator() {
+        SQLServerAdapter adapter = objectFactory.newInstance(
+                SQLServerAdapter.class, 
+                SQLServerAdapter.class.getName());
+        DbEntity e = new DbEntity("Test");
+        DbAttribute id = new DbAttribute("ID", Types.INTEGER, e);
+        id.setPrimaryKey(true);
+        e.addAttribute(id);
+        e.addAttribute(new DbAttribute("NAME", Types.VARCHAR, e));
+
+        UpsertBatchQuery query = new UpsertBatchQuery(e, new ArrayList<DbAttribute>(e.getAttributes()),
+                Collections.singletonList(id), 1);
+        String sql = adapter.createUpsertTranslator(query).getSql();
+
+        // HOLDLOCK keeps concurrent upserts of the same key from both inserting
+        assertEquals("MERGE INTO Test WITH (HOLDLOCK) AS T USING (SELECT 1 AS X) AS S ON (T.ID = ?)"
+                + " WHEN MATCHED THEN UPDATE SET NAME = ?"
+                + " WHEN NOT MATCHED THEN INSERT (ID, NAME) VALUES (?, ?);", sql);
+    }
 }
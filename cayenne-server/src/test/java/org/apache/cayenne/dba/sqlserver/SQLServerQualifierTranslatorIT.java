@@ -0,0 +1,117 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.dba.sqlserver;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.select.TstQueryAssembler;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.testdo.testmap.Painting;
+import org.apache.cayenne.testing.CayenneConfiguration;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.apache.cayenne.unit.di.server.ServerCaseDataSourceFactory;
+import org.junit.Test;
+
+@CayenneConfiguration(ServerCase.TESTMAP_PROJECT)
+public class SQLServerQualifierTranslatorIT extends ServerCase {
+
+    @Inject
+    private DataNode node;
+
+    @Inject
+    private ServerCaseDataSourceFactory dataSourceFactory;
+
+    private Connection connection;
+
+    @Override
+    protected void setUpAfterInjection() throws Exception {
+        this.connection = dataSourceFactory.getSharedDataSource().getConnection();
+    }
+
+    @Override
+    protected void tearDownBeforeInjection() throws Exception {
+        connection.close();
+    }
+
+    private TstQueryAssembler translate(Expression qualifier, boolean paddingLists, StringBuilder out)
+            throws Exception {
+        TstQueryAssembler qa = new TstQueryAssembler(new SelectQuery<Painting>(Painting.class, qualifier), node,
+                connection);
+
+        SQLServerTrimmingQualifierTranslator translator = new SQLServerTrimmingQualifierTranslator(qa,
+                SQLServerAdapter.TRIM_FUNCTION);
+        translator.setPaddingLists(paddingLists);
+        translator.appendPart(out);
+        return qa;
+    }
+
+    private static List<Object> values(int size, boolean strings) {
+        List<Object> values = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(strings ? (Object) ("v" + i) : (Object) i);
+        }
+        return values;
+    }
+
+    @Test
+    public void testIn_InlinesLongIntegerLists() throws Exception {
+        StringBuilder out = new StringBuilder();
+        TstQueryAssembler qa = translate(ExpressionFactory.inDbExp("PAINTING_ID", values(2500, false)), false, out);
+
+        assertEquals(0, qa.getValues().size());
+        assertTrue(out.toString().startsWith("ta.PAINTING_ID IN (0, 1, 2, "));
+        assertTrue(out.toString().endsWith(", 2499)"));
+    }
+
+    @Test
+    public void testIn_BindsShortIntegerLists() throws Exception {
+        StringBuilder out = new StringBuilder();
+        TstQueryAssembler qa = translate(ExpressionFactory.inDbExp("PAINTING_ID", values(2000, false)), false, out);
+
+        assertEquals(2000, qa.getValues().size());
+        assertEquals(-1, out.toString().indexOf("1999"));
+    }
+
+    @Test
+    public void testIn_PaddingCapped() throws Exception {
+        StringBuilder out = new StringBuilder();
+        TstQueryAssembler qa = translate(ExpressionFactory.inDbExp("PAINTING_TITLE", values(1500, true)), true, out);
+
+        // padding to 2048 would exceed the parameters limit
+        assertEquals(SQLServerTrimmingQualifierTranslator.MAX_LIST_PARAMETERS, qa.getValues().size());
+        assertEquals("v1499", qa.getValues().get(qa.getValues().size() - 1));
+    }
+
+    @Test
+    public void testIn_LongNonIntegerListRejected() throws Exception {
+        try {
+            translate(ExpressionFactory.inDbExp("PAINTING_TITLE", values(2200, true)), false, new StringBuilder());
+            fail("A list over the parameters limit can't be bound");
+        } catch (CayenneRuntimeException e) {
+            assertTrue(e.getMessage().indexOf("2200") >= 0);
+        }
+    }
+}
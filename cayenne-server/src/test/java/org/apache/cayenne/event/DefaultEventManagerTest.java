@@ -19,8 +19,11 @@
 
 package org.apache.cayenne.event;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EventListener;
 import java.util.EventObject;
+import java.util.List;
 
 import junit.framework.Assert;
 import junit.framework.TestCase;
@@ -392,6 +395,86 @@ public class DefaultEventManagerTest extends TestCase implements EventListener {
         Assert.assertFalse(eventManager.removeListener(this));
     }
 
+    public void testNonBlockingEventsDeliveredInOrder() throws Exception {
+        EventSubject subject = EventSubject.getSubject(this.getClass(), "Ordered");
+
+        final OrderedListener listener = new OrderedListener();
+        eventManager.addNonBlockingListener(
+                listener,
+                "seeEvent",
+                CayenneEvent.class,
+                subject);
+
+        for (int i = 0; i < 500; i++) {
+            CayenneEvent e = new CayenneEvent(this, Collections.singletonMap("i", i));
+            eventManager.postNonBlockingEvent(e, subject);
+        }
+
+        ParallelTestContainer helper = new ParallelTestContainer() {
+
+            @Override
+            protected void assertResult() throws Exception {
+                assertEquals(500, listener.received.size());
+            }
+        };
+        helper.runTest(5000);
+
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, listener.received.get(i).intValue());
+        }
+    }
+
+    public void testNonBlockingListenerForBlockingEvent() throws Exception {
+        EventSubject subject = EventSubject.getSubject(this.getClass(), "Mixed");
+
+        final OrderedListener listener1 = new OrderedListener();
+        final OrderedListener listener2 = new OrderedListener();
+        eventManager.addNonBlockingListener(
+                listener1,
+                "seeEvent",
+                CayenneEvent.class,
+                subject);
+        eventManager.addNonBlockingListener(
+                listener2,
+                "seeEvent",
+                CayenneEvent.class,
+                subject);
+
+        for (int i = 0; i < 10; i++) {
+            CayenneEvent e = new CayenneEvent(this, Collections.singletonMap("i", i));
+            eventManager.postEvent(e, subject);
+        }
+
+        ParallelTestContainer helper = new ParallelTestContainer() {
+
+            @Override
+            protected void assertResult() throws Exception {
+                assertEquals(10, listener1.received.size());
+                assertEquals(10, listener2.received.size());
+            }
+        };
+        helper.runTest(5000);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, listener1.received.get(i).intValue());
+            assertEquals(i, listener2.received.get(i).intValue());
+        }
+
+        // the dispatcher updates the metrics after notifying the listeners
+        ParallelTestContainer metricsHelper = new ParallelTestContainer() {
+
+            @Override
+            protected void assertResult() throws Exception {
+                assertEquals(10, eventManager.getDispatchCount());
+                assertEquals(0, eventManager.getQueueDepth());
+            }
+        };
+        metricsHelper.runTest(5000);
+
+        assertTrue(eventManager.getMaxDispatchLatency() >= eventManager
+                .getMeanDispatchLatency());
+    }
+
     // notification method
     public void seeNotification(CayenneEvent event) {
         numberOfReceivedEvents++;
@@ -427,6 +510,15 @@ public class DefaultEventManagerTest extends TestCase implements EventListener {
 
 }
 
+class OrderedListener {
+
+    final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+
+    public void seeEvent(CayenneEvent event) {
+        received.add((Integer) event.getInfo().get("i"));
+    }
+}
+
 // dummy class to test for incompatible events
 class MyCayenneEvent extends CayenneEvent {
 
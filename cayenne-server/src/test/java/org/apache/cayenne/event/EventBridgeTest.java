@@ -19,13 +19,20 @@
 
 package org.apache.cayenne.event;
 
+import org.apache.cayenne.ObjectId;
 import org.apache.cayenne.access.event.SnapshotEvent;
+import org.apache.cayenne.access.event.SnapshotEventCodec;
 import org.apache.cayenne.test.parallel.ParallelTestContainer;
 import org.junit.Test;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -155,11 +162,175 @@ public class EventBridgeTest {
         manager.shutdown();
     }
 
+    @Test
+    public void testSendCoalescedEncodedEvents() throws Exception {
+
+        final EventSubject local = EventSubject.getSubject(
+                EventBridgeTest.class,
+                "testCoalescing");
+
+        DefaultEventManager senderManager = new DefaultEventManager(2);
+        DefaultEventManager receiverManager = new DefaultEventManager(2);
+
+        final TestBridge receiver = new TestBridge(local, "externalSubject");
+        receiver.setEventCodec(new SnapshotEventCodec());
+        receiver.startup(receiverManager, EventBridge.RECEIVE_EXTERNAL);
+
+        final TestBridge sender = new TestBridge(local, "externalSubject");
+        sender.setEventCodec(new SnapshotEventCodec());
+        sender.setCoalescingWindow(200);
+        sender.receiver = receiver;
+        sender.startup(senderManager, EventBridge.RECEIVE_LOCAL);
+
+        final List<CayenneEvent> received = Collections
+                .synchronizedList(new java.util.ArrayList<CayenneEvent>());
+        receiverManager.addListener(new Object() {
+
+            @SuppressWarnings("unused")
+            public void onEvent(CayenneEvent e) {
+                received.add(e);
+            }
+        }, "onEvent", CayenneEvent.class, local);
+
+        for (int i = 0; i < 10; i++) {
+            SnapshotEvent event = new SnapshotEvent(this, this, null, Collections
+                    .singletonList(new ObjectId("Artist", "ARTIST_ID", i)), null, null);
+            senderManager.postEvent(event, local);
+        }
+
+        ParallelTestContainer helper = new ParallelTestContainer() {
+
+            @Override
+            protected void assertResult() throws Exception {
+                assertEquals(1, received.size());
+                assertEquals(1, sender.encodedMessages);
+                assertEquals(10, ((SnapshotEvent) received.get(0))
+                        .getDeletedIds()
+                        .size());
+            }
+        };
+        helper.runTest(5000);
+
+        sender.shutdown();
+        receiver.shutdown();
+        senderManager.shutdown();
+        receiverManager.shutdown();
+    }
+
+    @Test
+    public void testSendEncodedEvents_DefaultSendsEachEvent() throws Exception {
+
+        EventSubject local = EventSubject.getSubject(
+                EventBridgeTest.class,
+                "testDefaultEncoded");
+
+        final List<CayenneEvent> sent = new java.util.ArrayList<CayenneEvent>();
+
+        // a bridge that does not override sendExternalEncodedEvents
+        EventBridge bridge = new EventBridge(local, "externalSubject") {
+
+            @Override
+            protected void sendExternalEvent(CayenneEvent event) {
+                sent.add(event);
+            }
+
+            @Override
+            protected void startupExternal() {
+            }
+
+            @Override
+            protected void shutdownExternal() {
+            }
+        };
+        bridge.setEventCodec(new SnapshotEventCodec());
+
+        ObjectId id = new ObjectId("Artist", "ARTIST_ID", 1);
+        SnapshotEvent event = new SnapshotEvent(this, this, null, Collections
+                .singletonList(id), null, null);
+        event.setSubject(local);
+
+        bridge.sendExternalEvents(Collections.<CayenneEvent> singletonList(event));
+
+        assertEquals(1, sent.size());
+        assertEquals(local, sent.get(0).getSubject());
+        assertEquals(Collections.singletonList(id), ((SnapshotEvent) sent.get(0))
+                .getDeletedIds());
+    }
+
+    @Test
+    public void testShutdown_WaitsForCoalescedSend() throws Exception {
+
+        EventSubject local = EventSubject.getSubject(
+                EventBridgeTest.class,
+                "testShutdownCoalescing");
+
+        DefaultEventManager manager = new DefaultEventManager(2);
+
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final boolean[] sentBeforeShutdown = new boolean[1];
+
+        final TestBridge bridge = new TestBridge(local, "externalSubject") {
+
+            @Override
+            public void sendExternalEvent(CayenneEvent event) {
+                sending.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    // ignore
+                }
+                super.sendExternalEvent(event);
+            }
+
+            @Override
+            protected void shutdownExternal() throws Exception {
+                sentBeforeShutdown[0] = lastLocalEvent != null;
+                super.shutdownExternal();
+            }
+        };
+        bridge.setCoalescingWindow(10);
+        bridge.startup(manager, EventBridge.RECEIVE_LOCAL);
+
+        bridge.sendLocalEvent(new CayenneEvent(this));
+
+        // the timer thread is now blocked in the middle of sending
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        Thread shutdown = new Thread() {
+
+            @Override
+            public void run() {
+                try {
+                    bridge.shutdown();
+                }
+                catch (Exception e) {
+                    // reported by the assertions below
+                }
+            }
+        };
+        shutdown.start();
+
+        Thread.sleep(100);
+        assertFalse(bridge.shutdownCalls > 0);
+
+        release.countDown();
+        shutdown.join(5000);
+
+        assertEquals(1, bridge.shutdownCalls);
+        assertTrue(sentBeforeShutdown[0]);
+
+        manager.shutdown();
+    }
+
     class TestBridge extends EventBridge {
 
         CayenneEvent lastLocalEvent;
         int startupCalls;
         int shutdownCalls;
+        int encodedMessages;
+        TestBridge receiver;
 
         public TestBridge(EventSubject localSubject, String externalSubject) {
             super(localSubject, externalSubject);
@@ -170,6 +341,14 @@ public class EventBridgeTest {
             lastLocalEvent = event;
         }
 
+        @Override
+        protected void sendExternalEncodedEvents(byte[] data) throws Exception {
+            encodedMessages++;
+            if (receiver != null) {
+                receiver.onExternalEncodedEvents(data);
+            }
+        }
+
         @Override
         protected void shutdownExternal() throws Exception {
             shutdownCalls++;
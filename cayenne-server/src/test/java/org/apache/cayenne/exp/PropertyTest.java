@@ -21,6 +21,7 @@ package org.apache.cayenne.exp;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.cayenne.exp.parser.ASTAggregate;
 import org.apache.cayenne.reflect.TstJavaBean;
 import org.apache.cayenne.reflect.UnresolvablePathException;
 import org.apache.cayenne.testing.TestCase;
@@ -157,6 +158,40 @@ public class PropertyTest extends TestCase {
         assertTrue(INT_FIELD.hashCode() != LONG_FIELD.hashCode());
     }
 
+    @Test
+    public void testAggregate() {
+        Property<Integer> p = new Property<Integer>("x.y");
+
+        Property<Long> count = p.count();
+        assertEquals("x.y", count.getName());
+        assertEquals(AggregateFunction.COUNT, count.getAggregate());
+        assertFalse(p.isAggregate());
+
+        assertFalse(count.equals(new Property<Long>("x.y")));
+        assertFalse(p.sum().equals(p.max()));
+        assertTrue(p.min().equals(p.min()));
+        assertTrue(p.avg().hashCode() == p.avg().hashCode());
+
+        assertEquals("count(x.y) > 5", count.gt(5L).toString());
+        assertEquals("sum(x.y) in (1, 2)", p.sum().in(1, 2).toString());
+        assertEquals("x.y > 5", p.gt(5).toString());
+    }
+
+    @Test
+    public void testAggregate_ExpressionHashCode() {
+        ASTAggregate sum = new ASTAggregate(AggregateFunction.SUM, "x.y");
+        ASTAggregate sum2 = new ASTAggregate(AggregateFunction.SUM, "x.y");
+
+        assertTrue(sum.equals(sum2));
+        assertEquals(sum.hashCode(), sum2.hashCode());
+        assertFalse(sum.equals(new ASTAggregate(AggregateFunction.MAX, "x.y")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAggregate_Nested() {
+        new Property<Integer>("x").max().count();
+    }
+
     @Test
     public void testOuter() {
         Property<String> inner = new Property<String>("xyz");
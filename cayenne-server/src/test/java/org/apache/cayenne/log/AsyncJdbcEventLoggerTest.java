@@ -0,0 +1,183 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.cayenne.access.translator.batch.BatchParameterBinding;
+import org.apache.cayenne.configuration.DefaultRuntimeProperties;
+import org.apache.cayenne.map.DbAttribute;
+import org.junit.Test;
+
+public class AsyncJdbcEventLoggerTest {
+
+    @Test
+    public void testRecordOrder() {
+        RecordingLogger delegate = new RecordingLogger(true);
+        AsyncJdbcEventLogger logger = new AsyncJdbcEventLogger(delegate, 100);
+
+        logger.log("a");
+        logger.logUpdateCount(5);
+        logger.log("b");
+        logger.shutdown();
+
+        assertEquals("[a, updated 5, b]", delegate.messages.toString());
+        assertEquals(0, logger.getDroppedRecords());
+    }
+
+    @Test
+    public void testBindingsSnapshot() {
+        RecordingLogger delegate = new RecordingLogger(true);
+        AsyncJdbcEventLogger logger = new AsyncJdbcEventLogger(delegate, 100);
+
+        BatchParameterBinding[] bindings = new BatchParameterBinding[] { new BatchParameterBinding(new DbAttribute(
+                "X")) };
+
+        bindings[0].include(1, "v1");
+        logger.logQueryParameters("bind", bindings);
+        bindings[0].include(1, "v2");
+        logger.logQueryParameters("bind", bindings);
+        logger.shutdown();
+
+        assertEquals("[bind v1, bind v2]", delegate.messages.toString());
+    }
+
+    @Test
+    public void testNotLoggable() {
+        RecordingLogger delegate = new RecordingLogger(false);
+        AsyncJdbcEventLogger logger = new AsyncJdbcEventLogger(delegate, 100);
+
+        // passed through synchronously
+        logger.log("a");
+        assertEquals("[a]", delegate.messages.toString());
+        logger.shutdown();
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        RecordingLogger delegate = new RecordingLogger(true) {
+
+            @Override
+            public void logUpdateCount(int count) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                super.logUpdateCount(count);
+            }
+        };
+
+        AsyncJdbcEventLogger logger = new AsyncJdbcEventLogger(delegate, 1);
+
+        // the worker blocks on the first record, so at most two records fit
+        logger.logUpdateCount(1);
+        logger.log("a");
+        logger.log("b");
+        logger.log("c");
+
+        latch.countDown();
+        logger.shutdown();
+
+        assertTrue(logger.getDroppedRecords() >= 2);
+        assertTrue(delegate.messages.get(delegate.messages.size() - 1).startsWith("*** log queue is full"));
+    }
+
+    @Test
+    public void testErrorsNotDroppedWhenFull() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        RecordingLogger delegate = new RecordingLogger(true) {
+
+            @Override
+            public void logUpdateCount(int count) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                super.logUpdateCount(count);
+            }
+        };
+
+        AsyncJdbcEventLogger logger = new AsyncJdbcEventLogger(delegate, 1);
+
+        logger.logUpdateCount(1);
+        logger.log("a");
+        logger.log("b");
+        logger.logQueryError(new Exception("query"));
+        logger.logConnectFailure(new Exception("connect"));
+
+        // written in the calling thread while the worker is still blocked
+        assertTrue(delegate.messages.contains("error query"));
+        assertTrue(delegate.messages.contains("connect failure connect"));
+
+        latch.countDown();
+        logger.shutdown();
+
+        assertTrue(logger.getDroppedRecords() >= 1);
+    }
+
+    static class RecordingLogger extends CommonsJdbcEventLogger {
+
+        final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+        private boolean loggable;
+
+        RecordingLogger(boolean loggable) {
+            super(new DefaultRuntimeProperties(Collections.<String, String> emptyMap()));
+            this.loggable = loggable;
+        }
+
+        @Override
+        public void log(String message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void logUpdateCount(int count) {
+            messages.add("updated " + count);
+        }
+
+        @Override
+        public void logQueryParameters(String label, BatchParameterBinding[] bindings) {
+            messages.add(label + " " + bindings[0].getValue());
+        }
+
+        @Override
+        public void logQueryError(Throwable th) {
+            messages.add("error " + th.getMessage());
+        }
+
+        @Override
+        public void logConnectFailure(Throwable th) {
+            messages.add("connect failure " + th.getMessage());
+        }
+
+        @Override
+        public boolean isLoggable() {
+            return loggable;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.cayenne.access.jdbc.ParameterBinding;
+import org.apache.cayenne.configuration.Constants;
+import org.apache.cayenne.configuration.DefaultRuntimeProperties;
+import org.apache.cayenne.query.SQLTemplate;
+import org.junit.Test;
+
+public class SlowQueryDetectorTest {
+
+    @Test
+    public void testIsSlow() {
+        SlowQueryDetector detector = new SlowQueryDetector(new DefaultRuntimeProperties(Collections.EMPTY_MAP));
+        assertFalse(detector.isSlow(Long.MAX_VALUE));
+
+        detector.setThreshold(100);
+        assertFalse(detector.isSlow(99));
+        assertTrue(detector.isSlow(100));
+    }
+
+    @Test
+    public void testProperties() {
+        SlowQueryDetector detector = new SlowQueryDetector(new DefaultRuntimeProperties(Collections.singletonMap(
+                Constants.SERVER_SLOW_QUERY_THRESHOLD_PROPERTY, "50")));
+        assertEquals(50, detector.getThreshold());
+        assertFalse(detector.isExplaining());
+    }
+
+    @Test
+    public void testReport() {
+        SlowQueryDetector detector = new SlowQueryDetector(10, 5, false);
+
+        ParameterBinding[] bindings = new ParameterBinding[] { new ParameterBinding("abc", 0, -1),
+                new ParameterBinding(null, 0, -1), new ParameterBinding(5, 0, -1) };
+        SlowQuery slowQuery = detector.report(null, new SQLTemplate(), "SELECT 1", bindings, 3, 25, true);
+
+        assertEquals("SQLTemplate", slowQuery.getQueryType());
+        assertEquals("SELECT 1", slowQuery.getSql());
+        assertEquals(3, slowQuery.getRowCount());
+        assertEquals(25, slowQuery.getTime());
+        assertEquals("['abc', NULL, 5]", slowQuery.getParameters().toString());
+        assertNull(slowQuery.getExplainPlan());
+    }
+
+    @Test
+    public void testRingBuffer() {
+        SlowQueryDetector detector = new SlowQueryDetector(10, 3, false);
+
+        for (int i = 0; i < 5; i++) {
+            detector.report(null, null, "Q" + i, null, -1, 20, false);
+        }
+
+        List<SlowQuery> queries = detector.getSlowQueries();
+        assertEquals(3, queries.size());
+        assertEquals("Q4", queries.get(0).getSql());
+        assertEquals("Q3", queries.get(1).getSql());
+        assertEquals("Q2", queries.get(2).getSql());
+
+        detector.clear();
+        assertTrue(detector.getSlowQueries().isEmpty());
+    }
+}
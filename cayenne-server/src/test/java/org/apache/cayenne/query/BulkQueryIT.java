@@ -0,0 +1,194 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.query;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.apache.cayenne.Cayenne;
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.PersistenceState;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.exp.Property;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.testdo.testmap.Painting;
+import org.apache.cayenne.testing.CayenneConfiguration;
+import org.apache.cayenne.unit.UnitDbAdapter;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.junit.Test;
+
+@CayenneConfiguration(ServerCase.TESTMAP_PROJECT)
+public class BulkQueryIT extends ServerCase {
+
+    @Inject
+    private ObjectContext context;
+
+    @Inject
+    private DBHelper dbHelper;
+
+    @Inject
+    private UnitDbAdapter accessStackAdapter;
+
+    private TableHelper tArtist;
+    private TableHelper tPainting;
+
+    @Override
+    protected void setUpAfterInjection() throws Exception {
+        dbHelper.deleteAll("PAINTING_INFO");
+        dbHelper.deleteAll("PAINTING");
+        dbHelper.deleteAll("ARTIST_EXHIBIT");
+        dbHelper.deleteAll("ARTIST_GROUP");
+        dbHelper.deleteAll("ARTIST");
+
+        tArtist = new TableHelper(dbHelper, "ARTIST");
+        tArtist.setColumns("ARTIST_ID", "ARTIST_NAME");
+
+        tPainting = new TableHelper(dbHelper, "PAINTING");
+        tPainting.setColumns("PAINTING_ID", "PAINTING_TITLE", "ARTIST_ID", "ESTIMATED_PRICE");
+    }
+
+    protected void createArtistsAndPaintingsDataSet() throws Exception {
+        tArtist.insert(1, "artist1");
+        tArtist.insert(2, "artist2");
+        tArtist.insert(3, "artist3");
+
+        tPainting.insert(1, "p1", 1, new BigDecimal(1000));
+        tPainting.insert(2, "p2", 1, new BigDecimal(2000));
+        tPainting.insert(3, "p3", 2, new BigDecimal(3000));
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        createArtistsAndPaintingsDataSet();
+
+        Artist a1 = Cayenne.objectForPK(context, Artist.class, 1);
+        Artist a3 = Cayenne.objectForPK(context, Artist.class, 3);
+
+        int updated = new BulkUpdateQuery<Artist>(Artist.class, Artist.ARTIST_NAME.in("artist1", "artist2")).set(
+                Artist.ARTIST_NAME, "renamed").execute(context);
+        assertEquals(2, updated);
+
+        // all objects of the entity are invalidated
+        assertEquals(PersistenceState.HOLLOW, a1.getPersistenceState());
+        assertEquals(PersistenceState.HOLLOW, a3.getPersistenceState());
+        assertEquals("renamed", a1.getArtistName());
+        assertEquals("artist3", a3.getArtistName());
+        assertEquals("renamed", Cayenne.objectForPK(context, Artist.class, 2).getArtistName());
+    }
+
+    @Test
+    public void testUpdate_PreselectingIds() throws Exception {
+        createArtistsAndPaintingsDataSet();
+
+        Artist a1 = Cayenne.objectForPK(context, Artist.class, 1);
+        Artist a3 = Cayenne.objectForPK(context, Artist.class, 3);
+
+        BulkUpdateQuery<Artist> query = new BulkUpdateQuery<Artist>(Artist.class, Artist.ARTIST_NAME.eq("artist1"));
+        query.set(new Property<String>("db:ARTIST_NAME"), "renamed");
+        query.setPreselectingIds(true);
+        assertEquals(1, query.execute(context));
+
+        // only the matching objects are invalidated
+        assertEquals(PersistenceState.HOLLOW, a1.getPersistenceState());
+        assertEquals(PersistenceState.COMMITTED, a3.getPersistenceState());
+        assertEquals("renamed", a1.getArtistName());
+    }
+
+    @Test
+    public void testUpdate_Null() throws Exception {
+        createArtistsAndPaintingsDataSet();
+
+        int updated = new BulkUpdateQuery<Painting>(Painting.class).set(Painting.ESTIMATED_PRICE, null).execute(
+                context);
+        assertEquals(3, updated);
+
+        List<?> prices = context.select(SelectQuery.columnQuery(Painting.class, Painting.ESTIMATED_PRICE));
+        assertEquals(3, prices.size());
+        for (Object price : prices) {
+            assertNull(price);
+        }
+    }
+
+    @Test(expected = CayenneRuntimeException.class)
+    public void testUpdate_Relationship() throws Exception {
+        new BulkUpdateQuery<Painting>(Painting.class).set(Painting.TO_ARTIST.dot(Artist.ARTIST_NAME), "x")
+                .execute(context);
+    }
+
+    @Test
+    public void testDelete() throws Exception {
+        createArtistsAndPaintingsDataSet();
+
+        int deleted = new BulkDeleteQuery<Painting>(Painting.class, Painting.ESTIMATED_PRICE.gt(new BigDecimal(1500)))
+                .execute(context);
+        assertEquals(2, deleted);
+        assertEquals(1, tPainting.getRowCount());
+    }
+
+    @Test
+    public void testDelete_PreselectingIds() throws Exception {
+        createArtistsAndPaintingsDataSet();
+
+        Painting p1 = Cayenne.objectForPK(context, Painting.class, 1);
+        Painting p2 = Cayenne.objectForPK(context, Painting.class, 2);
+
+        BulkDeleteQuery<Painting> query = new BulkDeleteQuery<Painting>(Painting.class, ExpressionFactory.matchDbExp(
+                "PAINTING_ID", 1));
+        query.setPreselectingIds(true);
+        assertEquals(1, query.execute(context));
+
+        assertEquals(PersistenceState.TRANSIENT, p1.getPersistenceState());
+        assertEquals(PersistenceState.COMMITTED, p2.getPersistenceState());
+    }
+
+    @Test
+    public void testDelete_QualifierWithJoins() throws Exception {
+        if (!accessStackAdapter.supportsSubqueryOnUpdatedTable()) {
+            return;
+        }
+
+        createArtistsAndPaintingsDataSet();
+
+        int deleted = new BulkDeleteQuery<Painting>(Painting.class, Painting.TO_ARTIST.dot(Artist.ARTIST_NAME).eq(
+                "artist1")).execute(context);
+        assertEquals(2, deleted);
+        assertEquals(1, tPainting.getRowCount());
+    }
+
+    @Test
+    public void testCacheGroups() throws Exception {
+        createArtistsAndPaintingsDataSet();
+
+        SelectQuery<Artist> select = new SelectQuery<Artist>(Artist.class, Artist.ARTIST_NAME.eq("artist2"));
+        select.setCacheStrategy(QueryCacheStrategy.SHARED_CACHE);
+        select.setCacheGroups("artists");
+        assertEquals(1, context.select(select).size());
+
+        BulkUpdateQuery<Artist> update = new BulkUpdateQuery<Artist>(Artist.class, Artist.ARTIST_NAME.eq("artist2"));
+        update.set(Artist.ARTIST_NAME, "renamed");
+        update.setCacheGroups("artists");
+        assertEquals(1, update.execute(context));
+
+        assertEquals(0, context.select(select).size());
+    }
+}
@@ -105,4 +105,12 @@ public class MockQueryMetadata implements QueryMetadata {
     public int getStatementFetchSize() {
         return 0;
     }
+
+    public int getQueryTimeout() {
+        return 0;
+    }
+
+    public QueryCancelHandle getCancelHandle() {
+        return null;
+    }
 }
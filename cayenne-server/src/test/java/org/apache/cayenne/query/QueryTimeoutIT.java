@@ -0,0 +1,116 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.query;
+
+import java.util.List;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ResultIterator;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.testing.CayenneConfiguration;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.junit.Test;
+
+@CayenneConfiguration(ServerCase.TESTMAP_PROJECT)
+public class QueryTimeoutIT extends ServerCase {
+
+    @Inject
+    private ObjectContext context;
+
+    @Inject
+    private DBHelper dbHelper;
+
+    @Override
+    protected void setUpAfterInjection() throws Exception {
+        dbHelper.deleteAll("PAINTING_INFO");
+        dbHelper.deleteAll("PAINTING");
+        dbHelper.deleteAll("ARTIST_EXHIBIT");
+        dbHelper.deleteAll("ARTIST_GROUP");
+        dbHelper.deleteAll("ARTIST");
+
+        TableHelper tArtist = new TableHelper(dbHelper, "ARTIST");
+        tArtist.setColumns("ARTIST_ID", "ARTIST_NAME");
+        tArtist.insert(1, "artist1");
+        tArtist.insert(2, "artist2");
+    }
+
+    @Test
+    public void testQueryTimeout() {
+        SelectQuery<Artist> query = new SelectQuery<Artist>(Artist.class);
+        query.setQueryTimeout(10);
+
+        assertEquals(10, query.getMetaData(context.getEntityResolver()).getQueryTimeout());
+        assertEquals(2, context.select(query).size());
+
+        SQLTemplate template = new SQLTemplate(Artist.class, "SELECT * FROM ARTIST");
+        template.setQueryTimeout(10);
+
+        assertEquals(10, template.getMetaData(context.getEntityResolver()).getQueryTimeout());
+        assertEquals(2, context.performQuery(template).size());
+
+        List<Artist> artists = SQLSelect.query(Artist.class, "SELECT * FROM ARTIST").queryTimeout(10)
+                .select(context);
+        assertEquals(2, artists.size());
+    }
+
+    @Test
+    public void testCancelHandle() {
+        QueryCancelHandle handle = new QueryCancelHandle();
+
+        SelectQuery<Artist> query = new SelectQuery<Artist>(Artist.class);
+        query.setCancelHandle(handle);
+        assertEquals(2, context.select(query).size());
+
+        handle.cancel();
+
+        try {
+            context.select(query);
+            fail("Cancelled query must not run");
+        } catch (CayenneRuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCancelHandle_Iterator() {
+        QueryCancelHandle handle = new QueryCancelHandle();
+
+        SelectQuery<Artist> query = new SelectQuery<Artist>(Artist.class);
+        query.setFetchingDataRows(true);
+        query.setCancelHandle(handle);
+
+        ResultIterator<?> it = context.iterator(query);
+        try {
+            assertTrue(it.hasNextRow());
+            it.nextRow();
+
+            assertTrue(it.hasNextRow());
+
+            // closes the iterator and releases its connection
+            handle.cancel();
+            assertFalse(it.hasNextRow());
+        } finally {
+            it.close();
+        }
+    }
+}
@@ -22,10 +22,14 @@ package org.apache.cayenne.query;
 import org.apache.cayenne.exp.Expression;
 import org.apache.cayenne.exp.ExpressionFactory;
 import org.apache.cayenne.exp.ExpressionParameter;
+import org.apache.cayenne.exp.Property;
+import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.testdo.testmap.Painting;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -156,4 +160,35 @@ public class SelectQueryBasicsTest {
         assertEquals("name", q.getName());
         assertNull(q1.getName());
     }
+
+    @Test
+    public void testColumns() {
+        SelectQuery<Object[]> q = SelectQuery.columnQuery(Painting.class, Painting.PAINTING_TITLE,
+                Painting.TO_ARTIST.dot(Artist.ARTIST_NAME));
+
+        assertTrue(q.isSelectingColumns());
+        assertEquals(2, q.getColumns().size());
+        assertEquals("toArtist.artistName", q.getColumns().get(1).getName());
+
+        q.setPageSize(10);
+        QueryMetadata md = q.getMetaData(new EntityResolver());
+        assertTrue(md.isFetchingDataRows());
+        assertEquals(0, md.getPageSize());
+        assertEquals(2, md.getResultSetMapping().size());
+        assertEquals(1, ((ScalarResultSegment) md.getResultSetMapping().get(1)).getColumnOffset());
+
+        SelectQuery<Object[]> q1 = q.queryWithParameters(Collections.<String, Object> emptyMap());
+        assertEquals(q.getColumns(), q1.getColumns());
+
+        q.setColumns((Collection<Property<?>>) null);
+        assertFalse(q.isSelectingColumns());
+        assertNull(q.getMetaData(new EntityResolver()).getResultSetMapping());
+    }
+
+    @Test
+    public void testColumnQuery_Scalar() {
+        SelectQuery<String> q = SelectQuery.columnQuery(Artist.class, Artist.ARTIST_NAME);
+        assertEquals(Collections.singletonList(Artist.ARTIST_NAME), q.getColumns());
+        assertEquals(1, q.getMetaData(new EntityResolver()).getResultSetMapping().size());
+    }
 }
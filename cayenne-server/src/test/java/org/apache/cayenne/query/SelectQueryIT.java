@@ -19,6 +19,7 @@
 
 package org.apache.cayenne.query;
 
+import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -46,6 +47,7 @@ import org.apache.cayenne.test.jdbc.TableHelper;
 import org.apache.cayenne.testdo.testmap.Artist;
 import org.apache.cayenne.testdo.testmap.ArtistExhibit;
 import org.apache.cayenne.testdo.testmap.ClobTestEntity;
+import org.apache.cayenne.testdo.testmap.ClobTestRelation;
 import org.apache.cayenne.testdo.testmap.Exhibit;
 import org.apache.cayenne.testdo.testmap.Gallery;
 import org.apache.cayenne.testdo.testmap.Painting;
@@ -386,8 +388,8 @@ public class SelectQueryIT extends ServerCase {
         if (accessStackAdapter.supportsLobs()) {
             createClobDataSet();
 
-            // see CAY-1539... CLOB column causes suppression of DISTINCT in
-            // SQL, and hence the offset processing is done in memory
+            // see CAY-1539... CLOB column can't be used with DISTINCT in SQL,
+            // however the rows are unique without it
             SelectQuery<ClobTestEntity> query = new SelectQuery<ClobTestEntity>(ClobTestEntity.class);
             query.addOrdering("db:" + ClobTestEntity.CLOB_TEST_ID_PK_COLUMN, SortOrder.ASCENDING);
             query.setFetchLimit(1);
@@ -400,6 +402,31 @@ public class SelectQueryIT extends ServerCase {
         }
     }
 
+    @Test
+    public void testSelectFetchLimit_Offset_ToManyQualifierClob() throws Exception {
+        if (accessStackAdapter.supportsLobs()) {
+            createClobDataSet();
+
+            TableHelper tClobRelation = new TableHelper(dbHelper, "CLOB_TEST_RELATION");
+            tClobRelation.setColumns("ID", "CVALUE", "ID_CLOB");
+            tClobRelation.insert(1, 5, 1);
+            tClobRelation.insert(2, 6, 1);
+            tClobRelation.insert(3, 5, 2);
+
+            // to-many qualifier is applied in a subquery, so that the fetch
+            // offset doesn't count the rows multiplied by the join
+            SelectQuery<ClobTestEntity> query = new SelectQuery<ClobTestEntity>(ClobTestEntity.class,
+                    ClobTestEntity.CLOB_VALUE.dot(ClobTestRelation.VALUE).gt(0));
+            query.addOrdering("db:" + ClobTestEntity.CLOB_TEST_ID_PK_COLUMN, SortOrder.ASCENDING);
+            query.setFetchLimit(1);
+            query.setFetchOffset(1);
+
+            List<ClobTestEntity> objects = context.select(query);
+            assertEquals(1, objects.size());
+            assertEquals(2, Cayenne.intPKForObject(objects.get(0)));
+        }
+    }
+
     @Test
     public void testSelectEqualsClob() throws Exception {
         if (accessStackAdapter.supportsLobComparisons()) {
@@ -842,4 +869,96 @@ public class SelectQueryIT extends ServerCase {
         assertFalse(query1.metaData.getCacheKey().equals(query2.metaData.cacheKey));
         assertEquals(query2.metaData.getCacheKey(), query3.metaData.getCacheKey());
     }
+
+    @Test
+    public void testColumnQuery_Scalar() throws Exception {
+        createArtistsDataSet();
+
+        SelectQuery<String> query = SelectQuery.columnQuery(Artist.class, Artist.ARTIST_NAME);
+        query.andQualifier(Artist.ARTIST_NAME.in("artist1", "artist2"));
+        query.addOrdering(Artist.ARTIST_NAME.asc());
+
+        List<String> names = context.select(query);
+        assertEquals(Arrays.asList("artist1", "artist2"), names);
+    }
+
+    @Test
+    public void testColumnQuery_Join() throws Exception {
+        createArtistsDataSet();
+
+        TableHelper tPainting = new TableHelper(dbHelper, "PAINTING");
+        tPainting.setColumns("PAINTING_ID", "ARTIST_ID", "PAINTING_TITLE");
+        tPainting.insert(1, 1, "p1");
+        tPainting.insert(2, 1, "p2");
+        tPainting.insert(3, 2, "p3");
+
+        SelectQuery<Object[]> query = SelectQuery.columnQuery(Painting.class, Painting.PAINTING_TITLE,
+                Painting.TO_ARTIST.dot(Artist.ARTIST_NAME));
+        query.addOrdering(Painting.PAINTING_TITLE.asc());
+
+        List<Object[]> rows = context.select(query);
+        assertEquals(3, rows.size());
+        assertEquals("p1", rows.get(0)[0]);
+        assertEquals("artist1", rows.get(0)[1]);
+        assertEquals("p3", rows.get(2)[0]);
+        assertEquals("artist2", rows.get(2)[1]);
+
+        // no implicit DISTINCT for to-many joins, each painting yields a row
+        SelectQuery<String> names = SelectQuery.columnQuery(Artist.class, Artist.ARTIST_NAME);
+        names.setQualifier(Artist.PAINTING_ARRAY.dot(Painting.PAINTING_TITLE).like("p%"));
+        assertEquals(3, context.select(names).size());
+
+        names.setDistinct(true);
+        assertEquals(2, context.select(names).size());
+    }
+
+    @Test
+    public void testColumnQuery_Aggregates() throws Exception {
+        createArtistsDataSet();
+
+        TableHelper tPainting = new TableHelper(dbHelper, "PAINTING");
+        tPainting.setColumns("PAINTING_ID", "ARTIST_ID", "PAINTING_TITLE", "ESTIMATED_PRICE");
+        tPainting.insert(1, 1, "p1", new BigDecimal(1000));
+        tPainting.insert(2, 1, "p2", new BigDecimal(3000));
+        tPainting.insert(3, 2, "p3", new BigDecimal(5000));
+
+        SelectQuery<Long> count = SelectQuery.columnQuery(Painting.class, Painting.PAINTING_TITLE.count());
+        assertEquals(Collections.singletonList(3L), context.select(count));
+
+        SelectQuery<Object[]> query = SelectQuery.columnQuery(Artist.class, Artist.ARTIST_NAME,
+                Artist.PAINTING_ARRAY.count(), Artist.PAINTING_ARRAY.dot(Painting.ESTIMATED_PRICE).sum());
+        query.addOrdering(Artist.ARTIST_NAME.asc());
+
+        List<Object[]> rows = context.select(query);
+        assertEquals(2, rows.size());
+        assertEquals("artist1", rows.get(0)[0]);
+        assertEquals(2L, rows.get(0)[1]);
+        assertEquals(0, new BigDecimal(4000).compareTo((BigDecimal) rows.get(0)[2]));
+        assertEquals("artist2", rows.get(1)[0]);
+        assertEquals(1L, rows.get(1)[1]);
+
+        query.setHavingQualifier(Artist.PAINTING_ARRAY.count().gt(1L));
+        rows = context.select(query);
+        assertEquals(1, rows.size());
+        assertEquals("artist1", rows.get(0)[0]);
+    }
+
+    @Test
+    public void testColumnQuery_AggregatesCacheKey() {
+        SelectQuery<Object[]> q1 = SelectQuery.columnQuery(Artist.class, Artist.ARTIST_NAME,
+                Artist.PAINTING_ARRAY.count());
+        q1.useLocalCache();
+
+        SelectQuery<Object[]> q2 = SelectQuery.columnQuery(Artist.class, Artist.ARTIST_NAME, Artist.PAINTING_ARRAY);
+        q2.useLocalCache();
+
+        SelectQuery<Object[]> q3 = SelectQuery.columnQuery(Artist.class, Artist.ARTIST_NAME,
+                Artist.PAINTING_ARRAY.count());
+        q3.useLocalCache();
+        q3.setHavingQualifier(Artist.PAINTING_ARRAY.count().gt(1L));
+
+        String key1 = q1.getMetaData(context.getEntityResolver()).getCacheKey();
+        assertFalse(key1.equals(q2.getMetaData(context.getEntityResolver()).getCacheKey()));
+        assertFalse(key1.equals(q3.getMetaData(context.getEntityResolver()).getCacheKey()));
+    }
 }
@@ -0,0 +1,207 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.MockBaseContext;
+import org.apache.cayenne.ResultIterator;
+import org.apache.cayenne.query.Select;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SelectPublisherTest {
+
+    private ListIterator rows;
+    private MockBaseContext context;
+
+    @Before
+    public void before() {
+        rows = new ListIterator(Arrays.<Object> asList(1, 2, 3, 4, 5));
+        context = new MockBaseContext() {
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public <T> ResultIterator<T> iterator(Select<T> query) {
+                rows.opened = true;
+                return (ResultIterator<T>) rows;
+            }
+        };
+    }
+
+    @Test
+    public void testRequest() {
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        SelectPublisher.objects(context, null, null).subscribe(subscriber);
+
+        assertFalse(rows.opened);
+
+        subscriber.subscription.request(3);
+        assertEquals(Arrays.<Object> asList(1, 2, 3), subscriber.items);
+        assertFalse(subscriber.completed);
+        assertFalse(rows.closed);
+
+        subscriber.subscription.request(10);
+        assertEquals(Arrays.<Object> asList(1, 2, 3, 4, 5), subscriber.items);
+        assertTrue(subscriber.completed);
+        assertTrue(rows.closed);
+    }
+
+    @Test
+    public void testCancel() {
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        SelectPublisher.objects(context, null, null).subscribe(subscriber);
+
+        subscriber.subscription.request(2);
+        subscriber.subscription.cancel();
+
+        assertTrue(rows.closed);
+        assertEquals(2, subscriber.items.size());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+
+        subscriber.subscription.request(2);
+        assertEquals(2, subscriber.items.size());
+    }
+
+    @Test
+    public void testBatches() {
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new SelectPublisher<Object>(context, null, null, 2).subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(3, subscriber.items.size());
+        assertEquals(Arrays.asList(1, 2), subscriber.items.get(0));
+        assertEquals(Arrays.asList(5), subscriber.items.get(2));
+        assertTrue(subscriber.completed);
+        assertTrue(rows.closed);
+    }
+
+    @Test
+    public void testStallTimeout() throws InterruptedException {
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            SelectPublisher.objects(context, null, executor).stallTimeout(50).subscribe(subscriber);
+
+            subscriber.subscription.request(1);
+
+            assertTrue(subscriber.finished.await(5, TimeUnit.SECONDS));
+            assertNotNull(subscriber.error);
+            assertEquals(1, subscriber.items.size());
+            assertTrue(rows.closed);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static class ListIterator implements ResultIterator<Object> {
+
+        private Iterator<Object> it;
+        volatile boolean opened;
+        volatile boolean closed;
+
+        ListIterator(List<Object> rows) {
+            this.it = rows.iterator();
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return it;
+        }
+
+        @Override
+        public List<Object> allRows() {
+            List<Object> list = new ArrayList<Object>();
+            while (it.hasNext()) {
+                list.add(it.next());
+            }
+            return list;
+        }
+
+        @Override
+        public boolean hasNextRow() {
+            return it.hasNext();
+        }
+
+        @Override
+        public Object nextRow() {
+            return it.next();
+        }
+
+        @Override
+        public void skipRow() {
+            it.next();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    static class RecordingSubscriber implements Subscriber<Object> {
+
+        Subscription subscription;
+        List<Object> items = new ArrayList<Object>();
+        volatile boolean completed;
+        volatile Throwable error;
+        CountDownLatch finished = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Object item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            finished.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+            finished.countDown();
+        }
+    }
+}
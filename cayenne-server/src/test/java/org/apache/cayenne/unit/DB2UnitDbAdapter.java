@@ -53,4 +53,9 @@ public class DB2UnitDbAdapter extends UnitDbAdapter {
     public boolean supportsStoredProcedures() {
         return false;
     }
+
+    @Override
+    public boolean supportsUpsert() {
+        return true;
+    }
 }
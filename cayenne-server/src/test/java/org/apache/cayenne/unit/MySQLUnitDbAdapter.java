@@ -73,6 +73,11 @@ public class MySQLUnitDbAdapter extends UnitDbAdapter {
         return true;
     }
 
+    @Override
+    public boolean supportsSubqueryOnUpdatedTable() {
+        return false;
+    }
+
     @Override
     public boolean supportsCaseSensitiveLike() {
         return false;
@@ -120,4 +125,9 @@ public class MySQLUnitDbAdapter extends UnitDbAdapter {
         // tables...
         return !NO_CONSTRAINTS_TABLES.contains(entity.getName());
     }
+
+    @Override
+    public boolean supportsUpsert() {
+        return true;
+    }
 }
@@ -120,4 +120,9 @@ public class OracleUnitDbAdapter extends UnitDbAdapter {
             proc.setReturningValue(true);
         }
     }
+
+    @Override
+    public boolean supportsUpsert() {
+        return true;
+    }
 }
@@ -76,4 +76,9 @@ public class SQLServerUnitDbAdapter extends SybaseUnitDbAdapter {
     // ((JdbcAdapter) getAdapter()).setSupportsGeneratedKeys(false);
     // }
     // }
+
+    @Override
+    public boolean supportsUpsert() {
+        return true;
+    }
 }
@@ -45,4 +45,9 @@ public class SQLiteUnitDbAdapter extends UnitDbAdapter {
     public boolean supportsAllAnySome() {
         return false;
     }
+
+    @Override
+    public boolean supportsUpsert() {
+        return true;
+    }
 }
@@ -247,6 +247,22 @@ public class UnitDbAdapter {
         return false;
     }
 
+    /**
+     * Returns whether UPDATE and DELETE statements may have a subquery that
+     * selects from the table being changed.
+     */
+    public boolean supportsSubqueryOnUpdatedTable() {
+        return true;
+    }
+
+    /**
+     * Returns whether the adapter translates UpsertBatchQuery to a native
+     * statement supported by the test database.
+     */
+    public boolean supportsUpsert() {
+        return false;
+    }
+
     protected void executeDDL(Connection con, String ddl) throws Exception {
         logger.info(ddl);
         Statement st = con.createStatement();